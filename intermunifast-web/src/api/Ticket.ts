@@ -2,6 +2,8 @@ import { createEndpoint } from './API';
 import {
     TicketResponse,
     CreateTicketRequest,
+    QuoteRequest,
+    QuoteResponse,
     CheckInRequest,
     UpdateTicketRequest,
     TicketSearchParams,
@@ -22,6 +24,15 @@ export const TicketAPI = {
         requireAuth: true,
     }),
 
+    /**
+     * Price many (trip, segment, passenger type) items in one call
+     */
+    quote: createEndpoint<QuoteResponse, QuoteRequest>({
+        url: '/api/tickets/quote',
+        method: 'POST',
+        requireAuth: false,
+    }),
+
     /**
      * Get ticket by ID
      */
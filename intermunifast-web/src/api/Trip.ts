@@ -7,6 +7,8 @@ import {
     SeatResponse,
     TripQueryParams,
     TripSearchResponse,
+    FareCalendarDay,
+    Journey,
 } from './types/Booking';
 import { AssignmentResponse, IncidentResponse } from './types/Operations';
 
@@ -79,6 +81,36 @@ export const TripAPI = {
         requireAuth: false,
     }),
 
+    /**
+     * Search for trips between two picked stops (query params: fromStopId, toStopId,
+     * optional departureDate, cursor, limit). Matches every route serving the same places
+     */
+    searchByStops: createEndpoint<TripSearchResponse>({
+        url: '/api/trips/search/by-stops',
+        method: 'GET',
+        requireAuth: false,
+    }),
+
+    /**
+     * Trip count, cheapest fare and seats left per day for an origin/destination
+     * (query params: origin, destination, optional from (yyyy-MM-dd), days up to 90)
+     */
+    fareCalendar: createEndpoint<FareCalendarDay[]>({
+        url: '/api/trips/search/calendar',
+        method: 'GET',
+        requireAuth: false,
+    }),
+
+    /**
+     * Plan journeys with connections between two stops (query params: fromStopId, toStopId,
+     * optional departAfter, maxTransfers up to 3). Fastest arrival for each number of transfers
+     */
+    planJourneys: createEndpoint<Journey[]>({
+        url: '/api/trips/journeys',
+        method: 'GET',
+        requireAuth: false,
+    }),
+
     /**
      * Get all tickets for a trip
      * Supports optional query param: status
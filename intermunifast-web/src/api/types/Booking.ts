@@ -72,6 +72,34 @@ export interface CreateTicketRequest {
     passengerType: PassengerType;
 }
 
+// null stops are the route's origin/destination
+export interface QuoteItem {
+    tripId: number;
+    fromStopId: number | null;
+    toStopId: number | null;
+    passengerType: PassengerType;
+}
+
+export interface QuoteRequest {
+    items: QuoteItem[];
+}
+
+export interface QuoteLine {
+    tripId: number;
+    fromStopId: number | null;
+    toStopId: number | null;
+    passengerType: PassengerType;
+    // price ladder step a hold placed now would lock
+    fareStep: number;
+    price: number;
+}
+
+// lines in request order
+export interface QuoteResponse {
+    items: QuoteLine[];
+    total: number;
+}
+
 export interface CheckInRequest {
     qrCode: string;
 }
@@ -169,4 +197,34 @@ export interface TripSearchResponse {
     trips: TripResponse[];
     routes: import('./Transport').RouteResponse[];
     stops: import('./Transport').StopResponse[];
+    // pass as ?cursor= to fetch the next page, null on the last one
+    nextCursor: string | null;
+    // seats left on the searched segment, by trip id
+    seatsLeft: Record<number, number>;
+    // current adult fare on the searched segment, by trip id
+    fares: Record<number, number>;
+}
+
+export interface FareCalendarDay {
+    date: string;
+    trips: number;
+    // null on days without trips
+    minPrice: number | null;
+    seatsLeft: number;
+}
+
+export interface JourneyLeg {
+    tripId: number;
+    routeId: number;
+    fromStopId: number;
+    toStopId: number;
+    departureAt: string;
+    arrivalAt: string;
+}
+
+export interface Journey {
+    departureAt: string;
+    arrivalAt: string;
+    transfers: number;
+    legs: JourneyLeg[];
 }
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.example.api.dto.MetricsDTO;
 import com.example.metrics.MetricsService;
+import com.example.services.extra.TripSearchCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,6 +22,7 @@ import lombok.RequiredArgsConstructor;
 public class MetricsController {
 
     private final MetricsService metricsService;
+    private final TripSearchCache tripSearchCache;
 
     @GetMapping("/dashboard")
     public ResponseEntity<MetricsDTO.DashboardMetrics> getDashboardMetrics(
@@ -70,4 +72,9 @@ public class MetricsController {
         LocalDateTime end = LocalDate.now().plusYears(1).atTime(23, 59, 59, 999999999);
         return ResponseEntity.ok(metricsService.getDashboardMetrics(start, end));
     }
+
+    @GetMapping("/search-cache")
+    public ResponseEntity<MetricsDTO.SearchCacheMetrics> getSearchCacheMetrics() {
+        return ResponseEntity.ok(tripSearchCache.getMetrics());
+    }
 }
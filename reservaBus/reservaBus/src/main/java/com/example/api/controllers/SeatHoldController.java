@@ -2,6 +2,7 @@ package com.example.api.controllers;
 
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -37,6 +38,12 @@ public class SeatHoldController {
                 .body(createdSeatHold);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<SeatHoldDTOs.SeatHoldResponse>> createBatch(
+            @Validated @RequestBody SeatHoldDTOs.CreateSeatHoldBatchRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(seatHoldService.reserveSeats(req));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SeatHoldDTOs.SeatHoldResponse> getById(@PathVariable Long id) {
         SeatHoldDTOs.SeatHoldResponse seatHold = seatHoldService.getSeatReserveById(id);
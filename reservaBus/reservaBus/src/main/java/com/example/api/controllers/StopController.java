@@ -1,5 +1,8 @@
 package com.example.api.controllers;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -10,6 +13,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -36,6 +40,13 @@ public class StopController {
                 .body(createdStop);
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<StopDTOs.StopSuggestion>> autocomplete(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stopService.autocomplete(query, Optional.ofNullable(limit)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<StopDTOs.StopResponse> getById(@PathVariable Long id) {
         StopDTOs.StopResponse stop = stopService.getStopById(id);
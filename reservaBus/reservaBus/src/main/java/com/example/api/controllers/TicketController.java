@@ -2,6 +2,7 @@ package com.example.api.controllers;
 
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -40,6 +41,17 @@ public class TicketController {
                 .body(createdTicket);
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<List<TicketDTOs.TicketResponse>> checkout(
+            @Validated @RequestBody TicketDTOs.CheckoutRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(ticketService.checkout(req));
+    }
+
+    @PostMapping("/quote")
+    public ResponseEntity<TicketDTOs.QuoteResponse> quote(@Validated @RequestBody TicketDTOs.QuoteRequest req) {
+        return ResponseEntity.ok(ticketService.quote(req));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TicketDTOs.TicketResponse> getById(@PathVariable Long id) {
         TicketDTOs.TicketResponse ticket = ticketService.getTicketById(id);
@@ -1,9 +1,15 @@
 package com.example.api.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -16,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.example.api.dto.AssignmentDTOs;
@@ -25,14 +33,21 @@ import com.example.api.dto.TicketDTOs;
 import com.example.api.dto.TripDTOs;
 import com.example.domain.enums.TicketStatus;
 import com.example.services.definitions.TripService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/trips")
 public class TripController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TripService tripService;
+    private final ObjectMapper objectMapper;
 
-    public TripController(TripService tripService) {
+    public TripController(TripService tripService, ObjectMapper objectMapper) {
         this.tripService = tripService;
+        // the stream writes many documents to one response, the mapper must not close it
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @PreAuthorize("hasAnyAuthority('CLERK', 'ADMIN')")
@@ -67,35 +82,108 @@ public class TripController {
         return ResponseEntity.ok(trips);
     }
 
-    
     @GetMapping("/search")
     public ResponseEntity<TripDTOs.TripSearchResponse> search(
             @RequestParam String origin,
             @RequestParam String destination,
             // optional
+            @RequestParam(required = false) String departureDate,
+            // keyset paging, pass nextCursor of the previous page
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        validateSearchTerms(origin, destination);
+        TripDTOs.TripSearchResponse searchResponse = tripService.searchTrips(origin, destination,
+                parseDepartureDate(departureDate), Optional.ofNullable(cursor), Optional.ofNullable(limit));
+        return ResponseEntity.ok(searchResponse);
+    }
+
+    // origin and destination picked from the stop list, matched on the places they stand for
+    @GetMapping("/search/by-stops")
+    public ResponseEntity<TripDTOs.TripSearchResponse> searchByStops(
+            @RequestParam Long fromStopId,
+            @RequestParam Long toStopId,
+            @RequestParam(required = false) String departureDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tripService.searchTripsByStops(fromStopId, toStopId, parseDepartureDate(departureDate),
+                Optional.ofNullable(cursor), Optional.ofNullable(limit)));
+    }
+
+    // one trip per line, written while the rows are read from the database
+    @GetMapping(path = "/search/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> searchStream(
+            @RequestParam String origin,
+            @RequestParam String destination,
             @RequestParam(required = false) String departureDate) {
 
-        // Validate required parameters
+        validateSearchTerms(origin, destination);
+        Optional<LocalDateTime> departureTime = parseDepartureDate(departureDate);
+        StreamingResponseBody body = out -> {
+            int[] written = { 0 };
+            tripService.streamSearchTrips(origin, destination, departureTime, trip -> {
+                try {
+                    objectMapper.writeValue(out, trip);
+                    out.write('\n');
+                    // first row goes out right away, then in chunks
+                    if (written[0]++ % 100 == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // trip count, cheapest fare and seats left per day, for date pickers
+    @GetMapping("/search/calendar")
+    public ResponseEntity<List<TripDTOs.FareCalendarDay>> fareCalendar(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            // defaults to today
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) Integer days) {
+
+        validateSearchTerms(origin, destination);
+        return ResponseEntity.ok(tripService.getFareCalendar(origin, destination, Optional.ofNullable(from),
+                Optional.ofNullable(days)));
+    }
+
+    // direct trips and connections at shared stops, fastest arrival for each number of transfers
+    @GetMapping("/journeys")
+    public ResponseEntity<List<TripDTOs.Journey>> planJourneys(
+            @RequestParam Long fromStopId,
+            @RequestParam Long toStopId,
+            // defaults to now
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(required = false) Integer maxTransfers) {
+        return ResponseEntity.ok(tripService.planJourneys(fromStopId, toStopId, parseDepartureDate(departAfter),
+                Optional.ofNullable(maxTransfers)));
+    }
+
+    private void validateSearchTerms(String origin, String destination) {
         if (origin == null || origin.isBlank()) {
             throw new IllegalArgumentException("Origin parameter is required");
         }
         if (destination == null || destination.isBlank()) {
             throw new IllegalArgumentException("Destination parameter is required");
         }
+    }
 
-        // Parse departureDate only if provided and not empty
-        Optional<LocalDateTime> departureTime = Optional.empty();
-        if (departureDate != null && !departureDate.isBlank()) {
-            try {
-                departureTime = Optional.of(LocalDateTime.parse(departureDate));
-            } catch (Exception e) {
-                throw new IllegalArgumentException(
-                        "Invalid departureDate format. Expected ISO-8601 datetime (e.g., 2025-11-14T10:00:00)");
-            }
+    // departureDate is only parsed when provided and not empty
+    private Optional<LocalDateTime> parseDepartureDate(String departureDate) {
+        if (departureDate == null || departureDate.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDateTime.parse(departureDate));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    "Invalid departureDate format. Expected ISO-8601 datetime (e.g., 2025-11-14T10:00:00)");
         }
-
-        TripDTOs.TripSearchResponse searchResponse = tripService.searchTrips(origin, destination, departureTime);
-        return ResponseEntity.ok(searchResponse);
     }
 
     @PreAuthorize("hasAnyAuthority('CLERK', 'ADMIN')")
@@ -107,6 +195,13 @@ public class TripController {
         return ResponseEntity.ok(updatedTrip);
     }
 
+    @PreAuthorize("hasAnyAuthority('DRIVER', 'DISPATCHER', 'CLERK', 'ADMIN')")
+    @PostMapping("/{id}/arrive")
+    public ResponseEntity<TripDTOs.TripResponse> arrive(@PathVariable Long id) {
+        TripDTOs.TripResponse arrivedTrip = tripService.markTripArrived(id);
+        return ResponseEntity.ok(arrivedTrip);
+    }
+
     @PreAuthorize("hasAnyAuthority('CLERK', 'ADMIN')")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
@@ -129,6 +224,29 @@ public class TripController {
         return ResponseEntity.ok(seats);
     }
 
+    // seats with their tickets/holds and availability for the given segment (null = route origin/destination)
+    @GetMapping("/{id}/seat-map")
+    public ResponseEntity<SeatDTOs.SeatMapResponse> getSeatMap(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long fromStopId,
+            @RequestParam(required = false) Long toStopId) {
+        SeatDTOs.SeatMapResponse seatMap = tripService.getSeatMap(id, fromStopId, toStopId);
+        // Spring answers a matching If-None-Match with 304 and no body
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(seatMap.version())
+                .body(seatMap);
+    }
+
+    // snapshot first, then one event per booking change on the trip
+    @GetMapping(path = "/{id}/seat-map/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatMap(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long fromStopId,
+            @RequestParam(required = false) Long toStopId) {
+        return tripService.subscribeSeatMap(id, fromStopId, toStopId);
+    }
+
     @GetMapping("/{id}/assignments")
     public ResponseEntity<List<AssignmentDTOs.AssignmentResponse>> getAssignmentsByTripId(@PathVariable Long id) {
         List<AssignmentDTOs.AssignmentResponse> assignments = tripService.getAssignmentsByTripId(id);
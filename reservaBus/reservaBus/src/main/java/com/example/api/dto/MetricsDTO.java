@@ -70,4 +70,16 @@ public class MetricsDTO {
         private LocalDateTime startDate;
         private LocalDateTime endDate;
     }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchCacheMetrics {
+        private Long hits;
+        private Long misses;
+        private Long evictions;
+        private Long size;
+        private Double hitRate;
+    }
 }
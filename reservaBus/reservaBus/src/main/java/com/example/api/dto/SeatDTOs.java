@@ -1,6 +1,7 @@
 package com.example.api.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import com.example.domain.enums.SeatType;
@@ -40,4 +41,40 @@ public class SeatDTOs {
                         Optional<StopDTOs.StopResponse> fromStop,
                         Optional<StopDTOs.StopResponse> toStop) implements java.io.Serializable {
         }
+
+        public record SeatMapBooking(
+                        Long id,
+                        Boolean hold, // false for a sold ticket
+                        Optional<StopDTOs.StopResponse> fromStop, // empty = route origin
+                        Optional<StopDTOs.StopResponse> toStop, // empty = route destination
+                        LocalDateTime expiresAt) implements java.io.Serializable {
+        }
+
+        public record SeatMapSeat(
+                        Long id,
+                        String number,
+                        SeatType type,
+                        Boolean available, // free for the requested segment
+                        List<SeatMapBooking> bookings) implements java.io.Serializable {
+        }
+
+        public record SeatMapResponse(
+                        Long tripId,
+                        Long busId,
+                        Optional<Long> fromStopId,
+                        Optional<Long> toStopId,
+                        List<SeatMapSeat> seats,
+                        String version) implements java.io.Serializable { // changes with every booking on the trip
+        }
+
+        // one seat changing state on one segment, pushed to seat map subscribers
+        public record SeatMapDelta(
+                        Long tripId,
+                        String seatNumber,
+                        Integer fromSequence, // null = route origin
+                        Integer toSequence, // null = route destination
+                        String state, // SOLD, HELD, FREE
+                        Long bookingId, // ticket or hold id
+                        String version) implements java.io.Serializable {
+        }
 }
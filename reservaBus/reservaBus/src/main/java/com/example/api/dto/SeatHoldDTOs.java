@@ -1,6 +1,7 @@
 package com.example.api.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public class SeatHoldDTOs {
@@ -12,6 +13,14 @@ public class SeatHoldDTOs {
                         LocalDateTime expiresAt) implements java.io.Serializable {
         }
 
+        public record CreateSeatHoldBatchRequest(
+                        List<String> seatNumbers,
+                        Long tripId,
+                        Optional<Long> fromStopId,
+                        Optional<Long> toStopId,
+                        LocalDateTime expiresAt) implements java.io.Serializable {
+        }
+
         public record UpdateSeatHoldRequest(
                         Optional<String> seatNumber,
                         Optional<Long> tripId,
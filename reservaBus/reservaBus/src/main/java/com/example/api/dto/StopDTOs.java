@@ -1,5 +1,6 @@
 package com.example.api.dto;
 
+import java.util.List;
 import java.util.Optional;
 
 public class StopDTOs {
@@ -27,4 +28,11 @@ public class StopDTOs {
                         Double longitude,
                         Long routeId) implements java.io.Serializable {
         }
-}
\ No newline at end of file
+
+        // a place matching the typed prefix, with the stops that serve it on every route
+        public record StopSuggestion(
+                        String name,
+                        List<Long> stopIds,
+                        Long tripCount) implements java.io.Serializable {
+        }
+}
@@ -1,5 +1,6 @@
 package com.example.api.dto;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.example.domain.enums.FareRulePassengerType;
@@ -17,6 +18,46 @@ public class TicketDTOs {
                         FareRulePassengerType passengerType) implements java.io.Serializable {
         }
 
+        public record CheckoutItem(
+                        Long holdId,
+                        FareRulePassengerType passengerType) implements java.io.Serializable {
+        }
+
+        // turns the caller's seat holds into paid tickets in one go
+        public record CheckoutRequest(
+                        List<CheckoutItem> items,
+                        PaymentMethod paymentMethod,
+                        String paymentIntentId) implements java.io.Serializable {
+        }
+
+        // an empty stop is the route's origin/destination, as on CreateTicketRequest
+        public record QuoteItem(
+                        Long tripId,
+                        Optional<Long> fromStopId,
+                        Optional<Long> toStopId,
+                        FareRulePassengerType passengerType) implements java.io.Serializable {
+        }
+
+        // prices many seats in one call, e.g. a family booking across several trips
+        public record QuoteRequest(
+                        List<QuoteItem> items) implements java.io.Serializable {
+        }
+
+        public record QuoteLine(
+                        Long tripId,
+                        Optional<Long> fromStopId,
+                        Optional<Long> toStopId,
+                        FareRulePassengerType passengerType,
+                        Integer fareStep, // price ladder step a hold placed now would lock
+                        Double price) implements java.io.Serializable {
+        }
+
+        // lines in request order
+        public record QuoteResponse(
+                        List<QuoteLine> items,
+                        Double total) implements java.io.Serializable {
+        }
+
         public record CheckInRequest(
                         String qrCode) implements java.io.Serializable {
         }
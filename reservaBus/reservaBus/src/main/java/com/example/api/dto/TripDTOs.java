@@ -1,7 +1,9 @@
 package com.example.api.dto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public class TripDTOs {
     public record CreateTripRequest(
@@ -29,6 +31,34 @@ public class TripDTOs {
     public record TripSearchResponse(
             List<TripResponse> trips,
             List<RouteDTOs.RouteResponse> routes,
-            List<StopDTOs.StopResponse> stops) implements java.io.Serializable {
+            List<StopDTOs.StopResponse> stops,
+            String nextCursor, // null on the last page
+            Map<Long, Integer> seatsLeft, // by trip id, on the searched segment
+            Map<Long, Double> fares // adult fare by trip id, on the searched segment
+    ) implements java.io.Serializable {
+    }
+
+    // minPrice is null on days without trips
+    public record FareCalendarDay(
+            LocalDate date,
+            Long trips,
+            Double minPrice,
+            Long seatsLeft) implements java.io.Serializable {
+    }
+
+    public record JourneyLeg(
+            Long tripId,
+            Long routeId,
+            Long fromStopId,
+            Long toStopId,
+            LocalDateTime departureAt,
+            LocalDateTime arrivalAt) implements java.io.Serializable {
+    }
+
+    public record Journey(
+            LocalDateTime departureAt,
+            LocalDateTime arrivalAt,
+            Integer transfers,
+            List<JourneyLeg> legs) implements java.io.Serializable {
     }
 }
@@ -1,6 +1,9 @@
 package com.example.api.exceptions;
 
+import java.sql.SQLException;
+
 import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -9,8 +12,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
+import com.example.exceptions.ConflictException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    // Postgres exclusion_violation, raised by the segment overlap constraints
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     @ExceptionHandler(com.example.exceptions.NotFoundException.class)
     public ResponseEntity<APIErrorResponse> handleNotFound(com.example.exceptions.NotFoundException e,
             WebRequest req) {
@@ -54,6 +62,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<APIErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException e,
+            WebRequest req) {
+        if (isExclusionViolation(e)) {
+            return handleConflict(new ConflictException(
+                    "Seat is already sold or held for an overlapping segment"), req);
+        }
+        // any other violation is not the client's to fix
+        return handleGenericException(e, req);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<APIErrorResponse> handleIllegalArgument(IllegalArgumentException e, WebRequest req) {
         APIErrorResponse errorResponse = APIErrorResponse.of(
@@ -66,9 +85,8 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
-    @ExceptionHandler(com.example.exceptions.ConflictException.class)
-    public ResponseEntity<APIErrorResponse> handleConflict(com.example.exceptions.ConflictException e,
-            WebRequest req) {
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<APIErrorResponse> handleConflict(ConflictException e, WebRequest req) {
         APIErrorResponse errorResponse = APIErrorResponse.of(
                 HttpStatus.CONFLICT.value(),
                 "Conflict",
@@ -92,6 +110,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
 
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<APIErrorResponse> handleGenericException(Exception e, WebRequest req) {
         APIErrorResponse errorResponse = APIErrorResponse.of(
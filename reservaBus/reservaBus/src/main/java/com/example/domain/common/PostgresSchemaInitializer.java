@@ -0,0 +1,106 @@
+package com.example.domain.common;
+
+import java.util.List;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Postgres objects Hibernate's ddl-auto cannot express. Every statement is
+ * idempotent and runs once Hibernate has created or updated the schema.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class PostgresSchemaInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final List<String> SEGMENT_EXCLUSION = List.of(
+            "CREATE EXTENSION IF NOT EXISTS btree_gist",
+
+            // backfill rows written before the sequence columns existed
+            """
+                    UPDATE tickets t SET
+                        from_sequence = COALESCE((SELECT s.sequence FROM stops s WHERE s.id = t.from_stop_id), -2147483648),
+                        to_sequence = COALESCE((SELECT s.sequence FROM stops s WHERE s.id = t.to_stop_id), 2147483647)
+                    WHERE t.from_sequence IS NULL OR t.to_sequence IS NULL
+                    """,
+            """
+                    UPDATE seat_holds h SET
+                        from_sequence = COALESCE((SELECT s.sequence FROM stops s WHERE s.id = h.from_stop_id), -2147483648),
+                        to_sequence = COALESCE((SELECT s.sequence FROM stops s WHERE s.id = h.to_stop_id), 2147483647)
+                    WHERE h.from_sequence IS NULL OR h.to_sequence IS NULL
+                    """,
+            "ALTER TABLE tickets ALTER COLUMN from_sequence SET NOT NULL, ALTER COLUMN to_sequence SET NOT NULL",
+            "ALTER TABLE seat_holds ALTER COLUMN from_sequence SET NOT NULL, ALTER COLUMN to_sequence SET NOT NULL",
+
+            // a seat can only be sold (CONFIRMED) or held once per stretch of the trip
+            """
+                    DO $$ BEGIN
+                        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'tickets_no_overlapping_segments') THEN
+                            ALTER TABLE tickets ADD CONSTRAINT tickets_no_overlapping_segments EXCLUDE USING gist (
+                                trip_id WITH =,
+                                seat_number WITH =,
+                                int4range(from_sequence, to_sequence) WITH &&
+                            ) WHERE (status = 'CONFIRMED');
+                        END IF;
+                    END $$
+                    """,
+            """
+                    DO $$ BEGIN
+                        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'seat_holds_no_overlapping_segments') THEN
+                            ALTER TABLE seat_holds ADD CONSTRAINT seat_holds_no_overlapping_segments EXCLUDE USING gist (
+                                trip_id WITH =,
+                                seat_number WITH =,
+                                int4range(from_sequence, to_sequence) WITH &&
+                            );
+                        END IF;
+                    END $$
+                    """);
+
+    // the expiry sweep looks holds up by expiry time
+    private static final List<String> HOLD_EXPIRY = List.of(
+            "CREATE INDEX IF NOT EXISTS seat_holds_expires_at_idx ON seat_holds (expires_at)");
+
+    // trip search matches route and stop names by substring or trigram similarity, accents and case folded
+    private static final List<String> NAME_SEARCH = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE EXTENSION IF NOT EXISTS unaccent",
+            // unaccent() is only STABLE, pinning the dictionary makes it usable in an index
+            """
+                    CREATE OR REPLACE FUNCTION search_normalize(text) RETURNS text
+                        LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+                        AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, $1)) $$
+                    """,
+            "CREATE INDEX IF NOT EXISTS stops_name_trgm_idx ON stops USING gin (search_normalize(name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS routes_origin_trgm_idx ON routes USING gin (search_normalize(origin) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS routes_destination_trgm_idx ON routes USING gin (search_normalize(destination) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS stops_route_sequence_idx ON stops (route_id, sequence)",
+            // keyset paging walks search results in (departure_at, id) order
+            "CREATE INDEX IF NOT EXISTS trips_departure_at_id_idx ON trips (departure_at, id)",
+            // search by stop pair seeks the upcoming trips of a few routes
+            "CREATE INDEX IF NOT EXISTS trips_route_departure_at_idx ON trips (route_id, departure_at, id)");
+
+    // the rollup backfill recounts tickets one day at a time, by sale and by cancellation day
+    private static final List<String> DAILY_ROLLUPS = List.of(
+            "CREATE INDEX IF NOT EXISTS tickets_created_at_idx ON tickets (created_at)",
+            """
+                    CREATE INDEX IF NOT EXISTS tickets_cancelled_day_idx ON tickets ((COALESCE(cancelled_at, updated_at)))
+                        WHERE status = 'CANCELLED'
+                    """,
+            // a bus capacity change is spread over the days of its trips
+            "CREATE INDEX IF NOT EXISTS trips_bus_id_idx ON trips (bus_id)");
+
+    @PostConstruct
+    public void init() {
+        SEGMENT_EXCLUSION.forEach(jdbcTemplate::execute);
+        HOLD_EXPIRY.forEach(jdbcTemplate::execute);
+        NAME_SEARCH.forEach(jdbcTemplate::execute);
+        DAILY_ROLLUPS.forEach(jdbcTemplate::execute);
+    }
+}
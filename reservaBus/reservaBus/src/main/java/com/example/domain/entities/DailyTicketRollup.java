@@ -0,0 +1,60 @@
+package com.example.domain.entities;
+
+import java.time.LocalDate;
+
+import com.example.domain.enums.TicketStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Ticket totals of one route for one (UTC) day and ticket status. Tickets and
+ * revenue count the tickets sold that day that are currently in the status,
+ * cancellations the tickets cancelled that day (CANCELLED rows only).
+ */
+@Entity
+@Table(name = "daily_ticket_rollups", uniqueConstraints = @UniqueConstraint(name = "daily_ticket_rollups_key", columnNames = {
+        "day", "route_id", "status" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyTicketRollup {
+    // rows are upserted by native queries, which draw the id from this generator's sequence
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    // plain column, a route's history outlives the route
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TicketStatus status;
+
+    @Column(nullable = false)
+    private long tickets;
+
+    @Column(nullable = false)
+    private double revenue;
+
+    @Column(nullable = false)
+    private long cancellations;
+}
@@ -0,0 +1,61 @@
+package com.example.domain.entities;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Trips of one route departing on one day, the seats and seat-km their buses
+ * offer, the seat-km sold on them and how many arrived on time.
+ */
+@Entity
+@Table(name = "daily_trip_rollups", uniqueConstraints = @UniqueConstraint(name = "daily_trip_rollups_key", columnNames = {
+        "day", "route_id" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyTripRollup {
+    // rows are upserted by native queries, which draw the id from this generator's sequence
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Column(nullable = false)
+    private long trips;
+
+    @Column(nullable = false)
+    private long seatsOffered;
+
+    // bus capacity times route km
+    @Column(nullable = false)
+    private double seatKmOffered;
+
+    // route km of every sold ticket (CONFIRMED or NO_SHOW)
+    @Column(nullable = false)
+    private double seatKmSold;
+
+    @Column(nullable = false)
+    private long tripsCompleted;
+
+    @Column(nullable = false)
+    private long tripsOnTime;
+}
@@ -0,0 +1,41 @@
+package com.example.domain.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress of a rollup backfill, moved forward in the same transaction as the
+ * day it rebuilt so an interrupted run resumes where it stopped.
+ */
+@Entity
+@Table(name = "rollup_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupCheckpoint {
+    @Id
+    private String name;
+
+    // next day to rebuild
+    @Column(nullable = false)
+    private LocalDate nextDay;
+
+    // last day to rebuild, the day the backfill started; later days are kept up to date by the writes
+    @Column(nullable = false)
+    private LocalDate untilDay;
+
+    @Column(nullable = true)
+    private LocalDateTime completedAt;
+}
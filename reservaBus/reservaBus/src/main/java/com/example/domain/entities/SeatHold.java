@@ -2,6 +2,8 @@ package com.example.domain.entities;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.Hibernate;
+
 import com.example.domain.common.TimestampedEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -10,6 +12,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -52,4 +56,31 @@ public class SeatHold extends TimestampedEntity {
     @ManyToOne(optional = true)
     @JoinColumn(name = "to_stop_id", nullable = true)
     private Stop toStop;
+
+    // Same segment bounds as Ticket, no two holds of a seat may overlap
+    @Column(nullable = true)
+    private Integer fromSequence;
+
+    @Column(nullable = true)
+    private Integer toSequence;
+
+    // price ladder step quoted when the seat was held, checkout charges it
+    @Column(nullable = true)
+    private Integer fareStep;
+
+    @PrePersist
+    @PreUpdate
+    void syncSegmentSequences() {
+        // a stop attached by reference keeps the sequence the booking resolved, without loading it
+        if (fromStop == null) {
+            fromSequence = Integer.MIN_VALUE;
+        } else if (fromSequence == null || Hibernate.isInitialized(fromStop)) {
+            fromSequence = fromStop.getSequence();
+        }
+        if (toStop == null) {
+            toSequence = Integer.MAX_VALUE;
+        } else if (toSequence == null || Hibernate.isInitialized(toStop)) {
+            toSequence = toStop.getSequence();
+        }
+    }
 }
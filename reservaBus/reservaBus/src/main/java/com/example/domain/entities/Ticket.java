@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.Hibernate;
+
 import com.example.domain.common.TimestampedEntity;
 import com.example.domain.enums.FareRulePassengerType;
 import com.example.domain.enums.PaymentMethod;
@@ -20,6 +22,8 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
@@ -58,6 +62,10 @@ public class Ticket extends TimestampedEntity {
     @Column(nullable = true)
     private LocalDateTime checkedInAt;
 
+    // epoch millis like createdAt, the day the cancellation is counted on in the daily rollups
+    @Column(nullable = true)
+    private Long cancelledAt;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentMethod paymentMethod;
@@ -94,6 +102,23 @@ public class Ticket extends TimestampedEntity {
     @JoinColumn(name = "to_stop_id", nullable = true)
     private Stop toStop;
 
+    // Stop sequences of the booked segment (route origin/destination stored as
+    // Integer.MIN_VALUE/MAX_VALUE), kept in sync from the stops for the
+    // int4range exclusion constraint that rejects overlapping bookings
+    @Column(nullable = true)
+    private Integer fromSequence;
+
+    @Column(nullable = true)
+    private Integer toSequence;
+
+    // step of the route's price ladder the ticket was sold at, null for tickets sold before dynamic pricing
+    @Column(nullable = true)
+    private Integer fareStep;
+
+    // route km between the ticket's stops, the seat-km it sells in the occupancy rollups; null for older tickets
+    @Column(nullable = true)
+    private Double segmentKm;
+
     @OneToMany(mappedBy = "ticket")
     @Builder.Default
     private List<Baggage> baggages = new ArrayList<>();
@@ -101,4 +126,20 @@ public class Ticket extends TimestampedEntity {
     @Transient
     private List<Incident> incidents;
 
+    @PrePersist
+    @PreUpdate
+    void syncSegmentSequences() {
+        // a stop attached by reference keeps the sequence the booking resolved, without loading it
+        if (fromStop == null) {
+            fromSequence = Integer.MIN_VALUE;
+        } else if (fromSequence == null || Hibernate.isInitialized(fromStop)) {
+            fromSequence = fromStop.getSequence();
+        }
+        if (toStop == null) {
+            toSequence = Integer.MAX_VALUE;
+        } else if (toSequence == null || Hibernate.isInitialized(toStop)) {
+            toSequence = toStop.getSequence();
+        }
+    }
+
 }
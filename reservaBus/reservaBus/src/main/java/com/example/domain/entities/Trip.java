@@ -53,6 +53,14 @@ public class Trip extends TimestampedEntity {
     @Column(nullable = false)
     private TripStatus status;
 
+    // arrivalAt as it stood when the trip departed, later changes to arrivalAt are delays
+    @Column(nullable = true)
+    private LocalDateTime scheduledArrivalAt;
+
+    // when a driver or clerk reported the trip arrived, the only arrival punctuality is measured on
+    @Column(nullable = true)
+    private LocalDateTime arrivedAt;
+
     @OneToMany(mappedBy = "trip")
     @Builder.Default
     private List<SeatHold> seatHolds = new ArrayList<>();
@@ -0,0 +1,101 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.domain.entities.DailyTicketRollup;
+
+public interface DailyTicketRollupRepository extends JpaRepository<DailyTicketRollup, Long> {
+
+    // adds the selected deltas to their rows, creating the rows on first use; new ids come from the
+    // sequence Hibernate generates for the entity, a conflicting row just skips one value
+    String ADD_ON_CONFLICT = """
+                ON CONFLICT (day, route_id, status) DO UPDATE SET
+                    tickets = daily_ticket_rollups.tickets + EXCLUDED.tickets,
+                    revenue = daily_ticket_rollups.revenue + EXCLUDED.revenue,
+                    cancellations = daily_ticket_rollups.cancellations + EXCLUDED.cancellations
+            """;
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO daily_ticket_rollups (id, day, route_id, status, tickets, revenue, cancellations)
+                VALUES (nextval('daily_ticket_rollups_seq'), :day, :routeId, :status, :tickets, :revenue,
+                    :cancellations)
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int add(@Param("day") LocalDate day,
+            @Param("routeId") Long routeId,
+            @Param("status") String status,
+            @Param("tickets") long tickets,
+            @Param("revenue") double revenue,
+            @Param("cancellations") long cancellations);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) every ticket of a trip under the
+     * given route, for a trip moved to another route.
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO daily_ticket_rollups (id, day, route_id, status, tickets, revenue, cancellations)
+                SELECT nextval('daily_ticket_rollups_seq'), day, :routeId, status, :sign * SUM(sold),
+                    :sign * SUM(revenue), :sign * SUM(cancelled)
+                FROM (
+                    SELECT CAST(to_timestamp(t.created_at / 1000.0) AT TIME ZONE 'UTC' AS date) AS day, t.status,
+                        1 AS sold, t.price AS revenue, 0 AS cancelled
+                    FROM tickets t WHERE t.trip_id = :tripId
+                    UNION ALL
+                    SELECT CAST(to_timestamp(COALESCE(t.cancelled_at, t.updated_at) / 1000.0) AT TIME ZONE 'UTC' AS date),
+                        t.status, 0, 0, 1
+                    FROM tickets t WHERE t.trip_id = :tripId AND t.status = 'CANCELLED'
+                ) moved
+                GROUP BY day, status
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int addTripTickets(@Param("tripId") Long tripId, @Param("routeId") Long routeId, @Param("sign") int sign);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_ticket_rollups WHERE day = :day", nativeQuery = true)
+    int deleteDay(@Param("day") LocalDate day);
+
+    /**
+     * Recounts one day from the tickets: sales by the day they were made, in
+     * their current status, and cancellations by the day they happened
+     * (updated_at for tickets cancelled before cancelled_at existed). Adds to
+     * rows a concurrent write created after the day was cleared.
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO daily_ticket_rollups (id, day, route_id, status, tickets, revenue, cancellations)
+                SELECT nextval('daily_ticket_rollups_seq'), :day, route_id, status, SUM(sold), SUM(revenue),
+                    SUM(cancelled)
+                FROM (
+                    SELECT tr.route_id, t.status, 1 AS sold, t.price AS revenue, 0 AS cancelled
+                    FROM tickets t JOIN trips tr ON tr.id = t.trip_id
+                    WHERE t.created_at >= :startMillis AND t.created_at < :endMillis
+                    UNION ALL
+                    SELECT tr.route_id, t.status, 0, 0, 1
+                    FROM tickets t JOIN trips tr ON tr.id = t.trip_id
+                    WHERE t.status = 'CANCELLED'
+                    AND COALESCE(t.cancelled_at, t.updated_at) >= :startMillis
+                    AND COALESCE(t.cancelled_at, t.updated_at) < :endMillis
+                ) counted
+                GROUP BY route_id, status
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int rebuildDay(@Param("day") LocalDate day, @Param("startMillis") long startMillis,
+            @Param("endMillis") long endMillis);
+
+    @Query("""
+                SELECT new com.example.domain.repositories.TicketRollupTotals(
+                    r.status, SUM(r.tickets), SUM(r.revenue), SUM(r.cancellations))
+                FROM DailyTicketRollup r
+                WHERE r.day BETWEEN :from AND :to
+                GROUP BY r.status
+            """)
+    List<TicketRollupTotals> sumByStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(value = "SELECT MIN(created_at) FROM tickets", nativeQuery = true)
+    Long findFirstTicketCreatedAt();
+}
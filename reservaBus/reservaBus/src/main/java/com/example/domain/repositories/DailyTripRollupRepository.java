@@ -0,0 +1,120 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.domain.entities.DailyTripRollup;
+
+public interface DailyTripRollupRepository extends JpaRepository<DailyTripRollup, Long> {
+
+    String ADD_ON_CONFLICT = """
+                ON CONFLICT (day, route_id) DO UPDATE SET
+                    trips = daily_trip_rollups.trips + EXCLUDED.trips,
+                    seats_offered = daily_trip_rollups.seats_offered + EXCLUDED.seats_offered,
+                    seat_km_offered = daily_trip_rollups.seat_km_offered + EXCLUDED.seat_km_offered,
+                    seat_km_sold = daily_trip_rollups.seat_km_sold + EXCLUDED.seat_km_sold,
+                    trips_completed = daily_trip_rollups.trips_completed + EXCLUDED.trips_completed,
+                    trips_on_time = daily_trip_rollups.trips_on_time + EXCLUDED.trips_on_time
+            """;
+
+    // ids come from the sequence Hibernate generates for the entity
+    String INSERT_INTO = """
+                INSERT INTO daily_trip_rollups (id, day, route_id, trips, seats_offered, seat_km_offered,
+                    seat_km_sold, trips_completed, trips_on_time)
+            """;
+
+    @Modifying
+    @Query(value = INSERT_INTO + """
+                VALUES (nextval('daily_trip_rollups_seq'), :day, :routeId, :trips, :seatsOffered, :seatKmOffered,
+                    :seatKmSold, :tripsCompleted, :tripsOnTime)
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int add(@Param("day") LocalDate day,
+            @Param("routeId") Long routeId,
+            @Param("trips") long trips,
+            @Param("seatsOffered") long seatsOffered,
+            @Param("seatKmOffered") double seatKmOffered,
+            @Param("seatKmSold") double seatKmSold,
+            @Param("tripsCompleted") long tripsCompleted,
+            @Param("tripsOnTime") long tripsOnTime);
+
+    /**
+     * Adds (sign 1) or takes out (sign -1) one trip under the given day and
+     * route, together with the seat-km sold on it. Tickets without a segment
+     * length count the whole route.
+     */
+    @Modifying
+    @Query(value = INSERT_INTO + """
+                SELECT nextval('daily_trip_rollups_seq'), :day, :routeId, :sign, :sign * :seatsOffered,
+                    :sign * :seatKmOffered,
+                    :sign * COALESCE(SUM(COALESCE(t.segment_km, :routeKm)), 0),
+                    :sign * :tripsCompleted, :sign * :tripsOnTime
+                FROM tickets t WHERE t.trip_id = :tripId AND t.status IN ('CONFIRMED', 'NO_SHOW')
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int addTrip(@Param("tripId") Long tripId,
+            @Param("day") LocalDate day,
+            @Param("routeId") Long routeId,
+            @Param("sign") int sign,
+            @Param("seatsOffered") long seatsOffered,
+            @Param("seatKmOffered") double seatKmOffered,
+            @Param("routeKm") double routeKm,
+            @Param("tripsCompleted") long tripsCompleted,
+            @Param("tripsOnTime") long tripsOnTime);
+
+    // seats offered by every trip of a bus whose capacity changed by the given delta
+    @Modifying
+    @Query(value = INSERT_INTO + """
+                SELECT nextval('daily_trip_rollups_seq'), CAST(t.departure_at AS date), t.route_id, 0,
+                    COUNT(*) * :capacityDelta,
+                    SUM(r.distance_km) * :capacityDelta, 0, 0, 0
+                FROM trips t JOIN routes r ON r.id = t.route_id WHERE t.bus_id = :busId
+                GROUP BY CAST(t.departure_at AS date), t.route_id
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int addBusCapacity(@Param("busId") Long busId, @Param("capacityDelta") long capacityDelta);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_trip_rollups WHERE day = :day", nativeQuery = true)
+    int deleteDay(@Param("day") LocalDate day);
+
+    /**
+     * Recounts one day from the trips departing on it. Only trips with a
+     * reported arrival count as completed.
+     */
+    @Modifying
+    @Query(value = INSERT_INTO + """
+                SELECT nextval('daily_trip_rollups_seq'), :day, t.route_id, COUNT(*), COALESCE(SUM(b.capacity), 0),
+                    COALESCE(SUM(b.capacity * r.distance_km), 0), COALESCE(SUM(sold.seat_km), 0),
+                    COUNT(*) FILTER (WHERE t.arrived_at IS NOT NULL),
+                    COUNT(*) FILTER (WHERE t.arrived_at <= COALESCE(t.scheduled_arrival_at, t.arrival_at)
+                        + make_interval(mins => :toleranceMinutes))
+                FROM trips t
+                JOIN buses b ON b.id = t.bus_id
+                JOIN routes r ON r.id = t.route_id
+                LEFT JOIN LATERAL (
+                    SELECT SUM(COALESCE(tk.segment_km, r.distance_km)) AS seat_km
+                    FROM tickets tk WHERE tk.trip_id = t.id AND tk.status IN ('CONFIRMED', 'NO_SHOW')
+                ) sold ON true
+                WHERE t.departure_at >= :start AND t.departure_at < :end
+                GROUP BY t.route_id
+            """ + ADD_ON_CONFLICT, nativeQuery = true)
+    int rebuildDay(@Param("day") LocalDate day, @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end, @Param("toleranceMinutes") int toleranceMinutes);
+
+    @Query("""
+                SELECT new com.example.domain.repositories.TripRollupTotals(SUM(r.trips), SUM(r.seatsOffered),
+                    SUM(r.seatKmOffered), SUM(r.seatKmSold), SUM(r.tripsCompleted), SUM(r.tripsOnTime))
+                FROM DailyTripRollup r
+                WHERE r.day BETWEEN :from AND :to
+            """)
+    TripRollupTotals sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(value = "SELECT MIN(departure_at) FROM trips", nativeQuery = true)
+    LocalDateTime findFirstDepartureAt();
+
+    @Query(value = "SELECT MAX(departure_at) FROM trips", nativeQuery = true)
+    LocalDateTime findLastDepartureAt();
+}
@@ -0,0 +1,8 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+
+// the few hold columns the expiry watcher needs, without loading the associations
+public record ExpiringSeatHold(Long id, Long tripId, String seatNumber, Integer fromSequence, Integer toSequence,
+        LocalDateTime expiresAt) {
+}
@@ -0,0 +1,16 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FareCalendarRepository {
+
+    /**
+     * The trip search hits of the window in departure order, each with the
+     * seats taken by a confirmed ticket or active hold anywhere on it, in a
+     * single query. Fares are left to the caller, they come from the pricing
+     * engine like every quote.
+     */
+    List<FareCalendarTrip> findFareCalendar(String origin, String destination, LocalDateTime departureDateStart,
+            LocalDateTime departureDateEnd, LocalDateTime now);
+}
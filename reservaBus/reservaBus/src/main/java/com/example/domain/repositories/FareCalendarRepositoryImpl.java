@@ -0,0 +1,58 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class FareCalendarRepositoryImpl implements FareCalendarRepository {
+
+    private static final String CALENDAR_QUERY = """
+                SELECT CAST(t.departure_at AS date) AS day,
+                       t.route_id,
+                       t.departure_at,
+                       b.capacity,
+                       taken.seats AS taken_seats
+                FROM trips t
+                JOIN routes r ON r.id = t.route_id
+                JOIN buses b ON b.id = t.bus_id
+                CROSS JOIN LATERAL (
+                    SELECT COUNT(DISTINCT occupied.seat_number) AS seats FROM (
+                        SELECT tk.seat_number FROM tickets tk WHERE tk.trip_id = t.id AND tk.status = 'CONFIRMED'
+                        UNION ALL
+                        SELECT h.seat_number FROM seat_holds h WHERE h.trip_id = t.id AND h.expires_at > :now
+                    ) occupied
+                ) taken
+            """ + TripRepository.SEARCH_FILTER + """
+                ORDER BY t.departure_at, t.id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    FareCalendarRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<FareCalendarTrip> findFareCalendar(String origin, String destination,
+            LocalDateTime departureDateStart, LocalDateTime departureDateEnd, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("origin", origin)
+                .addValue("destination", destination)
+                .addValue("departureDateStart", departureDateStart)
+                .addValue("departureDateEnd", departureDateEnd)
+                .addValue("statuses", TripRepository.SEARCHABLE_STATUSES)
+                .addValue("now", now);
+
+        return jdbcTemplate.query(CALENDAR_QUERY, params, (rs, rowNum) -> new FareCalendarTrip(
+                rs.getObject("day", LocalDate.class),
+                rs.getLong("route_id"),
+                rs.getObject("departure_at", LocalDateTime.class),
+                rs.getInt("capacity"),
+                rs.getInt("taken_seats")));
+    }
+}
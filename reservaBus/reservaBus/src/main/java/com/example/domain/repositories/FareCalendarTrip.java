@@ -0,0 +1,9 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// one searchable trip of the fare calendar and the seats taken anywhere on it
+public record FareCalendarTrip(LocalDate day, Long routeId, LocalDateTime departureAt, int capacity,
+        int takenSeats) {
+}
@@ -0,0 +1,20 @@
+package com.example.domain.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.domain.entities.RollupCheckpoint;
+
+import jakarta.persistence.LockModeType;
+
+public interface RollupCheckpointRepository extends JpaRepository<RollupCheckpoint, String> {
+
+    // locked, so two instances never rebuild the same day
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RollupCheckpoint c WHERE c.name = :name")
+    Optional<RollupCheckpoint> findForUpdate(@Param("name") String name);
+}
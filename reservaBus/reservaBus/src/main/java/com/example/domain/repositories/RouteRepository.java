@@ -1,8 +1,15 @@
 package com.example.domain.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.domain.entities.Route;
 
 public interface RouteRepository extends JpaRepository<Route, Long> {
+
+    // the fare rule is eager, fetch it here instead of one select per route
+    @Query("SELECT r FROM Route r LEFT JOIN FETCH r.fareRule")
+    List<Route> findAllWithFareRule();
 }
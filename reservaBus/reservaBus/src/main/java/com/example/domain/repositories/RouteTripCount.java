@@ -0,0 +1,5 @@
+package com.example.domain.repositories;
+
+// number of trips of a route, used to rank places by how often they are served
+public record RouteTripCount(Long routeId, Long trips) {
+}
@@ -0,0 +1,15 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SeatHoldExpiryRepository {
+
+    /**
+     * Deletes the given holds that are still expired and returns the rows
+     * this statement removed. Holds extended, converted or deleted by someone
+     * else meanwhile are left out.
+     */
+    List<ExpiringSeatHold> deleteExpiredByIds(Collection<Long> ids, LocalDateTime now);
+}
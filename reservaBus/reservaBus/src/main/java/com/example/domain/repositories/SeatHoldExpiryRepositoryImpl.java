@@ -0,0 +1,43 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class SeatHoldExpiryRepositoryImpl implements SeatHoldExpiryRepository {
+
+    private static final String DELETE_EXPIRED = """
+                DELETE FROM seat_holds
+                WHERE id IN (:ids) AND expires_at <= :now
+                RETURNING id, trip_id, seat_number, from_sequence, to_sequence, expires_at
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    SeatHoldExpiryRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<ExpiringSeatHold> deleteExpiredByIds(Collection<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", now);
+
+        return jdbcTemplate.query(DELETE_EXPIRED, params, (rs, rowNum) -> new ExpiringSeatHold(
+                rs.getLong("id"),
+                rs.getLong("trip_id"),
+                rs.getString("seat_number"),
+                rs.getObject("from_sequence", Integer.class),
+                rs.getObject("to_sequence", Integer.class),
+                rs.getObject("expires_at", LocalDateTime.class)));
+    }
+}
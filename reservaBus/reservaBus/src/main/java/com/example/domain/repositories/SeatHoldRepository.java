@@ -1,15 +1,18 @@
 package com.example.domain.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.example.domain.entities.SeatHold;
 
-public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Long>, SeatHoldExpiryRepository {
     List<SeatHold> findByTrip_Id(Long tripId);
 
     List<SeatHold> findBySeatNumber(String seatNumber);
@@ -18,34 +21,46 @@ public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
 
     List<SeatHold> findByAccount_Id(Long accountId);
 
+    @Query("SELECT h.trip.id FROM SeatHold h WHERE h.id = :id")
+    Optional<Long> findTripIdById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT h.trip.id FROM SeatHold h WHERE h.id IN :ids")
+    List<Long> findTripIdsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT h FROM SeatHold h WHERE h.seatNumber IN :seatNumbers AND h.expiresAt > :now AND h.trip.id = :tripId")
     List<SeatHold> findActiveHoldsByListOfSeatNumbersAndCurrentTimeAndTripId(List<String> seatNumbers,
             LocalDateTime now, Long tripId);
 
-    /**
-     * Encuentra holds activos (no expirados) que solapen con el tramo especificado.
-     * Solapamiento ocurre cuando:
-     * - El nuevo tramo empieza dentro de un tramo existente, O
-     * - El nuevo tramo termina dentro de un tramo existente, O
-     * - El nuevo tramo contiene completamente a un tramo existente
-     * 
-     * Maneja stops nulos usando COALESCE con MIN_VALUE/MAX_VALUE de Integer
-     */
-    @Query("""
-                SELECT h FROM SeatHold h
-                WHERE h.trip.id = :tripId
-                AND h.seatNumber = :seatNumber
-                AND h.expiresAt > :now
-                AND (
-                    (COALESCE(h.fromStop.sequence, -2147483648) <= :newFromSeq AND COALESCE(h.toStop.sequence, 2147483647) > :newFromSeq)
-                    OR (COALESCE(h.fromStop.sequence, -2147483648) < :newToSeq AND COALESCE(h.toStop.sequence, 2147483647) >= :newToSeq)
-                    OR (COALESCE(h.fromStop.sequence, -2147483648) >= :newFromSeq AND COALESCE(h.toStop.sequence, 2147483647) <= :newToSeq)
-                )
-            """)
-    List<SeatHold> findOverlappingActiveHolds(
-            @Param("tripId") Long tripId,
-            @Param("seatNumber") String seatNumber,
-            @Param("newFromSeq") Integer newFromSequence,
-            @Param("newToSeq") Integer newToSequence,
+    // expired holds still occupy their range in the exclusion constraint, clear them before a new hold
+    @Modifying
+    @Query("DELETE FROM SeatHold h WHERE h.trip.id = :tripId AND h.seatNumber = :seatNumber AND h.expiresAt <= :now")
+    int deleteExpiredHoldsForSeat(@Param("tripId") Long tripId, @Param("seatNumber") String seatNumber,
             @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM SeatHold h WHERE h.trip.id = :tripId AND h.seatNumber IN :seatNumbers AND h.expiresAt <= :now")
+    int deleteExpiredHoldsForSeats(@Param("tripId") Long tripId, @Param("seatNumbers") Collection<String> seatNumbers,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM SeatHold h WHERE h.trip.id = :tripId AND h.seatNumber = :seatNumber AND h.expiresAt <= :now AND h.id <> :holdId")
+    int deleteOtherExpiredHoldsForSeat(@Param("tripId") Long tripId, @Param("seatNumber") String seatNumber,
+            @Param("now") LocalDateTime now, @Param("holdId") Long holdId);
+
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.fromSequence = :sequence WHERE h.fromStop.id = :stopId")
+    int updateFromSequenceByStopId(@Param("stopId") Long stopId, @Param("sequence") Integer sequence);
+
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.toSequence = :sequence WHERE h.toStop.id = :stopId")
+    int updateToSequenceByStopId(@Param("stopId") Long stopId, @Param("sequence") Integer sequence);
+
+    @Query("SELECT h FROM SeatHold h WHERE h.trip.id = :tripId AND h.expiresAt > :now")
+    List<SeatHold> findActiveHoldsByTripId(@Param("tripId") Long tripId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.example.domain.repositories.ExpiringSeatHold(h.id, h.trip.id, h.seatNumber, h.fromSequence, h.toSequence, h.expiresAt) FROM SeatHold h WHERE h.expiresAt > :now")
+    List<ExpiringSeatHold> findActiveHoldExpiries(@Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.example.domain.repositories.ExpiringSeatHold(h.id, h.trip.id, h.seatNumber, h.fromSequence, h.toSequence, h.expiresAt) FROM SeatHold h WHERE h.expiresAt <= :now ORDER BY h.expiresAt")
+    List<ExpiringSeatHold> findExpiredHolds(@Param("now") LocalDateTime now, Pageable pageable);
 }
@@ -0,0 +1,6 @@
+package com.example.domain.repositories;
+
+// a confirmed ticket's seat and segment, enough to rebuild a trip's seat inventory
+public record SoldSegment(Long ticketId, String seatNumber, Integer fromSequence, Integer toSequence,
+        String fromStopName, String toStopName) {
+}
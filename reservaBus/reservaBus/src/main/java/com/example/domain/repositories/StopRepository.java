@@ -1,12 +1,22 @@
 package com.example.domain.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.domain.entities.Stop;
 
 public interface StopRepository extends JpaRepository<Stop, Long> {
 
     List<Stop> findByRoute_IdOrderBySequenceAsc(Long routeId);
+
+    @Query("SELECT s FROM Stop s JOIN FETCH s.route r LEFT JOIN FETCH r.fareRule")
+    List<Stop> findAllWithRoute();
+
+    // stops of several routes in one query, callers group them by route
+    @Query("SELECT s FROM Stop s WHERE s.route.id IN :routeIds ORDER BY s.route.id ASC, s.sequence ASC")
+    List<Stop> findByRouteIdsOrderBySequence(@Param("routeIds") Collection<Long> routeIds);
 }
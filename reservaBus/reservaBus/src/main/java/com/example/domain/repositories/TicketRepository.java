@@ -1,8 +1,10 @@
 package com.example.domain.repositories;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -15,6 +17,14 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
     List<Ticket> findByTrip_IdAndStatus(Long tripId, TicketStatus status);
 
+    // one row per sold seat segment, without loading ticket entities
+    @Query("""
+            SELECT new com.example.domain.repositories.SoldSegment(t.id, t.seatNumber, t.fromSequence, t.toSequence, fs.name, ts.name)
+            FROM Ticket t LEFT JOIN t.fromStop fs LEFT JOIN t.toStop ts
+            WHERE t.trip.id = :tripId AND t.status = com.example.domain.enums.TicketStatus.CONFIRMED
+            """)
+    List<SoldSegment> findSoldSegmentsByTripId(@Param("tripId") Long tripId);
+
     List<Ticket> findByAccount_Id(Long accountId);
 
     List<Ticket> findByAccount_IdAndStatus(Long accountId, TicketStatus status);
@@ -25,63 +35,19 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
     Ticket findByQrCode(String qrCode);
 
+    @Query("SELECT t.trip.id FROM Ticket t WHERE t.id = :id")
+    Optional<Long> findTripIdById(@Param("id") Long id);
+
     @Query("SELECT t FROM Ticket t WHERE t.seatNumber IN :seatNumbers AND t.trip.id = :tripId")
     List<Ticket> findTicketsByListOfSeatNumbersFilteredByTripId(List<String> seatNumbers, Long tripId);
 
     Ticket findByTrip_IdAndSeatNumber(Long tripId, String seatNumber);
 
-    // explain this query
-    /*
-     * This query retrieves a list of Ticket entities that meet the following
-     * criteria:
-     * 1. The ticket is associated with a specific trip, identified by the tripId
-     * parameter.
-     * 2. The ticket has a specific seat number, identified by the seatNumber
-     * parameter.
-     * 3. The ticket's status is 'CONFIRMED'.
-     * 4. The ticket's travel segment overlaps with a new travel segment defined by
-     * newFromSequence and newToSequence parameters.
-     * The overlap is determined by checking three conditions:
-     * a. The ticket's starting stop sequence (fromStop.sequence) is less than or
-     * equal
-     * to the new starting stop sequence (newFromSequence) and the ticket's ending
-     * stop sequence (toStop.sequence)
-     * is greater than the new starting stop sequence.
-     * b. The ticket's starting stop sequence is less than the new ending stop
-     * sequence (newToSequence)
-     * and the ticket's ending stop sequence is greater than or equal to the new
-     * ending stop sequence.
-     * c. The ticket's starting stop sequence is greater than or equal to the new
-     * starting stop sequence
-     * and the ticket's ending stop sequence is less than or equal to the new ending
-     * stop sequence.
-     * The use of COALESCE function ensures that if fromStop or toStop is null, it
-     * will be treated as the minimum or maximum integer value respectively,
-     * allowing for proper comparison in the overlap checks.
-     */
-    @Query("""
-            SELECT t FROM Ticket t
-            WHERE t.trip.id = :tripId
-            AND t.seatNumber = :seatNumber
-            AND t.status = 'CONFIRMED'
-            AND (
-                (COALESCE(t.fromStop.sequence, -2147483648) <= :newFromSeq AND COALESCE(t.toStop.sequence, 2147483647) > :newFromSeq)
-                OR (COALESCE(t.fromStop.sequence, -2147483648) < :newToSeq AND COALESCE(t.toStop.sequence, 2147483647) >= :newToSeq)
-                OR (COALESCE(t.fromStop.sequence, -2147483648) >= :newFromSeq AND COALESCE(t.toStop.sequence, 2147483647) <= :newToSeq)
-            )
-            """)
-    List<Ticket> findOverlappingSoldTickets(
-            @Param("tripId") Long tripId,
-            @Param("seatNumber") String seatNumber,
-            @Param("newFromSeq") Integer newFromSequence,
-            @Param("newToSeq") Integer newToSequence);
-
-    @Query("SELECT COALESCE(SUM(t.price), 0.0) FROM Ticket t WHERE t.status = ?1 AND t.createdAt >= ?2 AND t.createdAt <= ?3")
-    Double getTotalRevenue(TicketStatus status, Long startDate, Long endDate);
-
-    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = ?1 AND t.createdAt >= ?2 AND t.createdAt <= ?3")
-    Long countConfirmedTickets(TicketStatus status, Long startDate, Long endDate);
+    @Modifying
+    @Query("UPDATE Ticket t SET t.fromSequence = :sequence WHERE t.fromStop.id = :stopId")
+    int updateFromSequenceByStopId(@Param("stopId") Long stopId, @Param("sequence") Integer sequence);
 
-    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = ?1 AND t.updatedAt >= ?2 AND t.updatedAt <= ?3")
-    Long countCancelledTickets(TicketStatus status, Long startDate, Long endDate);
+    @Modifying
+    @Query("UPDATE Ticket t SET t.toSequence = :sequence WHERE t.toStop.id = :stopId")
+    int updateToSequenceByStopId(@Param("stopId") Long stopId, @Param("sequence") Integer sequence);
 }
@@ -0,0 +1,7 @@
+package com.example.domain.repositories;
+
+import com.example.domain.enums.TicketStatus;
+
+// daily ticket rollups of a period summed per ticket status
+public record TicketRollupTotals(TicketStatus status, Long tickets, Double revenue, Long cancellations) {
+}
@@ -1,8 +1,10 @@
 package com.example.domain.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,7 +12,8 @@ import org.springframework.data.repository.query.Param;
 import com.example.domain.entities.Trip;
 import com.example.domain.enums.TripStatus;
 
-public interface TripRepository extends JpaRepository<Trip, Long> {
+public interface TripRepository extends JpaRepository<Trip, Long>, TripSearchStreamRepository,
+        FareCalendarRepository {
 
     List<Trip> findByRoute_Id(Long routeId);
 
@@ -18,44 +21,129 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
 
     List<Trip> findByStatus(TripStatus status);
 
-    @Query("SELECT t FROM Trip t WHERE t.departureAt BETWEEN :now AND :futureTime")
-    List<Trip> findStartingTripsInNextMinutes(@Param("now") LocalDateTime now,
-            @Param("futureTime") LocalDateTime futureTime);
-
+    // trips in one of the statuses leaving between since and futureTime, since lets overdue ones still depart
     @Query("""
-                SELECT DISTINCT t FROM Trip t
-                JOIN FETCH t.route r
-                WHERE t.status IN (com.example.domain.enums.TripStatus.SCHEDULED, com.example.domain.enums.TripStatus.BOARDING)
-                AND t.departureAt >= CURRENT_TIMESTAMP
-                AND (CAST(:departureDateStart AS timestamp) IS NULL OR t.departureAt >= :departureDateStart)
-                AND (CAST(:departureDateEnd AS timestamp) IS NULL OR t.departureAt < :departureDateEnd)
+                SELECT t FROM Trip t
+                WHERE t.status IN :statuses
+                AND t.departureAt BETWEEN :since AND :futureTime
+            """)
+    List<Trip> findByStatusInDepartingBetween(@Param("statuses") Collection<TripStatus> statuses,
+            @Param("since") LocalDateTime since, @Param("futureTime") LocalDateTime futureTime);
+
+    // statuses a trip can still be booked in, matched against the ordinal column in native queries
+    List<Integer> SEARCHABLE_STATUSES = List.of(TripStatus.SCHEDULED.ordinal(), TripStatus.BOARDING.ordinal());
+
+    /**
+     * Trips from origin to destination, matched either on the route ends or on
+     * a pair of stops in travel order. Names are compared through
+     * search_normalize (lower case, accents folded), either as a substring or,
+     * for typos, by trigram similarity (pg_trgm's % operator). Both are backed
+     * by the trigram indexes, see PostgresSchemaInitializer. Expects trips t
+     * joined to routes r.
+     */
+    String SEARCH_FILTER = """
+                WHERE t.status IN (:statuses)
+                AND t.departure_at >= CURRENT_TIMESTAMP
+                AND (CAST(:departureDateStart AS timestamp) IS NULL OR t.departure_at >= :departureDateStart)
+                AND (CAST(:departureDateEnd AS timestamp) IS NULL OR t.departure_at < :departureDateEnd)
                 AND (
-                    (LOWER(r.origin) LIKE LOWER(CONCAT('%', :origin, '%'))
-                     AND LOWER(r.destination) LIKE LOWER(CONCAT('%', :destination, '%')))
-                    OR
-                    (EXISTS (
-                        SELECT 1 FROM Stop sFrom
-                        WHERE sFrom.route.id = r.id
-                        AND LOWER(sFrom.name) LIKE LOWER(CONCAT('%', :origin, '%'))
+                    ((search_normalize(r.origin) LIKE '%' || search_normalize(:origin) || '%'
+                      OR search_normalize(r.origin) % search_normalize(:origin))
+                     AND (search_normalize(r.destination) LIKE '%' || search_normalize(:destination) || '%'
+                      OR search_normalize(r.destination) % search_normalize(:destination)))
+                    OR EXISTS (
+                        SELECT 1 FROM stops s_from
+                        JOIN stops s_to ON s_to.route_id = s_from.route_id AND s_to.sequence > s_from.sequence
+                        WHERE s_from.route_id = r.id
+                        AND (search_normalize(s_from.name) LIKE '%' || search_normalize(:origin) || '%'
+                         OR search_normalize(s_from.name) % search_normalize(:origin))
+                        AND (search_normalize(s_to.name) LIKE '%' || search_normalize(:destination) || '%'
+                         OR search_normalize(s_to.name) % search_normalize(:destination))
                     )
-                    AND EXISTS (
-                        SELECT 1 FROM Stop sTo
-                        WHERE sTo.route.id = r.id
-                        AND LOWER(sTo.name) LIKE LOWER(CONCAT('%', :destination, '%'))
-                        AND sTo.sequence > (
-                            SELECT COALESCE(MAX(sf.sequence), -1) FROM Stop sf
-                            WHERE sf.route.id = r.id
-                            AND LOWER(sf.name) LIKE LOWER(CONCAT('%', :origin, '%'))
-                        )
-                    ))
                 )
-                ORDER BY t.departureAt ASC
-            """)
-    List<Trip> searchAvailableTrips(
+            """;
+
+    /**
+     * One page of the search in (departureAt, id) order, starting after the
+     * given trip. A null afterDeparture starts from the beginning.
+     */
+    default List<Trip> searchAvailableTrips(String origin, String destination, LocalDateTime departureDateStart,
+            LocalDateTime departureDateEnd, LocalDateTime afterDeparture, Long afterId, int limit) {
+        List<Long> ids = searchAvailableTripIds(origin, destination, departureDateStart, departureDateEnd,
+                SEARCHABLE_STATUSES, afterDeparture, afterId != null ? afterId : 0L, limit);
+        return ids.isEmpty() ? List.of() : findSearchResultsByIdIn(ids);
+    }
+
+    @Query(value = "SELECT t.id FROM trips t JOIN routes r ON r.id = t.route_id " + SEARCH_FILTER + """
+                AND (CAST(:afterDeparture AS timestamp) IS NULL
+                     OR (t.departure_at, t.id) > (CAST(:afterDeparture AS timestamp), :afterId))
+                ORDER BY t.departure_at ASC, t.id ASC
+                LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> searchAvailableTripIds(
             @Param("origin") String origin,
             @Param("destination") String destination,
             @Param("departureDateStart") LocalDateTime departureDateStart,
-            @Param("departureDateEnd") LocalDateTime departureDateEnd);
+            @Param("departureDateEnd") LocalDateTime departureDateEnd,
+            @Param("statuses") Collection<Integer> statuses,
+            @Param("afterDeparture") LocalDateTime afterDeparture,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    // upcoming trips of the routes serving a stop pair, keyset paged like the text search
+    @Query("""
+                SELECT t FROM Trip t
+                JOIN FETCH t.bus
+                JOIN FETCH t.route r
+                LEFT JOIN FETCH r.fareRule
+                WHERE r.id IN :routeIds
+                AND t.status IN :statuses
+                AND t.departureAt >= :departureDateStart
+                AND t.departureAt < :departureDateEnd
+                AND (t.departureAt > :afterDeparture OR (t.departureAt = :afterDeparture AND t.id > :afterId))
+                ORDER BY t.departureAt ASC, t.id ASC
+            """)
+    List<Trip> findUpcomingByRouteIds(
+            @Param("routeIds") Collection<Long> routeIds,
+            @Param("statuses") Collection<TripStatus> statuses,
+            @Param("departureDateStart") LocalDateTime departureDateStart,
+            @Param("departureDateEnd") LocalDateTime departureDateEnd,
+            @Param("afterDeparture") LocalDateTime afterDeparture,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    // bus and the route's fare rule are eager, fetch them here instead of one select per row
+    @Query("""
+                SELECT t FROM Trip t
+                JOIN FETCH t.bus
+                JOIN FETCH t.route r
+                LEFT JOIN FETCH r.fareRule
+                WHERE t.id IN :ids
+                ORDER BY t.departureAt ASC, t.id ASC
+            """)
+    List<Trip> findSearchResultsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // bookable departures without loading entities, the journey planner's timetable
+    @Query("""
+                SELECT new com.example.domain.repositories.TripSearchRow(t.id, t.route.id, t.bus.id, t.departureAt, t.arrivalAt)
+                FROM Trip t
+                WHERE t.status IN :statuses AND t.departureAt >= :from AND t.departureAt < :to
+            """)
+    List<TripSearchRow> findTimetableRows(@Param("statuses") Collection<TripStatus> statuses,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+                SELECT new com.example.domain.repositories.TripSearchRow(t.id, t.route.id, t.bus.id, t.departureAt, t.arrivalAt)
+                FROM Trip t
+                WHERE t.route.id = :routeId AND t.status IN :statuses
+                AND t.departureAt >= :from AND t.departureAt < :to
+            """)
+    List<TripSearchRow> findTimetableRowsByRouteId(@Param("routeId") Long routeId,
+            @Param("statuses") Collection<TripStatus> statuses, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.example.domain.repositories.RouteTripCount(t.route.id, COUNT(t)) FROM Trip t WHERE t.departureAt >= :from GROUP BY t.route.id")
+    List<RouteTripCount> countUpcomingTripsByRoute(@Param("from") LocalDateTime from);
 
     @Query("SELECT t FROM Trip t")
     List<Trip> findTripsByPeriod(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -0,0 +1,6 @@
+package com.example.domain.repositories;
+
+// daily trip rollups of a period summed, null when the period has no trips
+public record TripRollupTotals(Long trips, Long seatsOffered, Double seatKmOffered, Double seatKmSold,
+        Long tripsCompleted, Long tripsOnTime) {
+}
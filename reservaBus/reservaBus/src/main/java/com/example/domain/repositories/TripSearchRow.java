@@ -0,0 +1,7 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+
+// a trip search hit as read from the result set, without loading the entity
+public record TripSearchRow(Long id, Long routeId, Long busId, LocalDateTime departureAt, LocalDateTime arrivalAt) {
+}
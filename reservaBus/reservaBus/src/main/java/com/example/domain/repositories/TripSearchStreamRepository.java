@@ -0,0 +1,15 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+public interface TripSearchStreamRepository {
+
+    /**
+     * Hands every trip search hit to the consumer while the rows are read from
+     * a server side cursor. Must run inside a transaction, otherwise the driver
+     * buffers the whole result.
+     */
+    void streamAvailableTrips(String origin, String destination, LocalDateTime departureDateStart,
+            LocalDateTime departureDateEnd, Consumer<TripSearchRow> consumer);
+}
@@ -0,0 +1,50 @@
+package com.example.domain.repositories;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class TripSearchStreamRepositoryImpl implements TripSearchStreamRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String STREAM_QUERY = """
+                SELECT t.id, t.route_id, t.bus_id, t.departure_at, t.arrival_at
+                FROM trips t JOIN routes r ON r.id = t.route_id
+            """ + TripRepository.SEARCH_FILTER + """
+                ORDER BY t.departure_at ASC, t.id ASC
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    TripSearchStreamRepositoryImpl(DataSource dataSource) {
+        JdbcTemplate cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+    }
+
+    @Override
+    public void streamAvailableTrips(String origin, String destination, LocalDateTime departureDateStart,
+            LocalDateTime departureDateEnd, Consumer<TripSearchRow> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("origin", origin)
+                .addValue("destination", destination)
+                .addValue("departureDateStart", departureDateStart)
+                .addValue("departureDateEnd", departureDateEnd)
+                .addValue("statuses", TripRepository.SEARCHABLE_STATUSES);
+
+        jdbcTemplate.query(STREAM_QUERY, params, rs -> {
+            consumer.accept(new TripSearchRow(
+                    rs.getLong("id"),
+                    rs.getLong("route_id"),
+                    rs.getLong("bus_id"),
+                    rs.getObject("departure_at", LocalDateTime.class),
+                    rs.getObject("arrival_at", LocalDateTime.class)));
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.stereotype.Service;
+
+import com.example.domain.entities.Ticket;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the daily ticket and trip rollups in step with the writes. Every
+ * method adds deltas in the caller's transaction, so a rolled back booking
+ * never reaches the dashboard.
+ *
+ * Ticket rows are keyed by the UTC day the ticket was sold, cancellations by
+ * the UTC day they happened, trip rows by the departure date. Trip rows also
+ * carry occupancy (seat-km sold against seat-km offered, fed by the ticket
+ * writes) and punctuality (fed by the arrivals reported through
+ * {@code TripService.markTripArrived}; trips {@code TripWatcher} only closes by
+ * the clock are not counted).
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+
+    // a trip reported arrived within this of the arrival it departed with is on time
+    public static final Duration ON_TIME_TOLERANCE = Duration.ofMinutes(15);
+
+    private final DailyTicketRollupRepository ticketRollupRepository;
+    private final DailyTripRollupRepository tripRollupRepository;
+
+    public void recordSale(Ticket ticket) {
+        addTicket(ticket, ticket.getStatus(), 1);
+        if (sold(ticket.getStatus())) {
+            addSeatKm(ticket, 1);
+        }
+    }
+
+    public void recordStatusChange(Ticket ticket, TicketStatus previousStatus) {
+        if (previousStatus == ticket.getStatus()) {
+            return;
+        }
+        addTicket(ticket, previousStatus, -1);
+        addTicket(ticket, ticket.getStatus(), 1);
+        if (ticket.getStatus() == TicketStatus.CANCELLED) {
+            addCancellation(ticket, 1);
+        }
+        if (sold(previousStatus) != sold(ticket.getStatus())) {
+            addSeatKm(ticket, sold(ticket.getStatus()) ? 1 : -1);
+        }
+    }
+
+    public void recordPriceChange(Ticket ticket, Double previousPrice) {
+        double delta = price(ticket) - (previousPrice != null ? previousPrice : 0.0);
+        if (delta != 0) {
+            ticketRollupRepository.add(dayOf(ticket.getCreatedAt()), routeId(ticket), ticket.getStatus().name(), 0,
+                    delta, 0);
+        }
+    }
+
+    public void recordRemoval(Ticket ticket) {
+        addTicket(ticket, ticket.getStatus(), -1);
+        if (ticket.getStatus() == TicketStatus.CANCELLED) {
+            addCancellation(ticket, -1);
+        }
+        if (sold(ticket.getStatus())) {
+            addSeatKm(ticket, -1);
+        }
+    }
+
+    // sign 1 when a trip is scheduled, -1 when it goes away; called before an update and again after it
+    public void recordTrip(Trip trip, int sign) {
+        int capacity = capacity(trip.getBus().getCapacity());
+        double routeKm = routeKm(trip);
+        boolean completed = trip.getArrivedAt() != null;
+        tripRollupRepository.addTrip(trip.getId(), trip.getDepartureAt().toLocalDate(), trip.getRoute().getId(),
+                sign, capacity, capacity * routeKm, routeKm, completed ? 1 : 0,
+                completed && isOnTime(trip) ? 1 : 0);
+    }
+
+    public void recordArrival(Trip trip) {
+        tripRollupRepository.add(trip.getDepartureAt().toLocalDate(), trip.getRoute().getId(), 0, 0, 0, 0, 1,
+                isOnTime(trip) ? 1 : 0);
+    }
+
+    // the trip's tickets move with it when it changes route
+    public void recordTripRouteChange(Long tripId, Long previousRouteId, Long routeId) {
+        if (previousRouteId.equals(routeId)) {
+            return;
+        }
+        ticketRollupRepository.addTripTickets(tripId, previousRouteId, -1);
+        ticketRollupRepository.addTripTickets(tripId, routeId, 1);
+    }
+
+    public void recordBusCapacityChange(Long busId, Integer previousCapacity, Integer capacity) {
+        long delta = capacity(capacity) - capacity(previousCapacity);
+        if (delta != 0) {
+            tripRollupRepository.addBusCapacity(busId, delta);
+        }
+    }
+
+    /**
+     * Recounts one day of both rollups from the tickets and trips tables.
+     */
+    public void rebuildDay(LocalDate day) {
+        long startMillis = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long endMillis = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        ticketRollupRepository.deleteDay(day);
+        ticketRollupRepository.rebuildDay(day, startMillis, endMillis);
+
+        tripRollupRepository.deleteDay(day);
+        tripRollupRepository.rebuildDay(day, day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                (int) ON_TIME_TOLERANCE.toMinutes());
+    }
+
+    public static LocalDate dayOf(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    // a trip that departed before scheduledArrivalAt was recorded is held to its arrivalAt
+    public static boolean isOnTime(Trip trip) {
+        if (trip.getArrivedAt() == null) {
+            return false;
+        }
+        LocalDateTime scheduled = trip.getScheduledArrivalAt() != null ? trip.getScheduledArrivalAt()
+                : trip.getArrivalAt();
+        return !trip.getArrivedAt().isAfter(scheduled.plus(ON_TIME_TOLERANCE));
+    }
+
+    private void addTicket(Ticket ticket, TicketStatus status, int delta) {
+        ticketRollupRepository.add(dayOf(ticket.getCreatedAt()), routeId(ticket), status.name(), delta,
+                delta * price(ticket), 0);
+    }
+
+    private void addCancellation(Ticket ticket, int delta) {
+        long cancelledAt = ticket.getCancelledAt() != null ? ticket.getCancelledAt() : ticket.getUpdatedAt();
+        ticketRollupRepository.add(dayOf(cancelledAt), routeId(ticket), TicketStatus.CANCELLED.name(), 0, 0,
+                delta);
+    }
+
+    // seat-km of a sold ticket go to its trip's departure day
+    private void addSeatKm(Ticket ticket, int sign) {
+        Trip trip = ticket.getTrip();
+        double seatKm = ticket.getSegmentKm() != null ? ticket.getSegmentKm() : routeKm(trip);
+        tripRollupRepository.add(trip.getDepartureAt().toLocalDate(), trip.getRoute().getId(), 0, 0, 0,
+                sign * seatKm, 0, 0);
+    }
+
+    // a no-show still bought the seat
+    private static boolean sold(TicketStatus status) {
+        return status == TicketStatus.CONFIRMED || status == TicketStatus.NO_SHOW;
+    }
+
+    private static double routeKm(Trip trip) {
+        Double distanceKm = trip.getRoute().getDistanceKm();
+        return distanceKm != null ? distanceKm : 0.0;
+    }
+
+    private static int capacity(Integer capacity) {
+        return capacity != null ? capacity : 0;
+    }
+
+    private static double price(Ticket ticket) {
+        return ticket.getPrice() != null ? ticket.getPrice() : 0.0;
+    }
+
+    private static Long routeId(Ticket ticket) {
+        return ticket.getTrip().getRoute().getId();
+    }
+}
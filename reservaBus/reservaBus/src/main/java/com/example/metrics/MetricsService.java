@@ -1,52 +1,68 @@
 package com.example.metrics;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
 import com.example.api.dto.MetricsDTO;
 import com.example.domain.enums.TicketStatus;
-import com.example.domain.repositories.TicketRepository;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+import com.example.domain.repositories.TicketRollupTotals;
+import com.example.domain.repositories.TripRollupTotals;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Dashboard figures, read from the daily rollups only so a dashboard load
+ * never scans the tickets table. See {@link DailyRollupService}.
+ */
 @Service
 @RequiredArgsConstructor
 public class MetricsService {
 
-        private final TicketRepository ticketRepository;
+        private final DailyTicketRollupRepository ticketRollupRepository;
+        private final DailyTripRollupRepository tripRollupRepository;
 
         public MetricsDTO.DashboardMetrics getDashboardMetrics(LocalDateTime startDate, LocalDateTime endDate) {
                 long periodDays = java.time.Duration.between(startDate, endDate).toDays();
                 LocalDateTime previousStart = startDate.minusDays(periodDays);
-                LocalDateTime previousEnd = startDate;
-
-                // Convert LocalDateTime to epoch millis (timestamp format used in database)
-                Long startMillis = startDate.toInstant(ZoneOffset.UTC).toEpochMilli();
-                Long endMillis = endDate.toInstant(ZoneOffset.UTC).toEpochMilli();
-                Long prevStartMillis = previousStart.toInstant(ZoneOffset.UTC).toEpochMilli();
-                Long prevEndMillis = previousEnd.toInstant(ZoneOffset.UTC).toEpochMilli();
-
-                Double totalRevenue = ticketRepository.getTotalRevenue(TicketStatus.CONFIRMED, startMillis, endMillis);
-                Double previousRevenue = ticketRepository.getTotalRevenue(TicketStatus.CONFIRMED, prevStartMillis,
-                                prevEndMillis);
-                Long totalTickets = ticketRepository.countConfirmedTickets(TicketStatus.CONFIRMED, startMillis,
-                                endMillis);
-                Long totalCancellations = ticketRepository.countCancelledTickets(TicketStatus.CANCELLED, startMillis,
-                                endMillis);
-                Long previousTickets = ticketRepository.countConfirmedTickets(TicketStatus.CONFIRMED, prevStartMillis,
-                                prevEndMillis);
-                Long previousCancellations = ticketRepository.countCancelledTickets(TicketStatus.CANCELLED,
-                                prevStartMillis,
-                                prevEndMillis);
+
+                // whole days of the rollups, the previous period ends the day before this one starts
+                LocalDate firstDay = startDate.toLocalDate();
+                LocalDate lastDay = endDate.toLocalDate();
+                LocalDate previousFirstDay = previousStart.toLocalDate();
+                LocalDate previousLastDay = firstDay.minusDays(1);
+
+                Map<TicketStatus, TicketRollupTotals> current = ticketTotals(firstDay, lastDay);
+                Map<TicketStatus, TicketRollupTotals> previous = ticketTotals(previousFirstDay, previousLastDay);
+                TripRollupTotals trips = tripRollupRepository.sumBetween(firstDay, lastDay);
+                TripRollupTotals previousTrips = tripRollupRepository.sumBetween(previousFirstDay, previousLastDay);
+
+                TicketRollupTotals confirmed = current.get(TicketStatus.CONFIRMED);
+                TicketRollupTotals previousConfirmed = previous.get(TicketStatus.CONFIRMED);
+                Double totalRevenue = confirmed != null ? confirmed.revenue() : null;
+                Double previousRevenue = previousConfirmed != null ? previousConfirmed.revenue() : null;
+                Long totalTickets = confirmed != null ? confirmed.tickets() : null;
+                Long previousTickets = previousConfirmed != null ? previousConfirmed.tickets() : null;
+                Long totalCancellations = cancellations(current);
+                Long previousCancellations = cancellations(previous);
+                Long totalTrips = trips != null ? trips.trips() : null;
+                Long totalSeatsOffered = trips != null ? trips.seatsOffered() : null;
+                Long tripsCompleted = trips != null ? trips.tripsCompleted() : null;
+                Long tripsOnTime = trips != null ? trips.tripsOnTime() : null;
 
                 totalRevenue = totalRevenue != null ? totalRevenue : 0.0;
                 previousRevenue = previousRevenue != null ? previousRevenue : 0.0;
                 totalTickets = totalTickets != null ? totalTickets : 0L;
-                totalCancellations = totalCancellations != null ? totalCancellations : 0L;
                 previousTickets = previousTickets != null ? previousTickets : 0L;
-                previousCancellations = previousCancellations != null ? previousCancellations : 0L;
+                totalTrips = totalTrips != null ? totalTrips : 0L;
+                totalSeatsOffered = totalSeatsOffered != null ? totalSeatsOffered : 0L;
+                tripsCompleted = tripsCompleted != null ? tripsCompleted : 0L;
+                tripsOnTime = tripsOnTime != null ? tripsOnTime : 0L;
 
                 double revenueChange = previousRevenue > 0 ? ((totalRevenue - previousRevenue) / previousRevenue * 100)
                                 : 0.0;
@@ -61,6 +77,18 @@ public class MetricsService {
                                 ? ((cancellationRate - previousCancellationRate) / previousCancellationRate * 100)
                                 : 0.0;
 
+                double occupation = occupation(trips);
+                double previousOccupation = occupation(previousTrips);
+                double occupationChange = previousOccupation > 0
+                                ? ((occupation - previousOccupation) / previousOccupation * 100)
+                                : 0.0;
+
+                double punctualityRate = punctualityRate(trips);
+                double previousPunctualityRate = punctualityRate(previousTrips);
+                double punctualityChange = previousPunctualityRate > 0
+                                ? ((punctualityRate - previousPunctualityRate) / previousPunctualityRate * 100)
+                                : 0.0;
+
                 return MetricsDTO.DashboardMetrics.builder()
                                 .revenue(MetricsDTO.RevenueMetrics.builder()
                                                 .totalRevenue(Math.round(totalRevenue * 100.0) / 100.0)
@@ -77,23 +105,60 @@ public class MetricsService {
                                                 .changePercentage(Math.round(cancellationChange * 100.0) / 100.0)
                                                 .build())
                                 .occupation(MetricsDTO.OccupationMetrics.builder()
-                                                .averageOccupation(0.0)
-                                                .previousPeriodOccupation(0.0)
-                                                .changePercentage(0.0)
-                                                .totalTrips(0L)
-                                                .totalSeatsOffered(0L)
+                                                .averageOccupation(Math.round(occupation * 100.0) / 100.0)
+                                                .previousPeriodOccupation(
+                                                                Math.round(previousOccupation * 100.0) / 100.0)
+                                                .changePercentage(Math.round(occupationChange * 100.0) / 100.0)
+                                                .totalTrips(totalTrips)
+                                                .totalSeatsOffered(totalSeatsOffered)
                                                 .totalSeatsSold(totalTickets)
                                                 .build())
                                 .punctuality(MetricsDTO.PunctualityMetrics.builder()
-                                                .punctualityRate(0.0)
-                                                .totalTripsCompleted(0L)
-                                                .totalTripsOnTime(0L)
-                                                .totalTripsDelayed(0L)
-                                                .previousPeriodRate(0.0)
-                                                .changePercentage(0.0)
+                                                .punctualityRate(Math.round(punctualityRate * 100.0) / 100.0)
+                                                .totalTripsCompleted(tripsCompleted)
+                                                .totalTripsOnTime(tripsOnTime)
+                                                .totalTripsDelayed(tripsCompleted - tripsOnTime)
+                                                .previousPeriodRate(
+                                                                Math.round(previousPunctualityRate * 100.0) / 100.0)
+                                                .changePercentage(Math.round(punctualityChange * 100.0) / 100.0)
                                                 .build())
                                 .startDate(startDate)
                                 .endDate(endDate)
                                 .build();
         }
+
+        private Map<TicketStatus, TicketRollupTotals> ticketTotals(LocalDate from, LocalDate to) {
+                Map<TicketStatus, TicketRollupTotals> totals = new EnumMap<>(TicketStatus.class);
+                for (TicketRollupTotals row : ticketRollupRepository.sumByStatus(from, to)) {
+                        totals.put(row.status(), row);
+                }
+                return totals;
+        }
+
+        // seat-km sold over seat-km offered, as a percentage
+        private static double occupation(TripRollupTotals trips) {
+                if (trips == null || trips.seatKmOffered() == null || trips.seatKmOffered() <= 0) {
+                        return 0.0;
+                }
+                double seatKmSold = trips.seatKmSold() != null ? trips.seatKmSold() : 0.0;
+                return seatKmSold * 100.0 / trips.seatKmOffered();
+        }
+
+        // arrived trips that made it on time, as a percentage
+        private static double punctualityRate(TripRollupTotals trips) {
+                if (trips == null || trips.tripsCompleted() == null || trips.tripsCompleted() == 0) {
+                        return 0.0;
+                }
+                long onTime = trips.tripsOnTime() != null ? trips.tripsOnTime() : 0L;
+                return onTime * 100.0 / trips.tripsCompleted();
+        }
+
+        // cancellations are counted on the day they happened, whatever day the ticket was sold
+        private static long cancellations(Map<TicketStatus, TicketRollupTotals> totals) {
+                long cancellations = 0;
+                for (TicketRollupTotals row : totals.values()) {
+                        cancellations += row.cancellations() != null ? row.cancellations() : 0L;
+                }
+                return cancellations;
+        }
 }
@@ -0,0 +1,100 @@
+package com.example.metrics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.domain.entities.RollupCheckpoint;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+import com.example.domain.repositories.RollupCheckpointRepository;
+
+/**
+ * Fills the daily rollups for the history that predates them.
+ *
+ * Days are rebuilt oldest first, each in its own transaction together with
+ * the checkpoint that records the next day to do, so a restart or a crash
+ * resumes where the last run stopped. The range runs from the first ticket or
+ * trip up to the later of the day the backfill started and the last scheduled
+ * departure; anything after that is written by {@link DailyRollupService} as
+ * it happens.
+ */
+@Service
+public class RollupBackfillJob {
+
+    static final String CHECKPOINT = "daily-rollups";
+    private static final int DAYS_PER_RUN = 31;
+
+    private final DailyRollupService rollupService;
+    private final RollupCheckpointRepository checkpointRepository;
+    private final DailyTicketRollupRepository ticketRollupRepository;
+    private final DailyTripRollupRepository tripRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public RollupBackfillJob(DailyRollupService rollupService, RollupCheckpointRepository checkpointRepository,
+            DailyTicketRollupRepository ticketRollupRepository, DailyTripRollupRepository tripRollupRepository,
+            PlatformTransactionManager transactionManager) {
+        this.rollupService = rollupService;
+        this.checkpointRepository = checkpointRepository;
+        this.ticketRollupRepository = ticketRollupRepository;
+        this.tripRollupRepository = tripRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelay = 60000, initialDelay = 30000)
+    public void run() {
+        for (int i = 0; i < DAYS_PER_RUN; i++) {
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> rebuildNextDay()))) {
+                return;
+            }
+        }
+    }
+
+    // false once there is nothing left to rebuild
+    private boolean rebuildNextDay() {
+        RollupCheckpoint checkpoint = checkpointRepository.findForUpdate(CHECKPOINT).orElseGet(this::start);
+        if (checkpoint.getCompletedAt() != null) {
+            return false;
+        }
+        LocalDate day = checkpoint.getNextDay();
+        if (day.isAfter(checkpoint.getUntilDay())) {
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            return false;
+        }
+
+        rollupService.rebuildDay(day);
+        checkpoint.setNextDay(day.plusDays(1));
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    private RollupCheckpoint start() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = today;
+        LocalDate untilDay = today;
+        Long firstTicketAt = ticketRollupRepository.findFirstTicketCreatedAt();
+        if (firstTicketAt != null && DailyRollupService.dayOf(firstTicketAt).isBefore(firstDay)) {
+            firstDay = DailyRollupService.dayOf(firstTicketAt);
+        }
+        LocalDateTime firstDepartureAt = tripRollupRepository.findFirstDepartureAt();
+        if (firstDepartureAt != null && firstDepartureAt.toLocalDate().isBefore(firstDay)) {
+            firstDay = firstDepartureAt.toLocalDate();
+        }
+        // trips already scheduled ahead were never seen by the write path
+        LocalDateTime lastDepartureAt = tripRollupRepository.findLastDepartureAt();
+        if (lastDepartureAt != null && lastDepartureAt.toLocalDate().isAfter(untilDay)) {
+            untilDay = lastDepartureAt.toLocalDate();
+        }
+        return RollupCheckpoint.builder()
+                .name(CHECKPOINT)
+                .nextDay(firstDay)
+                .untilDay(untilDay)
+                .build();
+    }
+}
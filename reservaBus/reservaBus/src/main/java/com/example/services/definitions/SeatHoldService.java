@@ -7,6 +7,8 @@ import com.example.api.dto.SeatHoldDTOs;
 public interface SeatHoldService {
     SeatHoldDTOs.SeatHoldResponse reserveSeat(SeatHoldDTOs.CreateSeatHoldRequest req);
 
+    List<SeatHoldDTOs.SeatHoldResponse> reserveSeats(SeatHoldDTOs.CreateSeatHoldBatchRequest req);
+
     SeatHoldDTOs.SeatHoldResponse getSeatReserveById(Long id);
 
     SeatHoldDTOs.SeatHoldResponse updateSeatReserve(Long id, SeatHoldDTOs.UpdateSeatHoldRequest req);
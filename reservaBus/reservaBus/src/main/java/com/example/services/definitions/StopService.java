@@ -1,5 +1,8 @@
 package com.example.services.definitions;
 
+import java.util.List;
+import java.util.Optional;
+
 import com.example.api.dto.StopDTOs;
 
 public interface StopService {
@@ -10,4 +13,6 @@ public interface StopService {
     StopDTOs.StopResponse updateStop(Long id, StopDTOs.UpdateStopRequest req);
 
     void deleteStop(Long id);
+
+    List<StopDTOs.StopSuggestion> autocomplete(String query, Optional<Integer> limit);
 }
@@ -9,6 +9,10 @@ import com.example.api.dto.TicketDTOs;
 public interface TicketService {
     TicketDTOs.TicketResponse createTicket(TicketDTOs.CreateTicketRequest req);
 
+    List<TicketDTOs.TicketResponse> checkout(TicketDTOs.CheckoutRequest req);
+
+    TicketDTOs.QuoteResponse quote(TicketDTOs.QuoteRequest req);
+
     TicketDTOs.TicketResponse getTicketById(Long id);
 
     TicketDTOs.TicketResponse updateTicket(Long id, TicketDTOs.UpdateTicketRequest req);
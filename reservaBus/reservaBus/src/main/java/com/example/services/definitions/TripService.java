@@ -1,8 +1,12 @@
 package com.example.services.definitions;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.api.dto.AssignmentDTOs;
 import com.example.api.dto.IncidentDTOs;
@@ -20,10 +24,16 @@ public interface TripService {
 
     void deleteTrip(Long id);
 
+    TripDTOs.TripResponse markTripArrived(Long id);
+
     List<TicketDTOs.TicketResponse> getTicketsByTripIdAndStatus(Long id, TicketStatus status);
 
     List<SeatDTOs.SeatResponse> getSeatsByTripId(Long id, String status);
 
+    SeatDTOs.SeatMapResponse getSeatMap(Long id, Long fromStopId, Long toStopId);
+
+    SseEmitter subscribeSeatMap(Long id, Long fromStopId, Long toStopId);
+
     List<AssignmentDTOs.AssignmentResponse> getAssignmentsByTripId(Long id);
 
     List<IncidentDTOs.IncidentResponse> getIncidentsByTripId(Long id);
@@ -32,5 +42,18 @@ public interface TripService {
 
     List<TripDTOs.TripResponse> getAllTrips();
 
-    TripDTOs.TripSearchResponse searchTrips(String origin, String destination, Optional<LocalDateTime> departureDate);
+    TripDTOs.TripSearchResponse searchTrips(String origin, String destination, Optional<LocalDateTime> departureDate,
+            Optional<String> cursor, Optional<Integer> limit);
+
+    TripDTOs.TripSearchResponse searchTripsByStops(Long fromStopId, Long toStopId,
+            Optional<LocalDateTime> departureDate, Optional<String> cursor, Optional<Integer> limit);
+
+    void streamSearchTrips(String origin, String destination, Optional<LocalDateTime> departureDate,
+            Consumer<TripDTOs.TripResponse> consumer);
+
+    List<TripDTOs.FareCalendarDay> getFareCalendar(String origin, String destination, Optional<LocalDate> from,
+            Optional<Integer> days);
+
+    List<TripDTOs.Journey> planJourneys(Long fromStopId, Long toStopId, Optional<LocalDateTime> departAfter,
+            Optional<Integer> maxTransfers);
 }
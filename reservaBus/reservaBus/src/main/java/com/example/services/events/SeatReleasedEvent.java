@@ -0,0 +1,9 @@
+package com.example.services.events;
+
+/**
+ * Published once an expired seat hold has been deleted, so in-memory seat
+ * structures can drop it.
+ */
+public record SeatReleasedEvent(Long tripId, Long holdId, String seatNumber, Integer fromSequence,
+        Integer toSequence) {
+}
@@ -0,0 +1,295 @@
+package com.example.services.extra;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-writer queue per trip for booking commands.
+ *
+ * Commands for the same trip go to one mailbox and are executed by one worker
+ * at a time, so they never race each other; different trips are drained in
+ * parallel on a bounded pool. Commands that queue up behind each other run in a
+ * single transaction.
+ *
+ * A command comes in two steps. The check validates and prepares without
+ * writing; when it throws, only that caller is rejected and the batch goes on,
+ * which is what most commands on a busy trip end with. The action does the
+ * writes; if one fails the whole batch is rolled back and replayed command by
+ * command, so only the failing caller sees the error. A check should throw
+ * from its own code: an exception escaping a transactional bean marks the
+ * batch rollback-only and takes the replay path as well.
+ *
+ * A command on several trips (a hold moved to another trip) joins every
+ * trip's mailbox and runs once it is first in all of them, with those trips
+ * parked until then. Such commands are enqueued under one lock in ascending
+ * trip order, so they sit in the same relative order in every mailbox and
+ * cannot wait on each other in a cycle.
+ */
+@Service
+public class BookingSequencer {
+
+    private static final int MAX_BATCH_SIZE = 32;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final long timeoutMillis;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Object jointLock = new Object();
+    private final ThreadLocal<Boolean> insideWorker = ThreadLocal.withInitial(() -> false);
+
+    private static final class Mailbox {
+        // guarded by the map entry, see submit/drain
+        private final Queue<Command<?, ?>> commands = new ArrayDeque<>();
+        private boolean draining;
+    }
+
+    private static final class Command<P, T> {
+        private final List<Long> tripIds;
+        private final Supplier<P> check;
+        private final Function<P, T> action;
+        private final SecurityContext securityContext;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // mailboxes that have not reached this command yet
+        private final AtomicInteger pending;
+
+        private Command(List<Long> tripIds, Supplier<P> check, Function<P, T> action) {
+            this.tripIds = tripIds;
+            this.check = check;
+            this.action = action;
+            this.securityContext = SecurityContextHolder.getContext();
+            this.pending = new AtomicInteger(tripIds.size());
+        }
+
+        boolean joint() {
+            return tripIds.size() > 1;
+        }
+
+        Object check() {
+            return check.get();
+        }
+
+        @SuppressWarnings("unchecked")
+        Object act(Object prepared) {
+            return action.apply((P) prepared);
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+
+    public BookingSequencer(PlatformTransactionManager transactionManager,
+            @Value("${booking.sequencer.workers:8}") int workers,
+            @Value("${booking.sequencer.timeout-ms:10000}") long timeoutMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workers);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public <T> T submit(Long tripId, Supplier<T> action) {
+        return submit(List.of(tripId), () -> null, ignored -> action.get());
+    }
+
+    public <P, T> T submit(Long tripId, Supplier<P> check, Function<P, T> action) {
+        return submit(List.of(tripId), check, action);
+    }
+
+    /**
+     * Runs the command on the mailboxes of the given trips and waits for its
+     * result, at most the configured timeout. A command that is still queued
+     * when its caller gives up is dropped; one already running completes.
+     * Commands submitted from inside a running command execute inline.
+     */
+    public <P, T> T submit(Collection<Long> tripIds, Supplier<P> check, Function<P, T> action) {
+        if (insideWorker.get()) {
+            return action.apply(check.get());
+        }
+
+        Command<P, T> command = new Command<>(List.copyOf(new TreeSet<>(tripIds)), check, action);
+        if (command.joint()) {
+            synchronized (jointLock) {
+                command.tripIds.forEach(tripId -> enqueue(tripId, command));
+            }
+        } else {
+            enqueue(command.tripIds.get(0), command);
+        }
+
+        try {
+            return command.result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("Booking on trip(s) %s timed out after %d ms"
+                        .formatted(command.tripIds, timeoutMillis));
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void enqueue(Long tripId, Command<?, ?> command) {
+        boolean[] schedule = { false };
+        mailboxes.compute(tripId, (id, mailbox) -> {
+            Mailbox target = mailbox != null ? mailbox : new Mailbox();
+            target.commands.add(command);
+            if (!target.draining) {
+                target.draining = true;
+                schedule[0] = true;
+            }
+            return target;
+        });
+        if (schedule[0]) {
+            workers.execute(() -> drain(tripId));
+        }
+    }
+
+    private void drain(Long tripId) {
+        List<Command<?, ?>> batch = new ArrayList<>();
+        List<Command<?, ?>> joint = new ArrayList<>(1);
+        mailboxes.computeIfPresent(tripId, (id, mailbox) -> {
+            while (batch.size() < MAX_BATCH_SIZE && !mailbox.commands.isEmpty()
+                    && !mailbox.commands.peek().joint()) {
+                batch.add(mailbox.commands.poll());
+            }
+            if (batch.isEmpty() && !mailbox.commands.isEmpty()) {
+                joint.add(mailbox.commands.peek());
+            }
+            return mailbox;
+        });
+
+        if (!joint.isEmpty() && joint.get(0).pending.decrementAndGet() > 0) {
+            // parked, still draining, the last trip to reach the command runs it and wakes this one
+            return;
+        }
+
+        insideWorker.set(true);
+        try {
+            if (!joint.isEmpty()) {
+                batch.add(joint.get(0));
+            }
+            execute(batch);
+        } catch (Throwable e) {
+            // nothing a command throws may leave its caller waiting
+            batch.forEach(command -> command.result.completeExceptionally(e));
+        } finally {
+            insideWorker.set(false);
+            if (!joint.isEmpty()) {
+                for (Long jointTripId : joint.get(0).tripIds) {
+                    mailboxes.computeIfPresent(jointTripId, (id, mailbox) -> {
+                        mailbox.commands.remove(joint.get(0));
+                        return mailbox;
+                    });
+                    if (!jointTripId.equals(tripId)) {
+                        releaseOrReschedule(jointTripId);
+                    }
+                }
+            }
+            releaseOrReschedule(tripId);
+        }
+    }
+
+    // hand the worker back between batches so busy trips do not starve the others
+    private void releaseOrReschedule(Long tripId) {
+        boolean[] reschedule = { false };
+        mailboxes.computeIfPresent(tripId, (id, mailbox) -> {
+            if (mailbox.commands.isEmpty()) {
+                return null;
+            }
+            reschedule[0] = true;
+            return mailbox;
+        });
+        if (reschedule[0]) {
+            workers.execute(() -> drain(tripId));
+        }
+    }
+
+    private void execute(List<Command<?, ?>> batch) {
+        // callers that gave up while queued are not run
+        List<Command<?, ?>> live = batch.stream().filter(command -> !command.result.isDone()).toList();
+        if (live.size() > 1) {
+            try {
+                Object[] outcomes = transactionTemplate.execute(status -> {
+                    Object[] values = new Object[live.size()];
+                    for (int i = 0; i < live.size(); i++) {
+                        Command<?, ?> command = live.get(i);
+                        Object prepared;
+                        try {
+                            prepared = run(command, command::check);
+                        } catch (RuntimeException rejection) {
+                            values[i] = new Rejection(rejection);
+                            continue;
+                        }
+                        values[i] = run(command, () -> command.act(prepared));
+                    }
+                    return values;
+                });
+                for (int i = 0; i < live.size(); i++) {
+                    if (outcomes[i] instanceof Rejection rejection) {
+                        live.get(i).result.completeExceptionally(rejection.cause());
+                    } else {
+                        live.get(i).complete(outcomes[i]);
+                    }
+                }
+                return;
+            } catch (Throwable e) {
+                // rolled back as a whole, replay one by one below
+            }
+        }
+
+        for (Command<?, ?> command : live) {
+            try {
+                command.complete(transactionTemplate.execute(
+                        status -> run(command, () -> command.act(command.check()))));
+            } catch (Throwable e) {
+                command.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private record Rejection(RuntimeException cause) {
+    }
+
+    private static Object run(Command<?, ?> command, Supplier<Object> step) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(command.securityContext);
+        try {
+            return step.get();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.services.extra;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.repositories.FareRuleRepository;
+import com.example.domain.repositories.RouteRepository;
+import com.example.exceptions.NotFoundException;
+import com.example.utils.AfterCommit;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Prices a seat from the segment's load factor (seats sold or held over bus
+ * capacity) and the time left to departure.
+ *
+ * The base fare of the segment comes from the route's {@link FareMatrix},
+ * then a step multiplier is applied. The step starts at {@link #BASE_STEP},
+ * climbs one rung per load threshold passed, drops one for bookings more than
+ * {@link #EARLY_BIRD} ahead and climbs one inside {@link #LAST_MINUTE}. Routes
+ * whose fare rule has dynamic pricing off charge the base fare at every step.
+ *
+ * The step of a (trip, segment) is cached until the trip's seat inventory
+ * version or the time band moves, so repeated quotes read no seats at all.
+ * Search, holds and tickets all go through here and see the same price.
+ */
+@Service
+@RequiredArgsConstructor
+public class DynamicPricingEngine {
+
+    public static final int BASE_STEP = 1;
+
+    private static final double[] LOAD_THRESHOLDS = { 0.5, 0.7, 0.85, 0.95 };
+    private static final double[] MULTIPLIERS = { 0.9, 1.0, 1.1, 1.2, 1.35, 1.5 };
+    private static final Duration EARLY_BIRD = Duration.ofDays(14);
+    private static final Duration LAST_MINUTE = Duration.ofHours(24);
+    private static final int MAX_CACHED_STEPS = 10_000;
+
+    private final RouteRepository routeRepository;
+    private final FareRuleRepository fareRuleRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final RouteTopologyCache routeTopologyCache;
+
+    private final Map<Long, FareMatrix> matrices = new ConcurrentHashMap<>();
+    // per route, see AfterCommit
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final Map<StepKey, CachedStep> steps = new ConcurrentHashMap<>();
+
+    public record Quote(int step, double price) {
+    }
+
+    private record StepKey(long tripId, int fromSequence, int toSequence) {
+    }
+
+    private record CachedStep(long inventoryVersion, int timeBand, int step) {
+    }
+
+    /**
+     * Current price of a seat on the segment, with the load read from the
+     * trip's in-memory seat inventory.
+     */
+    public Quote quote(Trip trip, int fromSequence, int toSequence, FareRulePassengerType passengerType) {
+        int step = currentStep(trip, fromSequence, toSequence);
+        return new Quote(step, price(trip.getRoute().getId(), fromSequence, toSequence, step, passengerType));
+    }
+
+    /**
+     * Current price when the caller already counted the taken seats, as the
+     * search does for a whole page in one query.
+     */
+    public Quote quote(Long routeId, int fromSequence, int toSequence, LocalDateTime departureAt, int capacity,
+            int takenSeats, FareRulePassengerType passengerType) {
+        int step = step(capacity, takenSeats, timeBand(departureAt, LocalDateTime.now()));
+        return new Quote(step, price(routeId, fromSequence, toSequence, step, passengerType));
+    }
+
+    // price of a step quoted earlier, a hold keeps the step it was placed at
+    public double price(Long routeId, int fromSequence, int toSequence, int step,
+            FareRulePassengerType passengerType) {
+        RouteTopology topology = routeTopologyCache.get(routeId);
+        FareMatrix matrix = matrix(routeId, topology);
+        double fare = matrix.fare(topology.indexAtSequence(fromSequence), topology.indexAtSequence(toSequence),
+                passengerType);
+        return matrix.isDynamicPricing() ? fare * MULTIPLIERS[Math.max(0, Math.min(step, MULTIPLIERS.length - 1))]
+                : fare;
+    }
+
+    public int currentStep(Trip trip, int fromSequence, int toSequence) {
+        // read before the seats, a step cached under it is at least as new as the version
+        long version = seatInventoryService.getVersion(trip.getId());
+        int timeBand = timeBand(trip.getDepartureAt(), LocalDateTime.now());
+        StepKey key = new StepKey(trip.getId(), fromSequence, toSequence);
+        CachedStep cached = steps.get(key);
+        if (cached != null && cached.inventoryVersion() == version && cached.timeBand() == timeBand) {
+            return cached.step();
+        }
+
+        int taken = seatInventoryService.getInventory(trip.getId()).takenSeats(fromSequence, toSequence,
+                System.currentTimeMillis());
+        int step = step(trip.getBus().getCapacity(), taken, timeBand);
+        if (steps.size() >= MAX_CACHED_STEPS) {
+            steps.clear();
+        }
+        steps.put(key, new CachedStep(version, timeBand, step));
+        return step;
+    }
+
+    /**
+     * Drops the route's fare matrix once the current transaction commits, or
+     * right away outside of one. Cached steps stay valid, they do not depend
+     * on the fares.
+     */
+    public void invalidateRoute(Long routeId) {
+        AfterCommit.run(() -> {
+            generations.merge(routeId, 1L, Long::sum);
+            matrices.remove(routeId);
+        });
+    }
+
+    // the cached matrix while it matches the route's current stops, else a freshly built one swapped in
+    private FareMatrix matrix(Long routeId, RouteTopology topology) {
+        FareMatrix matrix = matrices.get(routeId);
+        if (matrix != null && matrix.getTopologyVersion() == topology.getVersion()) {
+            return matrix;
+        }
+
+        long generation = generations.getOrDefault(routeId, 0L);
+        Route route = routeRepository.findById(routeId)
+                .orElseThrow(() -> new NotFoundException("Route %d not found".formatted(routeId)));
+        FareMatrix loaded = FareMatrix.of(route, fareRuleRepository.findByRouteId(routeId), topology);
+        if (generation != generations.getOrDefault(routeId, 0L)) {
+            return loaded;
+        }
+        // swapped in whole, never over a matrix built from a newer topology
+        matrices.merge(routeId, loaded,
+                (current, built) -> current.getTopologyVersion() > built.getTopologyVersion() ? current : built);
+        return loaded;
+    }
+
+    private static int step(int capacity, int takenSeats, int timeBand) {
+        double loadFactor = capacity > 0 ? (double) takenSeats / capacity : 1.0;
+        int step = BASE_STEP + timeBand;
+        for (double threshold : LOAD_THRESHOLDS) {
+            if (loadFactor >= threshold) {
+                step++;
+            }
+        }
+        return Math.max(0, Math.min(step, MULTIPLIERS.length - 1));
+    }
+
+    // -1 well ahead of departure, 0 normally, 1 close to it
+    private static int timeBand(LocalDateTime departureAt, LocalDateTime now) {
+        if (departureAt == null) {
+            return 0;
+        }
+        Duration untilDeparture = Duration.between(now, departureAt);
+        if (untilDeparture.compareTo(LAST_MINUTE) < 0) {
+            return 1;
+        }
+        return untilDeparture.compareTo(EARLY_BIRD) > 0 ? -1 : 0;
+    }
+}
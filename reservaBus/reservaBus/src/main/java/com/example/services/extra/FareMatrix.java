@@ -0,0 +1,94 @@
+package com.example.services.extra;
+
+import com.example.domain.entities.FareRule;
+import com.example.domain.entities.Route;
+import com.example.domain.enums.FareRulePassengerType;
+
+/**
+ * Immutable base fares of one route for every (fromStop, toStop, passenger
+ * type), before any dynamic pricing multiplier.
+ *
+ * A segment costs the route's full fare times the share of the route it
+ * covers, measured on the stop coordinates of a {@link RouteTopology}, less
+ * the fare rule's passenger discount. Cells are stored in one flat array, so
+ * a lookup is a single index computation. Cells at or below the diagonal hold
+ * the whole route fare; they are only reached by a route with fewer than two
+ * stops or by sequences of stops removed since the booking was made.
+ */
+public final class FareMatrix {
+
+    private static final FareRulePassengerType[] TYPES = FareRulePassengerType.values();
+
+    // used when a route has no fare rule, the discounts a missing rule used to be created with
+    private static final double DEFAULT_CHILDREN_DISCOUNT = 0.25;
+    private static final double DEFAULT_SENIOR_DISCOUNT = 0.15;
+    private static final double DEFAULT_STUDENT_DISCOUNT = 0.10;
+
+    private final Long routeId;
+    private final long topologyVersion;
+    private final boolean dynamicPricing;
+    private final int stops;
+    // fares[(from * stops + to) * TYPES.length + passengerType.ordinal()]
+    private final double[] fares;
+
+    private FareMatrix(Long routeId, long topologyVersion, boolean dynamicPricing, int stops, double[] fares) {
+        this.routeId = routeId;
+        this.topologyVersion = topologyVersion;
+        this.dynamicPricing = dynamicPricing;
+        this.stops = stops;
+        this.fares = fares;
+    }
+
+    public static FareMatrix of(Route route, FareRule fareRule, RouteTopology topology) {
+        // a route without distance or price sells at zero, as the ticket rollups count it
+        double distanceKm = route.getDistanceKm() != null ? route.getDistanceKm() : 0.0;
+        double pricePerKm = route.getPricePerKm() != null ? route.getPricePerKm() : 0.0;
+        double routeFare = distanceKm * pricePerKm;
+        int stops = Math.max(topology.size(), 1);
+        double[] discounts = new double[TYPES.length];
+        for (FareRulePassengerType type : TYPES) {
+            discounts[type.ordinal()] = discount(fareRule, type);
+        }
+
+        double[] fares = new double[stops * stops * TYPES.length];
+        for (int from = 0; from < stops; from++) {
+            for (int to = 0; to < stops; to++) {
+                double share = topology.travelledShare(from, to);
+                int cell = (from * stops + to) * TYPES.length;
+                for (int type = 0; type < TYPES.length; type++) {
+                    fares[cell + type] = routeFare * share * (1 - discounts[type]);
+                }
+            }
+        }
+        return new FareMatrix(route.getId(), topology.getVersion(),
+                fareRule != null && Boolean.TRUE.equals(fareRule.getDynamicPricing()), stops, fares);
+    }
+
+    public Long getRouteId() {
+        return routeId;
+    }
+
+    // version of the topology the matrix was built from, it is stale once the route's stops change
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    public boolean isDynamicPricing() {
+        return dynamicPricing;
+    }
+
+    public double fare(int fromIndex, int toIndex, FareRulePassengerType passengerType) {
+        int from = Math.max(0, Math.min(fromIndex, stops - 1));
+        int to = Math.max(0, Math.min(toIndex, stops - 1));
+        return fares[(from * stops + to) * TYPES.length + passengerType.ordinal()];
+    }
+
+    private static double discount(FareRule fareRule, FareRulePassengerType passengerType) {
+        return switch (passengerType) {
+            case ADULT -> 0.0;
+            case CHILD -> fareRule != null ? fareRule.getChildrenDiscount() : DEFAULT_CHILDREN_DISCOUNT;
+            case SENIOR -> fareRule != null ? fareRule.getSeniorDiscount() : DEFAULT_SENIOR_DISCOUNT;
+            case STUDENT -> fareRule != null ? fareRule.getStudentDiscount() : DEFAULT_STUDENT_DISCOUNT;
+        };
+    }
+}
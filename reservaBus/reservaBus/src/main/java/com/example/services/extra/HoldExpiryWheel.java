@@ -0,0 +1,83 @@
+package com.example.services.extra;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of upcoming seat hold expirations.
+ *
+ * Every slot covers one tick and a hold is put in the slot of the tick its
+ * expiry falls in; holds more than one revolution away simply stay in their
+ * slot until their tick comes around. Scheduling is O(1) and advancing only
+ * visits the slots that elapsed. Only the latest schedule of a hold counts,
+ * older entries are dropped when their slot is visited.
+ */
+public final class HoldExpiryWheel {
+
+    public record Expiry(Long holdId, Long tripId, String seatNumber, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final List<List<Expiry>> slots;
+    private final Map<Long, Expiry> pending = new HashMap<>();
+    // next tick to be visited by advance
+    private long currentTick;
+
+    public HoldExpiryWheel(long tickMillis, int slotCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    public synchronized void schedule(Long holdId, Long tripId, String seatNumber, long expiresAtMillis) {
+        // rounded up so a hold never fires before it expired, already expired ones fire on the next advance
+        long tick = Math.max(Math.floorDiv(expiresAtMillis + tickMillis - 1, tickMillis), currentTick);
+        Expiry expiry = new Expiry(holdId, tripId, seatNumber, tick);
+        pending.put(holdId, expiry);
+        slotOf(tick).add(expiry);
+    }
+
+    public synchronized void cancel(Long holdId) {
+        pending.remove(holdId);
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Removes and returns every hold whose expiry is at or before nowMillis.
+     */
+    public synchronized List<Expiry> advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        // one revolution visits every slot, no need to spin through a longer gap
+        long lastTick = Math.min(nowTick, currentTick + slots.size() - 1);
+
+        List<Expiry> due = new ArrayList<>();
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<Expiry> entries = slotOf(tick).iterator();
+            while (entries.hasNext()) {
+                Expiry expiry = entries.next();
+                if (pending.get(expiry.holdId()) != expiry) {
+                    entries.remove();
+                } else if (expiry.deadlineTick() <= nowTick) {
+                    entries.remove();
+                    pending.remove(expiry.holdId());
+                    due.add(expiry);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick + 1);
+        return due;
+    }
+
+    private List<Expiry> slotOf(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.services.extra;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.domain.entities.Stop;
+import com.example.domain.enums.TripStatus;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.domain.repositories.TripSearchRow;
+import com.example.utils.AfterCommit;
+import com.example.utils.TextNormalizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Plans journeys with connections over the upcoming trips of every route,
+ * using a round based scan of the timetable (RAPTOR).
+ *
+ * Stops with the same accent folded name are one place, passengers can change
+ * buses there once {@link #MIN_CONNECTION} has passed. Only departure and
+ * arrival are stored per trip; the time at an intermediate stop is
+ * interpolated by the distance travelled along the route. Round k finds the
+ * earliest arrivals with k trips, so keeping a journey only when it arrives
+ * earlier than every journey with fewer trips yields the Pareto set of arrival
+ * time against transfers.
+ *
+ * The timetable holds {@link #HORIZON} of departures and is rebuilt hourly to
+ * move that window; a route is reloaded on its own after its trips or stops
+ * change. Queries read an immutable snapshot and never lock.
+ */
+@Service
+@RequiredArgsConstructor
+public class JourneyPlanner {
+
+    public static final int MAX_TRANSFERS = 3;
+    public static final Duration HORIZON = Duration.ofDays(7);
+
+    private static final Duration MIN_CONNECTION = Duration.ofMinutes(15);
+    private static final List<TripStatus> BOOKABLE = List.of(TripStatus.SCHEDULED, TripStatus.BOARDING);
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    private final TripRepository tripRepository;
+    private final StopRepository stopRepository;
+
+    // guarded by this, only grows so the place ids of older snapshots stay valid
+    private final Map<String, Integer> placeIds = new HashMap<>();
+
+    private volatile Network network = Network.EMPTY;
+
+    public record Leg(Long tripId, Long routeId, Long fromStopId, Long toStopId, LocalDateTime departureAt,
+            LocalDateTime arrivalAt) {
+    }
+
+    public record Journey(List<Leg> legs) {
+
+        public LocalDateTime departureAt() {
+            return legs.get(0).departureAt();
+        }
+
+        public LocalDateTime arrivalAt() {
+            return legs.get(legs.size() - 1).arrivalAt();
+        }
+
+        public int transfers() {
+            return legs.size() - 1;
+        }
+    }
+
+    // a route's stops in travel order and its trips by departure, times[trip][stop] in epoch seconds
+    private record Pattern(Long routeId, long[] stopIds, int[] places, long[] tripIds, long[][] times) {
+    }
+
+    private record Network(Map<Long, Pattern> patterns, Map<Long, Integer> placeByStop,
+            Map<Integer, List<Pattern>> patternsByPlace, int placeCount) {
+
+        static final Network EMPTY = new Network(Map.of(), Map.of(), Map.of(), 0);
+
+        static Network of(Map<Long, Pattern> patterns, int placeCount) {
+            Map<Long, Integer> placeByStop = new HashMap<>();
+            Map<Integer, List<Pattern>> patternsByPlace = new HashMap<>();
+            for (Pattern pattern : patterns.values()) {
+                for (int i = 0; i < pattern.stopIds().length; i++) {
+                    placeByStop.put(pattern.stopIds()[i], pattern.places()[i]);
+                    List<Pattern> serving = patternsByPlace.computeIfAbsent(pattern.places()[i], p -> new ArrayList<>());
+                    if (!serving.contains(pattern)) {
+                        serving.add(pattern);
+                    }
+                }
+            }
+            return new Network(Map.copyOf(patterns), placeByStop, patternsByPlace, placeCount);
+        }
+    }
+
+    // how a place was reached in a round: on which trip, boarded where
+    private record Label(int round, Pattern pattern, int trip, int boardIndex, int alightIndex, int boardPlace) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000)
+    public synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<TripSearchRow>> tripsByRoute = tripRepository
+                .findTimetableRows(BOOKABLE, now, now.plus(HORIZON)).stream()
+                .collect(Collectors.groupingBy(TripSearchRow::routeId));
+        Map<Long, List<Stop>> stopsByRoute = stopRepository.findAllWithRoute().stream()
+                .collect(Collectors.groupingBy(stop -> stop.getRoute().getId()));
+
+        Map<Long, Pattern> patterns = new HashMap<>();
+        stopsByRoute.forEach((routeId, stops) -> patterns.put(routeId,
+                pattern(routeId, stops, tripsByRoute.getOrDefault(routeId, List.of()))));
+        network = Network.of(patterns, placeIds.size());
+    }
+
+    /**
+     * Reloads the route's stops and upcoming trips once the current
+     * transaction commits, or right away outside of one.
+     */
+    public void refreshRoute(Long routeId) {
+        AfterCommit.run(() -> reloadRoute(routeId));
+    }
+
+    public boolean containsStop(Long stopId) {
+        return network.placeByStop().containsKey(stopId);
+    }
+
+    /**
+     * Journeys from the place of one stop to the place of another leaving at
+     * or after the given time, one per number of trips that arrives earlier
+     * than all journeys with fewer, ordered by transfers.
+     */
+    public List<Journey> plan(Long fromStopId, Long toStopId, LocalDateTime departAfter, int maxTransfers) {
+        Network snapshot = network;
+        Integer origin = snapshot.placeByStop().get(fromStopId);
+        Integer target = snapshot.placeByStop().get(toStopId);
+        if (origin == null || target == null || origin.equals(target)) {
+            return List.of();
+        }
+
+        long notBefore = Math.max(epochSeconds(departAfter), epochSeconds(LocalDateTime.now()));
+        int rounds = Math.min(maxTransfers, MAX_TRANSFERS) + 1;
+        long connection = MIN_CONNECTION.toSeconds();
+
+        long[][] arrival = new long[rounds + 1][];
+        Label[][] labels = new Label[rounds + 1][];
+        arrival[0] = new long[snapshot.placeCount()];
+        labels[0] = new Label[snapshot.placeCount()];
+        Arrays.fill(arrival[0], UNREACHED);
+        arrival[0][origin] = notBefore;
+
+        long[] best = arrival[0].clone();
+        boolean[] marked = new boolean[snapshot.placeCount()];
+        marked[origin] = true;
+        List<Journey> journeys = new ArrayList<>();
+
+        for (int k = 1; k <= rounds; k++) {
+            arrival[k] = arrival[k - 1].clone();
+            labels[k] = labels[k - 1].clone();
+
+            // every pattern through a place improved last round, scanned from the first such place
+            Map<Pattern, Integer> queue = new LinkedHashMap<>();
+            for (int place = 0; place < marked.length; place++) {
+                if (!marked[place]) {
+                    continue;
+                }
+                for (Pattern pattern : snapshot.patternsByPlace().getOrDefault(place, List.of())) {
+                    int index = indexOf(pattern, place);
+                    queue.merge(pattern, index, Math::min);
+                }
+            }
+            marked = new boolean[snapshot.placeCount()];
+
+            for (Map.Entry<Pattern, Integer> entry : queue.entrySet()) {
+                Pattern pattern = entry.getKey();
+                int trip = -1;
+                int boardIndex = -1;
+                for (int i = entry.getValue(); i < pattern.places().length; i++) {
+                    int place = pattern.places()[i];
+                    if (trip >= 0) {
+                        long at = pattern.times()[trip][i];
+                        if (at < Math.min(best[place], best[target])) {
+                            arrival[k][place] = at;
+                            best[place] = at;
+                            labels[k][place] = new Label(k, pattern, trip, boardIndex, i, pattern.places()[boardIndex]);
+                            marked[place] = true;
+                        }
+                    }
+
+                    long reachedAt = arrival[k - 1][place];
+                    if (reachedAt == UNREACHED) {
+                        continue;
+                    }
+                    // the origin needs no connection time, a place reached by bus does
+                    long ready = labels[k - 1][place] == null ? reachedAt : reachedAt + connection;
+                    if (trip < 0 || ready <= pattern.times()[trip][i]) {
+                        int earlier = earliestTrip(pattern, i, ready, notBefore);
+                        if (earlier >= 0 && (trip < 0 || pattern.times()[earlier][i] < pattern.times()[trip][i])) {
+                            trip = earlier;
+                            boardIndex = i;
+                        }
+                    }
+                }
+            }
+
+            Label reached = labels[k][target];
+            if (reached != null && reached.round() == k) {
+                journeys.add(journey(labels, target, k));
+            }
+        }
+        return journeys;
+    }
+
+    private synchronized void reloadRoute(Long routeId) {
+        List<Stop> stops = stopRepository.findByRoute_IdOrderBySequenceAsc(routeId);
+        Map<Long, Pattern> patterns = new HashMap<>(network.patterns());
+        if (stops.isEmpty()) {
+            patterns.remove(routeId);
+        } else {
+            LocalDateTime now = LocalDateTime.now();
+            patterns.put(routeId, pattern(routeId, stops,
+                    tripRepository.findTimetableRowsByRouteId(routeId, BOOKABLE, now, now.plus(HORIZON))));
+        }
+        network = Network.of(patterns, placeIds.size());
+    }
+
+    private Pattern pattern(Long routeId, List<Stop> stops, List<TripSearchRow> trips) {
+        RouteTopology topology = RouteTopology.of(routeId, 0, stops);
+        long[] stopIds = new long[topology.size()];
+        int[] places = new int[topology.size()];
+        double[] fractions = new double[topology.size()];
+        for (int i = 0; i < topology.size(); i++) {
+            stopIds[i] = topology.stopId(i);
+            places[i] = placeIds.computeIfAbsent(TextNormalizer.normalize(topology.name(i)), key -> placeIds.size());
+            fractions[i] = topology.travelledFraction(i);
+        }
+
+        List<TripSearchRow> byDeparture = trips.stream()
+                .sorted(Comparator.comparing(TripSearchRow::departureAt).thenComparing(TripSearchRow::id))
+                .toList();
+        long[] tripIds = new long[byDeparture.size()];
+        long[][] times = new long[byDeparture.size()][];
+        for (int t = 0; t < byDeparture.size(); t++) {
+            TripSearchRow row = byDeparture.get(t);
+            long departure = epochSeconds(row.departureAt());
+            long duration = epochSeconds(row.arrivalAt()) - departure;
+            tripIds[t] = row.id();
+            times[t] = new long[fractions.length];
+            for (int i = 0; i < fractions.length; i++) {
+                times[t][i] = departure + Math.round(duration * fractions[i]);
+            }
+        }
+        return new Pattern(routeId, stopIds, places, tripIds, times);
+    }
+
+    // trips are sorted by departure but may overtake each other, so look at all of them
+    private static int earliestTrip(Pattern pattern, int index, long ready, long notBefore) {
+        int earliest = -1;
+        for (int t = 0; t < pattern.times().length; t++) {
+            long[] times = pattern.times()[t];
+            if (times[0] >= notBefore && times[index] >= ready
+                    && (earliest < 0 || times[index] < pattern.times()[earliest][index])) {
+                earliest = t;
+            }
+        }
+        return earliest;
+    }
+
+    private static int indexOf(Pattern pattern, int place) {
+        for (int i = 0; i < pattern.places().length; i++) {
+            if (pattern.places()[i] == place) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Place %d is not on route %d".formatted(place, pattern.routeId()));
+    }
+
+    // walks the labels back from the target, one trip per round
+    private static Journey journey(Label[][] labels, int target, int round) {
+        List<Leg> legs = new ArrayList<>();
+        int place = target;
+        int k = round;
+        while (k > 0 && labels[k][place] != null) {
+            Label label = labels[k][place];
+            Pattern pattern = label.pattern();
+            long[] times = pattern.times()[label.trip()];
+            legs.add(0, new Leg(pattern.tripIds()[label.trip()], pattern.routeId(),
+                    pattern.stopIds()[label.boardIndex()], pattern.stopIds()[label.alightIndex()],
+                    dateTime(times[label.boardIndex()]), dateTime(times[label.alightIndex()])));
+            place = label.boardPlace();
+            k = label.round() - 1;
+        }
+        return new Journey(List.copyOf(legs));
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime dateTime(long epochSeconds) {
+        return LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC);
+    }
+}
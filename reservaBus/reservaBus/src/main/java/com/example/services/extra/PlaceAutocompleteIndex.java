@@ -0,0 +1,262 @@
+package com.example.services.extra;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.RouteTripCount;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.utils.AfterCommit;
+import com.example.utils.TextNormalizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Prefix trie over stop names and route origin/destination cities, used to
+ * autocomplete search boxes without going to the database.
+ *
+ * Names are accent folded with {@link TextNormalizer}; a place is reachable
+ * from the start of its name and of every later word ("marta" finds "Santa
+ * Marta"). Each trie node keeps its best {@link #MAX_SUGGESTIONS} places ranked
+ * by upcoming trips, so a lookup is a walk down the prefix. Nodes are immutable
+ * and updated by path copying, readers never lock. A route's places are
+ * re-read after stop and route writes commit; trip counts are refreshed on a
+ * schedule.
+ */
+@Service
+@RequiredArgsConstructor
+public class PlaceAutocompleteIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Place> RANKING = Comparator.comparingLong(Place::tripCount).reversed()
+            .thenComparing(Place::name);
+
+    private final RouteRepository routeRepository;
+    private final StopRepository stopRepository;
+    private final TripRepository tripRepository;
+
+    // guarded by this
+    private final Map<Long, Map<String, RoutePlace>> placesByRoute = new HashMap<>();
+    private final Map<String, Set<Long>> routesByPlace = new HashMap<>();
+    private final Map<String, Place> places = new HashMap<>();
+    private Map<Long, Long> tripCounts = Map.of();
+
+    private volatile Node root = Node.EMPTY;
+
+    public record Place(String key, String name, List<Long> stopIds, long tripCount) {
+    }
+
+    // how one route contributes to a place: its display name and the route's stops there
+    private record RoutePlace(String name, List<Long> stopIds) {
+    }
+
+    private record Node(Map<Character, Node> children, List<Place> terminals, List<Place> top) {
+        static final Node EMPTY = new Node(Map.of(), List.of(), List.of());
+
+        static Node of(Map<Character, Node> children, List<Place> terminals) {
+            Map<String, Place> best = new LinkedHashMap<>();
+            terminals.forEach(place -> best.put(place.key(), place));
+            children.values().forEach(child -> child.top().forEach(place -> best.putIfAbsent(place.key(), place)));
+            List<Place> top = best.values().stream().sorted(RANKING).limit(MAX_SUGGESTIONS).toList();
+            return new Node(children, terminals, top);
+        }
+
+        boolean isEmpty() {
+            return children.isEmpty() && terminals.isEmpty();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        placesByRoute.clear();
+        routesByPlace.clear();
+        places.clear();
+        tripCounts = loadTripCounts();
+
+        Map<Long, List<Stop>> stopsByRoute = stopRepository.findAllWithRoute().stream()
+                .collect(Collectors.groupingBy(stop -> stop.getRoute().getId()));
+        Set<String> touched = new HashSet<>();
+        for (Route route : routeRepository.findAllWithFareRule()) {
+            touched.addAll(indexRoute(route, stopsByRoute.getOrDefault(route.getId(), List.of())));
+        }
+        root = Node.EMPTY;
+        updatePlaces(touched);
+    }
+
+    public List<Place> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children().get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Place> top = node.top();
+        return top.subList(0, Math.min(Math.max(limit, 0), top.size()));
+    }
+
+    /**
+     * Re-reads the route and its stops once the current transaction commits, or
+     * right away outside of one.
+     */
+    public void refreshRoute(Long routeId) {
+        AfterCommit.run(() -> reloadRoute(routeId));
+    }
+
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
+    public synchronized void refreshTripCounts() {
+        Map<Long, Long> previous = tripCounts;
+        tripCounts = loadTripCounts();
+        Set<Long> changed = new HashSet<>(previous.keySet());
+        changed.addAll(tripCounts.keySet());
+        changed.removeIf(routeId -> previous.getOrDefault(routeId, 0L).equals(tripCounts.getOrDefault(routeId, 0L)));
+        updatePlaces(changed.stream()
+                .flatMap(routeId -> placesByRoute.getOrDefault(routeId, Map.of()).keySet().stream())
+                .collect(Collectors.toSet()));
+    }
+
+    private synchronized void reloadRoute(Long routeId) {
+        Set<String> touched = unindexRoute(routeId);
+        routeRepository.findById(routeId).ifPresent(
+                route -> touched.addAll(indexRoute(route, stopRepository.findByRoute_IdOrderBySequenceAsc(routeId))));
+        updatePlaces(touched);
+    }
+
+    private Set<String> indexRoute(Route route, List<Stop> stops) {
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, List<Long>> stopIds = new LinkedHashMap<>();
+        for (String city : Arrays.asList(route.getOrigin(), route.getDestination())) {
+            names.putIfAbsent(TextNormalizer.normalize(city), city);
+        }
+        for (Stop stop : stops) {
+            String key = TextNormalizer.normalize(stop.getName());
+            names.putIfAbsent(key, stop.getName());
+            stopIds.computeIfAbsent(key, k -> new ArrayList<>()).add(stop.getId());
+        }
+        names.remove("");
+
+        Map<String, RoutePlace> routePlaces = new HashMap<>();
+        names.forEach((key, name) -> {
+            routePlaces.put(key, new RoutePlace(name, stopIds.getOrDefault(key, List.of())));
+            routesByPlace.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(route.getId());
+        });
+        placesByRoute.put(route.getId(), routePlaces);
+        return new HashSet<>(routePlaces.keySet());
+    }
+
+    private Set<String> unindexRoute(Long routeId) {
+        Map<String, RoutePlace> routePlaces = placesByRoute.remove(routeId);
+        if (routePlaces == null) {
+            return new HashSet<>();
+        }
+        routePlaces.keySet().forEach(key -> {
+            Set<Long> routes = routesByPlace.get(key);
+            routes.remove(routeId);
+            if (routes.isEmpty()) {
+                routesByPlace.remove(key);
+            }
+        });
+        return new HashSet<>(routePlaces.keySet());
+    }
+
+    // readers switch to the new trie at once, never to a half updated one
+    private void updatePlaces(Set<String> keys) {
+        Node trie = root;
+        for (String key : keys) {
+            trie = updatePlace(trie, key);
+        }
+        root = trie;
+    }
+
+    // recomputes one place from the routes serving it and swaps it in the trie
+    private Node updatePlace(Node trie, String key) {
+        if (places.remove(key) != null) {
+            for (String trieKey : keysOf(key)) {
+                trie = update(trie, trieKey, 0, terminals -> without(terminals, key));
+            }
+        }
+
+        Set<Long> routes = routesByPlace.getOrDefault(key, Set.of());
+        if (routes.isEmpty()) {
+            return trie;
+        }
+        String name = null;
+        List<Long> stopIds = new ArrayList<>();
+        long trips = 0;
+        for (Long routeId : routes) {
+            RoutePlace routePlace = placesByRoute.get(routeId).get(key);
+            name = name != null ? name : routePlace.name();
+            stopIds.addAll(routePlace.stopIds());
+            trips += tripCounts.getOrDefault(routeId, 0L);
+        }
+        Place place = new Place(key, name, List.copyOf(stopIds), trips);
+        places.put(key, place);
+        for (String trieKey : keysOf(key)) {
+            trie = update(trie, trieKey, 0, terminals -> {
+                List<Place> updated = new ArrayList<>(without(terminals, key));
+                updated.add(place);
+                return updated;
+            });
+        }
+        return trie;
+    }
+
+    private Node update(Node node, String key, int depth, UnaryOperator<List<Place>> change) {
+        if (depth == key.length()) {
+            return Node.of(node.children(), List.copyOf(change.apply(node.terminals())));
+        }
+        char c = key.charAt(depth);
+        Node child = update(node.children().getOrDefault(c, Node.EMPTY), key, depth + 1, change);
+        Map<Character, Node> children = new TreeMap<>(node.children());
+        if (child.isEmpty()) {
+            children.remove(c);
+        } else {
+            children.put(c, child);
+        }
+        return Node.of(Map.copyOf(children), node.terminals());
+    }
+
+    private static List<Place> without(List<Place> terminals, String key) {
+        return terminals.stream().filter(place -> !place.key().equals(key)).toList();
+    }
+
+    // the full name and every suffix starting at a word
+    private static List<String> keysOf(String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            keys.add(key.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private Map<Long, Long> loadTripCounts() {
+        return tripRepository.countUpcomingTripsByRoute(LocalDateTime.now()).stream()
+                .collect(Collectors.toMap(RouteTripCount::routeId, RouteTripCount::trips));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.services.extra;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.StopRepository;
+import com.example.utils.AfterCommit;
+import com.example.utils.TextNormalizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory read model of every ordered (from stop, to stop) pair a route
+ * serves, keyed by the normalized stop names.
+ *
+ * Stops belong to a single route, so the same town shows up as one stop per
+ * route. Looking a pair up by place finds every route that travels from one to
+ * the other, whichever concrete stops the user picked, without touching the
+ * database. Routes are re-indexed after stop and route writes commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class RouteStopPairIndex {
+
+    private final StopRepository stopRepository;
+
+    private final Map<Long, IndexedRoute> pairsByRoute = new ConcurrentHashMap<>();
+    private final Map<PlacePair, Set<RouteStopPair>> pairsByPlaces = new ConcurrentHashMap<>();
+    private final Map<Long, StopPlace> placeByStop = new ConcurrentHashMap<>();
+
+    public record RouteStopPair(Long routeId, Long fromStopId, Long toStopId, int fromSequence, int toSequence) {
+    }
+
+    private record PlacePair(String from, String to) {
+    }
+
+    private record StopPlace(Long routeId, String place) {
+    }
+
+    private record IndexedPair(PlacePair places, RouteStopPair pair) {
+    }
+
+    private record IndexedRoute(List<Long> stopIds, List<IndexedPair> pairs) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        pairsByRoute.clear();
+        pairsByPlaces.clear();
+        placeByStop.clear();
+        stopRepository.findAllWithRoute().stream()
+                .collect(Collectors.groupingBy(stop -> stop.getRoute().getId()))
+                .forEach(this::index);
+    }
+
+    /**
+     * Re-reads the stops of the route once the current transaction commits, or
+     * right away outside of one.
+     */
+    public void refreshRoute(Long routeId) {
+        AfterCommit.run(() -> reindex(routeId));
+    }
+
+    public void removeRoute(Long routeId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                unindex(routeId);
+            }
+        });
+    }
+
+    // routes that serve the place of fromStopId before the place of toStopId
+    public List<RouteStopPair> findPairs(Long fromStopId, Long toStopId) {
+        StopPlace from = placeByStop.get(fromStopId);
+        StopPlace to = placeByStop.get(toStopId);
+        if (from == null || to == null) {
+            return List.of();
+        }
+        return List.copyOf(pairsByPlaces.getOrDefault(new PlacePair(from.place(), to.place()), Set.of()));
+    }
+
+    public boolean containsStop(Long stopId) {
+        return placeByStop.containsKey(stopId);
+    }
+
+    private synchronized void reindex(Long routeId) {
+        unindex(routeId);
+        index(routeId, stopRepository.findByRoute_IdOrderBySequenceAsc(routeId));
+    }
+
+    private void index(Long routeId, Collection<Stop> stops) {
+        List<Stop> ordered = stops.stream()
+                .sorted((a, b) -> Integer.compare(a.getSequence(), b.getSequence()))
+                .toList();
+        List<String> places = ordered.stream().map(stop -> TextNormalizer.normalize(stop.getName())).toList();
+        List<IndexedPair> pairs = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Stop from = ordered.get(i);
+            placeByStop.put(from.getId(), new StopPlace(routeId, places.get(i)));
+            for (int j = i + 1; j < ordered.size(); j++) {
+                Stop to = ordered.get(j);
+                if (to.getSequence() > from.getSequence()) {
+                    pairs.add(new IndexedPair(new PlacePair(places.get(i), places.get(j)), new RouteStopPair(routeId,
+                            from.getId(), to.getId(), from.getSequence(), to.getSequence())));
+                }
+            }
+        }
+        pairs.forEach(indexed -> pairsByPlaces
+                .computeIfAbsent(indexed.places(), key -> ConcurrentHashMap.newKeySet())
+                .add(indexed.pair()));
+        pairsByRoute.put(routeId, new IndexedRoute(ordered.stream().map(Stop::getId).toList(), pairs));
+    }
+
+    private void unindex(Long routeId) {
+        IndexedRoute route = pairsByRoute.remove(routeId);
+        if (route == null) {
+            return;
+        }
+        for (IndexedPair indexed : route.pairs()) {
+            pairsByPlaces.computeIfPresent(indexed.places(), (key, routePairs) -> {
+                routePairs.remove(indexed.pair());
+                return routePairs.isEmpty() ? null : routePairs;
+            });
+        }
+        // a stop moved to another route may already be indexed there
+        route.stopIds().forEach(stopId -> placeByStop.computeIfPresent(stopId,
+                (id, place) -> place.routeId().equals(routeId) ? null : place));
+    }
+}
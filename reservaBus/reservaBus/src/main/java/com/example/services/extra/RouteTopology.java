@@ -0,0 +1,208 @@
+package com.example.services.extra;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.example.domain.entities.Stop;
+import com.example.exceptions.NotFoundException;
+
+/**
+ * Immutable view of one route's stops in travel order: ids, sequences, names
+ * and the great circle distance covered at each stop.
+ *
+ * Everything is held in primitive arrays, a stop id is found by binary search
+ * over a sorted copy of the ids. A missing stop on a booking is the route's
+ * origin or destination, which {@link #segment(Long, Long)} turns into the
+ * same sequence sentinels the ticket and hold rows store.
+ */
+public final class RouteTopology {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+
+    private final Long routeId;
+    private final long version;
+    private final long[] stopIds;
+    private final int[] sequences;
+    private final String[] names;
+    private final double[] cumulativeKm;
+    // stop ids in ascending order and the travel order index of each
+    private final long[] sortedStopIds;
+    private final int[] sortedIndexes;
+
+    /**
+     * A resolved stretch of a route. Indexes point into the topology, the
+     * sequences are {@link Integer#MIN_VALUE}/{@link Integer#MAX_VALUE} for
+     * the route's origin and destination.
+     */
+    public record Segment(Long fromStopId, Long toStopId, int fromIndex, int toIndex, int fromSequence,
+            int toSequence, String fromName, String toName) {
+    }
+
+    private RouteTopology(Long routeId, long version, List<Stop> stops) {
+        this.routeId = routeId;
+        this.version = version;
+        int size = stops.size();
+        stopIds = new long[size];
+        sequences = new int[size];
+        names = new String[size];
+        cumulativeKm = new double[size];
+        for (int i = 0; i < size; i++) {
+            Stop stop = stops.get(i);
+            stopIds[i] = stop.getId() != null ? stop.getId() : -1;
+            sequences[i] = stop.getSequence();
+            names[i] = stop.getName();
+            if (i > 0) {
+                cumulativeKm[i] = cumulativeKm[i - 1] + distanceKm(stops.get(i - 1), stop);
+            }
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> stopIds[i]));
+        sortedStopIds = new long[size];
+        sortedIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedStopIds[i] = stopIds[order[i]];
+            sortedIndexes[i] = order[i];
+        }
+    }
+
+    public static RouteTopology of(Long routeId, long version, List<Stop> stops) {
+        return new RouteTopology(routeId, version,
+                stops.stream().sorted(Comparator.comparing(Stop::getSequence)).toList());
+    }
+
+    public Long getRouteId() {
+        return routeId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return stopIds.length;
+    }
+
+    public long stopId(int index) {
+        return stopIds[index];
+    }
+
+    public int sequence(int index) {
+        return sequences[index];
+    }
+
+    public int[] sequences() {
+        return sequences.clone();
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    // distance from the first stop, in km
+    public double distanceKm(int index) {
+        return cumulativeKm[index];
+    }
+
+    public double totalKm() {
+        return stopIds.length > 0 ? cumulativeKm[stopIds.length - 1] : 0;
+    }
+
+    // share of the route covered at the stop, evenly spaced when the stops have no coordinates
+    public double travelledFraction(int index) {
+        double total = totalKm();
+        if (total > 0) {
+            return cumulativeKm[index] / total;
+        }
+        return stopIds.length > 1 ? (double) index / (stopIds.length - 1) : 0;
+    }
+
+    // share of the route between two stops, the whole route when they are not in travel order
+    public double travelledShare(int fromIndex, int toIndex) {
+        return fromIndex < toIndex ? travelledFraction(toIndex) - travelledFraction(fromIndex) : 1.0;
+    }
+
+    // travel order index of the stop, -1 when it is not on this route
+    public int indexOf(long stopId) {
+        int found = Arrays.binarySearch(sortedStopIds, stopId);
+        return found >= 0 ? sortedIndexes[found] : -1;
+    }
+
+    public boolean contains(Long stopId) {
+        return stopId != null && indexOf(stopId) >= 0;
+    }
+
+    // name of the stop at a stored sequence, origin and destination for the sentinels
+    public String nameAtSequence(int sequence) {
+        if (sequence == Integer.MIN_VALUE) {
+            return "origin";
+        }
+        if (sequence == Integer.MAX_VALUE) {
+            return "destination";
+        }
+        int found = Arrays.binarySearch(sequences, sequence);
+        return found >= 0 ? names[found] : "stop " + sequence;
+    }
+
+    /**
+     * Travel order index of a stored sequence, the sentinels being the first
+     * and last stop. A sequence no longer on the route maps to the next stop
+     * after it.
+     */
+    public int indexAtSequence(int sequence) {
+        if (sequences.length == 0 || sequence == Integer.MIN_VALUE) {
+            return 0;
+        }
+        if (sequence == Integer.MAX_VALUE) {
+            return sequences.length - 1;
+        }
+        int found = Arrays.binarySearch(sequences, sequence);
+        return found >= 0 ? found : Math.min(-found - 1, sequences.length - 1);
+    }
+
+    /**
+     * Resolves a booking segment, a null stop being the route's origin or
+     * destination.
+     *
+     * @throws NotFoundException        when a stop is not on this route
+     * @throws IllegalArgumentException when the stops are not in travel order
+     */
+    public Segment segment(Long fromStopId, Long toStopId) {
+        int fromIndex = fromStopId != null ? require(fromStopId) : 0;
+        int toIndex = toStopId != null ? require(toStopId) : stopIds.length - 1;
+        if (fromStopId != null && toStopId != null && fromIndex >= toIndex) {
+            throw new IllegalArgumentException("Invalid stop sequence: fromStop must be before toStop");
+        }
+        return new Segment(fromStopId, toStopId, fromIndex, toIndex,
+                fromStopId != null ? sequences[fromIndex] : Integer.MIN_VALUE,
+                toStopId != null ? sequences[toIndex] : Integer.MAX_VALUE,
+                fromStopId != null ? names[fromIndex] : "origin",
+                toStopId != null ? names[toIndex] : "destination");
+    }
+
+    private int require(Long stopId) {
+        int index = indexOf(stopId);
+        if (index < 0) {
+            throw new NotFoundException("Stop %d not found on route %d".formatted(stopId, routeId));
+        }
+        return index;
+    }
+
+    private static double distanceKm(Stop from, Stop to) {
+        if (from.getLatitude() == null || from.getLongitude() == null || to.getLatitude() == null
+                || to.getLongitude() == null) {
+            return 0;
+        }
+        double lat1 = Math.toRadians(from.getLatitude());
+        double lat2 = Math.toRadians(to.getLatitude());
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.services.extra;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.example.domain.repositories.StopRepository;
+import com.example.utils.AfterCommit;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One {@link RouteTopology} per route, loaded on first use and dropped once a
+ * write to the route or its stops commits. Every load gets a new version, so
+ * anything derived from a topology can tell whether it is still current.
+ */
+@Service
+@RequiredArgsConstructor
+public class RouteTopologyCache {
+
+    private final StopRepository stopRepository;
+
+    private final Map<Long, RouteTopology> topologies = new ConcurrentHashMap<>();
+    // per route, see AfterCommit
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public RouteTopology get(Long routeId) {
+        RouteTopology topology = topologies.get(routeId);
+        if (topology != null) {
+            return topology;
+        }
+
+        long generation = generations.getOrDefault(routeId, 0L);
+        RouteTopology loaded = RouteTopology.of(routeId, versions.incrementAndGet(),
+                stopRepository.findByRoute_IdOrderBySequenceAsc(routeId));
+        if (generation != generations.getOrDefault(routeId, 0L)) {
+            return loaded;
+        }
+        RouteTopology existing = topologies.putIfAbsent(routeId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Drops the route's topology once the current transaction commits, or
+     * right away outside of one.
+     */
+    public void invalidate(Long routeId) {
+        AfterCommit.run(() -> {
+            generations.merge(routeId, 1L, Long::sum);
+            topologies.remove(routeId);
+        });
+    }
+}
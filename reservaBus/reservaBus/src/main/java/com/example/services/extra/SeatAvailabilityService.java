@@ -1,126 +1,93 @@
 package com.example.services.extra;
 
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Collection;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.example.domain.entities.SeatHold;
 import com.example.domain.entities.Stop;
-import com.example.domain.entities.Ticket;
-import com.example.domain.repositories.SeatHoldRepository;
-import com.example.domain.repositories.TicketRepository;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Seat availability answered from the in-memory {@link SeatInventoryService}.
+ * Only the first call for a trip reaches the database (to load its inventory).
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class SeatAvailabilityService {
 
-        private final TicketRepository ticketRepository;
-        private final SeatHoldRepository seatHoldRepository;
+        private final SeatInventoryService seatInventoryService;
 
         public boolean isSeatAvailable(Long tripId, String seatNumber, Stop fromStop, Stop toStop) {
-                return isSeatAvailable(tripId, seatNumber, fromStop, toStop, null);
+                checkOrder(fromStop, toStop);
+                return isSeatAvailable(tripId, seatNumber, SeatInventoryService.fromSequence(fromStop),
+                                SeatInventoryService.toSequence(toStop));
         }
 
         public boolean isSeatAvailableExcludingHold(Long tripId, String seatNumber, Stop fromStop, Stop toStop,
                         Long excludeHoldId) {
-                return isSeatAvailable(tripId, seatNumber, fromStop, toStop, excludeHoldId);
+                checkOrder(fromStop, toStop);
+                return seatInventoryService.getInventory(tripId).isAvailable(seatNumber,
+                                SeatInventoryService.fromSequence(fromStop), SeatInventoryService.toSequence(toStop),
+                                System.currentTimeMillis(), excludeHoldId);
         }
 
         public String getAvailabilityConflictReason(Long tripId, String seatNumber, Stop fromStop, Stop toStop) {
-                Integer fromSeq = fromStop != null ? fromStop.getSequence() : Integer.MIN_VALUE;
-                Integer toSeq = toStop != null ? toStop.getSequence() : Integer.MAX_VALUE;
-
                 if (fromStop != null && toStop != null && fromStop.getSequence() >= toStop.getSequence()) {
                         return "Invalid stop sequence";
                 }
-
-                List<Ticket> overlappingTickets = ticketRepository.findOverlappingSoldTickets(tripId, seatNumber,
-                                fromSeq, toSeq);
-                if (!overlappingTickets.isEmpty()) {
-                        Ticket conflict = overlappingTickets.get(0);
-                        String from = conflict.getFromStop() != null ? conflict.getFromStop().getName() : "origin";
-                        String to = conflict.getToStop() != null ? conflict.getToStop().getName() : "destination";
-                        return "Already sold: %s -> %s".formatted(from, to);
-                }
-
-                List<SeatHold> overlappingHolds = seatHoldRepository.findOverlappingActiveHolds(tripId, seatNumber,
-                                fromSeq, toSeq, LocalDateTime.now());
-                if (!overlappingHolds.isEmpty()) {
-                        SeatHold conflict = overlappingHolds.get(0);
-                        String from = conflict.getFromStop() != null ? conflict.getFromStop().getName() : "origin";
-                        String to = conflict.getToStop() != null ? conflict.getToStop().getName() : "destination";
-                        return "On hold: %s -> %s (expires %s)".formatted(from, to, conflict.getExpiresAt());
-                }
-
-                return null;
+                return getAvailabilityConflictReason(tripId, seatNumber, SeatInventoryService.fromSequence(fromStop),
+                                SeatInventoryService.toSequence(toStop));
         }
 
-        private boolean isSeatAvailable(Long tripId, String seatNumber, Stop fromStop, Stop toStop,
-                        Long excludeHoldId) {
-                Integer fromSeq = fromStop != null ? fromStop.getSequence() : Integer.MIN_VALUE;
-                Integer toSeq = toStop != null ? toStop.getSequence() : Integer.MAX_VALUE;
-
-                if (fromStop != null && toStop != null && fromStop.getSequence() >= toStop.getSequence()) {
-                        throw new IllegalArgumentException("Invalid stop sequence: fromStop must be before toStop");
-                }
-
-                List<Ticket> overlappingTickets = ticketRepository.findOverlappingSoldTickets(tripId, seatNumber,
-                                fromSeq, toSeq);
-                if (!overlappingTickets.isEmpty()) {
-                        return false;
-                }
+        /**
+         * Peak number of seats occupied (CONFIRMED tickets) on any stretch of the
+         * specified segment
+         *
+         * @param tripId   The trip ID
+         * @param fromStop Starting stop (null = route origin)
+         * @param toStop   Ending stop (null = route destination)
+         * @return Highest seat occupancy within this segment
+         */
+        public int getOccupiedSeatsInSegment(Long tripId, Stop fromStop, Stop toStop) {
+                checkOrder(fromStop, toStop);
+                return getOccupiedSeatsInSegment(tripId, SeatInventoryService.fromSequence(fromStop),
+                                SeatInventoryService.toSequence(toStop));
+        }
 
-                List<SeatHold> overlappingHolds = seatHoldRepository.findOverlappingActiveHolds(tripId, seatNumber,
-                                fromSeq, toSeq, LocalDateTime.now());
+        // segments resolved by a RouteTopology are already checked, these read the inventory directly
 
-                if (excludeHoldId != null) {
-                        overlappingHolds = overlappingHolds.stream()
-                                        .filter(hold -> !hold.getId().equals(excludeHoldId))
-                                        .toList();
-                }
+        public boolean isSeatAvailable(Long tripId, String seatNumber, int fromSequence, int toSequence) {
+                return seatInventoryService.getInventory(tripId).isAvailable(seatNumber, fromSequence, toSequence,
+                                System.currentTimeMillis(), null);
+        }
 
-                return overlappingHolds.isEmpty();
+        public String getAvailabilityConflictReason(Long tripId, String seatNumber, int fromSequence,
+                        int toSequence) {
+                return seatInventoryService.getInventory(tripId).conflictReason(seatNumber, fromSequence, toSequence,
+                                System.currentTimeMillis());
         }
 
         /**
-         * Count how many seats are occupied (CONFIRMED tickets) in the specified
-         * segment
-         * 
-         * @param tripId   The trip ID
-         * @param fromStop Starting stop (null = route origin)
-         * @param toStop   Ending stop (null = route destination)
-         * @return Count of occupied seats in this segment
+         * Conflict reason for each of the seats that cannot be held on the segment,
+         * empty when all of them are free.
          */
-        public int getOccupiedSeatsInSegment(Long tripId, Stop fromStop, Stop toStop) {
-                Integer fromSeq = fromStop != null ? fromStop.getSequence() : Integer.MIN_VALUE;
-                Integer toSeq = toStop != null ? toStop.getSequence() : Integer.MAX_VALUE;
+        public Map<String, String> getAvailabilityConflicts(Long tripId, Collection<String> seatNumbers,
+                        int fromSequence, int toSequence) {
+                return seatInventoryService.getInventory(tripId).conflictReasons(seatNumbers, fromSequence, toSequence,
+                                System.currentTimeMillis());
+        }
 
+        public int getOccupiedSeatsInSegment(Long tripId, int fromSequence, int toSequence) {
+                return seatInventoryService.getInventory(tripId).occupiedSeats(fromSequence, toSequence);
+        }
+
+        private static void checkOrder(Stop fromStop, Stop toStop) {
                 if (fromStop != null && toStop != null && fromStop.getSequence() >= toStop.getSequence()) {
                         throw new IllegalArgumentException("Invalid stop sequence: fromStop must be before toStop");
                 }
-
-                // Get all CONFIRMED tickets for this trip
-                List<Ticket> confirmedTickets = ticketRepository.findByTrip_IdAndStatus(tripId,
-                                com.example.domain.enums.TicketStatus.CONFIRMED);
-
-                // Count how many overlap with our segment
-                return (int) confirmedTickets.stream()
-                                .filter(ticket -> {
-                                        Integer ticketFromSeq = ticket.getFromStop() != null
-                                                        ? ticket.getFromStop().getSequence()
-                                                        : Integer.MIN_VALUE;
-                                        Integer ticketToSeq = ticket.getToStop() != null
-                                                        ? ticket.getToStop().getSequence()
-                                                        : Integer.MAX_VALUE;
-
-                                        // Check if segments overlap
-                                        return ticketFromSeq < toSeq && ticketToSeq > fromSeq;
-                                })
-                                .count();
         }
 }
@@ -0,0 +1,269 @@
+package com.example.services.extra;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.api.dto.SeatDTOs;
+import com.example.domain.entities.SeatHold;
+import com.example.domain.entities.Stop;
+import com.example.domain.entities.Ticket;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.repositories.SeatHoldRepository;
+import com.example.domain.repositories.SoldSegment;
+import com.example.domain.repositories.TicketRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.exceptions.NotFoundException;
+import com.example.services.events.SeatReleasedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps one {@link TripSeatInventory} per trip in memory.
+ *
+ * Inventories are loaded from the database the first time a trip is touched and
+ * are then kept current by the booking write paths, which report every ticket
+ * and hold change here. Changes are applied immediately so the next command on
+ * the same trip sees them; if the surrounding transaction rolls back the trip is
+ * dropped and reloaded on next use. Committed changes are pushed to seat map
+ * subscribers through the {@link SeatMapBroadcaster}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatInventoryService {
+
+    private final TripRepository tripRepository;
+    private final TicketRepository ticketRepository;
+    private final SeatHoldRepository seatHoldRepository;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+    private final RouteTopologyCache routeTopologyCache;
+
+    private final Map<Long, TripSeatInventory> inventories = new ConcurrentHashMap<>();
+    // per trip, bumped on every write as well, see AfterCommit
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    // bumped by writes that touch many trips at once (route stops, bus seats)
+    private final AtomicLong globalGeneration = new AtomicLong();
+    // versions restart with the process, the epoch keeps tags of an earlier run from matching
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private enum SeatState {
+        SOLD, HELD, FREE
+    }
+
+    private record SeatChange(String seatNumber, int fromSeq, int toSeq, SeatState state, Long bookingId) {
+    }
+
+    public TripSeatInventory getInventory(Long tripId) {
+        TripSeatInventory inventory = inventories.get(tripId);
+        if (inventory != null) {
+            return inventory;
+        }
+
+        long version = getVersion(tripId);
+        TripSeatInventory loaded = load(tripId);
+        if (version != getVersion(tripId)) {
+            return loaded;
+        }
+        TripSeatInventory existing = inventories.putIfAbsent(tripId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void recordTicket(Ticket ticket) {
+        if (ticket.getStatus() != TicketStatus.CONFIRMED) {
+            releaseTicket(ticket);
+            return;
+        }
+        int fromSeq = fromSequence(ticket.getFromStop(), ticket.getFromSequence());
+        int toSeq = toSequence(ticket.getToStop(), ticket.getToSequence());
+        mutate(ticket.getTrip().getId(),
+                new SeatChange(ticket.getSeatNumber(), fromSeq, toSeq, SeatState.SOLD, ticket.getId()),
+                inventory -> inventory.addTicket(ticket.getId(), ticket.getSeatNumber(), fromSeq, toSeq,
+                        stopName(ticket.getTrip(), ticket.getFromStop(), fromSeq),
+                        stopName(ticket.getTrip(), ticket.getToStop(), toSeq)));
+    }
+
+    public void releaseTicket(Ticket ticket) {
+        mutate(ticket.getTrip().getId(),
+                new SeatChange(ticket.getSeatNumber(), fromSequence(ticket.getFromStop(), ticket.getFromSequence()),
+                        toSequence(ticket.getToStop(), ticket.getToSequence()), SeatState.FREE, ticket.getId()),
+                inventory -> inventory.removeTicket(ticket.getId()));
+    }
+
+    public void recordHold(SeatHold hold) {
+        int fromSeq = fromSequence(hold.getFromStop(), hold.getFromSequence());
+        int toSeq = toSequence(hold.getToStop(), hold.getToSequence());
+        mutate(hold.getTrip().getId(),
+                new SeatChange(hold.getSeatNumber(), fromSeq, toSeq, SeatState.HELD, hold.getId()),
+                inventory -> inventory.addHold(hold.getId(), hold.getSeatNumber(), fromSeq, toSeq,
+                        stopName(hold.getTrip(), hold.getFromStop(), fromSeq),
+                        stopName(hold.getTrip(), hold.getToStop(), toSeq), hold.getExpiresAt()));
+    }
+
+    public void releaseHold(SeatHold hold) {
+        mutate(hold.getTrip().getId(),
+                new SeatChange(hold.getSeatNumber(), fromSequence(hold.getFromStop(), hold.getFromSequence()),
+                        toSequence(hold.getToStop(), hold.getToSequence()), SeatState.FREE, hold.getId()),
+                inventory -> inventory.removeHold(hold.getId()));
+    }
+
+    // the hold row is already gone once this runs, nothing to undo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatReleased(SeatReleasedEvent event) {
+        TripSeatInventory inventory = inventories.get(event.tripId());
+        if (inventory != null) {
+            inventory.removeHold(event.holdId());
+        }
+        bump(event.tripId());
+        broadcast(event.tripId(), new SeatChange(event.seatNumber(),
+                event.fromSequence() != null ? event.fromSequence() : Integer.MIN_VALUE,
+                event.toSequence() != null ? event.toSequence() : Integer.MAX_VALUE,
+                SeatState.FREE, event.holdId()));
+    }
+
+    /**
+     * Monotonic version of a trip's seat state. It only moves after a change is
+     * visible in the inventory, so anything built after reading it is at least
+     * as new as the version.
+     */
+    public long getVersion(Long tripId) {
+        return globalGeneration.get() + generations.getOrDefault(tripId, 0L);
+    }
+
+    // the version as handed to clients (ETags, seat map deltas)
+    public String getVersionTag(Long tripId) {
+        return epoch + "-" + getVersion(tripId);
+    }
+
+    public void invalidate(Long tripId) {
+        inventories.remove(tripId);
+        bump(tripId);
+    }
+
+    public void invalidateRoute(Long routeId) {
+        inventories.values().removeIf(inventory -> inventory.getRouteId().equals(routeId));
+        globalGeneration.incrementAndGet();
+    }
+
+    // a new capacity changes the seats left of every trip of the bus
+    public void invalidateBus(Long busId) {
+        inventories.values().removeIf(inventory -> inventory.getBusId().equals(busId));
+        globalGeneration.incrementAndGet();
+    }
+
+    // seat layout changes do not touch the inventories, only what is derived from them
+    public void bumpAllVersions() {
+        globalGeneration.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    globalGeneration.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    static int fromSequence(Stop stop) {
+        return stop != null ? stop.getSequence() : Integer.MIN_VALUE;
+    }
+
+    static int toSequence(Stop stop) {
+        return stop != null ? stop.getSequence() : Integer.MAX_VALUE;
+    }
+
+    // a stop attached by reference (see RouteTopology) is not loaded, the row carries its sequence
+    private static int fromSequence(Stop stop, Integer stored) {
+        return stop != null && stored != null && !Hibernate.isInitialized(stop) ? stored : fromSequence(stop);
+    }
+
+    private static int toSequence(Stop stop, Integer stored) {
+        return stop != null && stored != null && !Hibernate.isInitialized(stop) ? stored : toSequence(stop);
+    }
+
+    private String stopName(Trip trip, Stop stop, int sequence) {
+        if (stop != null && Hibernate.isInitialized(stop)) {
+            return stop.getName();
+        }
+        return routeTopologyCache.get(trip.getRoute().getId()).nameAtSequence(sequence);
+    }
+
+    private static String fromName(Stop stop) {
+        return stop != null ? stop.getName() : "origin";
+    }
+
+    private static String toName(Stop stop) {
+        return stop != null ? stop.getName() : "destination";
+    }
+
+    private void mutate(Long tripId, SeatChange seatChange, Consumer<TripSeatInventory> change) {
+        TripSeatInventory inventory = inventories.get(tripId);
+        if (inventory != null) {
+            change.accept(inventory);
+        }
+        bump(tripId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(tripId, seatChange);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // an inventory loaded while this transaction was open cannot have seen the change
+                if (status == STATUS_COMMITTED && inventory != null && inventories.get(tripId) == inventory) {
+                    bump(tripId);
+                } else {
+                    invalidate(tripId);
+                }
+                if (status == STATUS_COMMITTED) {
+                    broadcast(tripId, seatChange);
+                }
+            }
+        });
+    }
+
+    private void broadcast(Long tripId, SeatChange change) {
+        seatMapBroadcaster.publish(tripId, new SeatDTOs.SeatMapDelta(tripId, change.seatNumber(),
+                change.fromSeq() != Integer.MIN_VALUE ? change.fromSeq() : null,
+                change.toSeq() != Integer.MAX_VALUE ? change.toSeq() : null,
+                change.state().name(), change.bookingId(), getVersionTag(tripId)));
+    }
+
+    private void bump(Long tripId) {
+        generations.merge(tripId, 1L, Long::sum);
+    }
+
+    private TripSeatInventory load(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(tripId)));
+        Long routeId = trip.getRoute().getId();
+
+        Integer capacity = trip.getBus().getCapacity();
+        TripSeatInventory inventory = new TripSeatInventory(tripId, routeId, trip.getBus().getId(),
+                capacity != null ? capacity : 0, routeTopologyCache.get(routeId).sequences());
+
+        // seat rows and segment occupancy are both rebuilt from this single projection
+        for (SoldSegment sold : ticketRepository.findSoldSegmentsByTripId(tripId)) {
+            inventory.addTicket(sold.ticketId(), sold.seatNumber(),
+                    sold.fromSequence() != null ? sold.fromSequence() : Integer.MIN_VALUE,
+                    sold.toSequence() != null ? sold.toSequence() : Integer.MAX_VALUE,
+                    sold.fromStopName() != null ? sold.fromStopName() : "origin",
+                    sold.toStopName() != null ? sold.toStopName() : "destination");
+        }
+        for (SeatHold hold : seatHoldRepository.findActiveHoldsByTripId(tripId, LocalDateTime.now())) {
+            inventory.addHold(hold.getId(), hold.getSeatNumber(),
+                    fromSequence(hold.getFromStop()), toSequence(hold.getToStop()),
+                    fromName(hold.getFromStop()), toName(hold.getToStop()), hold.getExpiresAt());
+        }
+        return inventory;
+    }
+}
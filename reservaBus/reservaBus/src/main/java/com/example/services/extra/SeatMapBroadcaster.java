@@ -0,0 +1,267 @@
+package com.example.services.extra;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.api.dto.SeatDTOs;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes seat map changes of a trip to its Server-Sent Events subscribers.
+ *
+ * A subscriber first receives a "snapshot" event with the full seat map and
+ * then one "delta" event per booking change. Each delta is serialized once and
+ * the same frame is queued for every subscriber of the trip; a small sender
+ * pool writes the queues, so publishing never blocks on a slow connection.
+ * A subscriber that falls more than {@link #MAX_PENDING_FRAMES} frames behind
+ * gets its queue dropped, a single "resync" event and its stream closed, and is
+ * expected to reconnect for a fresh snapshot. A write that has not returned
+ * after the write timeout is treated the same way: the subscriber is dropped
+ * and its sender thread is left to the container's own write timeout.
+ *
+ * Versions are "epoch-counter" tags; deltas queued while the snapshot was being
+ * built can be older than it and are dropped when their counter is not above
+ * the snapshot's.
+ */
+@Service
+public class SeatMapBroadcaster {
+
+    private static final int MAX_PENDING_FRAMES = 256;
+    private static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private static final Frame HEARTBEAT = new Frame(null, null, "keep-alive");
+    private static final Frame RESYNC = new Frame("resync", null, "{}");
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senders;
+    private final long writeTimeoutNanos;
+    private final Map<Long, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+
+    // name == null is an SSE comment, used for heartbeats
+    private record Frame(String name, String id, String data) {
+    }
+
+    public SeatMapBroadcaster(ObjectMapper objectMapper, @Value("${seat-map.stream.senders:4}") int senders,
+            @Value("${seat-map.stream.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.senders = Executors.newFixedThreadPool(senders);
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    }
+
+    /**
+     * Opens a stream for the trip. The subscriber is registered before the
+     * snapshot is taken so no change committed in between is lost.
+     */
+    public SseEmitter subscribe(Long tripId, Supplier<SeatDTOs.SeatMapResponse> snapshot) {
+        Subscriber subscriber = new Subscriber(tripId, newEmitter());
+        channels.compute(tripId, (id, subscribers) -> {
+            Set<Subscriber> target = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+
+        try {
+            SeatDTOs.SeatMapResponse seatMap = snapshot.get();
+            subscriber.send(new Frame("snapshot", seatMap.version(), toJson(seatMap)));
+            subscriber.snapshotVersion = seatMap.version();
+        } catch (IOException e) {
+            subscriber.close();
+            subscriber.emitter.completeWithError(e);
+            return subscriber.emitter;
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+        subscriber.ready.set(true);
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    public void publish(Long tripId, SeatDTOs.SeatMapDelta delta) {
+        Set<Subscriber> subscribers = channels.get(tripId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Frame frame = new Frame("delta", delta.version(), toJson(delta));
+        subscribers.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    public int subscriberCount(Long tripId) {
+        Set<Subscriber> subscribers = channels.get(tripId);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    // proxies drop idle connections, a comment line keeps them open; stuck writers are dropped on the same tick
+    @Scheduled(fixedRate = 15000)
+    public void heartbeat() {
+        long now = System.nanoTime();
+        channels.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.writeStuck(now)) {
+                subscriber.close();
+            } else {
+                subscriber.offer(HEARTBEAT);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+        channels.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    protected SseEmitter newEmitter() {
+        return new SseEmitter(STREAM_TIMEOUT_MILLIS);
+    }
+
+    // true when the tag is from the same epoch as the snapshot and its counter is not newer
+    private static boolean notNewer(String version, String snapshotVersion) {
+        if (version == null || snapshotVersion == null) {
+            return false;
+        }
+        int dash = version.lastIndexOf('-');
+        int snapshotDash = snapshotVersion.lastIndexOf('-');
+        if (dash < 0 || dash != snapshotDash || !version.regionMatches(0, snapshotVersion, 0, dash)) {
+            return false;
+        }
+        try {
+            return Long.parseLong(version.substring(dash + 1)) <= Long.parseLong(
+                    snapshotVersion.substring(snapshotDash + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize seat map event", e);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long tripId;
+        private final SseEmitter emitter;
+        private final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean ready = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        // set once the snapshot is sent, before any delta is
+        private volatile String snapshotVersion;
+        // System.nanoTime() when the write in progress started, 0 when idle
+        private volatile long writingSince;
+        private volatile boolean closed;
+
+        private Subscriber(Long tripId, SseEmitter emitter) {
+            this.tripId = tripId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Frame frame) {
+            if (closed) {
+                return;
+            }
+            if (pending.incrementAndGet() > MAX_PENDING_FRAMES) {
+                overflowed.set(true);
+            } else {
+                frames.add(frame);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (closed || !ready.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void flush() {
+            try {
+                if (overflowed.get()) {
+                    frames.clear();
+                    send(RESYNC);
+                    close();
+                    emitter.complete();
+                    return;
+                }
+                Frame frame;
+                while (!closed && !overflowed.get() && (frame = frames.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (frame.name() != null && frame.name().equals("delta")
+                            && notNewer(frame.id(), snapshotVersion)) {
+                        continue;
+                    }
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away, the container reports it through onError/onCompletion as well
+                close();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!frames.isEmpty() || overflowed.get()) {
+                schedule();
+            }
+        }
+
+        private void send(Frame frame) throws IOException {
+            writingSince = System.nanoTime();
+            try {
+                if (frame.name() == null) {
+                    emitter.send(SseEmitter.event().comment(frame.data()));
+                    return;
+                }
+                SseEmitter.SseEventBuilder event = SseEmitter.event().name(frame.name())
+                        .data(frame.data(), MediaType.APPLICATION_JSON);
+                emitter.send(frame.id() != null ? event.id(frame.id()) : event);
+            } finally {
+                writingSince = 0;
+            }
+        }
+
+        private boolean writeStuck(long now) {
+            long since = writingSince;
+            return since != 0 && now - since > writeTimeoutNanos;
+        }
+
+        private void close() {
+            closed = true;
+            frames.clear();
+            channels.computeIfPresent(tripId, (id, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.services.extra;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.api.dto.SeatDTOs;
+import com.example.api.dto.StopDTOs;
+import com.example.domain.entities.Seat;
+import com.example.domain.entities.Stop;
+import com.example.domain.entities.Trip;
+import com.example.domain.repositories.SeatRepository;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.exceptions.NotFoundException;
+import com.example.services.mappers.StopMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Builds the seat map of a trip.
+ *
+ * Tickets and holds come from the trip's {@link TripSeatInventory} snapshot and
+ * are hashed by seat number once, so every seat is resolved in a single pass
+ * over the bus seats. Availability is computed for the requested segment.
+ *
+ * Seat maps are cached per (trip, segment) together with the trip's inventory
+ * version and rebuilt only after a booking changed the trip.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class SeatMapService {
+
+    private final TripRepository tripRepository;
+    private final SeatRepository seatRepository;
+    private final StopRepository stopRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final StopMapper stopMapper;
+
+    private static final int MAX_CACHED_SEAT_MAPS = 10_000;
+
+    private final Map<SeatMapKey, SeatDTOs.SeatMapResponse> cache = new ConcurrentHashMap<>();
+
+    private record SeatMapKey(Long tripId, Long fromStopId, Long toStopId) {
+    }
+
+    // no surrounding transaction, a cache hit must not take a database connection
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SeatDTOs.SeatMapResponse getSeatMap(Long tripId, Long fromStopId, Long toStopId) {
+        // read before building, the map can only be newer than the version it is stored under
+        String version = seatInventoryService.getVersionTag(tripId);
+        SeatMapKey key = new SeatMapKey(tripId, fromStopId, toStopId);
+        SeatDTOs.SeatMapResponse cached = cache.get(key);
+        if (cached != null && cached.version().equals(version)) {
+            return cached;
+        }
+
+        SeatDTOs.SeatMapResponse seatMap = buildSeatMap(tripId, fromStopId, toStopId, version);
+        if (cache.size() >= MAX_CACHED_SEAT_MAPS) {
+            cache.entrySet().removeIf(entry -> !entry.getValue().version()
+                    .equals(seatInventoryService.getVersionTag(entry.getKey().tripId())));
+            if (cache.size() >= MAX_CACHED_SEAT_MAPS) {
+                cache.clear();
+            }
+        }
+        cache.put(key, seatMap);
+        return seatMap;
+    }
+
+    private SeatDTOs.SeatMapResponse buildSeatMap(Long tripId, Long fromStopId, Long toStopId, String version) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(tripId)));
+        List<Stop> stops = stopRepository.findByRoute_IdOrderBySequenceAsc(trip.getRoute().getId());
+        Stop fromStop = findRouteStop(stops, fromStopId);
+        Stop toStop = findRouteStop(stops, toStopId);
+        if (fromStop != null && toStop != null && fromStop.getSequence() >= toStop.getSequence()) {
+            throw new IllegalArgumentException("Invalid stop sequence: fromStop must be before toStop");
+        }
+
+        List<Seat> seats = seatRepository.findByBus_Id(trip.getBus().getId());
+        return new SeatDTOs.SeatMapResponse(tripId, trip.getBus().getId(), Optional.ofNullable(fromStopId),
+                Optional.ofNullable(toStopId), build(tripId, seats, stops, fromStop, toStop), version);
+    }
+
+    /**
+     * Per seat view with the first sold ticket and live hold, for callers that
+     * only know the bus of the trip.
+     */
+    public List<SeatDTOs.SeatReponseFull> getFullSeats(Long busId, Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(tripId)));
+        List<Stop> stops = stopRepository.findByRoute_IdOrderBySequenceAsc(trip.getRoute().getId());
+
+        return build(tripId, seatRepository.findByBus_Id(busId), stops, null, null).stream()
+                .map(seat -> {
+                    var ticket = seat.bookings().stream().filter(booking -> !booking.hold()).findFirst();
+                    var hold = seat.bookings().stream().filter(SeatDTOs.SeatMapBooking::hold).findFirst();
+                    return new SeatDTOs.SeatReponseFull(
+                            seat.id(),
+                            seat.number(),
+                            seat.type(),
+                            busId,
+                            hold.map(SeatDTOs.SeatMapBooking::id),
+                            hold.map(SeatDTOs.SeatMapBooking::expiresAt),
+                            ticket.map(SeatDTOs.SeatMapBooking::id),
+                            ticket.flatMap(SeatDTOs.SeatMapBooking::fromStop),
+                            ticket.flatMap(SeatDTOs.SeatMapBooking::toStop));
+                })
+                .toList();
+    }
+
+    private List<SeatDTOs.SeatMapSeat> build(Long tripId, List<Seat> seats, List<Stop> stops, Stop fromStop,
+            Stop toStop) {
+        Map<Integer, StopDTOs.StopResponse> stopsBySequence = new HashMap<>();
+        for (Stop stop : stops) {
+            stopsBySequence.put(stop.getSequence(), stopMapper.toResponse(stop));
+        }
+
+        Map<String, List<TripSeatInventory.SeatBooking>> bookingsBySeat = new HashMap<>();
+        for (TripSeatInventory.SeatBooking booking : seatInventoryService.getInventory(tripId)
+                .bookings(System.currentTimeMillis())) {
+            bookingsBySeat.computeIfAbsent(booking.seatNumber(), seatNumber -> new ArrayList<>()).add(booking);
+        }
+
+        int fromSeq = SeatInventoryService.fromSequence(fromStop);
+        int toSeq = SeatInventoryService.toSequence(toStop);
+        List<SeatDTOs.SeatMapSeat> seatMap = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            List<TripSeatInventory.SeatBooking> bookings = bookingsBySeat.getOrDefault(seat.getNumber(), List.of());
+            boolean available = true;
+            List<SeatDTOs.SeatMapBooking> views = new ArrayList<>(bookings.size());
+            for (TripSeatInventory.SeatBooking booking : bookings) {
+                available &= !booking.overlaps(fromSeq, toSeq);
+                views.add(new SeatDTOs.SeatMapBooking(
+                        booking.id(),
+                        booking.hold(),
+                        Optional.ofNullable(stopsBySequence.get(booking.fromSequence())),
+                        Optional.ofNullable(stopsBySequence.get(booking.toSequence())),
+                        booking.expiresAt()));
+            }
+            seatMap.add(new SeatDTOs.SeatMapSeat(seat.getId(), seat.getNumber(), seat.getType(), available, views));
+        }
+        return seatMap;
+    }
+
+    private static Stop findRouteStop(List<Stop> stops, Long stopId) {
+        if (stopId == null) {
+            return null;
+        }
+        return stops.stream()
+                .filter(stop -> stop.getId().equals(stopId))
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Stop %d not found on the trip route".formatted(stopId)));
+    }
+}
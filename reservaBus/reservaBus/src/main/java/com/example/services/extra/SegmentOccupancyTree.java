@@ -0,0 +1,64 @@
+package com.example.services.extra;
+
+/**
+ * Segment tree over the cells of a trip supporting range add and range max, so
+ * the peak number of seats sold on any stretch is known in O(log cells).
+ */
+public final class SegmentOccupancyTree {
+
+    private final int cells;
+    private final int[] max;
+    private final int[] pending;
+
+    public SegmentOccupancyTree(int cells) {
+        this.cells = cells;
+        int size = 1;
+        while (size < cells) {
+            size <<= 1;
+        }
+        this.max = new int[2 * size];
+        this.pending = new int[2 * size];
+    }
+
+    /**
+     * Adds delta to every cell in [first, last].
+     */
+    public void add(int first, int last, int delta) {
+        add(1, 0, cells - 1, first, last, delta);
+    }
+
+    /**
+     * Highest value of any cell in [first, last].
+     */
+    public int max(int first, int last) {
+        return max(1, 0, cells - 1, first, last);
+    }
+
+    private void add(int node, int lo, int hi, int first, int last, int delta) {
+        if (last < lo || hi < first) {
+            return;
+        }
+        if (first <= lo && hi <= last) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        add(2 * node, lo, mid, first, last, delta);
+        add(2 * node + 1, mid + 1, hi, first, last, delta);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]) + pending[node];
+    }
+
+    private int max(int node, int lo, int hi, int first, int last) {
+        if (last < lo || hi < first) {
+            return Integer.MIN_VALUE;
+        }
+        if (first <= lo && hi <= last) {
+            return max[node];
+        }
+        int mid = (lo + hi) >>> 1;
+        // pending adds of this node apply to both halves and are never pushed down
+        return Math.max(max(2 * node, lo, mid, first, last), max(2 * node + 1, mid + 1, hi, first, last))
+                + pending[node];
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.services.extra;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import com.example.api.dto.MetricsDTO;
+import com.example.api.dto.TripDTOs;
+import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.StopRepository;
+import com.example.utils.AfterCommit;
+import com.example.utils.TextNormalizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bounded LRU cache of text trip search pages, keyed by the normalized
+ * (origin, destination, date) plus the page position.
+ *
+ * Writes evict by route once they commit: every page that lists a trip of the
+ * route, and every page whose origin/destination the route now serves. The
+ * route's names and stops are read in the writing transaction, so the eviction
+ * itself does not touch the database after the commit. A search that ran while
+ * an eviction happened is not stored, so a page read before a commit cannot
+ * outlive it. Entries also expire after
+ * {@link #TTL_MILLIS} because the search window moves with the clock, and a
+ * hit leaves out the trips that departed since the page was stored, like the
+ * query would.
+ */
+@Service
+@RequiredArgsConstructor
+public class TripSearchCache {
+
+    private static final int MAX_ENTRIES = 1000;
+    private static final long TTL_MILLIS = 60_000;
+
+    private final RouteRepository routeRepository;
+    private final StopRepository stopRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // access ordered, guarded by itself
+    private final Map<SearchKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SearchKey, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public record SearchKey(String origin, String destination, LocalDate departureDate, String cursor, int limit) {
+
+        public static SearchKey of(String origin, String destination, Optional<LocalDateTime> departureDate,
+                Optional<String> cursor, int limit) {
+            return new SearchKey(TextNormalizer.normalize(origin), TextNormalizer.normalize(destination),
+                    departureDate.map(LocalDateTime::toLocalDate).orElse(null), cursor.orElse(null), limit);
+        }
+    }
+
+    private record Entry(TripDTOs.TripSearchResponse response, long storedAt) {
+    }
+
+    private record RouteStop(String name, int sequence) {
+    }
+
+    // what a route matches a search on, names normalized, null once the route is gone
+    private record RoutePlaces(String origin, String destination, List<RouteStop> stops) {
+    }
+
+    public TripDTOs.TripSearchResponse get(SearchKey key, Supplier<TripDTOs.TripSearchResponse> search) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.storedAt() < TTL_MILLIS) {
+                hits.incrementAndGet();
+                return withoutDeparted(entry.response(), LocalDateTime.now());
+            }
+        }
+
+        misses.incrementAndGet();
+        long observed = generation.get();
+        TripDTOs.TripSearchResponse response = search.get();
+        synchronized (entries) {
+            if (generation.get() == observed) {
+                entries.put(key, new Entry(response, now));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Drops the pages the route's trips, stops or names can change, once the
+     * current transaction commits, or right away outside of one. Called after
+     * the write, so what is read here already includes it.
+     */
+    public void evictRoute(Long routeId) {
+        RoutePlaces places = routeRepository.findById(routeId)
+                .map(route -> new RoutePlaces(TextNormalizer.normalize(route.getOrigin()),
+                        TextNormalizer.normalize(route.getDestination()),
+                        stopRepository.findByRoute_IdOrderBySequenceAsc(routeId).stream()
+                                .map(stop -> new RouteStop(TextNormalizer.normalize(stop.getName()),
+                                        stop.getSequence()))
+                                .toList()))
+                .orElse(null);
+        AfterCommit.run(() -> evict(routeId, places));
+    }
+
+    public MetricsDTO.SearchCacheMetrics getMetrics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return MetricsDTO.SearchCacheMetrics.builder()
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.get())
+                .size((long) size)
+                .hitRate(hitCount + missCount > 0 ? hitCount * 100.0 / (hitCount + missCount) : 0.0)
+                .build();
+    }
+
+    private void evict(Long routeId, RoutePlaces places) {
+        // refuse pages computed before this point, they may predate the write
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.entrySet().removeIf(entry -> {
+                boolean stale = lists(entry.getValue().response(), routeId)
+                        || places != null && serves(entry.getKey(), places);
+                if (stale) {
+                    evictions.incrementAndGet();
+                }
+                return stale;
+            });
+        }
+    }
+
+    private static TripDTOs.TripSearchResponse withoutDeparted(TripDTOs.TripSearchResponse response,
+            LocalDateTime now) {
+        if (response.trips().stream().noneMatch(trip -> trip.departureAt().isBefore(now))) {
+            return response;
+        }
+        List<TripDTOs.TripResponse> upcoming = response.trips().stream()
+                .filter(trip -> !trip.departureAt().isBefore(now))
+                .toList();
+        return new TripDTOs.TripSearchResponse(upcoming, response.routes(), response.stops(),
+                response.nextCursor(), response.seatsLeft(), response.fares());
+    }
+
+    private static boolean lists(TripDTOs.TripSearchResponse response, Long routeId) {
+        return response.trips().stream().anyMatch(trip -> routeId.equals(trip.routeId()));
+    }
+
+    // same rule as TripRepository.SEARCH_FILTER, evaluated against one route
+    private static boolean serves(SearchKey key, RoutePlaces places) {
+        if (TextNormalizer.matches(places.origin(), key.origin())
+                && TextNormalizer.matches(places.destination(), key.destination())) {
+            return true;
+        }
+        for (RouteStop from : places.stops()) {
+            if (!TextNormalizer.matches(from.name(), key.origin())) {
+                continue;
+            }
+            for (RouteStop to : places.stops()) {
+                if (to.sequence() > from.sequence() && TextNormalizer.matches(to.name(), key.destination())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.services.extra;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory seat x segment occupancy of a single trip.
+ *
+ * The route stops split the trip into cells: one cell between every pair of
+ * consecutive stop sequences plus the open cells before the first and after the
+ * last stop, so a missing fromStop/toStop (route origin/destination) maps to the
+ * first/last cell. Every seat owns a row of sold bits, held bits and the latest
+ * hold expiry per cell, and a {@link SegmentOccupancyTree} counts the sold seats
+ * per cell. All access is serialized on the instance monitor.
+ */
+public final class TripSeatInventory {
+
+    private final Long tripId;
+    private final Long routeId;
+    private final Long busId;
+    private final int capacity;
+    private final int[] boundaries;
+    private final int cells;
+    private final int words;
+
+    private final Map<String, Integer> seatIndex = new HashMap<>();
+    private final List<String> seatNumbers = new ArrayList<>();
+    private final List<List<Booking>> seatBookings = new ArrayList<>();
+    private final Map<Long, Booking> tickets = new HashMap<>();
+    private final Map<Long, Booking> holds = new HashMap<>();
+
+    private long[] sold = new long[0];
+    private long[] held = new long[0];
+    private long[] holdExpiry = new long[0];
+    private final SegmentOccupancyTree occupancy;
+
+    private record Booking(long id, boolean hold, int seat, int fromSeq, int toSeq, int firstCell, int lastCell,
+            String fromName, String toName, LocalDateTime expiresAt, long expiresAtMillis) {
+    }
+
+    /**
+     * A sold ticket or live hold of one seat, as handed out by {@link #bookings}.
+     */
+    public record SeatBooking(long id, boolean hold, String seatNumber, int fromSequence, int toSequence,
+            LocalDateTime expiresAt) {
+
+        public boolean overlaps(int fromSeq, int toSeq) {
+            return fromSequence < toSeq && fromSeq < toSequence;
+        }
+    }
+
+    public TripSeatInventory(Long tripId, Long routeId, Long busId, int capacity, int[] stopSequences) {
+        this.tripId = tripId;
+        this.routeId = routeId;
+        this.busId = busId;
+        this.capacity = capacity;
+        this.boundaries = stopSequences.clone();
+        Arrays.sort(this.boundaries);
+        this.cells = boundaries.length + 1;
+        this.words = (cells + 63) >>> 6;
+        this.occupancy = new SegmentOccupancyTree(cells);
+    }
+
+    public Long getTripId() {
+        return tripId;
+    }
+
+    public Long getRouteId() {
+        return routeId;
+    }
+
+    public Long getBusId() {
+        return busId;
+    }
+
+    // seats of the trip's bus, as of the load
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized boolean isAvailable(String seatNumber, int fromSeq, int toSeq, long nowMillis,
+            Long excludeHoldId) {
+        Integer seat = seatIndex.get(seatNumber);
+        if (seat == null) {
+            return true;
+        }
+        int first = firstCell(fromSeq);
+        int last = lastCell(toSeq);
+
+        if (anyBit(sold, seat, first, last)) {
+            return false;
+        }
+        if (!anyBit(held, seat, first, last)) {
+            return true;
+        }
+        if (excludeHoldId != null) {
+            return seatBookings.get(seat).stream()
+                    .noneMatch(b -> b.hold() && b.id() != excludeHoldId && b.expiresAtMillis() > nowMillis
+                            && overlaps(b, first, last));
+        }
+        return !liveHold(seat, first, last, nowMillis);
+    }
+
+    public synchronized String conflictReason(String seatNumber, int fromSeq, int toSeq, long nowMillis) {
+        Integer seat = seatIndex.get(seatNumber);
+        if (seat == null) {
+            return null;
+        }
+        int first = firstCell(fromSeq);
+        int last = lastCell(toSeq);
+
+        for (Booking b : seatBookings.get(seat)) {
+            if (!b.hold() && overlaps(b, first, last)) {
+                return "Already sold: %s -> %s".formatted(b.fromName(), b.toName());
+            }
+        }
+        for (Booking b : seatBookings.get(seat)) {
+            if (b.hold() && b.expiresAtMillis() > nowMillis && overlaps(b, first, last)) {
+                return "On hold: %s -> %s (expires %s)".formatted(b.fromName(), b.toName(), b.expiresAt());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Conflict reason of every requested seat that is taken on the segment,
+     * checked under a single lock. Seats missing from the result are free.
+     */
+    public synchronized Map<String, String> conflictReasons(Collection<String> seatNumbers, int fromSeq, int toSeq,
+            long nowMillis) {
+        Map<String, String> conflicts = new LinkedHashMap<>();
+        for (String seatNumber : seatNumbers) {
+            String reason = conflictReason(seatNumber, fromSeq, toSeq, nowMillis);
+            if (reason != null) {
+                conflicts.put(seatNumber, reason);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Peak number of seats sold on any stretch inside [fromSeq, toSeq).
+     */
+    public synchronized int occupiedSeats(int fromSeq, int toSeq) {
+        return Math.max(0, occupancy.max(firstCell(fromSeq), lastCell(toSeq)));
+    }
+
+    /**
+     * Number of seats sold or held, unexpired, anywhere inside [fromSeq, toSeq).
+     */
+    public synchronized int takenSeats(int fromSeq, int toSeq, long nowMillis) {
+        int first = firstCell(fromSeq);
+        int last = lastCell(toSeq);
+        int taken = 0;
+        for (int seat = 0; seat < seatBookings.size(); seat++) {
+            if (anyBit(sold, seat, first, last) || liveHold(seat, first, last, nowMillis)) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Every sold ticket and unexpired hold, taken under one lock so the result is
+     * a consistent view of the trip.
+     */
+    public synchronized List<SeatBooking> bookings(long nowMillis) {
+        List<SeatBooking> bookings = new ArrayList<>(tickets.size() + holds.size());
+        for (Booking b : tickets.values()) {
+            bookings.add(new SeatBooking(b.id(), false, seatNumbers.get(b.seat()), b.fromSeq(), b.toSeq(), null));
+        }
+        for (Booking b : holds.values()) {
+            if (b.expiresAtMillis() > nowMillis) {
+                bookings.add(new SeatBooking(b.id(), true, seatNumbers.get(b.seat()), b.fromSeq(), b.toSeq(),
+                        b.expiresAt()));
+            }
+        }
+        return bookings;
+    }
+
+    public synchronized void addTicket(long id, String seatNumber, int fromSeq, int toSeq, String fromName,
+            String toName) {
+        removeTicket(id);
+        Booking booking = new Booking(id, false, seatFor(seatNumber), fromSeq, toSeq, firstCell(fromSeq), lastCell(toSeq),
+                fromName, toName, null, Long.MAX_VALUE);
+        tickets.put(id, booking);
+        seatBookings.get(booking.seat()).add(booking);
+        apply(booking);
+        occupancy.add(booking.firstCell(), booking.lastCell(), 1);
+    }
+
+    public synchronized void addHold(long id, String seatNumber, int fromSeq, int toSeq, String fromName,
+            String toName, LocalDateTime expiresAt) {
+        removeHold(id);
+        Booking booking = new Booking(id, true, seatFor(seatNumber), fromSeq, toSeq, firstCell(fromSeq), lastCell(toSeq),
+                fromName, toName, expiresAt, toEpochMillis(expiresAt));
+        holds.put(id, booking);
+        seatBookings.get(booking.seat()).add(booking);
+        apply(booking);
+    }
+
+    public synchronized boolean removeTicket(long id) {
+        Booking booking = tickets.remove(id);
+        if (booking != null) {
+            occupancy.add(booking.firstCell(), booking.lastCell(), -1);
+        }
+        return remove(booking);
+    }
+
+    public synchronized boolean removeHold(long id) {
+        return remove(holds.remove(id));
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private boolean remove(Booking booking) {
+        if (booking == null) {
+            return false;
+        }
+        List<Booking> bookings = seatBookings.get(booking.seat());
+        bookings.remove(booking);
+
+        // rebuild the seat row from what is left, overlapping leftovers keep their bits
+        int seat = booking.seat();
+        Arrays.fill(sold, seat * words, (seat + 1) * words, 0L);
+        Arrays.fill(held, seat * words, (seat + 1) * words, 0L);
+        Arrays.fill(holdExpiry, seat * cells, (seat + 1) * cells, 0L);
+        bookings.forEach(this::apply);
+        return true;
+    }
+
+    private void apply(Booking booking) {
+        long[] bits = booking.hold() ? held : sold;
+        int seat = booking.seat();
+        for (int cell = booking.firstCell(); cell <= booking.lastCell(); cell++) {
+            bits[seat * words + (cell >>> 6)] |= 1L << cell;
+            if (booking.hold()) {
+                int slot = seat * cells + cell;
+                holdExpiry[slot] = Math.max(holdExpiry[slot], booking.expiresAtMillis());
+            }
+        }
+    }
+
+    private int seatFor(String seatNumber) {
+        Integer existing = seatIndex.get(seatNumber);
+        if (existing != null) {
+            return existing;
+        }
+        int seat = seatBookings.size();
+        seatIndex.put(seatNumber, seat);
+        seatNumbers.add(seatNumber);
+        seatBookings.add(new ArrayList<>());
+        if ((seat + 1) * words > sold.length) {
+            int capacity = Math.max(seat + 1, seatBookings.size() * 2);
+            sold = Arrays.copyOf(sold, capacity * words);
+            held = Arrays.copyOf(held, capacity * words);
+            holdExpiry = Arrays.copyOf(holdExpiry, capacity * cells);
+        }
+        return seat;
+    }
+
+    private boolean anyBit(long[] bits, int seat, int first, int last) {
+        int base = seat * words;
+        for (int word = first >>> 6; word <= last >>> 6; word++) {
+            int lo = word == first >>> 6 ? first & 63 : 0;
+            int hi = word == last >>> 6 ? last & 63 : 63;
+            long mask = (-1L << lo) & (-1L >>> (63 - hi));
+            if ((bits[base + word] & mask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean liveHold(int seat, int first, int last, long nowMillis) {
+        if (!anyBit(held, seat, first, last)) {
+            return false;
+        }
+        int base = seat * cells;
+        for (int cell = first; cell <= last; cell++) {
+            if (holdExpiry[base + cell] > nowMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(Booking booking, int first, int last) {
+        return booking.firstCell() <= last && booking.lastCell() >= first;
+    }
+
+    // first cell whose upper boundary lies after fromSeq, i.e. the number of boundaries <= fromSeq
+    private int firstCell(int fromSeq) {
+        int lo = 0;
+        int hi = boundaries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (boundaries[mid] <= fromSeq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // last cell whose lower boundary lies before toSeq, i.e. the number of boundaries < toSeq
+    private int lastCell(int toSeq) {
+        int lo = 0;
+        int hi = boundaries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (boundaries[mid] < toSeq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -9,7 +9,9 @@ import com.example.api.dto.BusDTOs;
 import com.example.domain.enums.BusStatus;
 import com.example.domain.repositories.BusRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
 import com.example.services.definitions.BusService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.mappers.BusMapper;
 
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,8 @@ public class BusServiceImpl implements BusService {
 
     private final BusRepository repo;
     private final BusMapper mapper;
+    private final DailyRollupService dailyRollupService;
+    private final SeatInventoryService seatInventoryService;
 
     @Override
     public BusDTOs.BusResponse createBus(BusDTOs.CreateBusRequest req) {
@@ -50,7 +54,12 @@ public class BusServiceImpl implements BusService {
                 .orElseThrow(() -> new NotFoundException("Bus %d not found".formatted(id)));
 
         req.plate().ifPresent(bus::setPlate);
-        req.capacity().ifPresent(bus::setCapacity);
+        req.capacity().ifPresent(capacity -> {
+            // every trip of the bus now offers a different number of seats
+            dailyRollupService.recordBusCapacityChange(id, bus.getCapacity(), capacity);
+            bus.setCapacity(capacity);
+            seatInventoryService.invalidateBus(id);
+        });
         req.status().ifPresent(bus::setStatus);
 
         return mapper.toResponse(repo.save(bus));
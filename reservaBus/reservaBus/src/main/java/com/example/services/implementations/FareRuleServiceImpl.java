@@ -10,6 +10,7 @@ import com.example.domain.repositories.FareRuleRepository;
 import com.example.domain.repositories.RouteRepository;
 import com.example.exceptions.NotFoundException;
 import com.example.services.definitions.FareRuleService;
+import com.example.services.extra.DynamicPricingEngine;
 import com.example.services.mappers.FareRuleMapper;
 
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ public class FareRuleServiceImpl implements FareRuleService {
     private final FareRuleRepository repo;
     private final FareRuleMapper mapper;
     private final RouteRepository routeRepo;
+    private final DynamicPricingEngine dynamicPricingEngine;
 
     @Override
     public FareRuleDTOs.FareRuleResponse createFareRule(FareRuleDTOs.CreateFareRuleRequest req) {
@@ -31,7 +33,9 @@ public class FareRuleServiceImpl implements FareRuleService {
         FareRule fareRule = FareRule.builder()
                 .route(route)
                 .build();
-        return mapper.toResponse(repo.save(fareRule));
+        var savedFareRule = repo.save(fareRule);
+        dynamicPricingEngine.invalidateRoute(route.getId());
+        return mapper.toResponse(savedFareRule);
     }
 
     @Override
@@ -46,6 +50,9 @@ public class FareRuleServiceImpl implements FareRuleService {
         var fareRule = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("FareRule %d not found".formatted(id)));
         repo.delete(fareRule);
+        if (fareRule.getRoute() != null) {
+            dynamicPricingEngine.invalidateRoute(fareRule.getRoute().getId());
+        }
     }
 
     @Override
@@ -57,7 +64,16 @@ public class FareRuleServiceImpl implements FareRuleService {
         }
         var fareRule = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("FareRule %d not found".formatted(id)));
+        // the rule may move to another route, both ladders are rebuilt
+        Long previousRouteId = fareRule.getRoute() != null ? fareRule.getRoute().getId() : null;
         mapper.patch(fareRule, req);
-        return mapper.toResponse(repo.save(fareRule));
+        var savedFareRule = repo.save(fareRule);
+        if (previousRouteId != null) {
+            dynamicPricingEngine.invalidateRoute(previousRouteId);
+        }
+        if (req.routeId() != null) {
+            dynamicPricingEngine.invalidateRoute(req.routeId());
+        }
+        return mapper.toResponse(savedFareRule);
     }
 }
@@ -12,6 +12,12 @@ import com.example.domain.repositories.RouteRepository;
 import com.example.domain.repositories.StopRepository;
 import com.example.exceptions.NotFoundException;
 import com.example.services.definitions.RouteService;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.PlaceAutocompleteIndex;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.RouteTopologyCache;
+import com.example.services.extra.TripSearchCache;
 import com.example.services.mappers.RouteMapper;
 import com.example.services.mappers.StopMapper;
 
@@ -27,11 +33,18 @@ public class RouteServiceImpl implements RouteService {
     private final StopRepository stopRepo;
     private final RouteMapper mapper;
     private final StopMapper stopMapper;
+    private final RouteStopPairIndex routeStopPairIndex;
+    private final PlaceAutocompleteIndex placeAutocompleteIndex;
+    private final TripSearchCache tripSearchCache;
+    private final JourneyPlanner journeyPlanner;
+    private final RouteTopologyCache routeTopologyCache;
+    private final DynamicPricingEngine dynamicPricingEngine;
 
     @Override
     public RouteDTOs.RouteResponse createRoute(RouteDTOs.CreateRouteRequest req) {
-        var route = mapper.toEntity(req);
-        return mapper.toResponse(repo.save(route));
+        var route = repo.save(mapper.toEntity(req));
+        placeAutocompleteIndex.refreshRoute(route.getId());
+        return mapper.toResponse(route);
     }
 
     @Override
@@ -46,6 +59,12 @@ public class RouteServiceImpl implements RouteService {
         var route = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Route %d not found".formatted(id)));
         repo.delete(route);
+        routeStopPairIndex.removeRoute(id);
+        placeAutocompleteIndex.refreshRoute(id);
+        tripSearchCache.evictRoute(id);
+        journeyPlanner.refreshRoute(id);
+        routeTopologyCache.invalidate(id);
+        dynamicPricingEngine.invalidateRoute(id);
     }
 
     @Override
@@ -62,7 +81,13 @@ public class RouteServiceImpl implements RouteService {
         req.distanceKm().ifPresent(route::setDistanceKm);
         req.pricePerKm().ifPresent(route::setPricePerKm);
 
-        return mapper.toResponse(repo.save(route));
+        var savedRoute = repo.save(route);
+        placeAutocompleteIndex.refreshRoute(id);
+        tripSearchCache.evictRoute(id);
+        journeyPlanner.refreshRoute(id);
+        routeTopologyCache.invalidate(id);
+        dynamicPricingEngine.invalidateRoute(id);
+        return mapper.toResponse(savedRoute);
     }
 
     @Override
@@ -1,9 +1,15 @@
 package com.example.services.implementations;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.api.dto.SeatHoldDTOs;
@@ -14,12 +20,19 @@ import com.example.domain.repositories.AccountRepository;
 import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.StopRepository;
 import com.example.domain.repositories.TripRepository;
+import com.example.exceptions.ConflictException;
 import com.example.exceptions.NotFoundException;
 import com.example.security.services.AuthenticationService;
+import com.example.services.extra.BookingSequencer;
 import com.example.services.extra.ConfigCacheService;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.RouteTopologyCache;
 import com.example.services.definitions.SeatHoldService;
 import com.example.services.extra.SeatAvailabilityService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.mappers.SeatHoldMapper;
+import com.example.services.watchers.SeatHoldExpiryWatcher;
 
 import lombok.RequiredArgsConstructor;
 
@@ -36,51 +49,132 @@ public class SeatHoldServiceImpl implements SeatHoldService {
         private final AuthenticationService authenticationService;
         private final SeatAvailabilityService seatAvailabilityService;
         private final ConfigCacheService configCache;
+        private final SeatInventoryService seatInventoryService;
+        private final BookingSequencer bookingSequencer;
+        private final RouteTopologyCache routeTopologyCache;
+        private final DynamicPricingEngine dynamicPricingEngine;
+        private final SeatHoldExpiryWatcher holdExpiryWatcher;
 
         @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
         public SeatHoldDTOs.SeatHoldResponse reserveSeat(SeatHoldDTOs.CreateSeatHoldRequest req) {
+                return bookingSequencer.submit(req.tripId(), () -> prepareHold(req), this::saveHold);
+        }
+
+        // everything that can reject the hold, before anything is written
+        private SeatHold prepareHold(SeatHoldDTOs.CreateSeatHoldRequest req) {
                 Long userId = authenticationService.getCurrentAccountId();
                 Trip trip = tripRepo.findById(req.tripId())
                                 .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(req.tripId())));
 
-                Stop fromStop = req.fromStopId().isPresent()
-                                ? stopRepo.findById(req.fromStopId().get())
-                                                .orElseThrow(() -> new NotFoundException(
-                                                                "From Stop %d not found"
-                                                                                .formatted(req.fromStopId().get())))
-                                : null;
+                RouteTopology.Segment segment = findSegment(trip, req.fromStopId(), req.toStopId());
 
-                Stop toStop = req.toStopId().isPresent()
-                                ? stopRepo.findById(req.toStopId().get())
-                                                .orElseThrow(() -> new NotFoundException(
-                                                                "To Stop %d not found".formatted(req.toStopId().get())))
-                                : null;
-
-                if (!seatAvailabilityService.isSeatAvailable(req.tripId(), req.seatNumber(), fromStop, toStop)) {
+                if (!seatAvailabilityService.isSeatAvailable(req.tripId(), req.seatNumber(), segment.fromSequence(),
+                                segment.toSequence())) {
                         String reason = seatAvailabilityService.getAvailabilityConflictReason(
-                                        req.tripId(), req.seatNumber(), fromStop, toStop);
-                        String fromName = fromStop != null ? fromStop.getName() : "origin";
-                        String toName = toStop != null ? toStop.getName() : "destination";
+                                        req.tripId(), req.seatNumber(), segment.fromSequence(), segment.toSequence());
                         throw new IllegalStateException("Seat %s is not available for trip %d (segment %s -> %s): %s"
-                                        .formatted(req.seatNumber(), req.tripId(), fromName, toName, reason));
+                                        .formatted(req.seatNumber(), req.tripId(), segment.fromName(),
+                                                        segment.toName(), reason));
                 }
 
                 int holdMinutes = configCache.getMaxSeatHoldMinutes();
                 LocalDateTime expiresAt = req.expiresAt() != null ? req.expiresAt()
                                 : LocalDateTime.now().plusMinutes(holdMinutes);
 
-                SeatHold savedSeatHold = repo.save(SeatHold.builder()
+                // quoted before the hold is counted, checkout charges this step
+                int fareStep = dynamicPricingEngine.currentStep(trip, segment.fromSequence(), segment.toSequence());
+
+                return SeatHold.builder()
                                 .expiresAt(expiresAt)
                                 .seatNumber(req.seatNumber())
                                 .trip(trip)
-                                .fromStop(fromStop)
-                                .toStop(toStop)
+                                .fromStop(stopReference(segment.fromStopId()))
+                                .toStop(stopReference(segment.toStopId()))
+                                .fromSequence(segment.fromSequence())
+                                .toSequence(segment.toSequence())
+                                .fareStep(fareStep)
                                 .account(accountRepository.getReferenceById(userId))
-                                .build());
+                                .build();
+        }
+
+        private SeatHoldDTOs.SeatHoldResponse saveHold(SeatHold seatHold) {
+                repo.deleteExpiredHoldsForSeat(seatHold.getTrip().getId(), seatHold.getSeatNumber(),
+                                LocalDateTime.now());
+                SeatHold savedSeatHold = repo.saveAndFlush(seatHold);
+                seatInventoryService.recordHold(savedSeatHold);
+                holdExpiryWatcher.track(savedSeatHold);
 
                 return mapper.toResponse(savedSeatHold);
         }
 
+        @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public List<SeatHoldDTOs.SeatHoldResponse> reserveSeats(SeatHoldDTOs.CreateSeatHoldBatchRequest req) {
+                return bookingSequencer.submit(req.tripId(), () -> prepareHolds(req), this::saveHolds);
+        }
+
+        // all seats are checked in one inventory pass and inserted in one batch, any failure rolls back every hold
+        private List<SeatHold> prepareHolds(SeatHoldDTOs.CreateSeatHoldBatchRequest req) {
+                if (req.seatNumbers() == null || req.seatNumbers().isEmpty()) {
+                        throw new IllegalArgumentException("At least one seat number is required");
+                }
+                Set<String> seatNumbers = new LinkedHashSet<>(req.seatNumbers());
+                if (seatNumbers.size() != req.seatNumbers().size()) {
+                        throw new IllegalArgumentException("Seat numbers must not be repeated");
+                }
+
+                Long userId = authenticationService.getCurrentAccountId();
+                Trip trip = tripRepo.findById(req.tripId())
+                                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(req.tripId())));
+                RouteTopology.Segment segment = findSegment(trip, req.fromStopId(), req.toStopId());
+
+                Map<String, String> conflicts = seatAvailabilityService.getAvailabilityConflicts(req.tripId(),
+                                seatNumbers, segment.fromSequence(), segment.toSequence());
+                if (!conflicts.isEmpty()) {
+                        throw new IllegalStateException("Seats not available for trip %d (segment %s -> %s): %s"
+                                        .formatted(req.tripId(), segment.fromName(), segment.toName(),
+                                                        conflicts.entrySet().stream()
+                                                                        .map(conflict -> "%s (%s)".formatted(
+                                                                                        conflict.getKey(),
+                                                                                        conflict.getValue()))
+                                                                        .collect(Collectors.joining(", "))));
+                }
+
+                int holdMinutes = configCache.getMaxSeatHoldMinutes();
+                LocalDateTime expiresAt = req.expiresAt() != null ? req.expiresAt()
+                                : LocalDateTime.now().plusMinutes(holdMinutes);
+                var account = accountRepository.getReferenceById(userId);
+                Stop fromStop = stopReference(segment.fromStopId());
+                Stop toStop = stopReference(segment.toStopId());
+                int fareStep = dynamicPricingEngine.currentStep(trip, segment.fromSequence(), segment.toSequence());
+
+                return seatNumbers.stream()
+                                .map(seatNumber -> SeatHold.builder()
+                                                .expiresAt(expiresAt)
+                                                .seatNumber(seatNumber)
+                                                .trip(trip)
+                                                .fromStop(fromStop)
+                                                .toStop(toStop)
+                                                .fromSequence(segment.fromSequence())
+                                                .toSequence(segment.toSequence())
+                                                .fareStep(fareStep)
+                                                .account(account)
+                                                .build())
+                                .toList();
+        }
+
+        private List<SeatHoldDTOs.SeatHoldResponse> saveHolds(List<SeatHold> seatHolds) {
+                repo.deleteExpiredHoldsForSeats(seatHolds.get(0).getTrip().getId(),
+                                seatHolds.stream().map(SeatHold::getSeatNumber).toList(), LocalDateTime.now());
+                List<SeatHold> savedSeatHolds = repo.saveAll(seatHolds);
+                repo.flush();
+                savedSeatHolds.forEach(seatInventoryService::recordHold);
+                savedSeatHolds.forEach(holdExpiryWatcher::track);
+
+                return savedSeatHolds.stream().map(mapper::toResponse).toList();
+        }
+
         @Override
         @Transactional(readOnly = true)
         public SeatHoldDTOs.SeatHoldResponse getSeatReserveById(Long id) {
@@ -89,51 +183,135 @@ public class SeatHoldServiceImpl implements SeatHoldService {
         }
 
         @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
         public void deleteSeatHold(Long id) {
-                var seatHold = repo.findById(id)
-                                .orElseThrow(() -> new NotFoundException("SeatHold %d not found".formatted(id)));
+                Long tripId = tripIdOf(id);
+                bookingSequencer.submit(tripId, () -> holdOnTrip(id, tripId), this::removeHold);
+        }
+
+        private Void removeHold(SeatHold seatHold) {
                 repo.delete(seatHold);
+                seatInventoryService.releaseHold(seatHold);
+                holdExpiryWatcher.untrack(seatHold.getId());
+                return null;
+        }
+
+        // where an update leaves the hold, checked against the inventory before the hold itself is touched
+        private record HoldMove(SeatHold seatHold, String seatNumber, Trip trip, Stop fromStop, Stop toStop) {
         }
 
+        /**
+         * Updates run on the mailbox of the hold's trip, and of the trip it
+         * moves to when that is another one, so they are ordered with every
+         * sale and hold on both.
+         */
         @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
         public SeatHoldDTOs.SeatHoldResponse updateSeatReserve(Long id, SeatHoldDTOs.UpdateSeatHoldRequest req) {
-                var seatHold = repo.findById(id)
-                                .orElseThrow(() -> new NotFoundException("SeatHold %d not found".formatted(id)));
+                Long tripId = tripIdOf(id);
+                List<Long> tripIds = req.tripId().filter(target -> !target.equals(tripId))
+                                .map(target -> List.of(tripId, target))
+                                .orElse(List.of(tripId));
+                return bookingSequencer.submit(tripIds, () -> prepareMove(id, tripId, req),
+                                move -> saveMove(move, req));
+        }
 
-                req.seatNumber().ifPresent(seatHold::setSeatNumber);
-                req.expiresAt().ifPresent(seatHold::setExpiresAt);
-                req.tripId().ifPresent(tripId -> seatHold.setTrip(tripRepo.findById(tripId)
-                                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(tripId)))));
-                req.fromStopId().ifPresent(fromStopId -> seatHold.setFromStop(stopRepo.findById(fromStopId)
+        private HoldMove prepareMove(Long id, Long tripId, SeatHoldDTOs.UpdateSeatHoldRequest req) {
+                var seatHold = holdOnTrip(id, tripId);
+                String seatNumber = req.seatNumber().orElse(seatHold.getSeatNumber());
+                Trip trip = req.tripId().map(targetTripId -> tripRepo.findById(targetTripId)
+                                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(targetTripId))))
+                                .orElse(seatHold.getTrip());
+                Stop fromStop = req.fromStopId().map(fromStopId -> stopRepo.findById(fromStopId)
                                 .orElseThrow(() -> new NotFoundException(
-                                                "From Stop %d not found".formatted(fromStopId)))));
-                req.toStopId().ifPresent(toStopId -> seatHold.setToStop(stopRepo.findById(toStopId)
-                                .orElseThrow(() -> new NotFoundException("To Stop %d not found".formatted(toStopId)))));
-
-                if (req.seatNumber().isPresent() || req.tripId().isPresent() ||
-                                req.fromStopId().isPresent() || req.toStopId().isPresent()) {
-
-                        if (!seatAvailabilityService.isSeatAvailableExcludingHold(
-                                        seatHold.getTrip().getId(), seatHold.getSeatNumber(),
-                                        seatHold.getFromStop(), seatHold.getToStop(), id)) {
-                                String reason = seatAvailabilityService.getAvailabilityConflictReason(
-                                                seatHold.getTrip().getId(), seatHold.getSeatNumber(),
-                                                seatHold.getFromStop(), seatHold.getToStop());
-                                throw new IllegalStateException("Cannot update hold: Seat %s is not available: %s"
-                                                .formatted(seatHold.getSeatNumber(), reason));
-                        }
+                                                "From Stop %d not found".formatted(fromStopId))))
+                                .orElse(seatHold.getFromStop());
+                Stop toStop = req.toStopId().map(toStopId -> stopRepo.findById(toStopId)
+                                .orElseThrow(() -> new NotFoundException("To Stop %d not found".formatted(toStopId))))
+                                .orElse(seatHold.getToStop());
+
+                if (moves(req) && !seatAvailabilityService.isSeatAvailableExcludingHold(trip.getId(), seatNumber,
+                                fromStop, toStop, id)) {
+                        String reason = seatAvailabilityService.getAvailabilityConflictReason(trip.getId(), seatNumber,
+                                        fromStop, toStop);
+                        throw new IllegalStateException("Cannot update hold: Seat %s is not available: %s"
+                                        .formatted(seatNumber, reason));
+                }
+                return new HoldMove(seatHold, seatNumber, trip, fromStop, toStop);
+        }
+
+        private SeatHoldDTOs.SeatHoldResponse saveMove(HoldMove move, SeatHoldDTOs.UpdateSeatHoldRequest req) {
+                var seatHold = move.seatHold();
+                // the hold may move to another trip, release it where it is now
+                seatInventoryService.releaseHold(seatHold);
+
+                seatHold.setSeatNumber(move.seatNumber());
+                seatHold.setTrip(move.trip());
+                seatHold.setFromStop(move.fromStop());
+                seatHold.setToStop(move.toStop());
+                req.expiresAt().ifPresent(seatHold::setExpiresAt);
+
+                if (moves(req)) {
+                        repo.deleteOtherExpiredHoldsForSeat(seatHold.getTrip().getId(), seatHold.getSeatNumber(),
+                                        LocalDateTime.now(), seatHold.getId());
+                        // a moved hold is priced where it lands
+                        seatHold.setFareStep(dynamicPricingEngine.currentStep(seatHold.getTrip(),
+                                        seatHold.getFromStop() != null ? seatHold.getFromStop().getSequence()
+                                                        : Integer.MIN_VALUE,
+                                        seatHold.getToStop() != null ? seatHold.getToStop().getSequence()
+                                                        : Integer.MAX_VALUE));
                 }
 
-                return mapper.toResponse(repo.save(seatHold));
+                var savedSeatHold = repo.saveAndFlush(seatHold);
+                seatInventoryService.recordHold(savedSeatHold);
+                holdExpiryWatcher.track(savedSeatHold);
+                return mapper.toResponse(savedSeatHold);
+        }
+
+        private static boolean moves(SeatHoldDTOs.UpdateSeatHoldRequest req) {
+                return req.seatNumber().isPresent() || req.tripId().isPresent()
+                                || req.fromStopId().isPresent() || req.toStopId().isPresent();
+        }
+
+        // the mailbox a hold command runs on
+        private Long tripIdOf(Long holdId) {
+                return repo.findTripIdById(holdId)
+                                .orElseThrow(() -> new NotFoundException("SeatHold %d not found".formatted(holdId)));
+        }
+
+        // a hold moved to another trip after its mailbox was picked has to be retried there
+        private SeatHold holdOnTrip(Long id, Long tripId) {
+                var seatHold = repo.findById(id)
+                                .orElseThrow(() -> new NotFoundException("SeatHold %d not found".formatted(id)));
+                if (!seatHold.getTrip().getId().equals(tripId)) {
+                        throw new ConflictException("SeatHold %d moved to another trip, retry".formatted(id));
+                }
+                return seatHold;
         }
 
         @Override
         @Transactional(readOnly = true)
         public List<SeatHoldDTOs.SeatHoldResponse> getActiveSeatHoldsByTripId(Long tripId) {
-                var now = LocalDateTime.now();
-                return repo.findByTrip_Id(tripId).stream()
-                                .filter(hold -> hold.getExpiresAt().isAfter(now))
+                return repo.findActiveHoldsByTripId(tripId, LocalDateTime.now()).stream()
                                 .map(mapper::toResponse)
                                 .toList();
         }
+
+        // stops are checked against the cached route topology instead of being loaded
+        private RouteTopology.Segment findSegment(Trip trip, Optional<Long> fromStopId, Optional<Long> toStopId) {
+                RouteTopology topology = routeTopologyCache.get(trip.getRoute().getId());
+                fromStopId.filter(stopId -> !topology.contains(stopId)).ifPresent(stopId -> {
+                        throw new NotFoundException("From Stop %d not found on route %d"
+                                        .formatted(stopId, topology.getRouteId()));
+                });
+                toStopId.filter(stopId -> !topology.contains(stopId)).ifPresent(stopId -> {
+                        throw new NotFoundException("To Stop %d not found on route %d"
+                                        .formatted(stopId, topology.getRouteId()));
+                });
+                return topology.segment(fromStopId.orElse(null), toStopId.orElse(null));
+        }
+
+        private Stop stopReference(Long stopId) {
+                return stopId != null ? stopRepo.getReferenceById(stopId) : null;
+        }
 }
@@ -1,6 +1,5 @@
 package com.example.services.implementations;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -8,16 +7,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.example.api.dto.SeatDTOs;
 import com.example.domain.entities.Seat;
-import com.example.domain.entities.SeatHold;
-import com.example.domain.entities.Ticket;
 import com.example.domain.repositories.BusRepository;
-import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.SeatRepository;
-import com.example.domain.repositories.TicketRepository;
 import com.example.exceptions.NotFoundException;
 import com.example.services.definitions.SeatService;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.SeatMapService;
 import com.example.services.mappers.SeatMapper;
-import com.example.services.mappers.StopMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,10 +25,9 @@ public class SeatServiceImpl implements SeatService {
 
         private final SeatRepository repo;
         private final SeatMapper mapper;
-        private final StopMapper stopMapper;
         private final BusRepository busRepo;
-        private final SeatHoldRepository seatHoldRepo;
-        private final TicketRepository ticketRepo;
+        private final SeatMapService seatMapService;
+        private final SeatInventoryService seatInventoryService;
 
         @Override
         public SeatDTOs.SeatResponse createSeat(SeatDTOs.CreateSeatRequest req) {
@@ -43,7 +38,9 @@ public class SeatServiceImpl implements SeatService {
                                 .type(req.type())
                                 .bus(busRepo.getReferenceById(req.busId()))
                                 .build();
-                return mapper.toResponse(repo.save(seat));
+                var savedSeat = repo.save(seat);
+                seatInventoryService.bumpAllVersions();
+                return mapper.toResponse(savedSeat);
         }
 
         @Override
@@ -58,6 +55,7 @@ public class SeatServiceImpl implements SeatService {
                 var seat = repo.findById(id)
                                 .orElseThrow(() -> new NotFoundException("Seat %d not found".formatted(id)));
                 repo.delete(seat);
+                seatInventoryService.bumpAllVersions();
         }
 
         @Override
@@ -74,40 +72,15 @@ public class SeatServiceImpl implements SeatService {
                         seat.setBus(bus);
                 });
 
-                return mapper.toResponse(repo.save(seat));
+                var savedSeat = repo.save(seat);
+                seatInventoryService.bumpAllVersions();
+                return mapper.toResponse(savedSeat);
         }
 
         @Override
+        @Transactional(readOnly = true)
         public List<SeatDTOs.SeatReponseFull> getFullSeatsByBusIdAndTripId(Long busId, Long tripId) {
-                var seats = repo.findByBus_Id(busId);
-
-                // Get active seat holds for this specific trip
-                List<SeatHold> activeSeatHolds = seatHoldRepo.findActiveHoldsByListOfSeatNumbersAndCurrentTimeAndTripId(
-                                seats.stream().map(Seat::getNumber).toList(), LocalDateTime.now(), tripId);
-
-                // Get active tickets for this specific trip
-                List<Ticket> activeTickets = ticketRepo.findTicketsByListOfSeatNumbersFilteredByTripId(
-                                seats.stream().map(Seat::getNumber).toList(), tripId);
-
-                return seats.stream().map(seat -> {
-                        var hold = activeSeatHolds.stream()
-                                        .filter(h -> h.getSeatNumber().equals(seat.getNumber()))
-                                        .findFirst();
-                        var ticket = activeTickets.stream()
-                                        .filter(t -> t.getSeatNumber().equals(seat.getNumber()))
-                                        .findFirst();
-
-                        return new SeatDTOs.SeatReponseFull(
-                                        seat.getId(),
-                                        seat.getNumber(),
-                                        seat.getType(),
-                                        seat.getBus().getId(),
-                                        hold.map(SeatHold::getId),
-                                        hold.map(SeatHold::getExpiresAt),
-                                        ticket.map(Ticket::getId),
-                                        ticket.map(Ticket::getFromStop).map(stopMapper::toResponse),
-                                        ticket.map(Ticket::getToStop).map(stopMapper::toResponse));
-                }).toList();
+                return seatMapService.getFullSeats(busId, tripId);
         }
 
         @Override
@@ -1,15 +1,27 @@
 package com.example.services.implementations;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.api.dto.StopDTOs;
 import com.example.domain.entities.Route;
 import com.example.domain.entities.Stop;
 import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TicketRepository;
 import com.example.exceptions.NotFoundException;
 import com.example.services.definitions.StopService;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.PlaceAutocompleteIndex;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.RouteTopologyCache;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.TripSearchCache;
 import com.example.services.mappers.StopMapper;
 
 import lombok.RequiredArgsConstructor;
@@ -23,6 +35,14 @@ public class StopServiceImpl implements StopService {
     private final StopRepository repo;
     private final StopMapper mapper;
     private final RouteRepository routeRepo;
+    private final SeatInventoryService seatInventoryService;
+    private final TicketRepository ticketRepo;
+    private final SeatHoldRepository seatHoldRepo;
+    private final RouteStopPairIndex routeStopPairIndex;
+    private final PlaceAutocompleteIndex placeAutocompleteIndex;
+    private final TripSearchCache tripSearchCache;
+    private final JourneyPlanner journeyPlanner;
+    private final RouteTopologyCache routeTopologyCache;
 
     @Override
     public StopDTOs.StopResponse createStop(StopDTOs.CreateStopRequest req) {
@@ -34,7 +54,14 @@ public class StopServiceImpl implements StopService {
                 .latitude(req.latitude())
                 .longitude(req.longitude())
                 .build();
-        return mapper.toResponse(repo.save(stop));
+        var savedStop = repo.save(stop);
+        seatInventoryService.invalidateRoute(route.getId());
+        routeStopPairIndex.refreshRoute(route.getId());
+        placeAutocompleteIndex.refreshRoute(route.getId());
+        tripSearchCache.evictRoute(route.getId());
+        journeyPlanner.refreshRoute(route.getId());
+        routeTopologyCache.invalidate(route.getId());
+        return mapper.toResponse(savedStop);
     }
 
     @Override
@@ -49,6 +76,12 @@ public class StopServiceImpl implements StopService {
         var stop = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Stop %d not found".formatted(id)));
         repo.delete(stop);
+        seatInventoryService.invalidateRoute(stop.getRoute().getId());
+        routeStopPairIndex.refreshRoute(stop.getRoute().getId());
+        placeAutocompleteIndex.refreshRoute(stop.getRoute().getId());
+        tripSearchCache.evictRoute(stop.getRoute().getId());
+        journeyPlanner.refreshRoute(stop.getRoute().getId());
+        routeTopologyCache.invalidate(stop.getRoute().getId());
     }
 
     @Override
@@ -56,9 +89,18 @@ public class StopServiceImpl implements StopService {
         var stop = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Stop %d not found".formatted(id)));
 
+        var previousRouteId = stop.getRoute().getId();
+
         // Update only fields that are present
         req.name().ifPresent(stop::setName);
-        req.sequence().ifPresent(stop::setSequence);
+        req.sequence().ifPresent(sequence -> {
+            stop.setSequence(sequence);
+            // keep the segment bounds used by the overlap constraints in step
+            ticketRepo.updateFromSequenceByStopId(id, sequence);
+            ticketRepo.updateToSequenceByStopId(id, sequence);
+            seatHoldRepo.updateFromSequenceByStopId(id, sequence);
+            seatHoldRepo.updateToSequenceByStopId(id, sequence);
+        });
         req.latitude().ifPresent(stop::setLatitude);
         req.longitude().ifPresent(stop::setLongitude);
         req.routeId().ifPresent(routeId -> {
@@ -67,7 +109,30 @@ public class StopServiceImpl implements StopService {
             stop.setRoute(route);
         });
 
-        return mapper.toResponse(repo.save(stop));
+        var savedStop = repo.save(stop);
+        seatInventoryService.invalidateRoute(previousRouteId);
+        seatInventoryService.invalidateRoute(savedStop.getRoute().getId());
+        routeStopPairIndex.refreshRoute(previousRouteId);
+        routeStopPairIndex.refreshRoute(savedStop.getRoute().getId());
+        placeAutocompleteIndex.refreshRoute(previousRouteId);
+        placeAutocompleteIndex.refreshRoute(savedStop.getRoute().getId());
+        tripSearchCache.evictRoute(previousRouteId);
+        tripSearchCache.evictRoute(savedStop.getRoute().getId());
+        journeyPlanner.refreshRoute(previousRouteId);
+        journeyPlanner.refreshRoute(savedStop.getRoute().getId());
+        routeTopologyCache.invalidate(previousRouteId);
+        routeTopologyCache.invalidate(savedStop.getRoute().getId());
+        return mapper.toResponse(savedStop);
     }
 
+    // served from memory, typing in the search box never reaches the database
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StopDTOs.StopSuggestion> autocomplete(String query, Optional<Integer> limit) {
+        int size = Math.min(limit.orElse(PlaceAutocompleteIndex.MAX_SUGGESTIONS),
+                PlaceAutocompleteIndex.MAX_SUGGESTIONS);
+        return placeAutocompleteIndex.suggest(query, size).stream()
+                .map(place -> new StopDTOs.StopSuggestion(place.name(), place.stopIds(), place.tripCount()))
+                .toList();
+    }
 }
@@ -1,34 +1,49 @@
 package com.example.services.implementations;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.api.dto.BaggageDTOs;
 import com.example.api.dto.IncidentDTOs;
 import com.example.api.dto.TicketDTOs;
 import com.example.domain.entities.Account;
-import com.example.domain.entities.FareRule;
 import com.example.domain.entities.Route;
+import com.example.domain.entities.SeatHold;
 import com.example.domain.entities.Stop;
 import com.example.domain.entities.Ticket;
 import com.example.domain.entities.Trip;
-import com.example.domain.enums.FareRulePassengerType;
 import com.example.domain.enums.PaymentStatus;
 import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
 import com.example.domain.repositories.AccountRepository;
 import com.example.domain.repositories.BaggageRepository;
-import com.example.domain.repositories.FareRuleRepository;
 import com.example.domain.repositories.IncidentRepository;
+import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.StopRepository;
 import com.example.domain.repositories.TicketRepository;
 import com.example.domain.repositories.TripRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
 import com.example.security.services.AuthenticationService;
 import com.example.services.definitions.TicketService;
+import com.example.services.extra.BookingSequencer;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.RouteTopologyCache;
 import com.example.services.extra.SeatAvailabilityService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.mappers.BaggageMapper;
 import com.example.services.mappers.IncidentMapper;
 import com.example.services.mappers.TicketMapper;
@@ -41,6 +56,10 @@ import lombok.RequiredArgsConstructor;
 public class TicketServiceImpl implements TicketService {
 
     private static final String TICKET_NOT_FOUND = "Ticket %d not found";
+    private static final int MAX_QUOTE_ITEMS = 100;
+
+    private record SegmentKey(long tripId, int fromSequence, int toSequence) {
+    }
 
     private final TicketRepository repo;
     private final AccountRepository accountRepository;
@@ -52,36 +71,43 @@ public class TicketServiceImpl implements TicketService {
     private final TripRepository tripRepo;
     private final StopRepository stopRepo;
     private final AuthenticationService authenticationService;
-    private final FareRuleRepository fareRuleRepo;
     private final SeatAvailabilityService seatAvailabilityService;
+    private final SeatInventoryService seatInventoryService;
+    private final BookingSequencer bookingSequencer;
+    private final SeatHoldRepository seatHoldRepo;
+    private final RouteTopologyCache routeTopologyCache;
+    private final DynamicPricingEngine dynamicPricingEngine;
+    private final DailyRollupService dailyRollupService;
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TicketDTOs.TicketResponse createTicket(TicketDTOs.CreateTicketRequest req) {
+        return bookingSequencer.submit(req.tripId(), () -> prepareTicket(req), this::saveTicket);
+    }
+
+    // everything that can reject the sale, before anything is written
+    private Ticket prepareTicket(TicketDTOs.CreateTicketRequest req) {
         var account = authenticationService.getCurrentAccount();
         var trip = tripRepo.findById(req.tripId())
                 .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(req.tripId())));
         var bus = trip.getBus();
+        var route = trip.getRoute();
 
-        var fromStop = req.fromStopId().isPresent()
-                ? stopRepo.findById(req.fromStopId().get())
-                        .orElseThrow(() -> new NotFoundException("Stop %d not found".formatted(req.fromStopId().get())))
-                : null;
-        var toStop = req.toStopId().isPresent()
-                ? stopRepo.findById(req.toStopId().get())
-                        .orElseThrow(() -> new NotFoundException("Stop %d not found".formatted(req.toStopId().get())))
-                : null;
-
-        if (!seatAvailabilityService.isSeatAvailable(req.tripId(), req.seatNumber(), fromStop, toStop)) {
-            var reason = seatAvailabilityService.getAvailabilityConflictReason(req.tripId(), req.seatNumber(), fromStop,
-                    toStop);
-            var fromName = fromStop != null ? fromStop.getName() : "origin";
-            var toName = toStop != null ? toStop.getName() : "destination";
+        // the stops are checked against the cached route topology, the ticket only references them
+        var topology = routeTopologyCache.get(route.getId());
+        var segment = topology.segment(req.fromStopId().orElse(null), req.toStopId().orElse(null));
+
+        if (!seatAvailabilityService.isSeatAvailable(req.tripId(), req.seatNumber(), segment.fromSequence(),
+                segment.toSequence())) {
+            var reason = seatAvailabilityService.getAvailabilityConflictReason(req.tripId(), req.seatNumber(),
+                    segment.fromSequence(), segment.toSequence());
             throw new IllegalStateException("Seat %s is not available for trip %d (segment %s -> %s): %s"
-                    .formatted(req.seatNumber(), req.tripId(), fromName, toName, reason));
+                    .formatted(req.seatNumber(), req.tripId(), segment.fromName(), segment.toName(), reason));
         }
 
         // Count occupied seats in the specific segment (fromStop -> toStop)
-        int occupiedSeatsInSegment = seatAvailabilityService.getOccupiedSeatsInSegment(req.tripId(), fromStop, toStop);
+        int occupiedSeatsInSegment = seatAvailabilityService.getOccupiedSeatsInSegment(req.tripId(),
+                segment.fromSequence(), segment.toSequence());
 
         if (bus.getCapacity() <= occupiedSeatsInSegment) {
             throw new IllegalStateException("No seats available for trip %d in this segment".formatted(req.tripId()));
@@ -94,36 +120,192 @@ public class TicketServiceImpl implements TicketService {
                 ? TicketStatus.PENDING_APPROVAL
                 : TicketStatus.CONFIRMED;
 
-        { // debugging
-            System.out.println("Bus capacity: " + bus.getCapacity());
-            System.out.println("Occupied seats in segment: " + occupiedSeatsInSegment);
-            System.out.println("Occupation rate: " + (occupationRate * 100) + "%");
-            System.out.println("Ticket status: " + status);
-            var fromName = fromStop != null ? fromStop.getName() : "origin";
-            var toName = toStop != null ? toStop.getName() : "destination";
-            System.out.println("Segment: " + fromName + " -> " + toName);
-        }
+        // quoted before the ticket is counted, the same price the search and a hold showed
+        var quote = dynamicPricingEngine.quote(trip, segment.fromSequence(), segment.toSequence(),
+                req.passengerType());
 
-        var route = trip.getRoute();
-        var fareRule = getOrCreateFareRule(route);
-        var price = calculatePrice(route, fareRule, req.passengerType());
-
-        var ticket = Ticket.builder()
+        return Ticket.builder()
                 .seatNumber(req.seatNumber())
                 .trip(trip)
-                .fromStop(fromStop)
-                .toStop(toStop)
+                .fromStop(stopReference(segment.fromStopId()))
+                .toStop(stopReference(segment.toStopId()))
+                .fromSequence(segment.fromSequence())
+                .toSequence(segment.toSequence())
+                .segmentKm(segmentKm(route, topology, segment.fromIndex(), segment.toIndex()))
                 .paymentMethod(req.paymentMethod())
                 .paymentIntentId(req.paymentIntentId())
                 .account(accountRepository.getReferenceById(account.getId()))
-                .price(price)
+                .price(quote.price())
+                .fareStep(quote.step())
                 .status(status)
                 .paymentStatus(PaymentStatus.PENDING)
                 .checkedIn(false)
                 .passengerType(req.passengerType())
                 .build();
+    }
 
-        return mapper.toResponse(repo.save(ticket));
+    private TicketDTOs.TicketResponse saveTicket(Ticket ticket) {
+        // flushed here so an overlapping booking that slipped past the check
+        // hits the exclusion constraint inside this call
+        var savedTicket = repo.saveAndFlush(ticket);
+        seatInventoryService.recordTicket(savedTicket);
+        dailyRollupService.recordSale(savedTicket);
+        return mapper.toResponse(savedTicket);
+    }
+
+    /**
+     * Converts the caller's holds into paid tickets. A live hold already
+     * reserves its seat and segment, so the availability check is skipped; the
+     * holds are deleted in the same transaction. All holds of a checkout must
+     * be on one trip, the checkout runs on that trip's booking mailbox like
+     * createTicket.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TicketDTOs.TicketResponse> checkout(TicketDTOs.CheckoutRequest req) {
+        if (req.items() == null || req.items().isEmpty()) {
+            throw new IllegalArgumentException("Checkout requires at least one hold");
+        }
+        var holdIds = req.items().stream().map(TicketDTOs.CheckoutItem::holdId).toList();
+        if (new HashSet<>(holdIds).size() != holdIds.size()) {
+            throw new IllegalArgumentException("Hold IDs must not be repeated");
+        }
+
+        var tripIds = seatHoldRepo.findTripIdsByIdIn(holdIds);
+        if (tripIds.isEmpty()) {
+            throw new NotFoundException("SeatHold %d not found".formatted(holdIds.get(0)));
+        }
+        if (tripIds.size() > 1) {
+            throw new IllegalArgumentException("Checkout holds must all be on the same trip");
+        }
+        return bookingSequencer.submit(tripIds.get(0), () -> prepareCheckout(req, holdIds), this::saveCheckout);
+    }
+
+    // the holds a checkout converts and the tickets replacing them, not yet written
+    private record PreparedCheckout(List<SeatHold> holds, List<Ticket> tickets) {
+    }
+
+    private PreparedCheckout prepareCheckout(TicketDTOs.CheckoutRequest req, List<Long> holdIds) {
+        var account = authenticationService.getCurrentAccount();
+        Map<Long, SeatHold> holds = seatHoldRepo.findAllById(holdIds).stream()
+                .collect(Collectors.toMap(SeatHold::getId, Function.identity()));
+        var now = LocalDateTime.now();
+        for (Long holdId : holdIds) {
+            var hold = holds.get(holdId);
+            if (hold == null || hold.getAccount() == null || !hold.getAccount().getId().equals(account.getId())) {
+                throw new NotFoundException("SeatHold %d not found".formatted(holdId));
+            }
+            if (!hold.getExpiresAt().isAfter(now)) {
+                throw new IllegalStateException("SeatHold %d has expired".formatted(holdId));
+            }
+        }
+
+        var trip = holds.get(holdIds.get(0)).getTrip();
+        if ((trip.getStatus() != TripStatus.SCHEDULED && trip.getStatus() != TripStatus.BOARDING)
+                || !trip.getDepartureAt().isAfter(now)) {
+            throw new IllegalStateException("Trip %d has already departed".formatted(trip.getId()));
+        }
+        var topology = routeTopologyCache.get(trip.getRoute().getId());
+
+        // the seats of earlier items count as sold when a later one is checked against the approval rule
+        List<int[]> checkedOutSegments = new ArrayList<>();
+        List<Ticket> tickets = new ArrayList<>();
+        for (var item : req.items()) {
+            var hold = holds.get(item.holdId());
+            // a hold keeps the price step it was placed at
+            int fareStep = hold.getFareStep() != null ? hold.getFareStep() : DynamicPricingEngine.BASE_STEP;
+            int fromSequence = fromSequence(hold.getFromSequence(), hold.getFromStop());
+            int toSequence = toSequence(hold.getToSequence(), hold.getToStop());
+
+            // same approval rule as createTicket, counted from the in-memory inventory
+            int occupiedSeatsInSegment = seatAvailabilityService.getOccupiedSeatsInSegment(trip.getId(),
+                    fromSequence, toSequence)
+                    + (int) checkedOutSegments.stream()
+                            .filter(segment -> segment[0] < toSequence && fromSequence < segment[1])
+                            .count();
+            var status = (double) occupiedSeatsInSegment / trip.getBus().getCapacity() >= 0.95
+                    ? TicketStatus.PENDING_APPROVAL
+                    : TicketStatus.CONFIRMED;
+            checkedOutSegments.add(new int[] { fromSequence, toSequence });
+
+            tickets.add(Ticket.builder()
+                    .seatNumber(hold.getSeatNumber())
+                    .trip(trip)
+                    .fromStop(hold.getFromStop())
+                    .toStop(hold.getToStop())
+                    .paymentMethod(req.paymentMethod())
+                    .paymentIntentId(req.paymentIntentId())
+                    .account(accountRepository.getReferenceById(account.getId()))
+                    .price(dynamicPricingEngine.price(trip.getRoute().getId(), fromSequence, toSequence, fareStep,
+                            item.passengerType()))
+                    .fareStep(fareStep)
+                    .segmentKm(segmentKm(trip.getRoute(), topology, topology.indexAtSequence(fromSequence),
+                            topology.indexAtSequence(toSequence)))
+                    .status(status)
+                    .paymentStatus(PaymentStatus.COMPLETED)
+                    .checkedIn(false)
+                    // does not depend on the id, so the tickets go out in one batched insert and no update
+                    .qrCode(generateQrCode())
+                    .passengerType(item.passengerType())
+                    .build());
+        }
+        return new PreparedCheckout(holdIds.stream().map(holds::get).toList(), tickets);
+    }
+
+    private List<TicketDTOs.TicketResponse> saveCheckout(PreparedCheckout checkout) {
+        seatHoldRepo.deleteAllInBatch(checkout.holds());
+
+        var savedTickets = repo.saveAll(checkout.tickets());
+        repo.flush();
+
+        checkout.holds().forEach(seatInventoryService::releaseHold);
+        savedTickets.forEach(seatInventoryService::recordTicket);
+        savedTickets.forEach(dailyRollupService::recordSale);
+        return savedTickets.stream().map(mapper::toResponse).toList();
+    }
+
+    /**
+     * Prices every item with one trip query. Topologies and fare matrices come
+     * from their route caches, and the load step is read once per trip segment,
+     * so passengers sharing a segment are quoted at the same step.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TicketDTOs.QuoteResponse quote(TicketDTOs.QuoteRequest req) {
+        if (req.items() == null || req.items().isEmpty()) {
+            throw new IllegalArgumentException("Quote requires at least one item");
+        }
+        if (req.items().size() > MAX_QUOTE_ITEMS) {
+            throw new IllegalArgumentException("Quote accepts at most %d items".formatted(MAX_QUOTE_ITEMS));
+        }
+
+        var tripIds = req.items().stream().map(TicketDTOs.QuoteItem::tripId).distinct().toList();
+        Map<Long, Trip> trips = tripRepo.findAllById(tripIds).stream()
+                .collect(Collectors.toMap(Trip::getId, Function.identity()));
+        Map<SegmentKey, Integer> steps = new HashMap<>();
+
+        var lines = req.items().stream().map(item -> {
+            var trip = trips.get(item.tripId());
+            if (trip == null) {
+                throw new NotFoundException("Trip %d not found".formatted(item.tripId()));
+            }
+            if (item.passengerType() == null) {
+                throw new IllegalArgumentException("Passenger type is required");
+            }
+            Long routeId = trip.getRoute().getId();
+            var segment = routeTopologyCache.get(routeId).segment(item.fromStopId().orElse(null),
+                    item.toStopId().orElse(null));
+            int step = steps.computeIfAbsent(
+                    new SegmentKey(trip.getId(), segment.fromSequence(), segment.toSequence()),
+                    key -> dynamicPricingEngine.currentStep(trip, segment.fromSequence(), segment.toSequence()));
+            double price = dynamicPricingEngine.price(routeId, segment.fromSequence(), segment.toSequence(), step,
+                    item.passengerType());
+            return new TicketDTOs.QuoteLine(trip.getId(), item.fromStopId(), item.toStopId(), item.passengerType(),
+                    step, price);
+        }).toList();
+
+        double total = lines.stream().mapToDouble(TicketDTOs.QuoteLine::price).sum();
+        return new TicketDTOs.QuoteResponse(lines, total);
     }
 
     @Override
@@ -134,21 +316,33 @@ public class TicketServiceImpl implements TicketService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteTicket(Long id) {
-        var ticket = repo.findById(id)
-                .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(id)));
+        bookingSequencer.submit(tripIdOf(id), () -> repo.findById(id)
+                .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(id))), this::removeTicket);
+    }
 
+    private Void removeTicket(Ticket ticket) {
         // Delete associated baggage first to avoid foreign key constraint violation
-        var baggages = baggageRepo.findByTicket_Id(id);
+        var baggages = baggageRepo.findByTicket_Id(ticket.getId());
         if (!baggages.isEmpty()) {
             baggageRepo.deleteAll(baggages);
         }
 
         repo.delete(ticket);
+        seatInventoryService.releaseTicket(ticket);
+        dailyRollupService.recordRemoval(ticket);
+        return null;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TicketDTOs.TicketResponse updateTicket(Long id, TicketDTOs.UpdateTicketRequest req) {
+        return bookingSequencer.submit(tripIdOf(id), () -> ownTicketToUpdate(id, req),
+                ticket -> saveUpdate(ticket, req));
+    }
+
+    private Ticket ownTicketToUpdate(Long id, TicketDTOs.UpdateTicketRequest req) {
         if (req.tripId() != null && !tripRepo.existsById(req.tripId())) {
             throw new NotFoundException("Trip %d not found".formatted(req.tripId()));
         }
@@ -166,19 +360,34 @@ public class TicketServiceImpl implements TicketService {
         if (!ticket.getAccount().getId().equals(account.getId())) {
             throw new NotFoundException(TICKET_NOT_FOUND.formatted(id));
         }
+        return ticket;
+    }
 
+    private TicketDTOs.TicketResponse saveUpdate(Ticket ticket, TicketDTOs.UpdateTicketRequest req) {
+        var previousPrice = ticket.getPrice();
         if (req.passengerType() != null) {
-            var route = ticket.getTrip().getRoute();
-            var fareRule = getOrCreateFareRule(route);
-            ticket.setPrice(calculatePrice(route, fareRule, req.passengerType()));
+            // same segment and step as the original sale, only the passenger discount changes
+            int fareStep = ticket.getFareStep() != null ? ticket.getFareStep() : DynamicPricingEngine.BASE_STEP;
+            ticket.setPrice(dynamicPricingEngine.price(ticket.getTrip().getRoute().getId(),
+                    fromSequence(ticket.getFromSequence(), ticket.getFromStop()),
+                    toSequence(ticket.getToSequence(), ticket.getToStop()), fareStep, req.passengerType()));
         }
 
         mapper.patch(ticket, req);
-        return mapper.toResponse(repo.save(ticket));
+        var savedTicket = repo.save(ticket);
+        // the seat number may have changed, re-recording replaces the previous cells
+        seatInventoryService.recordTicket(savedTicket);
+        dailyRollupService.recordPriceChange(savedTicket, previousPrice);
+        return mapper.toResponse(savedTicket);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TicketDTOs.TicketResponse cancelTicket(Long id) {
+        return bookingSequencer.submit(tripIdOf(id), () -> cancellableTicket(id), this::saveCancellation);
+    }
+
+    private Ticket cancellableTicket(Long id) {
         var ticket = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(id)));
 
@@ -196,9 +405,23 @@ public class TicketServiceImpl implements TicketService {
         if (trip.getDepartureAt().isBefore(LocalDateTime.now().plusMinutes(5))) {
             throw new IllegalStateException("Cannot cancel ticket within 5 minutes of departure");
         }
+        return ticket;
+    }
 
+    private TicketDTOs.TicketResponse saveCancellation(Ticket ticket) {
+        var previousStatus = ticket.getStatus();
         ticket.setStatus(TicketStatus.CANCELLED);
-        return mapper.toResponse(repo.save(ticket));
+        ticket.setCancelledAt(Instant.now().toEpochMilli());
+        var savedTicket = repo.save(ticket);
+        seatInventoryService.releaseTicket(savedTicket);
+        dailyRollupService.recordStatusChange(savedTicket, previousStatus);
+        return mapper.toResponse(savedTicket);
+    }
+
+    // the mailbox a ticket command runs on, a ticket never changes trip
+    private Long tripIdOf(Long ticketId) {
+        return repo.findTripIdById(ticketId)
+                .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(ticketId)));
     }
 
     @Override
@@ -274,7 +497,7 @@ public class TicketServiceImpl implements TicketService {
 
         // Generate QR code if not exists
         if (ticket.getQrCode() == null || ticket.getQrCode().isBlank()) {
-            ticket.setQrCode(generateQrCode(ticket));
+            ticket.setQrCode(generateQrCode());
         }
 
         return mapper.toResponse(repo.save(ticket));
@@ -305,7 +528,7 @@ public class TicketServiceImpl implements TicketService {
             }
 
             if (ticket.getQrCode() == null || ticket.getQrCode().isBlank()) {
-                ticket.setQrCode(generateQrCode(ticket));
+                ticket.setQrCode(generateQrCode());
             }
         }
 
@@ -351,61 +574,72 @@ public class TicketServiceImpl implements TicketService {
                 .toList();
     }
 
-    private FareRule getOrCreateFareRule(Route route) {
-        var fareRule = fareRuleRepo.findByRouteId(route.getId());
-        if (fareRule != null) {
-            return fareRule;
+    private Stop stopReference(Long stopId) {
+        return stopId != null ? stopRepo.getReferenceById(stopId) : null;
+    }
+
+    // stored segment sequence, read from the stop for rows written before the column existed
+    private static int fromSequence(Integer stored, Stop stop) {
+        if (stored != null) {
+            return stored;
         }
+        return stop != null ? stop.getSequence() : Integer.MIN_VALUE;
+    }
 
-        var basePrice = route.getDistanceKm() * route.getPricePerKm();
-        return fareRuleRepo.save(FareRule.builder()
-                .route(route)
-                .basePrice(basePrice)
-                .dynamicPricing(false)
-                .childrenDiscount(0.25)
-                .seniorDiscount(0.15)
-                .studentDiscount(0.10)
-                .build());
+    private static int toSequence(Integer stored, Stop stop) {
+        if (stored != null) {
+            return stored;
+        }
+        return stop != null ? stop.getSequence() : Integer.MAX_VALUE;
     }
 
-    private Double calculatePrice(Route route, FareRule fareRule, FareRulePassengerType passengerType) {
-        var discount = switch (passengerType) {
-            case ADULT -> 0.0;
-            case CHILD -> fareRule.getChildrenDiscount();
-            case SENIOR -> fareRule.getSeniorDiscount();
-            case STUDENT -> fareRule.getStudentDiscount();
-        };
-        return route.getDistanceKm() * route.getPricePerKm() * (1 - discount);
+    // route km the ticket covers, the seat-km it sells in the occupancy rollups
+    private static double segmentKm(Route route, RouteTopology topology, int fromIndex, int toIndex) {
+        double routeKm = route.getDistanceKm() != null ? route.getDistanceKm() : 0.0;
+        return routeKm * topology.travelledShare(fromIndex, toIndex);
     }
 
-    private String generateQrCode(Ticket ticket) {
-        return "TICKET-%d-%d".formatted(ticket.getId(), System.currentTimeMillis());
+    private static String generateQrCode() {
+        return "TICKET-%s".formatted(UUID.randomUUID());
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TicketDTOs.TicketResponse approveTicket(Long id) {
-        var ticket = repo.findById(id)
-                .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(id)));
-
-        if (ticket.getStatus() != TicketStatus.PENDING_APPROVAL) {
-            throw new IllegalStateException("Only tickets with PENDING_APPROVAL status can be approved");
-        }
+        return bookingSequencer.submit(tripIdOf(id), () -> pendingTicket(id, "approved"), this::saveApproval);
+    }
 
+    private TicketDTOs.TicketResponse saveApproval(Ticket ticket) {
         ticket.setStatus(TicketStatus.CONFIRMED);
-        return mapper.toResponse(repo.save(ticket));
+        var savedTicket = repo.saveAndFlush(ticket);
+        seatInventoryService.recordTicket(savedTicket);
+        dailyRollupService.recordStatusChange(savedTicket, TicketStatus.PENDING_APPROVAL);
+        return mapper.toResponse(savedTicket);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TicketDTOs.TicketResponse cancelPendingTicket(Long id) {
+        return bookingSequencer.submit(tripIdOf(id), () -> pendingTicket(id, "cancelled"),
+                this::savePendingCancellation);
+    }
+
+    private TicketDTOs.TicketResponse savePendingCancellation(Ticket ticket) {
+        ticket.setStatus(TicketStatus.CANCELLED);
+        ticket.setCancelledAt(Instant.now().toEpochMilli());
+        var savedTicket = repo.save(ticket);
+        dailyRollupService.recordStatusChange(savedTicket, TicketStatus.PENDING_APPROVAL);
+        return mapper.toResponse(savedTicket);
+    }
+
+    private Ticket pendingTicket(Long id, String action) {
         var ticket = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException(TICKET_NOT_FOUND.formatted(id)));
 
         if (ticket.getStatus() != TicketStatus.PENDING_APPROVAL) {
-            throw new IllegalStateException("Only tickets with PENDING_APPROVAL status can be cancelled");
+            throw new IllegalStateException("Only tickets with PENDING_APPROVAL status can be " + action);
         }
-
-        ticket.setStatus(TicketStatus.CANCELLED);
-        return mapper.toResponse(repo.save(ticket));
+        return ticket;
     }
 
     @Override
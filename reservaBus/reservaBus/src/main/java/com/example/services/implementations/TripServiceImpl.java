@@ -1,20 +1,36 @@
 package com.example.services.implementations;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.api.dto.AssignmentDTOs;
 import com.example.api.dto.IncidentDTOs;
 import com.example.api.dto.SeatDTOs;
+import com.example.api.dto.StopDTOs;
 import com.example.api.dto.TicketDTOs;
 import com.example.api.dto.TripDTOs;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
 import com.example.domain.entities.Trip;
+import com.example.domain.enums.FareRulePassengerType;
 import com.example.domain.enums.TicketStatus;
 import com.example.domain.enums.TripStatus;
+import com.example.domain.repositories.FareCalendarTrip;
 import com.example.domain.repositories.AssignmentRepository;
 import com.example.domain.repositories.BusRepository;
 import com.example.domain.repositories.IncidentRepository;
@@ -24,7 +40,16 @@ import com.example.domain.repositories.StopRepository;
 import com.example.domain.repositories.TicketRepository;
 import com.example.domain.repositories.TripRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
 import com.example.services.definitions.TripService;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.SeatMapBroadcaster;
+import com.example.services.extra.SeatMapService;
+import com.example.services.extra.TripSearchCache;
+import com.example.services.extra.TripSeatInventory;
 import com.example.services.mappers.AssignmentMapper;
 import com.example.services.mappers.IncidentMapper;
 import com.example.services.mappers.RouteMapper;
@@ -32,6 +57,7 @@ import com.example.services.mappers.SeatMapper;
 import com.example.services.mappers.StopMapper;
 import com.example.services.mappers.TicketMapper;
 import com.example.services.mappers.TripMapper;
+import com.example.utils.TextNormalizer;
 
 import lombok.RequiredArgsConstructor;
 
@@ -55,6 +81,19 @@ public class TripServiceImpl implements TripService {
     private final RouteRepository routeRepo;
     private final BusRepository busRepo;
     private final StopRepository stopRepo;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatMapService seatMapService;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+    private final RouteStopPairIndex routeStopPairIndex;
+    private final TripSearchCache tripSearchCache;
+    private final JourneyPlanner journeyPlanner;
+    private final DynamicPricingEngine dynamicPricingEngine;
+    private final DailyRollupService dailyRollupService;
+
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+    private static final int MAX_CALENDAR_DAYS = 90;
+    private static final int[] WHOLE_ROUTE = { Integer.MIN_VALUE, Integer.MAX_VALUE };
 
     @Override
     public TripDTOs.TripResponse createTrip(TripDTOs.CreateTripRequest req) {
@@ -72,7 +111,11 @@ public class TripServiceImpl implements TripService {
                 .status(TripStatus.SCHEDULED)
                 .build();
 
-        return mapper.toResponse(repo.save(trip));
+        var savedTrip = repo.save(trip);
+        dailyRollupService.recordTrip(savedTrip, 1);
+        tripSearchCache.evictRoute(route.getId());
+        journeyPlanner.refreshRoute(route.getId());
+        return mapper.toResponse(savedTrip);
     }
 
     @Override
@@ -87,12 +130,21 @@ public class TripServiceImpl implements TripService {
         var trip = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(id)));
         repo.delete(trip);
+        dailyRollupService.recordTrip(trip, -1);
+        seatInventoryService.invalidate(id);
+        tripSearchCache.evictRoute(trip.getRoute().getId());
+        journeyPlanner.refreshRoute(trip.getRoute().getId());
     }
 
     @Override
     public TripDTOs.TripResponse updateTrip(Long id, TripDTOs.UpdateTripRequest req) {
         var trip = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(id)));
+        tripSearchCache.evictRoute(trip.getRoute().getId());
+        journeyPlanner.refreshRoute(trip.getRoute().getId());
+        // taken out under the old day, route and bus, added back below with the new ones
+        dailyRollupService.recordTrip(trip, -1);
+        var previousRouteId = trip.getRoute().getId();
 
         if (req.routeId() != null) {
             trip.setRoute(routeRepo.findById(req.routeId())
@@ -111,7 +163,34 @@ public class TripServiceImpl implements TripService {
             trip.setArrivalAt(req.arrivalAt());
         }
 
-        return mapper.toResponse(repo.save(trip));
+        var savedTrip = repo.save(trip);
+        dailyRollupService.recordTrip(savedTrip, 1);
+        dailyRollupService.recordTripRouteChange(id, previousRouteId, savedTrip.getRoute().getId());
+        // a new route changes the stop boundaries of the inventory
+        seatInventoryService.invalidate(id);
+        tripSearchCache.evictRoute(savedTrip.getRoute().getId());
+        journeyPlanner.refreshRoute(savedTrip.getRoute().getId());
+        return mapper.toResponse(savedTrip);
+    }
+
+    // the watcher closes overdue trips by the clock, a reported arrival may still follow
+    @Override
+    public TripDTOs.TripResponse markTripArrived(Long id) {
+        var trip = repo.findById(id)
+                .orElseThrow(() -> new NotFoundException("Trip %d not found".formatted(id)));
+        if (trip.getStatus() != TripStatus.DEPARTED && trip.getStatus() != TripStatus.ARRIVED) {
+            throw new IllegalStateException("Trip %d has not departed".formatted(id));
+        }
+        if (trip.getArrivedAt() != null) {
+            throw new IllegalStateException("Trip %d arrival was already reported".formatted(id));
+        }
+
+        trip.setArrivedAt(LocalDateTime.now());
+        trip.setStatus(TripStatus.ARRIVED);
+        var savedTrip = repo.save(trip);
+        dailyRollupService.recordArrival(savedTrip);
+        seatInventoryService.invalidate(id);
+        return mapper.toResponse(savedTrip);
     }
 
     @Override
@@ -135,6 +214,18 @@ public class TripServiceImpl implements TripService {
                 .toList();
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SeatDTOs.SeatMapResponse getSeatMap(Long id, Long fromStopId, Long toStopId) {
+        return seatMapService.getSeatMap(id, fromStopId, toStopId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter subscribeSeatMap(Long id, Long fromStopId, Long toStopId) {
+        return seatMapBroadcaster.subscribe(id, () -> seatMapService.getSeatMap(id, fromStopId, toStopId));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<AssignmentDTOs.AssignmentResponse> getAssignmentsByTripId(Long id) {
@@ -176,31 +267,246 @@ public class TripServiceImpl implements TripService {
                 .toList();
     }
 
+    // no surrounding transaction, a cache hit only reads the seat counts
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TripDTOs.TripSearchResponse searchTrips(String origin, String destination,
-            Optional<LocalDateTime> departureDate) {
-        LocalDateTime startOfDay = departureDate.map(dt -> dt.toLocalDate().atStartOfDay())
-                .orElse(LocalDateTime.now());
+            Optional<LocalDateTime> departureDate, Optional<String> cursor, Optional<Integer> limit) {
+        int pageSize = searchPageSize(limit);
+        var key = TripSearchCache.SearchKey.of(origin, destination, departureDate, cursor, pageSize);
+        var page = tripSearchCache.get(key, () -> doSearchTrips(origin, destination, departureDate, cursor, pageSize));
+        // seats change with every booking, they are counted fresh and never cached
+        return withSeatsLeft(page, textSearchSegments(page.stops(), origin, destination));
+    }
+
+    private TripDTOs.TripSearchResponse doSearchTrips(String origin, String destination,
+            Optional<LocalDateTime> departureDate, Optional<String> cursor, int pageSize) {
+        LocalDateTime startOfDay = searchWindowStart(departureDate);
         LocalDateTime endOfDay = startOfDay.plusMonths(3);
+        Optional<SearchCursor> after = cursor.map(SearchCursor::decode);
 
-        var trips = repo.searchAvailableTrips(origin, destination, startOfDay, endOfDay);
+        // one extra row tells whether there is a next page
+        var trips = repo.searchAvailableTrips(origin, destination, startOfDay, endOfDay,
+                after.map(SearchCursor::departureAt).orElse(null), after.map(SearchCursor::id).orElse(null),
+                pageSize + 1);
+        return toSearchResponse(trips, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TripDTOs.TripSearchResponse searchTripsByStops(Long fromStopId, Long toStopId,
+            Optional<LocalDateTime> departureDate, Optional<String> cursor, Optional<Integer> limit) {
+        for (Long stopId : List.of(fromStopId, toStopId)) {
+            if (!routeStopPairIndex.containsStop(stopId)) {
+                throw new NotFoundException("Stop %d not found".formatted(stopId));
+            }
+        }
+        int pageSize = searchPageSize(limit);
+        // the first pair of each route is the segment its seats are counted on
+        Map<Long, int[]> segmentByRoute = routeStopPairIndex.findPairs(fromStopId, toStopId).stream()
+                .collect(Collectors.toMap(RouteStopPairIndex.RouteStopPair::routeId,
+                        pair -> new int[] { pair.fromSequence(), pair.toSequence() },
+                        (first, second) -> first, LinkedHashMap::new));
+        var routeIds = List.copyOf(segmentByRoute.keySet());
+        if (routeIds.isEmpty()) {
+            return toSearchResponse(List.of(), pageSize);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfDay = searchWindowStart(departureDate);
+        LocalDateTime from = startOfDay.isAfter(now) ? startOfDay : now;
+        // without a cursor start just before the window, every trip in it sorts after (from, 0)
+        SearchCursor after = cursor.map(SearchCursor::decode).orElse(new SearchCursor(from, 0L));
+        var trips = repo.findUpcomingByRouteIds(routeIds, List.of(TripStatus.SCHEDULED, TripStatus.BOARDING), from,
+                startOfDay.plusMonths(3), after.departureAt(), after.id(), Limit.of(pageSize + 1));
+        return withSeatsLeft(toSearchResponse(trips, pageSize), segmentByRoute);
+    }
+
+    private TripDTOs.TripSearchResponse toSearchResponse(List<Trip> trips, int pageSize) {
+        String nextCursor = null;
+        if (trips.size() > pageSize) {
+            trips = trips.subList(0, pageSize);
+            Trip last = trips.get(pageSize - 1);
+            nextCursor = new SearchCursor(last.getDepartureAt(), last.getId()).encode();
+        }
         var tripResponses = trips.stream().map(mapper::toResponse).toList();
 
         var routes = trips.stream()
                 .map(Trip::getRoute)
                 .distinct()
-                .map(routeMapper::toResponse)
                 .toList();
 
-        var stops = trips.stream()
-                .map(Trip::getRoute)
-                .distinct()
-                .flatMap(route -> stopRepo.findByRoute_IdOrderBySequenceAsc(route.getId()).stream())
-                .distinct()
+        // one query for the stops of every route in the result
+        Map<Long, List<Stop>> stopsByRoute = routes.isEmpty() ? Map.of()
+                : stopRepo.findByRouteIdsOrderBySequence(routes.stream().map(Route::getId).toList()).stream()
+                        .collect(Collectors.groupingBy(stop -> stop.getRoute().getId()));
+        var stops = routes.stream()
+                .flatMap(route -> stopsByRoute.getOrDefault(route.getId(), List.of()).stream())
                 .map(stopMapper::toResponse)
                 .toList();
 
-        return new TripDTOs.TripSearchResponse(tripResponses, routes, stops);
+        return new TripDTOs.TripSearchResponse(tripResponses,
+                routes.stream().map(routeMapper::toResponse).toList(), stops, nextCursor, Map.of(), Map.of());
+    }
+
+    // seats left and fares come from the in-memory inventories, a cached page costs no query
+    private TripDTOs.TripSearchResponse withSeatsLeft(TripDTOs.TripSearchResponse page,
+            Map<Long, int[]> segmentByRoute) {
+        long now = System.currentTimeMillis();
+        Map<Long, Integer> seatsLeft = new HashMap<>();
+        Map<Long, Double> fares = new HashMap<>();
+        for (var trip : page.trips()) {
+            int[] segment = segmentByRoute.getOrDefault(trip.routeId(), WHOLE_ROUTE);
+            TripSeatInventory inventory = seatInventoryService.getInventory(trip.id());
+            int taken = inventory.takenSeats(segment[0], segment[1], now);
+            seatsLeft.put(trip.id(), Math.max(inventory.getCapacity() - taken, 0));
+            // same segment and load factor a hold on it would be priced at
+            fares.put(trip.id(), dynamicPricingEngine.quote(trip.routeId(), segment[0], segment[1],
+                    trip.departureAt(), inventory.getCapacity(), taken, FareRulePassengerType.ADULT).price());
+        }
+        return new TripDTOs.TripSearchResponse(page.trips(), page.routes(), page.stops(), page.nextCursor(),
+                seatsLeft, fares);
+    }
+
+    // the stretch a text search matched on each route, the first stop pair in travel order or else the whole route
+    private static Map<Long, int[]> textSearchSegments(List<StopDTOs.StopResponse> stops, String origin,
+            String destination) {
+        String from = TextNormalizer.normalize(origin);
+        String to = TextNormalizer.normalize(destination);
+        Map<Long, int[]> segmentByRoute = new HashMap<>();
+        stops.stream()
+                .collect(Collectors.groupingBy(StopDTOs.StopResponse::routeId))
+                .forEach((routeId, routeStops) -> matchedSegment(routeStops, from, to)
+                        .ifPresent(segment -> segmentByRoute.put(routeId, segment)));
+        return segmentByRoute;
+    }
+
+    private static Optional<int[]> matchedSegment(List<StopDTOs.StopResponse> stops, String from, String to) {
+        for (StopDTOs.StopResponse fromStop : stops) {
+            if (!TextNormalizer.matches(TextNormalizer.normalize(fromStop.name()), from)) {
+                continue;
+            }
+            for (StopDTOs.StopResponse toStop : stops) {
+                if (toStop.sequence() > fromStop.sequence()
+                        && TextNormalizer.matches(TextNormalizer.normalize(toStop.name()), to)) {
+                    return Optional.of(new int[] { fromStop.sequence(), toStop.sequence() });
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int searchPageSize(Optional<Integer> limit) {
+        int pageSize = Math.min(limit.orElse(DEFAULT_SEARCH_PAGE_SIZE), MAX_SEARCH_PAGE_SIZE);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Search limit must be positive");
+        }
+        return pageSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSearchTrips(String origin, String destination, Optional<LocalDateTime> departureDate,
+            Consumer<TripDTOs.TripResponse> consumer) {
+        LocalDateTime startOfDay = searchWindowStart(departureDate);
+        repo.streamAvailableTrips(origin, destination, startOfDay, startOfDay.plusMonths(3),
+                row -> consumer.accept(new TripDTOs.TripResponse(row.id(), row.routeId(), row.busId(),
+                        row.departureAt(), row.arrivalAt())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TripDTOs.FareCalendarDay> getFareCalendar(String origin, String destination,
+            Optional<LocalDate> from, Optional<Integer> days) {
+        int dayCount = days.orElse(MAX_CALENDAR_DAYS);
+        if (dayCount < 1 || dayCount > MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Calendar days must be between 1 and %d".formatted(MAX_CALENDAR_DAYS));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate firstDay = from.filter(day -> day.isAfter(now.toLocalDate())).orElse(now.toLocalDate());
+        LocalDate lastDay = firstDay.plusDays(dayCount);
+
+        // one query for the whole range, the days without trips are filled in here
+        Map<LocalDate, List<FareCalendarTrip>> byDay = repo.findFareCalendar(origin, destination,
+                firstDay.atStartOfDay(), lastDay.atStartOfDay(), now).stream()
+                .collect(Collectors.groupingBy(FareCalendarTrip::day));
+        // quoted by the pricing engine on the segment the search matches, with the seats taken anywhere on the trip
+        List<Long> routeIds = byDay.values().stream().flatMap(List::stream).map(FareCalendarTrip::routeId)
+                .distinct().toList();
+        Map<Long, int[]> segmentByRoute = routeIds.isEmpty() ? Map.of()
+                : textSearchSegments(stopRepo.findByRouteIdsOrderBySequence(routeIds).stream()
+                        .map(stopMapper::toResponse).toList(), origin, destination);
+        return firstDay.datesUntil(lastDay)
+                .map(date -> calendarDay(date, byDay.getOrDefault(date, List.of()), segmentByRoute))
+                .toList();
+    }
+
+    private TripDTOs.FareCalendarDay calendarDay(LocalDate date, List<FareCalendarTrip> trips,
+            Map<Long, int[]> segmentByRoute) {
+        Double minPrice = null;
+        long seatsLeft = 0;
+        for (FareCalendarTrip trip : trips) {
+            int[] segment = segmentByRoute.getOrDefault(trip.routeId(), WHOLE_ROUTE);
+            double price = dynamicPricingEngine.quote(trip.routeId(), segment[0], segment[1], trip.departureAt(),
+                    trip.capacity(), trip.takenSeats(), FareRulePassengerType.ADULT).price();
+            minPrice = minPrice == null ? price : Math.min(minPrice, price);
+            seatsLeft += Math.max(trip.capacity() - trip.takenSeats(), 0);
+        }
+        return new TripDTOs.FareCalendarDay(date, (long) trips.size(), minPrice, seatsLeft);
+    }
+
+    // no surrounding transaction, the planner answers from memory
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TripDTOs.Journey> planJourneys(Long fromStopId, Long toStopId, Optional<LocalDateTime> departAfter,
+            Optional<Integer> maxTransfers) {
+        for (Long stopId : List.of(fromStopId, toStopId)) {
+            if (!journeyPlanner.containsStop(stopId)) {
+                throw new NotFoundException("Stop %d not found".formatted(stopId));
+            }
+        }
+        int transfers = maxTransfers.orElse(2);
+        if (transfers < 0 || transfers > JourneyPlanner.MAX_TRANSFERS) {
+            throw new IllegalArgumentException(
+                    "Max transfers must be between 0 and %d".formatted(JourneyPlanner.MAX_TRANSFERS));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = departAfter.filter(time -> time.isAfter(now)).orElse(now);
+        if (from.isAfter(now.plus(JourneyPlanner.HORIZON))) {
+            throw new IllegalArgumentException(
+                    "Journeys can be planned up to %d days ahead".formatted(JourneyPlanner.HORIZON.toDays()));
+        }
+
+        return journeyPlanner.plan(fromStopId, toStopId, from, transfers).stream()
+                .map(journey -> new TripDTOs.Journey(journey.departureAt(), journey.arrivalAt(), journey.transfers(),
+                        journey.legs().stream()
+                                .map(leg -> new TripDTOs.JourneyLeg(leg.tripId(), leg.routeId(), leg.fromStopId(),
+                                        leg.toStopId(), leg.departureAt(), leg.arrivalAt()))
+                                .toList()))
+                .toList();
+    }
+
+    private LocalDateTime searchWindowStart(Optional<LocalDateTime> departureDate) {
+        return departureDate.map(dt -> dt.toLocalDate().atStartOfDay())
+                .orElse(LocalDateTime.now());
+    }
+
+    // opaque keyset position, the (departureAt, id) of the last trip on the page
+    private record SearchCursor(LocalDateTime departureAt, Long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((departureAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SearchCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|");
+                return new SearchCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+        }
     }
 }
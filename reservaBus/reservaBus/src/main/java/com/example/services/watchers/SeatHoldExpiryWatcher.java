@@ -0,0 +1,94 @@
+package com.example.services.watchers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.domain.entities.SeatHold;
+import com.example.domain.repositories.ExpiringSeatHold;
+import com.example.domain.repositories.SeatHoldRepository;
+import com.example.services.events.SeatReleasedEvent;
+import com.example.services.extra.HoldExpiryWheel;
+import com.example.services.extra.TripSeatInventory;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Deletes seat holds once they expire.
+ *
+ * Upcoming expirations sit in a {@link HoldExpiryWheel} that is rebuilt from the
+ * database on startup and fed by the hold write paths. Every second the due
+ * holds are deleted in bulk and a {@link SeatReleasedEvent} is published for
+ * each row the delete actually removed. A slower sweep over the table catches holds this instance never saw.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatHoldExpiryWatcher {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 1024;
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final SeatHoldRepository seatHoldRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HoldExpiryWheel wheel = new HoldExpiryWheel(TICK_MILLIS, WHEEL_SLOTS, System.currentTimeMillis());
+
+    public void track(SeatHold hold) {
+        wheel.schedule(hold.getId(), hold.getTrip().getId(), hold.getSeatNumber(),
+                TripSeatInventory.toEpochMillis(hold.getExpiresAt()));
+    }
+
+    public void untrack(Long holdId) {
+        wheel.cancel(holdId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        sweepExpiredHolds();
+        for (ExpiringSeatHold hold : seatHoldRepository.findActiveHoldExpiries(LocalDateTime.now())) {
+            wheel.schedule(hold.id(), hold.tripId(), hold.seatNumber(),
+                    TripSeatInventory.toEpochMillis(hold.expiresAt()));
+        }
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    @Transactional
+    public void expireDueHolds() {
+        List<HoldExpiryWheel.Expiry> due = wheel.advance(System.currentTimeMillis());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int from = 0; from < due.size(); from += DELETE_BATCH_SIZE) {
+            List<Long> ids = due.subList(from, Math.min(from + DELETE_BATCH_SIZE, due.size())).stream()
+                    .map(HoldExpiryWheel.Expiry::holdId)
+                    .toList();
+            purge(ids, now);
+        }
+    }
+
+    @Scheduled(fixedRate = 300000, initialDelay = 300000)
+    @Transactional
+    public void sweepExpiredHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ExpiringSeatHold> expired;
+        do {
+            expired = seatHoldRepository.findExpiredHolds(now, PageRequest.of(0, DELETE_BATCH_SIZE));
+            purge(expired.stream().map(ExpiringSeatHold::id).toList(), now);
+        } while (expired.size() == DELETE_BATCH_SIZE);
+    }
+
+    // a hold extended, converted or purged by another instance meanwhile is not deleted here, and not announced
+    private void purge(List<Long> ids, LocalDateTime now) {
+        for (ExpiringSeatHold hold : seatHoldRepository.deleteExpiredByIds(ids, now)) {
+            wheel.cancel(hold.id());
+            eventPublisher.publishEvent(new SeatReleasedEvent(hold.tripId(), hold.id(), hold.seatNumber(),
+                    hold.fromSequence(), hold.toSequence()));
+        }
+    }
+}
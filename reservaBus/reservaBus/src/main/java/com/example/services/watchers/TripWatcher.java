@@ -1,7 +1,10 @@
 package com.example.services.watchers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -14,6 +17,9 @@ import com.example.domain.enums.TicketStatus;
 import com.example.domain.enums.TripStatus;
 import com.example.domain.repositories.ParcelRepository;
 import com.example.domain.repositories.TripRepository;
+import com.example.metrics.DailyRollupService;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.TripSearchCache;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -21,15 +27,24 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class TripWatcher {
+    private static final List<TripStatus> NOT_DEPARTED = List.of(TripStatus.SCHEDULED, TripStatus.BOARDING);
+    // overdue trips are still moved along after a short outage, older ones are left for a clerk to close
+    private static final Duration CATCH_UP = Duration.ofHours(6);
+
     private final TripRepository tripRepository;
     private final ParcelRepository parcelRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final TripSearchCache tripSearchCache;
+    private final DailyRollupService dailyRollupService;
 
     @Scheduled(fixedRate = 60000)
     @Transactional
     public void tripMainWorker() {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime futureTime = now.plusMinutes(60);
-        List<Trip> startingTrips = tripRepository.findStartingTripsInNextMinutes(now, futureTime);
+        List<Trip> startingTrips = tripRepository.findByStatusInDepartingBetween(NOT_DEPARTED, now.minus(CATCH_UP),
+                futureTime);
+        Set<Long> departedRoutes = new HashSet<>();
 
         for (Trip trip : startingTrips) {
             if (trip.getDepartureAt().isBefore(now.plusMinutes(30))) {
@@ -41,12 +56,18 @@ public class TripWatcher {
                 for (Ticket ticket : tickets) {
                     if (ticket.getStatus() == TicketStatus.CONFIRMED && !ticket.isCheckedIn()) {
                         ticket.setStatus(TicketStatus.NO_SHOW);
+                        seatInventoryService.releaseTicket(ticket);
+                        dailyRollupService.recordStatusChange(ticket, TicketStatus.CONFIRMED);
                     }
                 }
             }
 
             if (trip.getDepartureAt().isBefore(now)) {
                 trip.setStatus(TripStatus.DEPARTED);
+                // punctuality is measured against the arrival the trip left with
+                trip.setScheduledArrivalAt(trip.getArrivalAt());
+                // departed trips are no longer searchable
+                departedRoutes.add(trip.getRoute().getId());
 
                 List<Parcel> parcels = trip.getParcels();
                 for (Parcel parcel : parcels) {
@@ -58,11 +79,14 @@ public class TripWatcher {
             }
         }
 
+        departedRoutes.forEach(tripSearchCache::evictRoute);
+
         List<Trip> departedTrips = tripRepository.findByStatus(TripStatus.DEPARTED);
         for (Trip trip : departedTrips) {
             if (trip.getArrivalAt().isBefore(now)) {
                 trip.setStatus(TripStatus.ARRIVED);
                 tripRepository.save(trip);
+                seatInventoryService.invalidate(trip.getId());
             }
         }
     }
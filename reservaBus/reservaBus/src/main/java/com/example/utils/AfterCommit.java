@@ -0,0 +1,32 @@
+package com.example.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers cache invalidation until the surrounding transaction commits, so a
+ * reader never rebuilds a cache entry from rows the writer may still roll back.
+ *
+ * The in-memory caches pair this with a generation counter per key: the
+ * invalidation bumps it, and a load compares the counter before and after
+ * reading the database and only caches its result when nothing moved in
+ * between, as such a load may have read the rows from before the commit.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    // outside of a transaction there is nothing to wait for, the action runs right away
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.utils;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Folds place names the way search compares them: accents removed, lower
+ * case, single spaces. Mirrors search_normalize on the database side, and
+ * {@link #matches} mirrors the substring or trigram test of the search query.
+ */
+public final class TextNormalizer {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // pg_trgm's default similarity_threshold, the cut-off of its % operator
+    private static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private TextNormalizer() {}
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    // both arguments already normalized
+    public static boolean matches(String name, String query) {
+        return name.contains(query) || similarity(name, query) >= SIMILARITY_THRESHOLD;
+    }
+
+    // shared trigrams over all trigrams, the way pg_trgm's similarity() counts them
+    public static double similarity(String left, String right) {
+        Set<String> leftTrigrams = trigrams(left);
+        Set<String> rightTrigrams = trigrams(right);
+        if (leftTrigrams.isEmpty() || rightTrigrams.isEmpty()) return 0.0;
+        int shared = 0;
+        for (String trigram : leftTrigrams) {
+            if (rightTrigrams.contains(trigram)) shared++;
+        }
+        return (double) shared / (leftTrigrams.size() + rightTrigrams.size() - shared);
+    }
+
+    // every word padded with two blanks in front and one behind
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : NON_WORD.split(text)) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
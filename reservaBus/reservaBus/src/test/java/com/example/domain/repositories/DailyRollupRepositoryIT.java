@@ -0,0 +1,217 @@
+package com.example.domain.repositories;
+
+import com.example.domain.common.PostgresSchemaInitializer;
+import com.example.domain.entities.*;
+import com.example.domain.enums.AccountRole;
+import com.example.domain.enums.AccountStatus;
+import com.example.domain.enums.BusStatus;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.enums.PaymentMethod;
+import com.example.domain.enums.PaymentStatus;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
+import com.example.metrics.DailyRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ TestJpaConfiguration.class, PostgresSchemaInitializer.class, DailyRollupService.class })
+@DisplayName("Daily Rollup Integration Tests")
+class DailyRollupRepositoryIT {
+
+        @Container
+        @ServiceConnection
+        static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+        // rows a later delta brought back to zero; a recount never writes them and they add nothing to the totals
+        private static final String TICKET_ROWS = """
+                        SELECT day, route_id, status, tickets, revenue, cancellations FROM daily_ticket_rollups
+                        WHERE tickets <> 0 OR revenue <> 0 OR cancellations <> 0
+                        ORDER BY day, route_id, status
+                        """;
+
+        private static final String TRIP_ROWS = """
+                        SELECT day, route_id, trips, seats_offered, seat_km_offered, seat_km_sold, trips_completed,
+                            trips_on_time
+                        FROM daily_trip_rollups
+                        ORDER BY day, route_id
+                        """;
+
+        @Autowired
+        private DailyRollupService rollupService;
+
+        @Autowired
+        private TripRepository tripRepository;
+
+        @Autowired
+        private TicketRepository ticketRepository;
+
+        @Autowired
+        private AccountRepository accountRepository;
+
+        @Autowired
+        private RouteRepository routeRepository;
+
+        @Autowired
+        private BusRepository busRepository;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private Account account;
+        private LocalDate departureDay;
+
+        @BeforeEach
+        void setUp() {
+                departureDay = LocalDate.now().plusDays(3);
+                account = accountRepository.save(Account.builder()
+                                .name("Rollup Customer")
+                                .email("rollup@test.com")
+                                .phone("1234567890")
+                                .passwordHash("hash123")
+                                .role(AccountRole.PASSENGER)
+                                .status(AccountStatus.ACTIVE)
+                                .build());
+        }
+
+        @Test
+        @DisplayName("Should hold the same rows after the write deltas as after rebuilding the days")
+        void shouldRebuildWhatTheDeltasWrote() {
+                // Given trips, sales, approvals, price changes, cancellations, no-shows and arrivals as deltas
+                Route north = routeRepository.save(route("RU001", 100.0));
+                Route south = routeRepository.save(route("RU002", 250.0));
+                Bus small = busRepository.save(bus("RU-B1", 30));
+                Bus large = busRepository.save(bus("RU-B2", 40));
+
+                Trip morning = schedule(north, small, departureDay.atTime(8, 0));
+                Trip noon = schedule(south, large, departureDay.atTime(12, 0));
+                Trip nextDay = schedule(north, large, departureDay.plusDays(1).atTime(9, 0));
+
+                Ticket segment = sell(morning, "A1", TicketStatus.CONFIRMED, 50.0, 40.0);
+                sell(morning, "A2", TicketStatus.CONFIRMED, 30.5, null);
+                Ticket approved = sell(noon, "B1", TicketStatus.PENDING_APPROVAL, 20.0, null);
+                Ticket noShow = sell(noon, "B2", TicketStatus.CONFIRMED, 60.0, 125.0);
+                Ticket cancelled = sell(nextDay, "C1", TicketStatus.CONFIRMED, 25.0, null);
+                sell(nextDay, "C2", TicketStatus.PENDING_APPROVAL, 25.0, null);
+
+                changeStatus(approved, TicketStatus.CONFIRMED);
+                changeStatus(noShow, TicketStatus.NO_SHOW);
+                cancelled.setCancelledAt(Instant.now().toEpochMilli());
+                changeStatus(cancelled, TicketStatus.CANCELLED);
+
+                double previousPrice = segment.getPrice();
+                segment.setPrice(45.5);
+                ticketRepository.saveAndFlush(segment);
+                rollupService.recordPriceChange(segment, previousPrice);
+
+                Integer previousCapacity = large.getCapacity();
+                large.setCapacity(45);
+                busRepository.saveAndFlush(large);
+                rollupService.recordBusCapacityChange(large.getId(), previousCapacity, large.getCapacity());
+
+                arrive(morning, morning.getArrivalAt().plusMinutes(10));
+                arrive(noon, noon.getArrivalAt().plusMinutes(40));
+
+                List<Map<String, Object>> ticketRows = jdbcTemplate.queryForList(TICKET_ROWS);
+                List<Map<String, Object>> tripRows = jdbcTemplate.queryForList(TRIP_ROWS);
+                assertThat(ticketRows).isNotEmpty();
+                assertThat(tripRows).hasSize(3);
+
+                // When every day they touch is recounted from the tickets and trips
+                TreeSet<LocalDate> days = new TreeSet<>();
+                jdbcTemplate.queryForList(
+                                "SELECT day FROM daily_ticket_rollups UNION SELECT day FROM daily_trip_rollups",
+                                LocalDate.class).forEach(days::add);
+                days.forEach(rollupService::rebuildDay);
+
+                // Then
+                assertThat(jdbcTemplate.queryForList(TICKET_ROWS)).isEqualTo(ticketRows);
+                assertThat(jdbcTemplate.queryForList(TRIP_ROWS)).isEqualTo(tripRows);
+        }
+
+        private Trip schedule(Route route, Bus bus, LocalDateTime departure) {
+                Trip trip = tripRepository.saveAndFlush(Trip.builder()
+                                .departureAt(departure)
+                                .arrivalAt(departure.plusHours(3))
+                                .route(route)
+                                .bus(bus)
+                                .status(TripStatus.SCHEDULED)
+                                .build());
+                rollupService.recordTrip(trip, 1);
+                return trip;
+        }
+
+        private void arrive(Trip trip, LocalDateTime arrivedAt) {
+                trip.setArrivedAt(arrivedAt);
+                trip.setStatus(TripStatus.ARRIVED);
+                tripRepository.saveAndFlush(trip);
+                rollupService.recordArrival(trip);
+        }
+
+        private Ticket sell(Trip trip, String seatNumber, TicketStatus status, double price, Double segmentKm) {
+                Ticket ticket = ticketRepository.saveAndFlush(Ticket.builder()
+                                .seatNumber(seatNumber)
+                                .trip(trip)
+                                .account(account)
+                                .price(price)
+                                .segmentKm(segmentKm)
+                                .status(status)
+                                .paymentMethod(PaymentMethod.CASH)
+                                .paymentStatus(PaymentStatus.COMPLETED)
+                                .passengerType(FareRulePassengerType.ADULT)
+                                .checkedIn(false)
+                                .build());
+                rollupService.recordSale(ticket);
+                return ticket;
+        }
+
+        private void changeStatus(Ticket ticket, TicketStatus status) {
+                TicketStatus previousStatus = ticket.getStatus();
+                ticket.setStatus(status);
+                ticketRepository.saveAndFlush(ticket);
+                rollupService.recordStatusChange(ticket, previousStatus);
+        }
+
+        private static Route route(String code, double distanceKm) {
+                return Route.builder()
+                                .name("Rollup Route " + code)
+                                .code(code)
+                                .origin("City A")
+                                .destination("City B")
+                                .distanceKm(distanceKm)
+                                .durationMinutes(180)
+                                .pricePerKm(0.5)
+                                .build();
+        }
+
+        private static Bus bus(String plate, int capacity) {
+                return Bus.builder()
+                                .plate(plate)
+                                .capacity(capacity)
+                                .status(BusStatus.ACTIVE)
+                                .build();
+        }
+}
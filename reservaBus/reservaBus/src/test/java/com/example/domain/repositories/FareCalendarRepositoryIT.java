@@ -0,0 +1,181 @@
+package com.example.domain.repositories;
+
+import com.example.domain.common.PostgresSchemaInitializer;
+import com.example.domain.entities.*;
+import com.example.domain.enums.AccountRole;
+import com.example.domain.enums.AccountStatus;
+import com.example.domain.enums.BusStatus;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.enums.PaymentMethod;
+import com.example.domain.enums.PaymentStatus;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ TestJpaConfiguration.class, PostgresSchemaInitializer.class })
+@DisplayName("Fare Calendar Integration Tests")
+class FareCalendarRepositoryIT {
+
+        @Container
+        @ServiceConnection
+        static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+        @Autowired
+        private TripRepository tripRepository;
+
+        @Autowired
+        private TicketRepository ticketRepository;
+
+        @Autowired
+        private SeatHoldRepository seatHoldRepository;
+
+        @Autowired
+        private AccountRepository accountRepository;
+
+        @Autowired
+        private RouteRepository routeRepository;
+
+        @Autowired
+        private BusRepository busRepository;
+
+        private Account account;
+        private Route route;
+        private LocalDate firstDay;
+        private LocalDateTime now;
+
+        @BeforeEach
+        void setUp() {
+                now = LocalDateTime.now();
+                firstDay = LocalDate.now().plusDays(1);
+                account = accountRepository.save(Account.builder()
+                                .name("Calendar Customer")
+                                .email("calendar@test.com")
+                                .phone("1234567890")
+                                .passwordHash("hash123")
+                                .role(AccountRole.PASSENGER)
+                                .status(AccountStatus.ACTIVE)
+                                .build());
+                route = routeRepository.save(route("FC001", "Bogotá", "Tunja"));
+                Route otherRoute = routeRepository.save(route("FC002", "Cali", "Pasto"));
+
+                // two trips on the first day, with tickets and holds on the morning one
+                Trip morning = tripRepository.save(trip(route, bus("FC-B1", 10), at(0, 8), TripStatus.SCHEDULED));
+                ticketRepository.save(ticket(morning, "S1", TicketStatus.CONFIRMED));
+                ticketRepository.save(ticket(morning, "S2", TicketStatus.CONFIRMED));
+                ticketRepository.save(ticket(morning, "S3", TicketStatus.CANCELLED));
+                seatHoldRepository.save(hold(morning, "S2", now.plusMinutes(10)));
+                seatHoldRepository.save(hold(morning, "S4", now.minusMinutes(1)));
+                Trip afternoon = tripRepository.save(trip(route, bus("FC-B2", 5), at(0, 15), TripStatus.BOARDING));
+                seatHoldRepository.save(hold(afternoon, "S1", now.plusMinutes(10)));
+
+                // nothing searchable on the second day, an empty trip on the third
+                tripRepository.save(trip(route, bus("FC-B3", 8), at(1, 9), TripStatus.CANCELLED));
+                tripRepository.save(trip(route, bus("FC-B4", 8), at(2, 10), TripStatus.SCHEDULED));
+
+                // outside the search: another route, and past the window
+                tripRepository.save(trip(otherRoute, bus("FC-B5", 8), at(0, 9), TripStatus.SCHEDULED));
+                tripRepository.save(trip(route, bus("FC-B6", 8), at(4, 9), TripStatus.SCHEDULED));
+
+                ticketRepository.flush();
+                seatHoldRepository.flush();
+        }
+
+        @Test
+        @DisplayName("Should list every trip of the window with the seats taken on it and skip empty days")
+        void shouldListTripsPerDay() {
+                List<FareCalendarTrip> calendar = tripRepository.findFareCalendar("bogota", "tunja",
+                                firstDay.atStartOfDay(), firstDay.plusDays(4).atStartOfDay(), now);
+
+                assertThat(calendar).containsExactly(
+                                new FareCalendarTrip(firstDay, route.getId(), at(0, 8), 10, 2),
+                                new FareCalendarTrip(firstDay, route.getId(), at(0, 15), 5, 1),
+                                new FareCalendarTrip(firstDay.plusDays(2), route.getId(), at(2, 10), 8, 0));
+                assertThat(calendar).extracting(FareCalendarTrip::day).doesNotContain(firstDay.plusDays(1));
+        }
+
+        @Test
+        @DisplayName("Should return no rows when no trip matches the window")
+        void shouldReturnNothingForEmptyWindow() {
+                assertThat(tripRepository.findFareCalendar("bogota", "tunja", firstDay.plusDays(1).atStartOfDay(),
+                                firstDay.plusDays(2).atStartOfDay(), now)).isEmpty();
+        }
+
+        private LocalDateTime at(int dayOffset, int hour) {
+                return firstDay.plusDays(dayOffset).atTime(LocalTime.of(hour, 0));
+        }
+
+        private Bus bus(String plate, int capacity) {
+                return busRepository.save(Bus.builder()
+                                .plate(plate)
+                                .capacity(capacity)
+                                .status(BusStatus.ACTIVE)
+                                .build());
+        }
+
+        private static Route route(String code, String origin, String destination) {
+                return Route.builder()
+                                .name(origin + " - " + destination)
+                                .code(code)
+                                .origin(origin)
+                                .destination(destination)
+                                .distanceKm(150.0)
+                                .durationMinutes(180)
+                                .pricePerKm(0.5)
+                                .build();
+        }
+
+        private static Trip trip(Route route, Bus bus, LocalDateTime departure, TripStatus status) {
+                return Trip.builder()
+                                .departureAt(departure)
+                                .arrivalAt(departure.plusHours(3))
+                                .route(route)
+                                .bus(bus)
+                                .status(status)
+                                .build();
+        }
+
+        private Ticket ticket(Trip trip, String seatNumber, TicketStatus status) {
+                return Ticket.builder()
+                                .seatNumber(seatNumber)
+                                .trip(trip)
+                                .account(account)
+                                .price(50.0)
+                                .status(status)
+                                .paymentMethod(PaymentMethod.CASH)
+                                .paymentStatus(PaymentStatus.COMPLETED)
+                                .passengerType(FareRulePassengerType.ADULT)
+                                .checkedIn(false)
+                                .build();
+        }
+
+        private SeatHold hold(Trip trip, String seatNumber, LocalDateTime expiresAt) {
+                return SeatHold.builder()
+                                .seatNumber(seatNumber)
+                                .trip(trip)
+                                .account(account)
+                                .expiresAt(expiresAt)
+                                .build();
+        }
+}
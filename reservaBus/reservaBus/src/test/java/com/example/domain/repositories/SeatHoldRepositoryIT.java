@@ -189,6 +189,40 @@ class SeatHoldRepositoryIT {
                 seatHoldRepository.save(activeHold);
         }
 
+        @Test
+        @DisplayName("Should return only the expired holds the delete removed")
+        void shouldReturnDeletedExpiredHolds() {
+                // Given an expired hold, one extended before the purge and one already gone
+                LocalDateTime now = LocalDateTime.now();
+                SeatHold expiredHold = seatHoldRepository.save(SeatHold.builder()
+                                .seatNumber("D1")
+                                .expiresAt(now.minusMinutes(1))
+                                .trip(trip)
+                                .account(account)
+                                .build());
+                SeatHold extendedHold = seatHoldRepository.save(SeatHold.builder()
+                                .seatNumber("D2")
+                                .expiresAt(now.plusMinutes(5))
+                                .trip(trip)
+                                .account(account)
+                                .build());
+                seatHoldRepository.flush();
+
+                // When
+                List<ExpiringSeatHold> deleted = seatHoldRepository.deleteExpiredByIds(
+                                List.of(expiredHold.getId(), extendedHold.getId(), -1L), now);
+                List<ExpiringSeatHold> deletedAgain = seatHoldRepository.deleteExpiredByIds(
+                                List.of(expiredHold.getId()), now);
+
+                // Then
+                assertThat(deleted).extracting(ExpiringSeatHold::id).containsExactly(expiredHold.getId());
+                assertThat(deleted.get(0).seatNumber()).isEqualTo("D1");
+                assertThat(deleted.get(0).tripId()).isEqualTo(trip.getId());
+                assertThat(deletedAgain).isEmpty();
+                assertThat(seatHoldRepository.findActiveHoldsByTripId(trip.getId(), now))
+                                .extracting(SeatHold::getId).containsExactly(extendedHold.getId());
+        }
+
         @Test
         @DisplayName("Should find seat holds by account ID")
         void shouldFindSeatHoldsByAccountId() {
@@ -0,0 +1,207 @@
+package com.example.domain.repositories;
+
+import com.example.api.exceptions.APIErrorResponse;
+import com.example.api.exceptions.GlobalExceptionHandler;
+import com.example.domain.common.PostgresSchemaInitializer;
+import com.example.domain.entities.*;
+import com.example.domain.enums.AccountRole;
+import com.example.domain.enums.AccountStatus;
+import com.example.domain.enums.BusStatus;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.enums.PaymentMethod;
+import com.example.domain.enums.PaymentStatus;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ TestJpaConfiguration.class, PostgresSchemaInitializer.class })
+@DisplayName("Segment Overlap Constraint Integration Tests")
+class SegmentOverlapRepositoryIT {
+
+        @Container
+        @ServiceConnection
+        static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+        @Autowired
+        private TicketRepository ticketRepository;
+
+        @Autowired
+        private SeatHoldRepository seatHoldRepository;
+
+        @Autowired
+        private AccountRepository accountRepository;
+
+        @Autowired
+        private TripRepository tripRepository;
+
+        @Autowired
+        private RouteRepository routeRepository;
+
+        @Autowired
+        private BusRepository busRepository;
+
+        @Autowired
+        private StopRepository stopRepository;
+
+        private Account account;
+        private Trip trip;
+        private Stop first;
+        private Stop second;
+        private Stop third;
+
+        @BeforeEach
+        void setUp() {
+                account = accountRepository.save(Account.builder()
+                                .name("Overlap Customer")
+                                .email("overlap@test.com")
+                                .phone("1234567890")
+                                .passwordHash("hash123")
+                                .role(AccountRole.PASSENGER)
+                                .status(AccountStatus.ACTIVE)
+                                .build());
+
+                Route route = routeRepository.save(Route.builder()
+                                .name("Overlap Route")
+                                .code("OV001")
+                                .origin("City A")
+                                .destination("City D")
+                                .distanceKm(300.0)
+                                .durationMinutes(240)
+                                .pricePerKm(0.5)
+                                .build());
+
+                Bus bus = busRepository.save(Bus.builder()
+                                .plate("OVR001")
+                                .capacity(40)
+                                .status(BusStatus.ACTIVE)
+                                .build());
+
+                LocalDateTime departure = LocalDateTime.now().plusDays(1);
+                trip = tripRepository.save(Trip.builder()
+                                .departureAt(departure)
+                                .arrivalAt(departure.plusHours(4))
+                                .route(route)
+                                .bus(bus)
+                                .status(TripStatus.SCHEDULED)
+                                .build());
+
+                first = stopRepository.save(stop(route, "Stop B", 1));
+                second = stopRepository.save(stop(route, "Stop C", 2));
+                third = stopRepository.save(stop(route, "Stop D", 3));
+        }
+
+        @Test
+        @DisplayName("Should reject a second sale of the seat on an overlapping segment with 23P01, mapped to 409")
+        void shouldRejectOverlappingTickets() {
+                // Given the whole route sold
+                ticketRepository.saveAndFlush(ticket("A1", null, null, TicketStatus.CONFIRMED));
+
+                // When the same seat is sold on a stretch inside it
+                DataIntegrityViolationException e = catchThrowableOfType(
+                                () -> ticketRepository.saveAndFlush(ticket("A1", first, second, TicketStatus.CONFIRMED)),
+                                DataIntegrityViolationException.class);
+
+                // Then
+                assertThat(e).isNotNull();
+                assertThat(sqlState(e)).isEqualTo("23P01");
+                ResponseEntity<APIErrorResponse> response = new GlobalExceptionHandler()
+                                .handleDataIntegrityViolation(e, new ServletWebRequest(new MockHttpServletRequest()));
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        }
+
+        @Test
+        @DisplayName("Should allow the seat on back to back segments and over a cancelled sale")
+        void shouldAllowTouchingAndCancelledSegments() {
+                ticketRepository.saveAndFlush(ticket("A2", first, second, TicketStatus.CONFIRMED));
+                ticketRepository.saveAndFlush(ticket("A2", second, third, TicketStatus.CONFIRMED));
+                ticketRepository.saveAndFlush(ticket("A3", null, null, TicketStatus.CANCELLED));
+                ticketRepository.saveAndFlush(ticket("A3", first, third, TicketStatus.CONFIRMED));
+
+                assertThat(ticketRepository.findByTrip_IdAndStatus(trip.getId(), TicketStatus.CONFIRMED)).hasSize(3);
+        }
+
+        @Test
+        @DisplayName("Should reject overlapping holds on the same seat with 23P01")
+        void shouldRejectOverlappingHolds() {
+                seatHoldRepository.saveAndFlush(hold("B1", first, third));
+
+                DataIntegrityViolationException e = catchThrowableOfType(
+                                () -> seatHoldRepository.saveAndFlush(hold("B1", second, null)),
+                                DataIntegrityViolationException.class);
+
+                assertThat(e).isNotNull();
+                assertThat(sqlState(e)).isEqualTo("23P01");
+        }
+
+        private Ticket ticket(String seatNumber, Stop fromStop, Stop toStop, TicketStatus status) {
+                return Ticket.builder()
+                                .seatNumber(seatNumber)
+                                .trip(trip)
+                                .account(account)
+                                .fromStop(fromStop)
+                                .toStop(toStop)
+                                .price(50.0)
+                                .status(status)
+                                .paymentMethod(PaymentMethod.CASH)
+                                .paymentStatus(PaymentStatus.COMPLETED)
+                                .passengerType(FareRulePassengerType.ADULT)
+                                .checkedIn(false)
+                                .build();
+        }
+
+        private SeatHold hold(String seatNumber, Stop fromStop, Stop toStop) {
+                return SeatHold.builder()
+                                .seatNumber(seatNumber)
+                                .trip(trip)
+                                .account(account)
+                                .fromStop(fromStop)
+                                .toStop(toStop)
+                                .expiresAt(LocalDateTime.now().plusMinutes(10))
+                                .build();
+        }
+
+        private static Stop stop(Route route, String name, int sequence) {
+                return Stop.builder()
+                                .name(name)
+                                .sequence(sequence)
+                                .latitude(4.0 + sequence)
+                                .longitude(-74.0)
+                                .route(route)
+                                .build();
+        }
+
+        private static String sqlState(Throwable e) {
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof SQLException sqlException) {
+                                return sqlException.getSQLState();
+                        }
+                }
+                return null;
+        }
+}
@@ -0,0 +1,182 @@
+package com.example.domain.repositories;
+
+import com.example.domain.common.PostgresSchemaInitializer;
+import com.example.domain.entities.Bus;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.BusStatus;
+import com.example.domain.enums.TripStatus;
+import com.example.utils.TextNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ TestJpaConfiguration.class, PostgresSchemaInitializer.class })
+@DisplayName("Trip Name Search Integration Tests")
+class TripSearchRepositoryIT {
+
+        @Container
+        @ServiceConnection
+        static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+        @Autowired
+        private TripRepository tripRepository;
+
+        @Autowired
+        private RouteRepository routeRepository;
+
+        @Autowired
+        private BusRepository busRepository;
+
+        @Autowired
+        private StopRepository stopRepository;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private Trip northTrip;
+
+        @BeforeEach
+        void setUp() {
+                Bus bus = busRepository.save(Bus.builder()
+                                .plate("SRC001")
+                                .capacity(40)
+                                .status(BusStatus.ACTIVE)
+                                .build());
+
+                Route north = routeRepository.save(route("SRC-N", "Bogotá", "Bucaramanga"));
+                stopRepository.save(stop(north, "Bogotá", 0));
+                stopRepository.save(stop(north, "Tunja", 1));
+                stopRepository.save(stop(north, "San Gil", 2));
+                stopRepository.save(stop(north, "Bucaramanga", 3));
+
+                Route south = routeRepository.save(route("SRC-S", "Cali", "Popayán"));
+                stopRepository.save(stop(south, "Cali", 0));
+                stopRepository.save(stop(south, "Popayán", 1));
+
+                LocalDateTime departure = LocalDateTime.now().plusDays(1);
+                northTrip = tripRepository.save(trip(north, bus, departure));
+                tripRepository.save(trip(south, bus, departure.plusHours(1)));
+                tripRepository.flush();
+        }
+
+        @Test
+        @DisplayName("Should match route ends and stop names regardless of accents and case")
+        void shouldMatchAccentAndCaseInsensitive() {
+                assertThat(search("bogota", "BUCARAMANGA")).containsExactly(northTrip.getId());
+                assertThat(search("Túnja", "san gil")).containsExactly(northTrip.getId());
+        }
+
+        @Test
+        @DisplayName("Should match misspelled route ends and stop names by trigram similarity")
+        void shouldMatchTypos() {
+                assertThat(search("Bogta", "Bucaramnga")).containsExactly(northTrip.getId());
+                assertThat(search("Tunj", "San Gill")).containsExactly(northTrip.getId());
+        }
+
+        @Test
+        @DisplayName("Should not match unrelated names or stops in the wrong order")
+        void shouldNotMatchUnrelatedNames() {
+                assertThat(search("Cali", "Bucaramanga")).isEmpty();
+                assertThat(search("San Gil", "Tunja")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should answer the name predicates of the search from the trigram indexes")
+        void shouldUseTrigramIndexes() {
+                jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+                assertThat(plan("SELECT id FROM routes r WHERE search_normalize(r.origin) LIKE '%' || "
+                                + "search_normalize('bogota') || '%'")).contains("routes_origin_trgm_idx");
+                assertThat(plan("SELECT id FROM routes r WHERE search_normalize(r.destination) % "
+                                + "search_normalize('Bucaramnga')")).contains("routes_destination_trgm_idx");
+                assertThat(plan("SELECT id FROM stops s_from WHERE search_normalize(s_from.name) % "
+                                + "search_normalize('Tunj')")).contains("stops_name_trgm_idx");
+
+                // the search must compare the same expressions the indexes are built on
+                assertThat(TripRepository.SEARCH_FILTER)
+                                .contains("search_normalize(r.origin) LIKE '%' || search_normalize(:origin) || '%'")
+                                .contains("search_normalize(r.destination) % search_normalize(:destination)")
+                                .contains("search_normalize(s_from.name) % search_normalize(:origin)");
+        }
+
+        @Test
+        @DisplayName("Should compute the same similarity as pg_trgm on the Java side")
+        void shouldMirrorTrigramSimilarity() {
+                for (String[] pair : List.of(new String[] { "Bogta", "Bogotá" },
+                                new String[] { "Bucaramnga", "Bucaramanga" },
+                                new String[] { "San Gill", "San Gil" },
+                                new String[] { "Cali", "Popayán" })) {
+                        Double similarity = jdbcTemplate.queryForObject(
+                                        "SELECT similarity(search_normalize(?), search_normalize(?))", Double.class,
+                                        pair[0], pair[1]);
+
+                        assertThat(TextNormalizer.similarity(TextNormalizer.normalize(pair[0]),
+                                        TextNormalizer.normalize(pair[1]))).isCloseTo(similarity, within(1e-5));
+                }
+        }
+
+        private List<Long> search(String origin, String destination) {
+                return tripRepository.searchAvailableTrips(origin, destination, null, null, null, null, 10)
+                                .stream()
+                                .map(Trip::getId)
+                                .toList();
+        }
+
+        private String plan(String query) {
+                return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+        }
+
+        private static Route route(String code, String origin, String destination) {
+                return Route.builder()
+                                .name(origin + " - " + destination)
+                                .code(code)
+                                .origin(origin)
+                                .destination(destination)
+                                .distanceKm(400.0)
+                                .durationMinutes(480)
+                                .pricePerKm(0.5)
+                                .build();
+        }
+
+        private static Stop stop(Route route, String name, int sequence) {
+                return Stop.builder()
+                                .name(name)
+                                .sequence(sequence)
+                                .latitude(4.0 + sequence)
+                                .longitude(-74.0)
+                                .route(route)
+                                .build();
+        }
+
+        private static Trip trip(Route route, Bus bus, LocalDateTime departure) {
+                return Trip.builder()
+                                .departureAt(departure)
+                                .arrivalAt(departure.plusHours(8))
+                                .route(route)
+                                .bus(bus)
+                                .status(TripStatus.SCHEDULED)
+                                .build();
+        }
+}
@@ -0,0 +1,208 @@
+package com.example.services;
+
+import com.example.services.extra.BookingSequencer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Booking Sequencer Unit Tests")
+class BookingSequencerTest {
+
+    private PlatformTransactionManager transactionManager;
+    private BookingSequencer sequencer;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        sequencer = new BookingSequencer(transactionManager, 4, 5000);
+        callers = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        sequencer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should never run two commands of the same trip at once")
+    void shouldSerializeCommandsPerTrip() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            int value = i;
+            results.add(callers.submit(() -> sequencer.submit(1L, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.yield();
+                running.decrementAndGet();
+                return value;
+            })));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get()).isEqualTo(i);
+        }
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail only the failing command of a batch")
+    void shouldReplayBatchOnFailure() throws Exception {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            results.add(callers.submit(() -> sequencer.submit(2L, () -> {
+                if (value == 25) {
+                    throw new IllegalStateException("seat taken");
+                }
+                return "ok" + value;
+            })));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i == 25) {
+                Future<String> failed = results.get(i);
+                assertThatThrownBy(failed::get).hasCauseInstanceOf(IllegalStateException.class);
+            } else {
+                assertThat(results.get(i).get()).isEqualTo("ok" + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a failed check without replaying the batch")
+    void shouldNotReplayBatchOnRejectedCheck() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        AtomicInteger actions = new AtomicInteger();
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            results.add(callers.submit(() -> sequencer.submit(5L, () -> {
+                checks.incrementAndGet();
+                if (value % 10 == 0) {
+                    throw new IllegalStateException("seat taken");
+                }
+                return value;
+            }, prepared -> {
+                actions.incrementAndGet();
+                return "ok" + prepared;
+            })));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i % 10 == 0) {
+                Future<String> failed = results.get(i);
+                assertThatThrownBy(failed::get).hasCauseInstanceOf(IllegalStateException.class);
+            } else {
+                assertThat(results.get(i).get()).isEqualTo("ok" + i);
+            }
+        }
+        assertThat(checks.get()).isEqualTo(50);
+        assertThat(actions.get()).isEqualTo(45);
+    }
+
+    @Test
+    @DisplayName("Should give up on a command queued longer than the timeout")
+    void shouldTimeOutQueuedCommands() throws Exception {
+        BookingSequencer impatient = new BookingSequencer(transactionManager, 1, 200);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        AtomicInteger ran = new AtomicInteger();
+        try {
+            Future<String> blocking = callers.submit(() -> impatient.submit(6L, () -> {
+                started.complete(null);
+                release.join();
+                return "first";
+            }));
+            started.get(5, TimeUnit.SECONDS);
+            Future<String> queued = callers.submit(() -> impatient.submit(6L, () -> {
+                ran.incrementAndGet();
+                return "second";
+            }));
+
+            assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("timed out");
+            release.complete(null);
+            assertThatThrownBy(() -> blocking.get(5, TimeUnit.SECONDS)).hasMessageContaining("timed out");
+
+            assertThat(impatient.submit(6L, () -> "after")).isEqualTo("after");
+            assertThat(ran.get()).isZero();
+        } finally {
+            release.complete(null);
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run a command on two trips exclusively on both")
+    void shouldSerializeJointCommandsWithBothTrips() throws Exception {
+        AtomicInteger[] running = { new AtomicInteger(), new AtomicInteger() };
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 150; i++) {
+            int value = i;
+            List<Integer> trips = switch (value % 3) {
+                case 0 -> List.of(0);
+                case 1 -> List.of(1);
+                default -> value % 2 == 0 ? List.of(0, 1) : List.of(1, 0);
+            };
+            results.add(callers.submit(() -> sequencer.submit(trips.stream().map(trip -> 7L + trip).toList(),
+                    () -> null, ignored -> {
+                        trips.forEach(trip -> maxRunning.accumulateAndGet(running[trip].incrementAndGet(),
+                                Math::max));
+                        Thread.yield();
+                        trips.forEach(trip -> running[trip].decrementAndGet());
+                        return "ok" + value;
+                    })));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS)).isEqualTo("ok" + i);
+        }
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep draining a trip after a command throws an Error")
+    void shouldSurviveErrorsThrownByCommands() throws Exception {
+        Future<String> failed = callers.submit(() -> sequencer.submit(4L, () -> {
+            throw new AssertionError("boom");
+        }));
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+
+        Future<String> next = callers.submit(() -> sequencer.submit(4L, () -> "next"));
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("next");
+    }
+
+    @Test
+    @DisplayName("Should run nested submissions inline")
+    void shouldRunNestedCommandsInline() {
+        String result = sequencer.submit(3L, () -> sequencer.submit(3L, () -> "nested"));
+
+        assertThat(result).isEqualTo("nested");
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+}
@@ -5,6 +5,8 @@ import com.example.domain.entities.Bus;
 import com.example.domain.enums.BusStatus;
 import com.example.domain.repositories.BusRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.implementations.BusServiceImpl;
 import com.example.services.mappers.BusMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,6 +33,12 @@ class BusServiceTest {
     @Mock
     private BusMapper busMapper;
 
+    @Mock
+    private DailyRollupService dailyRollupService;
+
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
     @InjectMocks
     private BusServiceImpl busService;
 
@@ -116,6 +124,8 @@ class BusServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(busRepository).save(bus);
+        verify(dailyRollupService).recordBusCapacityChange(1L, 40, 45);
+        verify(seatInventoryService).invalidateBus(1L);
     }
 
     @Test
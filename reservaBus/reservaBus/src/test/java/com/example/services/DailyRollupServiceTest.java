@@ -0,0 +1,125 @@
+package com.example.services;
+
+import com.example.domain.entities.Bus;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Ticket;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+import com.example.metrics.DailyRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Daily Rollup Service Unit Tests")
+class DailyRollupServiceTest {
+
+    private static final LocalDate DEPARTURE_DAY = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private DailyTicketRollupRepository ticketRollupRepository;
+
+    @Mock
+    private DailyTripRollupRepository tripRollupRepository;
+
+    @InjectMocks
+    private DailyRollupService rollupService;
+
+    private Trip trip;
+
+    @BeforeEach
+    void setUp() {
+        trip = Trip.builder()
+                .id(1L)
+                .route(Route.builder().id(2L).distanceKm(300.0).build())
+                .bus(Bus.builder().id(3L).capacity(40).build())
+                .departureAt(DEPARTURE_DAY.atTime(8, 0))
+                .arrivalAt(DEPARTURE_DAY.atTime(14, 0))
+                .status(TripStatus.SCHEDULED)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should add a sold ticket's seat-km to its departure day and take them out on cancellation")
+    void shouldTrackSeatKmSold() {
+        Ticket ticket = Ticket.builder().id(1L).trip(trip).status(TicketStatus.CONFIRMED).price(20.0)
+                .segmentKm(120.0).build();
+
+        rollupService.recordSale(ticket);
+        ticket.setStatus(TicketStatus.CANCELLED);
+        ticket.setCancelledAt(System.currentTimeMillis());
+        rollupService.recordStatusChange(ticket, TicketStatus.CONFIRMED);
+
+        verify(tripRollupRepository).add(DEPARTURE_DAY, 2L, 0, 0, 0, 120.0, 0, 0);
+        verify(tripRollupRepository).add(DEPARTURE_DAY, 2L, 0, 0, 0, -120.0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should keep a no-show's seat-km and count older tickets as the whole route")
+    void shouldKeepNoShowSeatKm() {
+        Ticket ticket = Ticket.builder().id(1L).trip(trip).status(TicketStatus.NO_SHOW).price(20.0).build();
+
+        rollupService.recordStatusChange(ticket, TicketStatus.CONFIRMED);
+        rollupService.recordRemoval(ticket);
+
+        verify(tripRollupRepository).add(DEPARTURE_DAY, 2L, 0, 0, 0, -300.0, 0, 0);
+        verify(tripRollupRepository, times(1)).add(any(), any(), anyLong(), anyLong(), anyDouble(), anyDouble(),
+                anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should count a reported arrival on time within the tolerance of the arrival it departed with")
+    void shouldRecordArrivalPunctuality() {
+        trip.setScheduledArrivalAt(DEPARTURE_DAY.atTime(14, 0));
+        // a later arrivalAt is a delay, not a new schedule
+        trip.setArrivalAt(DEPARTURE_DAY.atTime(15, 0));
+        trip.setArrivedAt(DEPARTURE_DAY.atTime(14, 10));
+        assertThat(DailyRollupService.isOnTime(trip)).isTrue();
+        rollupService.recordArrival(trip);
+
+        trip.setArrivedAt(DEPARTURE_DAY.atTime(15, 0));
+        assertThat(DailyRollupService.isOnTime(trip)).isFalse();
+        rollupService.recordArrival(trip);
+
+        verify(tripRollupRepository).add(DEPARTURE_DAY, 2L, 0, 0, 0, 0, 1, 1);
+        verify(tripRollupRepository).add(DEPARTURE_DAY, 2L, 0, 0, 0, 0, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Should not count a trip closed by the clock as completed")
+    void shouldIgnoreArrivalsNobodyReported() {
+        trip.setStatus(TripStatus.ARRIVED);
+        trip.setScheduledArrivalAt(DEPARTURE_DAY.atTime(14, 0));
+        assertThat(DailyRollupService.isOnTime(trip)).isFalse();
+
+        rollupService.recordTrip(trip, 1);
+
+        verify(tripRollupRepository).addTrip(1L, DEPARTURE_DAY, 2L, 1, 40, 12000.0, 300.0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should offer capacity times route km for a scheduled trip")
+    void shouldRecordSeatKmOffered() {
+        trip.setStatus(TripStatus.ARRIVED);
+        trip.setScheduledArrivalAt(LocalDateTime.of(2025, 3, 10, 14, 0));
+        trip.setArrivedAt(LocalDateTime.of(2025, 3, 10, 14, 5));
+
+        rollupService.recordTrip(trip, -1);
+
+        verify(tripRollupRepository).addTrip(1L, DEPARTURE_DAY, 2L, -1, 40, 12000.0, 300.0, 1, 1);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.services;
+
+import com.example.domain.entities.Bus;
+import com.example.domain.entities.FareRule;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.repositories.FareRuleRepository;
+import com.example.domain.repositories.RouteRepository;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.RouteTopologyCache;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.TripSeatInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Dynamic Pricing Engine Unit Tests")
+class DynamicPricingEngineTest {
+
+    private static final int ORIGIN = Integer.MIN_VALUE;
+    private static final int DESTINATION = Integer.MAX_VALUE;
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private FareRuleRepository fareRuleRepository;
+
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
+    @Mock
+    private RouteTopologyCache routeTopologyCache;
+
+    @InjectMocks
+    private DynamicPricingEngine engine;
+
+    private Route route;
+    private FareRule fareRule;
+
+    @BeforeEach
+    void setUp() {
+        // 100 km at 0.5 per km, a base fare of 50
+        route = Route.builder().id(1L).distanceKm(100.0).pricePerKm(0.5).build();
+        fareRule = FareRule.builder()
+                .id(1L)
+                .route(route)
+                .dynamicPricing(true)
+                .childrenDiscount(0.5)
+                .seniorDiscount(0.3)
+                .studentDiscount(0.2)
+                .build();
+        // Bogotá, Tunja and Bucaramanga, Tunja sits about a third of the way
+        lenient().when(routeTopologyCache.get(1L)).thenReturn(RouteTopology.of(1L, 1L, List.of(
+                stop(10L, "Bogotá", 0, 4.71, -74.07),
+                stop(11L, "Tunja", 1, 5.53, -73.36),
+                stop(12L, "Bucaramanga", 2, 7.12, -73.12))));
+    }
+
+    @Test
+    @DisplayName("Should climb the ladder with the load factor and the time to departure")
+    void shouldStepWithLoadAndTime() {
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+        LocalDateTime inThreeDays = LocalDateTime.now().plusDays(3);
+
+        var empty = engine.quote(1L, ORIGIN, DESTINATION, inThreeDays, 40, 0, FareRulePassengerType.ADULT);
+        assertThat(empty.step()).isEqualTo(DynamicPricingEngine.BASE_STEP);
+        assertThat(empty.price()).isCloseTo(50.0, within(0.001));
+
+        // 36 of 40 taken passes the 0.5, 0.7 and 0.85 thresholds
+        var busy = engine.quote(1L, ORIGIN, DESTINATION, inThreeDays, 40, 36, FareRulePassengerType.ADULT);
+        assertThat(busy.step()).isEqualTo(4);
+        assertThat(busy.price()).isCloseTo(67.5, within(0.001));
+
+        var earlyBird = engine.quote(1L, ORIGIN, DESTINATION, LocalDateTime.now().plusDays(30), 40, 0,
+                FareRulePassengerType.CHILD);
+        assertThat(earlyBird.step()).isZero();
+        assertThat(earlyBird.price()).isCloseTo(22.5, within(0.001));
+
+        var lastMinute = engine.quote(1L, ORIGIN, DESTINATION, LocalDateTime.now().plusHours(2), 40, 40,
+                FareRulePassengerType.ADULT);
+        assertThat(lastMinute.step()).isEqualTo(5);
+        assertThat(lastMinute.price()).isCloseTo(75.0, within(0.001));
+
+        // the fare matrix is built once per route
+        verify(routeRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should charge a flat fare when dynamic pricing is off")
+    void shouldChargeFlatFareWhenDynamicPricingIsOff() {
+        fareRule.setDynamicPricing(false);
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+
+        var quote = engine.quote(1L, ORIGIN, DESTINATION, LocalDateTime.now().plusHours(2), 40, 40,
+                FareRulePassengerType.SENIOR);
+
+        assertThat(quote.price()).isCloseTo(35.0, within(0.001));
+        assertThat(engine.price(1L, ORIGIN, DESTINATION, 0, FareRulePassengerType.SENIOR))
+                .isCloseTo(35.0, within(0.001));
+    }
+
+    @Test
+    @DisplayName("Should charge a segment its share of the route measured on the stop coordinates")
+    void shouldPriceSegmentsByDistance() {
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+
+        double whole = engine.price(1L, 0, 2, 1, FareRulePassengerType.ADULT);
+        double firstLeg = engine.price(1L, 0, 1, 1, FareRulePassengerType.ADULT);
+        double secondLeg = engine.price(1L, 1, DESTINATION, 1, FareRulePassengerType.ADULT);
+
+        assertThat(whole).isCloseTo(50.0, within(0.001));
+        // roughly 120 of the 300 km
+        assertThat(firstLeg).isCloseTo(20.0, within(1.0));
+        assertThat(engine.price(1L, ORIGIN, 1, 1, FareRulePassengerType.ADULT)).isEqualTo(firstLeg);
+        assertThat(firstLeg + secondLeg).isCloseTo(whole, within(0.001));
+        // discount and step multiplier apply on top of the segment fare
+        assertThat(engine.price(1L, 0, 1, 3, FareRulePassengerType.CHILD)).isCloseTo(firstLeg * 0.5 * 1.2,
+                within(0.001));
+        verify(routeRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should price a route without distance or price per km at zero")
+    void shouldPriceRouteWithoutDistanceAtZero() {
+        route.setPricePerKm(null);
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+
+        assertThat(engine.price(1L, ORIGIN, DESTINATION, 1, FareRulePassengerType.ADULT)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rebuild the fare matrix when the route's stops change")
+    void shouldRebuildMatrixWhenTopologyChanges() {
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+        double before = engine.price(1L, 0, 1, 1, FareRulePassengerType.ADULT);
+
+        // Tunja dropped, stop 2 is now reached straight from the origin
+        when(routeTopologyCache.get(1L)).thenReturn(RouteTopology.of(1L, 2L, List.of(
+                stop(10L, "Bogotá", 0, 4.71, -74.07),
+                stop(12L, "Bucaramanga", 2, 7.12, -73.12))));
+
+        assertThat(before).isLessThan(50.0);
+        assertThat(engine.price(1L, 0, 2, 1, FareRulePassengerType.ADULT)).isCloseTo(50.0, within(0.001));
+        verify(routeRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should reuse a trip's step until its seat inventory changes")
+    void shouldCacheStepUntilInventoryChanges() {
+        Trip trip = Trip.builder()
+                .id(1L)
+                .route(route)
+                .bus(Bus.builder().id(1L).capacity(4).build())
+                .departureAt(LocalDateTime.now().plusDays(3))
+                .build();
+        TripSeatInventory inventory = new TripSeatInventory(1L, 1L, 1L, 40, new int[] { 0, 1 });
+        inventory.addTicket(10L, "A1", 0, 1, "A", "B");
+        inventory.addTicket(11L, "A2", ORIGIN, DESTINATION, "origin", "destination");
+        when(seatInventoryService.getVersion(1L)).thenReturn(1L, 1L, 2L);
+        when(seatInventoryService.getInventory(1L)).thenReturn(inventory);
+
+        // 2 of 4 seats taken on the segment, half full
+        assertThat(engine.currentStep(trip, 0, 1)).isEqualTo(2);
+        inventory.addTicket(12L, "A3", 0, 1, "A", "B");
+        assertThat(engine.currentStep(trip, 0, 1)).isEqualTo(2);
+        // the version moved, 3 of 4 taken is past 0.7
+        assertThat(engine.currentStep(trip, 0, 1)).isEqualTo(3);
+
+        verify(seatInventoryService, times(2)).getInventory(1L);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the fare matrix after the route is invalidated")
+    void shouldRebuildMatrixAfterInvalidation() {
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(route));
+        when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
+
+        assertThat(engine.price(1L, ORIGIN, DESTINATION, 1, FareRulePassengerType.ADULT))
+                .isCloseTo(50.0, within(0.001));
+        route.setPricePerKm(1.0);
+        assertThat(engine.price(1L, ORIGIN, DESTINATION, 1, FareRulePassengerType.ADULT))
+                .isCloseTo(50.0, within(0.001));
+
+        engine.invalidateRoute(1L);
+
+        assertThat(engine.price(1L, ORIGIN, DESTINATION, 1, FareRulePassengerType.ADULT))
+                .isCloseTo(100.0, within(0.001));
+        verify(routeRepository, times(2)).findById(1L);
+    }
+
+    private Stop stop(Long id, String name, int sequence, double latitude, double longitude) {
+        return Stop.builder().id(id).name(name).sequence(sequence).latitude(latitude).longitude(longitude).build();
+    }
+}
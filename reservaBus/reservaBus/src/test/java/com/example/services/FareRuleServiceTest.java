@@ -6,6 +6,7 @@ import com.example.domain.entities.Route;
 import com.example.domain.repositories.FareRuleRepository;
 import com.example.domain.repositories.RouteRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.services.extra.DynamicPricingEngine;
 import com.example.services.implementations.FareRuleServiceImpl;
 import com.example.services.mappers.FareRuleMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +37,9 @@ class FareRuleServiceTest {
     @Mock
     private RouteRepository routeRepository;
 
+    @Mock
+    private DynamicPricingEngine dynamicPricingEngine;
+
     @InjectMocks
     private FareRuleServiceImpl fareRuleService;
 
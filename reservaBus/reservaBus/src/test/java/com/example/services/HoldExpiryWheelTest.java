@@ -0,0 +1,75 @@
+package com.example.services;
+
+import com.example.services.extra.HoldExpiryWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Hold Expiry Wheel Unit Tests")
+class HoldExpiryWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private HoldExpiryWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        // 1s ticks, 8 slots = one revolution every 8s
+        wheel = new HoldExpiryWheel(1000, 8, START);
+    }
+
+    @Test
+    @DisplayName("Should fire holds only once they expired")
+    void shouldFireDueHolds() {
+        wheel.schedule(1L, 10L, "A1", START + 2500);
+        wheel.schedule(2L, 10L, "A2", START + 5000);
+
+        assertThat(wheel.advance(START + 2000)).isEmpty();
+        assertThat(wheel.advance(START + 3000)).extracting(HoldExpiryWheel.Expiry::holdId).containsExactly(1L);
+        assertThat(wheel.advance(START + 6000)).extracting(HoldExpiryWheel.Expiry::holdId).containsExactly(2L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep holds further out than one revolution")
+    void shouldHandleHoldsBeyondOneRevolution() {
+        wheel.schedule(1L, 10L, "A1", START + 20_000);
+
+        assertThat(wheel.advance(START + 9000)).isEmpty();
+        assertThat(wheel.advance(START + 19_000)).isEmpty();
+        assertThat(wheel.advance(START + 20_000)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should catch up after a long pause")
+    void shouldCatchUpAfterGap() {
+        wheel.schedule(1L, 10L, "A1", START + 1000);
+        wheel.schedule(2L, 10L, "A2", START + 30_000);
+
+        assertThat(wheel.advance(START + 60_000)).extracting(HoldExpiryWheel.Expiry::holdId)
+                .containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should honour cancellation and only the latest schedule")
+    void shouldSkipCancelledAndRescheduledHolds() {
+        wheel.schedule(1L, 10L, "A1", START + 1000);
+        wheel.schedule(2L, 10L, "A2", START + 1000);
+        wheel.cancel(1L);
+        wheel.schedule(2L, 10L, "A2", START + 4000);
+
+        assertThat(wheel.advance(START + 2000)).isEmpty();
+        assertThat(wheel.advance(START + 4000)).extracting(HoldExpiryWheel.Expiry::holdId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should fire already expired holds on the next advance")
+    void shouldFireLateHoldsImmediately() {
+        wheel.advance(START + 5000);
+        wheel.schedule(1L, 10L, "A1", START + 1000);
+
+        assertThat(wheel.advance(START + 6000)).hasSize(1);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.services;
+
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.domain.repositories.TripSearchRow;
+import com.example.services.extra.JourneyPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Journey Planner Unit Tests")
+class JourneyPlannerTest {
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @InjectMocks
+    private JourneyPlanner planner;
+
+    private LocalDateTime day;
+    private Route north;
+    private Route east;
+    private Route direct;
+
+    @BeforeEach
+    void setUp() {
+        day = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        north = Route.builder().id(1L).build();
+        east = Route.builder().id(2L).build();
+        direct = Route.builder().id(3L).build();
+        // north: Bogotá -> Tunja, east: Tunja -> Bucaramanga, direct: Bogota -> Bucaramanga
+        when(stopRepository.findAllWithRoute()).thenReturn(List.of(
+                stop(10L, "Bogotá", 0, north),
+                stop(11L, "Tunja", 1, north),
+                stop(20L, "TUNJA", 0, east),
+                stop(21L, "Bucaramanga", 1, east),
+                stop(30L, "Bogota", 0, direct),
+                stop(31L, "Bucaramanga", 1, direct)));
+        when(tripRepository.findTimetableRows(any(), any(), any())).thenReturn(List.of(
+                trip(100L, north, 8, 0, 10, 0),
+                // leaves 10 minutes after north arrives, too tight to connect
+                trip(200L, east, 10, 10, 12, 0),
+                trip(201L, east, 10, 30, 13, 0),
+                trip(300L, direct, 8, 0, 14, 0)));
+        planner.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should return the direct trip and a faster connection at a shared place")
+    void shouldFindParetoJourneys() {
+        List<JourneyPlanner.Journey> journeys = planner.plan(10L, 31L, day, 2);
+
+        assertThat(journeys).hasSize(2);
+        assertThat(journeys.get(0).transfers()).isZero();
+        assertThat(journeys.get(0).legs()).extracting(JourneyPlanner.Leg::tripId).containsExactly(300L);
+        assertThat(journeys.get(0).arrivalAt()).isEqualTo(day.withHour(14));
+
+        assertThat(journeys.get(1).transfers()).isEqualTo(1);
+        assertThat(journeys.get(1).legs()).extracting(JourneyPlanner.Leg::tripId).containsExactly(100L, 201L);
+        assertThat(journeys.get(1).legs().get(1).fromStopId()).isEqualTo(20L);
+        assertThat(journeys.get(1).arrivalAt()).isEqualTo(day.withHour(13));
+    }
+
+    @Test
+    @DisplayName("Should respect the transfer limit and the departure time")
+    void shouldLimitTransfersAndDeparture() {
+        // stop 21 is Bucaramanga on the east route, the direct route serves the same place
+        assertThat(planner.plan(10L, 21L, day, 0))
+                .extracting(JourneyPlanner.Journey::transfers)
+                .containsExactly(0);
+        assertThat(planner.plan(10L, 31L, day.withHour(9), 2)).isEmpty();
+        assertThat(planner.plan(11L, 21L, day.withHour(10).withMinute(5), 2))
+                .extracting(journey -> journey.legs().get(0).tripId())
+                .containsExactly(200L);
+    }
+
+    @Test
+    @DisplayName("Should reload one route after its trips change")
+    void shouldRefreshRoute() {
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(2L)).thenReturn(List.of(
+                stop(20L, "Tunja", 0, east),
+                stop(21L, "Bucaramanga", 1, east)));
+        when(tripRepository.findTimetableRowsByRouteId(eq(2L), any(), any(), any())).thenReturn(List.of(
+                trip(202L, east, 10, 15, 11, 30)));
+
+        planner.refreshRoute(2L);
+
+        List<JourneyPlanner.Journey> journeys = planner.plan(10L, 21L, day, 2);
+        assertThat(journeys).hasSize(2);
+        assertThat(journeys.get(1).legs()).extracting(JourneyPlanner.Leg::tripId).containsExactly(100L, 202L);
+        assertThat(journeys.get(1).arrivalAt()).isEqualTo(day.withHour(11).withMinute(30));
+    }
+
+    private TripSearchRow trip(Long id, Route route, int departureHour, int departureMinute, int arrivalHour,
+            int arrivalMinute) {
+        return new TripSearchRow(id, route.getId(), 1L, day.withHour(departureHour).withMinute(departureMinute),
+                day.withHour(arrivalHour).withMinute(arrivalMinute));
+    }
+
+    private Stop stop(Long id, String name, int sequence, Route route) {
+        return Stop.builder().id(id).name(name).sequence(sequence).latitude(4.6 + sequence)
+                .longitude(-74.0).route(route).build();
+    }
+}
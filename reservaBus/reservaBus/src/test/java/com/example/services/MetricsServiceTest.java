@@ -0,0 +1,98 @@
+package com.example.services;
+
+import com.example.api.dto.MetricsDTO;
+import com.example.domain.enums.TicketStatus;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+import com.example.domain.repositories.TicketRollupTotals;
+import com.example.domain.repositories.TripRollupTotals;
+import com.example.metrics.MetricsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Metrics Service Unit Tests")
+class MetricsServiceTest {
+
+    @Mock
+    private DailyTicketRollupRepository ticketRollupRepository;
+
+    @Mock
+    private DailyTripRollupRepository tripRollupRepository;
+
+    @InjectMocks
+    private MetricsService metricsService;
+
+    @Test
+    @DisplayName("Should build the dashboard from the daily rollups")
+    void shouldReadDashboardFromRollups() {
+        // Given a week, compared with the week before it
+        LocalDate first = LocalDate.of(2025, 3, 8);
+        LocalDate last = LocalDate.of(2025, 3, 15);
+        when(ticketRollupRepository.sumByStatus(first, last)).thenReturn(List.of(
+                new TicketRollupTotals(TicketStatus.CONFIRMED, 8L, 400.0, 0L),
+                new TicketRollupTotals(TicketStatus.CANCELLED, 2L, 100.0, 2L)));
+        when(ticketRollupRepository.sumByStatus(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 7)))
+                .thenReturn(List.of(new TicketRollupTotals(TicketStatus.CONFIRMED, 4L, 200.0, 0L)));
+        // 3 trips of 40 seats over 100 km, 4 of the 5 arrived ones on time
+        when(tripRollupRepository.sumBetween(first, last))
+                .thenReturn(new TripRollupTotals(3L, 120L, 12000.0, 9000.0, 5L, 4L));
+        when(tripRollupRepository.sumBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 7)))
+                .thenReturn(new TripRollupTotals(2L, 80L, 8000.0, 4000.0, 2L, 2L));
+
+        // When
+        MetricsDTO.DashboardMetrics metrics = metricsService.getDashboardMetrics(first.atStartOfDay(),
+                last.atStartOfDay());
+
+        // Then
+        assertThat(metrics.getRevenue().getTotalRevenue()).isEqualTo(400.0);
+        assertThat(metrics.getRevenue().getPreviousPeriodRevenue()).isEqualTo(200.0);
+        assertThat(metrics.getRevenue().getChangePercentage()).isEqualTo(100.0);
+        assertThat(metrics.getRevenue().getTotalTicketsSold()).isEqualTo(8L);
+        assertThat(metrics.getRevenue().getAverageTicketPrice()).isEqualTo(50.0);
+        assertThat(metrics.getCancellations().getTotalCancellations()).isEqualTo(2L);
+        assertThat(metrics.getCancellations().getCancellationRate()).isEqualTo(20.0);
+        assertThat(metrics.getOccupation().getTotalTrips()).isEqualTo(3L);
+        assertThat(metrics.getOccupation().getTotalSeatsOffered()).isEqualTo(120L);
+        assertThat(metrics.getOccupation().getAverageOccupation()).isEqualTo(75.0);
+        assertThat(metrics.getOccupation().getPreviousPeriodOccupation()).isEqualTo(50.0);
+        assertThat(metrics.getOccupation().getChangePercentage()).isEqualTo(50.0);
+        assertThat(metrics.getPunctuality().getTotalTripsCompleted()).isEqualTo(5L);
+        assertThat(metrics.getPunctuality().getTotalTripsOnTime()).isEqualTo(4L);
+        assertThat(metrics.getPunctuality().getTotalTripsDelayed()).isEqualTo(1L);
+        assertThat(metrics.getPunctuality().getPunctualityRate()).isEqualTo(80.0);
+        assertThat(metrics.getPunctuality().getPreviousPeriodRate()).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("Should report zeros for a period without rollups")
+    void shouldReportZerosForEmptyPeriod() {
+        // Given
+        when(ticketRollupRepository.sumByStatus(any(), any())).thenReturn(List.of());
+        when(tripRollupRepository.sumBetween(any(), any())).thenReturn(new TripRollupTotals(null, null, null, null, null, null));
+
+        // When
+        MetricsDTO.DashboardMetrics metrics = metricsService.getDashboardMetrics(
+                LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 3, 31, 0, 0));
+
+        // Then
+        assertThat(metrics.getRevenue().getTotalRevenue()).isZero();
+        assertThat(metrics.getRevenue().getTotalTicketsSold()).isZero();
+        assertThat(metrics.getCancellations().getTotalCancellations()).isZero();
+        assertThat(metrics.getOccupation().getTotalTrips()).isZero();
+        assertThat(metrics.getOccupation().getTotalSeatsOffered()).isZero();
+        assertThat(metrics.getOccupation().getAverageOccupation()).isZero();
+        assertThat(metrics.getPunctuality().getPunctualityRate()).isZero();
+    }
+}
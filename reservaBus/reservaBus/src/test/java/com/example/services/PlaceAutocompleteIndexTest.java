@@ -0,0 +1,110 @@
+package com.example.services;
+
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.RouteTripCount;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.services.extra.PlaceAutocompleteIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Place Autocomplete Index Unit Tests")
+class PlaceAutocompleteIndexTest {
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @InjectMocks
+    private PlaceAutocompleteIndex index;
+
+    private Route coast;
+    private Route andes;
+
+    @BeforeEach
+    void setUp() {
+        coast = Route.builder().id(1L).origin("Bogotá").destination("Santa Marta").build();
+        andes = Route.builder().id(2L).origin("Bogota").destination("Sogamoso").build();
+        when(routeRepository.findAllWithFareRule()).thenReturn(List.of(coast, andes));
+        when(stopRepository.findAllWithRoute()).thenReturn(List.of(
+                stop(10L, "Bogotá", coast),
+                stop(11L, "Santa Marta", coast),
+                stop(20L, "Bogota", andes),
+                stop(21L, "Sogamoso", andes)));
+        when(tripRepository.countUpcomingTripsByRoute(any())).thenReturn(List.of(
+                new RouteTripCount(1L, 3L),
+                new RouteTripCount(2L, 8L)));
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should fold accents and merge the stops of a place across routes")
+    void shouldSuggestAccentFoldedPlaces() {
+        List<PlaceAutocompleteIndex.Place> suggestions = index.suggest("BOGO", 10);
+
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).stopIds()).containsExactlyInAnyOrder(10L, 20L);
+        assertThat(suggestions.get(0).tripCount()).isEqualTo(11L);
+        assertThat(index.suggest("bogotá", 10)).hasSize(1);
+        assertThat(index.suggest("x", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should rank by trips and match later words of a name")
+    void shouldRankByTripsAndMatchWords() {
+        assertThat(index.suggest("s", 10))
+                .extracting(PlaceAutocompleteIndex.Place::name)
+                .containsExactly("Sogamoso", "Santa Marta");
+        assertThat(index.suggest("mar", 10))
+                .extracting(PlaceAutocompleteIndex.Place::name)
+                .containsExactly("Santa Marta");
+        assertThat(index.suggest("s", 1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should pick up stop changes of a route")
+    void shouldRefreshRoute() {
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(coast));
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(1L)).thenReturn(List.of(
+                stop(10L, "Bogotá", coast),
+                stop(12L, "Ciénaga", coast),
+                stop(11L, "Santa Marta", coast)));
+
+        index.refreshRoute(1L);
+
+        assertThat(index.suggest("cie", 10))
+                .extracting(PlaceAutocompleteIndex.Place::stopIds)
+                .containsExactly(List.of(12L));
+
+        when(routeRepository.findById(1L)).thenReturn(Optional.empty());
+        index.refreshRoute(1L);
+
+        assertThat(index.suggest("cie", 10)).isEmpty();
+        assertThat(index.suggest("santa", 10)).isEmpty();
+        assertThat(index.suggest("bogo", 10).get(0).stopIds()).containsExactly(20L);
+    }
+
+    private Stop stop(Long id, String name, Route route) {
+        return Stop.builder().id(id).name(name).sequence(id.intValue()).route(route).build();
+    }
+}
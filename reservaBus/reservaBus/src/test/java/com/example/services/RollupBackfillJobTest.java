@@ -0,0 +1,98 @@
+package com.example.services;
+
+import com.example.domain.entities.RollupCheckpoint;
+import com.example.domain.repositories.DailyTicketRollupRepository;
+import com.example.domain.repositories.DailyTripRollupRepository;
+import com.example.domain.repositories.RollupCheckpointRepository;
+import com.example.metrics.DailyRollupService;
+import com.example.metrics.RollupBackfillJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Rollup Backfill Job Unit Tests")
+class RollupBackfillJobTest {
+
+    private DailyRollupService rollupService;
+    private RollupCheckpointRepository checkpointRepository;
+    private DailyTicketRollupRepository ticketRollupRepository;
+    private DailyTripRollupRepository tripRollupRepository;
+    private PlatformTransactionManager transactionManager;
+    private RollupBackfillJob job;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = mock(DailyRollupService.class);
+        checkpointRepository = mock(RollupCheckpointRepository.class);
+        ticketRollupRepository = mock(DailyTicketRollupRepository.class);
+        tripRollupRepository = mock(DailyTripRollupRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        job = new RollupBackfillJob(rollupService, checkpointRepository, ticketRollupRepository,
+                tripRollupRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should start from the first ticket and stop after a run's worth of days")
+    void shouldStartFromFirstTicket() {
+        // Given
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate firstDay = today.minusDays(100);
+        RollupCheckpoint[] saved = new RollupCheckpoint[1];
+        when(checkpointRepository.findForUpdate("daily-rollups"))
+                .thenAnswer(invocation -> Optional.ofNullable(saved[0]));
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> saved[0] = invocation.getArgument(0));
+        when(ticketRollupRepository.findFirstTicketCreatedAt())
+                .thenReturn(firstDay.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1000);
+        when(tripRollupRepository.findFirstDepartureAt()).thenReturn(today.minusDays(50).atStartOfDay());
+
+        // When
+        job.run();
+
+        // Then
+        ArgumentCaptor<LocalDate> days = ArgumentCaptor.forClass(LocalDate.class);
+        verify(rollupService, times(31)).rebuildDay(days.capture());
+        assertThat(days.getAllValues().get(0)).isEqualTo(firstDay);
+        assertThat(saved[0].getNextDay()).isEqualTo(firstDay.plusDays(31));
+        assertThat(saved[0].getUntilDay()).isEqualTo(today);
+        assertThat(saved[0].getCompletedAt()).isNull();
+        // each day commits on its own
+        verify(transactionManager, times(31)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should resume from the checkpoint and mark it complete at the end")
+    void shouldResumeFromCheckpoint() {
+        // Given
+        LocalDate until = LocalDate.of(2025, 3, 10);
+        RollupCheckpoint checkpoint = RollupCheckpoint.builder()
+                .name("daily-rollups")
+                .nextDay(until.minusDays(1))
+                .untilDay(until)
+                .build();
+        when(checkpointRepository.findForUpdate("daily-rollups")).thenReturn(Optional.of(checkpoint));
+
+        // When
+        job.run();
+        job.run();
+
+        // Then
+        verify(rollupService).rebuildDay(until.minusDays(1));
+        verify(rollupService).rebuildDay(until);
+        verify(rollupService, times(2)).rebuildDay(any());
+        assertThat(checkpoint.getCompletedAt()).isNotNull();
+        verifyNoInteractions(ticketRollupRepository, tripRollupRepository);
+    }
+}
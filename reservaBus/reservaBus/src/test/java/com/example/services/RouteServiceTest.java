@@ -7,6 +7,12 @@ import com.example.domain.entities.Stop;
 import com.example.domain.repositories.RouteRepository;
 import com.example.domain.repositories.StopRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.PlaceAutocompleteIndex;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopologyCache;
+import com.example.services.extra.TripSearchCache;
 import com.example.services.implementations.RouteServiceImpl;
 import com.example.services.mappers.RouteMapper;
 import com.example.services.mappers.StopMapper;
@@ -42,6 +48,24 @@ class RouteServiceTest {
     @Mock
     private StopMapper stopMapper;
 
+    @Mock
+    private RouteStopPairIndex routeStopPairIndex;
+
+    @Mock
+    private PlaceAutocompleteIndex placeAutocompleteIndex;
+
+    @Mock
+    private TripSearchCache tripSearchCache;
+
+    @Mock
+    private JourneyPlanner journeyPlanner;
+
+    @Mock
+    private RouteTopologyCache routeTopologyCache;
+
+    @Mock
+    private DynamicPricingEngine dynamicPricingEngine;
+
     @InjectMocks
     private RouteServiceImpl routeService;
 
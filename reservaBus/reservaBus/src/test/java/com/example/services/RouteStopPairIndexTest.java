@@ -0,0 +1,90 @@
+package com.example.services;
+
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.StopRepository;
+import com.example.services.extra.RouteStopPairIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Route Stop Pair Index Unit Tests")
+class RouteStopPairIndexTest {
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @InjectMocks
+    private RouteStopPairIndex index;
+
+    private Route north;
+    private Route south;
+
+    @BeforeEach
+    void setUp() {
+        north = Route.builder().id(1L).build();
+        south = Route.builder().id(2L).build();
+        // route 1: Bogotá -> Tunja -> Santa Marta, route 2: Santa Marta -> Bogota
+        when(stopRepository.findAllWithRoute()).thenReturn(List.of(
+                stop(10L, "Bogotá", 0, north),
+                stop(11L, "Tunja", 1, north),
+                stop(12L, "Santa Marta", 2, north),
+                stop(20L, "Santa  Marta", 0, south),
+                stop(21L, "BOGOTA", 1, south)));
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should find every route serving the places of the stops in travel order")
+    void shouldFindPairsAcrossRoutesByPlace() {
+        assertThat(index.findPairs(10L, 12L))
+                .containsExactly(new RouteStopPairIndex.RouteStopPair(1L, 10L, 12L, 0, 2));
+        // stop 21 is Bogota on route 2, the pair still resolves on route 1
+        assertThat(index.findPairs(21L, 11L))
+                .extracting(RouteStopPairIndex.RouteStopPair::routeId)
+                .containsExactly(1L);
+        assertThat(index.findPairs(12L, 10L))
+                .extracting(RouteStopPairIndex.RouteStopPair::routeId)
+                .containsExactly(2L);
+        assertThat(index.findPairs(11L, 10L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should re-index a route after its stops change")
+    void shouldRefreshRoute() {
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(2L)).thenReturn(List.of(
+                stop(20L, "Santa Marta", 0, south),
+                stop(22L, "Tunja", 1, south)));
+
+        index.refreshRoute(2L);
+
+        assertThat(index.containsStop(21L)).isFalse();
+        assertThat(index.findPairs(12L, 10L)).isEmpty();
+        assertThat(index.findPairs(20L, 11L))
+                .containsExactly(new RouteStopPairIndex.RouteStopPair(2L, 20L, 22L, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should drop the pairs of a deleted route")
+    void shouldRemoveRoute() {
+        index.removeRoute(1L);
+
+        assertThat(index.containsStop(10L)).isFalse();
+        assertThat(index.findPairs(21L, 20L)).isEmpty();
+        assertThat(index.findPairs(20L, 21L)).hasSize(1);
+    }
+
+    private Stop stop(Long id, String name, int sequence, Route route) {
+        return Stop.builder().id(id).name(name).sequence(sequence).route(route).build();
+    }
+}
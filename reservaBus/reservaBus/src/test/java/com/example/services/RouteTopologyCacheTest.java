@@ -0,0 +1,88 @@
+package com.example.services;
+
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.StopRepository;
+import com.example.exceptions.NotFoundException;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.RouteTopologyCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Route Topology Cache Unit Tests")
+class RouteTopologyCacheTest {
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @InjectMocks
+    private RouteTopologyCache cache;
+
+    @Test
+    @DisplayName("Should resolve segments by stop id with origin and destination sentinels")
+    void shouldResolveSegments() {
+        // ids out of travel order, the index must not depend on them
+        RouteTopology topology = RouteTopology.of(1L, 1L, List.of(
+                stop(30L, "Tunja", 20, 5.53),
+                stop(10L, "Bogotá", 10, 4.71),
+                stop(20L, "Bucaramanga", 30, 7.12)));
+
+        RouteTopology.Segment segment = topology.segment(30L, null);
+        assertThat(segment.fromIndex()).isEqualTo(1);
+        assertThat(segment.toIndex()).isEqualTo(2);
+        assertThat(segment.fromSequence()).isEqualTo(20);
+        assertThat(segment.toSequence()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(segment.fromName()).isEqualTo("Tunja");
+        assertThat(segment.toName()).isEqualTo("destination");
+
+        RouteTopology.Segment fromOrigin = topology.segment(null, 30L);
+        assertThat(fromOrigin.fromIndex()).isZero();
+        assertThat(fromOrigin.fromSequence()).isEqualTo(Integer.MIN_VALUE);
+        assertThat(fromOrigin.fromName()).isEqualTo("origin");
+
+        assertThat(topology.indexOf(20L)).isEqualTo(2);
+        assertThat(topology.distanceKm(1)).isCloseTo(91.2, within(1.0));
+        assertThat(topology.travelledFraction(2)).isEqualTo(1.0);
+        assertThat(topology.nameAtSequence(Integer.MIN_VALUE)).isEqualTo("origin");
+        assertThat(topology.nameAtSequence(30)).isEqualTo("Bucaramanga");
+
+        assertThatThrownBy(() -> topology.segment(20L, 30L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> topology.segment(99L, null))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Stop 99 not found on route 1");
+    }
+
+    @Test
+    @DisplayName("Should load a route once and reload it with a new version after invalidation")
+    void shouldReloadAfterInvalidation() {
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(1L))
+                .thenReturn(List.of(stop(10L, "Bogotá", 0, 4.71)))
+                .thenReturn(List.of(stop(10L, "Bogotá", 0, 4.71), stop(11L, "Tunja", 1, 5.53)));
+
+        RouteTopology first = cache.get(1L);
+        assertThat(cache.get(1L)).isSameAs(first);
+
+        cache.invalidate(1L);
+        RouteTopology second = cache.get(1L);
+
+        assertThat(second.size()).isEqualTo(2);
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        verify(stopRepository, times(2)).findByRoute_IdOrderBySequenceAsc(1L);
+    }
+
+    private Stop stop(Long id, String name, int sequence, double latitude) {
+        return Stop.builder().id(id).name(name).sequence(sequence).latitude(latitude).longitude(-73.4).build();
+    }
+}
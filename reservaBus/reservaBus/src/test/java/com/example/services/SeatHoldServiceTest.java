@@ -2,6 +2,7 @@ package com.example.services;
 
 import com.example.api.dto.SeatHoldDTOs;
 import com.example.domain.entities.Account;
+import com.example.domain.entities.Route;
 import com.example.domain.entities.SeatHold;
 import com.example.domain.entities.Stop;
 import com.example.domain.entities.Trip;
@@ -11,10 +12,16 @@ import com.example.domain.repositories.StopRepository;
 import com.example.domain.repositories.TripRepository;
 import com.example.exceptions.NotFoundException;
 import com.example.security.services.AuthenticationService;
+import com.example.services.extra.BookingSequencer;
 import com.example.services.extra.ConfigCacheService;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopologyCache;
 import com.example.services.extra.SeatAvailabilityService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.implementations.SeatHoldServiceImpl;
 import com.example.services.mappers.SeatHoldMapper;
+import com.example.services.watchers.SeatHoldExpiryWatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,11 +31,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -61,6 +73,21 @@ class SeatHoldServiceTest {
         @Mock
         private ConfigCacheService configCache;
 
+        @Mock
+        private SeatInventoryService seatInventoryService;
+
+        @Mock
+        private BookingSequencer bookingSequencer;
+
+        @Mock
+        private SeatHoldExpiryWatcher holdExpiryWatcher;
+
+        @Mock
+        private RouteTopologyCache routeTopologyCache;
+
+        @Mock
+        private DynamicPricingEngine dynamicPricingEngine;
+
         @InjectMocks
         private SeatHoldServiceImpl seatHoldService;
 
@@ -75,7 +102,15 @@ class SeatHoldServiceTest {
 
         @BeforeEach
         void setUp() {
-                trip = Trip.builder().id(1L).build();
+                lenient().when(bookingSequencer.submit(anyLong(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Function<Object, ?>>getArgument(2)
+                                                .apply(invocation.<Supplier<?>>getArgument(1).get()));
+                lenient().when(bookingSequencer.submit(anyCollection(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Function<Object, ?>>getArgument(2)
+                                                .apply(invocation.<Supplier<?>>getArgument(1).get()));
+                lenient().when(seatHoldRepository.findTripIdById(anyLong())).thenReturn(Optional.of(1L));
+
+                trip = Trip.builder().id(1L).route(Route.builder().id(1L).build()).build();
                 account = Account.builder().id(1L).email("test@test.com").build();
 
                 fromStop = Stop.builder()
@@ -90,6 +125,9 @@ class SeatHoldServiceTest {
                                 .sequence(1)
                                 .build();
 
+                lenient().when(routeTopologyCache.get(1L))
+                                .thenReturn(RouteTopology.of(1L, 1L, List.of(fromStop, toStop)));
+
                 seatHold = SeatHold.builder()
                                 .id(1L)
                                 .seatNumber("A1")
@@ -130,12 +168,11 @@ class SeatHoldServiceTest {
                 // Given
                 when(authenticationService.getCurrentAccountId()).thenReturn(1L);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(stopRepository.findById(1L)).thenReturn(Optional.of(fromStop));
-                when(stopRepository.findById(2L)).thenReturn(Optional.of(toStop));
+                when(stopRepository.getReferenceById(1L)).thenReturn(fromStop);
+                when(stopRepository.getReferenceById(2L)).thenReturn(toStop);
                 when(configCache.getMaxSeatHoldMinutes()).thenReturn(10);
-                when(seatAvailabilityService.isSeatAvailable(anyLong(), anyString(), any(Stop.class), any(Stop.class)))
-                                .thenReturn(true);
-                when(seatHoldRepository.save(any(SeatHold.class))).thenReturn(seatHold);
+                when(seatAvailabilityService.isSeatAvailable(1L, "A1", 0, 1)).thenReturn(true);
+                when(seatHoldRepository.saveAndFlush(any(SeatHold.class))).thenReturn(seatHold);
                 when(seatHoldMapper.toResponse(seatHold)).thenReturn(seatHoldResponse);
                 when(accountRepository.getReferenceById(1L)).thenReturn(account);
 
@@ -145,9 +182,66 @@ class SeatHoldServiceTest {
                 // Then
                 assertThat(result).isNotNull();
                 assertThat(result.id()).isEqualTo(1L);
-                verify(seatAvailabilityService).isSeatAvailable(anyLong(), anyString(), any(Stop.class),
-                                any(Stop.class));
-                verify(seatHoldRepository).save(any(SeatHold.class));
+                verify(seatHoldRepository).saveAndFlush(argThat(created -> created.getFromSequence() == 0
+                                && created.getToSequence() == 1 && created.getFromStop() == fromStop));
+                verify(stopRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Should hold several seats in one batch")
+        void shouldReserveSeatsInBatch() {
+                // Given
+                SeatHold secondHold = SeatHold.builder().id(2L).seatNumber("A2").trip(trip).account(account)
+                                .fromStop(fromStop).toStop(toStop).expiresAt(seatHold.getExpiresAt()).build();
+                var batchRequest = new SeatHoldDTOs.CreateSeatHoldBatchRequest(List.of("A1", "A2"), 1L,
+                                Optional.of(1L), Optional.of(2L), null);
+                when(authenticationService.getCurrentAccountId()).thenReturn(1L);
+                when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+                when(stopRepository.getReferenceById(1L)).thenReturn(fromStop);
+                when(stopRepository.getReferenceById(2L)).thenReturn(toStop);
+                when(seatAvailabilityService.getAvailabilityConflicts(eq(1L), any(), eq(0), eq(1)))
+                                .thenReturn(Map.of());
+                when(configCache.getMaxSeatHoldMinutes()).thenReturn(10);
+                when(accountRepository.getReferenceById(1L)).thenReturn(account);
+                when(seatHoldRepository.saveAll(anyList())).thenReturn(List.of(seatHold, secondHold));
+                when(seatHoldMapper.toResponse(any(SeatHold.class))).thenReturn(seatHoldResponse);
+
+                // When
+                var result = seatHoldService.reserveSeats(batchRequest);
+
+                // Then
+                assertThat(result).hasSize(2);
+                verify(seatHoldRepository).saveAll(anyList());
+                verify(seatHoldRepository).flush();
+                verify(seatInventoryService, times(2)).recordHold(any(SeatHold.class));
+        }
+
+        @Test
+        @DisplayName("Should hold no seat when one of the batch is taken")
+        void shouldRejectBatchWhenAnySeatIsTaken() {
+                // Given
+                var batchRequest = new SeatHoldDTOs.CreateSeatHoldBatchRequest(List.of("A1", "A2"), 1L,
+                                Optional.of(1L), Optional.of(2L), null);
+                when(authenticationService.getCurrentAccountId()).thenReturn(1L);
+                when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+                when(seatAvailabilityService.getAvailabilityConflicts(eq(1L), any(), eq(0), eq(1)))
+                                .thenReturn(Map.of("A2", "Already sold: Stop A -> Stop B"));
+
+                // When & Then
+                assertThatThrownBy(() -> seatHoldService.reserveSeats(batchRequest))
+                                .isInstanceOf(IllegalStateException.class)
+                                .hasMessageContaining("A2 (Already sold: Stop A -> Stop B)");
+                verify(seatHoldRepository, never()).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("Should reject repeated seats in a batch")
+        void shouldRejectRepeatedSeatsInBatch() {
+                var batchRequest = new SeatHoldDTOs.CreateSeatHoldBatchRequest(List.of("A1", "A1"), 1L,
+                                Optional.empty(), Optional.empty(), null);
+
+                assertThatThrownBy(() -> seatHoldService.reserveSeats(batchRequest))
+                                .isInstanceOf(IllegalArgumentException.class);
         }
 
         @Test
@@ -189,7 +283,7 @@ class SeatHoldServiceTest {
                 when(seatAvailabilityService.isSeatAvailableExcludingHold(
                                 anyLong(), anyString(), any(Stop.class), any(Stop.class), anyLong()))
                                 .thenReturn(true);
-                when(seatHoldRepository.save(seatHold)).thenReturn(seatHold);
+                when(seatHoldRepository.saveAndFlush(seatHold)).thenReturn(seatHold);
                 when(seatHoldMapper.toResponse(seatHold)).thenReturn(seatHoldResponse);
 
                 // When
@@ -199,7 +293,35 @@ class SeatHoldServiceTest {
                 assertThat(result).isNotNull();
                 verify(seatAvailabilityService).isSeatAvailableExcludingHold(
                                 anyLong(), anyString(), any(Stop.class), any(Stop.class), anyLong());
-                verify(seatHoldRepository).save(seatHold);
+                verify(seatHoldRepository).saveAndFlush(seatHold);
+        }
+
+        @Test
+        @DisplayName("Should sequence a hold moved to another trip on both trips")
+        void shouldSequenceHoldMovedToAnotherTripOnBothTrips() {
+                // Given
+                Trip otherTrip = Trip.builder().id(2L).route(trip.getRoute()).build();
+                SeatHoldDTOs.UpdateSeatHoldRequest moveRequest = new SeatHoldDTOs.UpdateSeatHoldRequest(
+                                Optional.empty(),
+                                Optional.of(2L),
+                                Optional.empty(),
+                                Optional.empty(),
+                                Optional.empty());
+                when(seatHoldRepository.findById(1L)).thenReturn(Optional.of(seatHold));
+                when(tripRepository.findById(2L)).thenReturn(Optional.of(otherTrip));
+                when(seatAvailabilityService.isSeatAvailableExcludingHold(
+                                anyLong(), anyString(), any(Stop.class), any(Stop.class), anyLong()))
+                                .thenReturn(true);
+                when(seatHoldRepository.saveAndFlush(seatHold)).thenReturn(seatHold);
+                when(seatHoldMapper.toResponse(seatHold)).thenReturn(seatHoldResponse);
+
+                // When
+                seatHoldService.updateSeatReserve(1L, moveRequest);
+
+                // Then
+                verify(bookingSequencer).submit(eq(List.of(1L, 2L)), any(), any());
+                verify(seatInventoryService).releaseHold(seatHold);
+                assertThat(seatHold.getTrip()).isEqualTo(otherTrip);
         }
 
         @Test
@@ -232,12 +354,8 @@ class SeatHoldServiceTest {
                 // Given
                 when(authenticationService.getCurrentAccountId()).thenReturn(1L);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(stopRepository.findById(1L)).thenReturn(Optional.of(fromStop));
-                when(stopRepository.findById(2L)).thenReturn(Optional.of(toStop));
-                when(seatAvailabilityService.isSeatAvailable(anyLong(), anyString(), any(Stop.class), any(Stop.class)))
-                                .thenReturn(false);
-                when(seatAvailabilityService.getAvailabilityConflictReason(anyLong(), anyString(), any(Stop.class),
-                                any(Stop.class)))
+                when(seatAvailabilityService.isSeatAvailable(1L, "A1", 0, 1)).thenReturn(false);
+                when(seatAvailabilityService.getAvailabilityConflictReason(1L, "A1", 0, 1))
                                 .thenReturn("Seat already sold for overlapping route segment");
 
                 // When & Then
@@ -265,7 +383,7 @@ class SeatHoldServiceTest {
                 // Given
                 when(authenticationService.getCurrentAccountId()).thenReturn(1L);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(stopRepository.findById(1L)).thenReturn(Optional.empty());
+                when(routeTopologyCache.get(1L)).thenReturn(RouteTopology.of(1L, 2L, List.of(toStop)));
 
                 // When & Then
                 assertThatThrownBy(() -> seatHoldService.reserveSeat(createRequest))
@@ -279,8 +397,7 @@ class SeatHoldServiceTest {
                 // Given
                 when(authenticationService.getCurrentAccountId()).thenReturn(1L);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(stopRepository.findById(1L)).thenReturn(Optional.of(fromStop));
-                when(stopRepository.findById(2L)).thenReturn(Optional.empty());
+                when(routeTopologyCache.get(1L)).thenReturn(RouteTopology.of(1L, 2L, List.of(fromStop)));
 
                 // When & Then
                 assertThatThrownBy(() -> seatHoldService.reserveSeat(createRequest))
@@ -308,4 +425,20 @@ class SeatHoldServiceTest {
                                 .isInstanceOf(IllegalStateException.class)
                                 .hasMessageContaining("Cannot update hold");
         }
+
+        @Test
+        @DisplayName("Should list active holds of a trip from the query")
+        void shouldGetActiveSeatHoldsByTripId() {
+                // Given
+                when(seatHoldRepository.findActiveHoldsByTripId(eq(1L), any(LocalDateTime.class)))
+                                .thenReturn(List.of(seatHold));
+                when(seatHoldMapper.toResponse(seatHold)).thenReturn(seatHoldResponse);
+
+                // When
+                var result = seatHoldService.getActiveSeatHoldsByTripId(1L);
+
+                // Then
+                assertThat(result).containsExactly(seatHoldResponse);
+                verify(seatHoldRepository, never()).findByTrip_Id(anyLong());
+        }
 }
@@ -0,0 +1,179 @@
+package com.example.services;
+
+import com.example.api.dto.SeatDTOs;
+import com.example.exceptions.NotFoundException;
+import com.example.services.extra.SeatMapBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Seat Map Broadcaster Unit Tests")
+class SeatMapBroadcasterTest {
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private CountDownLatch gate;
+    private SeatMapBroadcaster broadcaster;
+
+    // records every event as its raw SSE text, deltas wait on the gate when one is set
+    private class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            String event = builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .collect(Collectors.joining());
+            if (gate != null && event.contains("event:delta")) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SeatMapBroadcaster(new ObjectMapper().findAndRegisterModules(), 2, 50) {
+            @Override
+            protected SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (gate != null) {
+            gate.countDown();
+        }
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should send the snapshot first and then every delta to all subscribers of the trip")
+    void shouldFanOutDeltasAfterSnapshot() throws Exception {
+        broadcaster.subscribe(1L, () -> seatMap("k1-3"));
+        broadcaster.subscribe(1L, () -> seatMap("k1-3"));
+        broadcaster.subscribe(2L, () -> seatMap("k1-0"));
+
+        broadcaster.publish(1L, delta("A1", "SOLD", "k1-4"));
+        broadcaster.publish(1L, delta("A2", "HELD", "k1-5"));
+
+        for (RecordingEmitter emitter : emitters.subList(0, 2)) {
+            awaitEvents(emitter, 3);
+            assertThat(emitter.events.get(0)).contains("event:snapshot", "id:k1-3");
+            assertThat(emitter.events.get(1)).contains("event:delta", "id:k1-4", "\"seatNumber\":\"A1\"",
+                    "\"state\":\"SOLD\"");
+            assertThat(emitter.events.get(2)).contains("\"seatNumber\":\"A2\"", "\"state\":\"HELD\"");
+        }
+        assertThat(emitters.get(2).events).hasSize(1);
+        assertThat(broadcaster.subscriberCount(1L)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber that falls behind with a resync event")
+    void shouldResyncSlowSubscriber() throws Exception {
+        gate = new CountDownLatch(1);
+        broadcaster.subscribe(1L, () -> seatMap("k1-0"));
+        RecordingEmitter slow = emitters.get(0);
+
+        for (int i = 1; i <= 300; i++) {
+            broadcaster.publish(1L, delta("A1", i % 2 == 0 ? "FREE" : "HELD", "k1-" + i));
+        }
+        gate.countDown();
+
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(slow.events.get(slow.events.size() - 1)).contains("event:resync");
+        assertThat(slow.events.size()).isLessThan(300);
+        assertThat(broadcaster.subscriberCount(1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop deltas queued while the snapshot was built that it already contains")
+    void shouldSkipDeltasOlderThanSnapshot() throws Exception {
+        broadcaster.subscribe(1L, () -> {
+            broadcaster.publish(1L, delta("A1", "SOLD", "k1-4"));
+            broadcaster.publish(1L, delta("A2", "HELD", "k1-5"));
+            broadcaster.publish(1L, delta("A3", "HELD", "k1-6"));
+            return seatMap("k1-5");
+        });
+        broadcaster.publish(1L, delta("A4", "SOLD", "k1-7"));
+
+        RecordingEmitter emitter = emitters.get(0);
+        awaitEvents(emitter, 3);
+        assertThat(emitter.events.get(0)).contains("event:snapshot", "id:k1-5");
+        assertThat(emitter.events.get(1)).contains("id:k1-6");
+        assertThat(emitter.events.get(2)).contains("id:k1-7");
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber whose write is stuck past the write timeout")
+    void shouldDropSubscriberWithStuckWrite() throws Exception {
+        gate = new CountDownLatch(1);
+        broadcaster.subscribe(1L, () -> seatMap("k1-0"));
+        broadcaster.subscribe(1L, () -> seatMap("k1-0"));
+        RecordingEmitter stuck = emitters.get(0);
+
+        broadcaster.publish(1L, delta("A1", "SOLD", "k1-1"));
+        Thread.sleep(200);
+        broadcaster.heartbeat();
+
+        assertThat(broadcaster.subscriberCount(1L)).isZero();
+        gate.countDown();
+        broadcaster.publish(1L, delta("A2", "SOLD", "k1-2"));
+        Thread.sleep(100);
+        assertThat(stuck.events).noneMatch(event -> event.contains("k1-2"));
+    }
+
+    @Test
+    @DisplayName("Should not keep the subscriber when the snapshot fails")
+    void shouldUnsubscribeWhenSnapshotFails() {
+        assertThatThrownBy(() -> broadcaster.subscribe(9L, () -> {
+            throw new NotFoundException("Trip 9 not found");
+        })).isInstanceOf(NotFoundException.class);
+
+        assertThat(broadcaster.subscriberCount(9L)).isZero();
+    }
+
+    private void awaitEvents(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(emitter.events).hasSize(count);
+    }
+
+    private SeatDTOs.SeatMapResponse seatMap(String version) {
+        return new SeatDTOs.SeatMapResponse(1L, 5L, Optional.empty(), Optional.empty(), new ArrayList<>(), version);
+    }
+
+    private SeatDTOs.SeatMapDelta delta(String seatNumber, String state, String version) {
+        return new SeatDTOs.SeatMapDelta(1L, seatNumber, 0, 1, state, 100L, version);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.services;
+
+import com.example.api.dto.SeatDTOs;
+import com.example.api.dto.StopDTOs;
+import com.example.domain.entities.Bus;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Seat;
+import com.example.domain.entities.Stop;
+import com.example.domain.entities.Trip;
+import com.example.domain.enums.SeatType;
+import com.example.domain.repositories.SeatRepository;
+import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TripRepository;
+import com.example.exceptions.NotFoundException;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.SeatMapService;
+import com.example.services.extra.TripSeatInventory;
+import com.example.services.mappers.StopMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Seat Map Service Unit Tests")
+class SeatMapServiceTest {
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
+    @Mock
+    private StopMapper stopMapper;
+
+    @InjectMocks
+    private SeatMapService seatMapService;
+
+    private Stop stopA;
+    private Stop stopB;
+    private Stop stopC;
+    private TripSeatInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        Route route = Route.builder().id(1L).build();
+        Bus bus = Bus.builder().id(5L).capacity(3).build();
+        Trip trip = Trip.builder().id(1L).route(route).bus(bus).build();
+
+        stopA = Stop.builder().id(10L).name("A").sequence(0).route(route).build();
+        stopB = Stop.builder().id(11L).name("B").sequence(1).route(route).build();
+        stopC = Stop.builder().id(12L).name("C").sequence(2).route(route).build();
+
+        when(seatInventoryService.getVersionTag(any())).thenReturn("k1-0");
+        inventory = new TripSeatInventory(1L, 1L, 1L, 40, new int[] { 0, 1, 2 });
+        // A1 sold A -> B, A2 held B -> C, A3 free
+        inventory.addTicket(100L, "A1", 0, 1, "A", "B");
+        inventory.addHold(200L, "A2", 1, 2, "B", "C", LocalDateTime.now().plusMinutes(5));
+
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(1L)).thenReturn(List.of(stopA, stopB, stopC));
+        when(seatRepository.findByBus_Id(5L)).thenReturn(List.of(
+                Seat.builder().id(1L).number("A1").type(SeatType.STANDARD).bus(bus).build(),
+                Seat.builder().id(2L).number("A2").type(SeatType.STANDARD).bus(bus).build(),
+                Seat.builder().id(3L).number("A3").type(SeatType.PREFERENTIAL).bus(bus).build()));
+        when(seatInventoryService.getInventory(1L)).thenReturn(inventory);
+        when(stopMapper.toResponse(any(Stop.class))).thenAnswer(invocation -> {
+            Stop stop = invocation.getArgument(0);
+            return new StopDTOs.StopResponse(stop.getId(), stop.getName(), stop.getSequence(), null, null, 1L);
+        });
+    }
+
+    @Test
+    @DisplayName("Should mark seats available per requested segment")
+    void shouldComputeSegmentAvailability() {
+        SeatDTOs.SeatMapResponse firstLeg = seatMapService.getSeatMap(1L, 10L, 11L);
+        SeatDTOs.SeatMapResponse secondLeg = seatMapService.getSeatMap(1L, 11L, 12L);
+        SeatDTOs.SeatMapResponse wholeTrip = seatMapService.getSeatMap(1L, null, null);
+
+        assertThat(firstLeg.seats()).extracting(SeatDTOs.SeatMapSeat::available).containsExactly(false, true, true);
+        assertThat(secondLeg.seats()).extracting(SeatDTOs.SeatMapSeat::available).containsExactly(true, false, true);
+        assertThat(wholeTrip.seats()).extracting(SeatDTOs.SeatMapSeat::available).containsExactly(false, false, true);
+        verify(seatInventoryService, times(3)).getInventory(1L);
+    }
+
+    @Test
+    @DisplayName("Should attach bookings with their stops to each seat")
+    void shouldAttachBookings() {
+        SeatDTOs.SeatMapResponse seatMap = seatMapService.getSeatMap(1L, null, null);
+
+        SeatDTOs.SeatMapBooking ticket = seatMap.seats().get(0).bookings().get(0);
+        assertThat(ticket.id()).isEqualTo(100L);
+        assertThat(ticket.hold()).isFalse();
+        assertThat(ticket.fromStop()).map(StopDTOs.StopResponse::name).contains("A");
+        assertThat(ticket.toStop()).map(StopDTOs.StopResponse::name).contains("B");
+        assertThat(seatMap.seats().get(1).bookings().get(0).hold()).isTrue();
+        assertThat(seatMap.seats().get(2).bookings()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject stops that are not on the trip route")
+    void shouldRejectForeignStop() {
+        assertThatThrownBy(() -> seatMapService.getSeatMap(1L, 99L, null))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> seatMapService.getSeatMap(1L, 12L, 10L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep the full seat view for a bus and trip")
+    void shouldBuildFullSeats() {
+        List<SeatDTOs.SeatReponseFull> seats = seatMapService.getFullSeats(5L, 1L);
+
+        assertThat(seats).hasSize(3);
+        assertThat(seats.get(0).ticketId()).contains(100L);
+        assertThat(seats.get(1).seatHoldId()).contains(200L);
+        assertThat(seats.get(2).ticketId()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should serve the cached seat map until the trip version changes")
+    void shouldCacheSeatMapPerVersion() {
+        when(seatInventoryService.getVersionTag(1L)).thenReturn("k1-7");
+
+        SeatDTOs.SeatMapResponse first = seatMapService.getSeatMap(1L, 10L, 11L);
+        SeatDTOs.SeatMapResponse second = seatMapService.getSeatMap(1L, 10L, 11L);
+        assertThat(second).isSameAs(first);
+        verify(seatRepository, times(1)).findByBus_Id(5L);
+
+        // another segment is cached separately
+        seatMapService.getSeatMap(1L, 11L, 12L);
+        verify(seatRepository, times(2)).findByBus_Id(5L);
+
+        when(seatInventoryService.getVersionTag(1L)).thenReturn("k1-8");
+        SeatDTOs.SeatMapResponse third = seatMapService.getSeatMap(1L, 10L, 11L);
+        assertThat(third).isNotSameAs(first);
+        assertThat(third.version()).isNotEqualTo(first.version()).endsWith("-8");
+    }
+}
@@ -6,13 +6,12 @@ import com.example.domain.entities.Seat;
 import com.example.domain.enums.BusStatus;
 import com.example.domain.enums.SeatType;
 import com.example.domain.repositories.BusRepository;
-import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.SeatRepository;
-import com.example.domain.repositories.TicketRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.SeatMapService;
 import com.example.services.implementations.SeatServiceImpl;
 import com.example.services.mappers.SeatMapper;
-import com.example.services.mappers.StopMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -39,17 +38,14 @@ class SeatServiceTest {
     @Mock
     private SeatMapper seatMapper;
 
-    @Mock
-    private StopMapper stopMapper;
-
     @Mock
     private BusRepository busRepository;
 
     @Mock
-    private SeatHoldRepository seatHoldRepository;
+    private SeatMapService seatMapService;
 
     @Mock
-    private TicketRepository ticketRepository;
+    private SeatInventoryService seatInventoryService;
 
     @InjectMocks
     private SeatServiceImpl seatService;
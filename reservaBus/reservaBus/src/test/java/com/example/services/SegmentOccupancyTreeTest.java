@@ -0,0 +1,56 @@
+package com.example.services;
+
+import com.example.services.extra.SegmentOccupancyTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Segment Occupancy Tree Unit Tests")
+class SegmentOccupancyTreeTest {
+
+    @Test
+    @DisplayName("Should track range adds and range max")
+    void shouldTrackRangeMax() {
+        SegmentOccupancyTree tree = new SegmentOccupancyTree(5);
+        tree.add(0, 2, 1);
+        tree.add(1, 4, 1);
+        tree.add(4, 4, 2);
+
+        assertThat(tree.max(0, 0)).isEqualTo(1);
+        assertThat(tree.max(1, 2)).isEqualTo(2);
+        assertThat(tree.max(0, 4)).isEqualTo(3);
+
+        tree.add(4, 4, -2);
+        assertThat(tree.max(3, 4)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should match a plain array on random updates")
+    void shouldMatchNaiveCounts() {
+        int cells = 13;
+        SegmentOccupancyTree tree = new SegmentOccupancyTree(cells);
+        int[] counts = new int[cells];
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            int first = random.nextInt(cells);
+            int last = first + random.nextInt(cells - first);
+            if (random.nextBoolean()) {
+                int delta = random.nextInt(5) - 2;
+                tree.add(first, last, delta);
+                for (int cell = first; cell <= last; cell++) {
+                    counts[cell] += delta;
+                }
+            } else {
+                int expected = Integer.MIN_VALUE;
+                for (int cell = first; cell <= last; cell++) {
+                    expected = Math.max(expected, counts[cell]);
+                }
+                assertThat(tree.max(first, last)).isEqualTo(expected);
+            }
+        }
+    }
+}
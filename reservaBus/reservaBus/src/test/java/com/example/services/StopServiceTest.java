@@ -4,8 +4,16 @@ import com.example.api.dto.StopDTOs;
 import com.example.domain.entities.Route;
 import com.example.domain.entities.Stop;
 import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.SeatHoldRepository;
 import com.example.domain.repositories.StopRepository;
+import com.example.domain.repositories.TicketRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.PlaceAutocompleteIndex;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.RouteTopologyCache;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.TripSearchCache;
 import com.example.services.implementations.StopServiceImpl;
 import com.example.services.mappers.StopMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,6 +43,30 @@ class StopServiceTest {
     @Mock
     private RouteRepository routeRepository;
 
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private SeatHoldRepository seatHoldRepository;
+
+    @Mock
+    private RouteStopPairIndex routeStopPairIndex;
+
+    @Mock
+    private PlaceAutocompleteIndex placeAutocompleteIndex;
+
+    @Mock
+    private TripSearchCache tripSearchCache;
+
+    @Mock
+    private JourneyPlanner journeyPlanner;
+
+    @Mock
+    private RouteTopologyCache routeTopologyCache;
+
     @InjectMocks
     private StopServiceImpl stopService;
 
@@ -4,11 +4,19 @@ import com.example.api.dto.TicketDTOs;
 import com.example.domain.entities.*;
 import com.example.domain.enums.FareRulePassengerType;
 import com.example.domain.enums.PaymentMethod;
+import com.example.domain.enums.PaymentStatus;
 import com.example.domain.enums.TicketStatus;
+import com.example.domain.enums.TripStatus;
 import com.example.domain.repositories.*;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
 import com.example.security.services.AuthenticationService;
+import com.example.services.extra.BookingSequencer;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.RouteTopology;
+import com.example.services.extra.RouteTopologyCache;
 import com.example.services.extra.SeatAvailabilityService;
+import com.example.services.extra.SeatInventoryService;
 import com.example.services.implementations.TicketServiceImpl;
 import com.example.services.mappers.TicketMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,11 +29,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -54,10 +68,28 @@ class TicketServiceTest {
         private AuthenticationService authenticationService;
 
         @Mock
-        private FareRuleRepository fareRuleRepository;
+        private SeatAvailabilityService seatAvailabilityService;
 
         @Mock
-        private SeatAvailabilityService seatAvailabilityService;
+        private SeatInventoryService seatInventoryService;
+
+        @Mock
+        private BaggageRepository baggageRepository;
+
+        @Mock
+        private BookingSequencer bookingSequencer;
+
+        @Mock
+        private SeatHoldRepository seatHoldRepository;
+
+        @Mock
+        private RouteTopologyCache routeTopologyCache;
+
+        @Mock
+        private DynamicPricingEngine dynamicPricingEngine;
+
+        @Mock
+        private DailyRollupService dailyRollupService;
 
         @InjectMocks
         private TicketServiceImpl ticketService;
@@ -66,7 +98,6 @@ class TicketServiceTest {
         private Trip trip;
         private Route route;
         private Account account;
-        private FareRule fareRule;
         private Stop fromStop;
         private Stop toStop;
         private TicketDTOs.TicketResponse ticketResponse;
@@ -75,6 +106,14 @@ class TicketServiceTest {
 
         @BeforeEach
         void setUp() {
+                lenient().when(bookingSequencer.submit(anyLong(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Function<Object, ?>>getArgument(2)
+                                                .apply(invocation.<Supplier<?>>getArgument(1).get()));
+                lenient().when(bookingSequencer.submit(anyCollection(), any(), any()))
+                                .thenAnswer(invocation -> invocation.<Function<Object, ?>>getArgument(2)
+                                                .apply(invocation.<Supplier<?>>getArgument(1).get()));
+                lenient().when(ticketRepository.findTripIdById(anyLong())).thenReturn(Optional.of(1L));
+
                 account = Account.builder().id(1L).email("test@test.com").build();
 
                 route = Route.builder()
@@ -83,14 +122,6 @@ class TicketServiceTest {
                                 .pricePerKm(0.5)
                                 .build();
 
-                fareRule = FareRule.builder()
-                                .id(1L)
-                                .route(route)
-                                .childrenDiscount(0.5)
-                                .seniorDiscount(0.3)
-                                .studentDiscount(0.2)
-                                .build();
-
                 Bus bus = Bus.builder()
                                 .id(1L)
                                 .capacity(40)
@@ -100,6 +131,8 @@ class TicketServiceTest {
                                 .id(1L)
                                 .route(route)
                                 .bus(bus)
+                                .status(TripStatus.SCHEDULED)
+                                .departureAt(LocalDateTime.now().plusDays(1))
                                 .build();
 
                 fromStop = Stop.builder()
@@ -114,6 +147,11 @@ class TicketServiceTest {
                                 .sequence(1)
                                 .build();
 
+                lenient().when(routeTopologyCache.get(1L))
+                                .thenReturn(RouteTopology.of(1L, 1L, List.of(fromStop, toStop)));
+                lenient().when(dynamicPricingEngine.quote(any(Trip.class), anyInt(), anyInt(), any()))
+                                .thenReturn(new DynamicPricingEngine.Quote(DynamicPricingEngine.BASE_STEP, 50.0));
+
                 ticket = Ticket.builder()
                                 .id(1L)
                                 .seatNumber("A1")
@@ -168,14 +206,13 @@ class TicketServiceTest {
                 // Given
                 when(authenticationService.getCurrentAccount()).thenReturn(account);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(stopRepository.findById(1L)).thenReturn(Optional.of(fromStop));
-                when(stopRepository.findById(2L)).thenReturn(Optional.of(toStop));
-                when(seatAvailabilityService.isSeatAvailable(any(), any(), any(), any())).thenReturn(true);
+                when(stopRepository.getReferenceById(1L)).thenReturn(fromStop);
+                when(stopRepository.getReferenceById(2L)).thenReturn(toStop);
+                when(seatAvailabilityService.isSeatAvailable(1L, "A1", 0, 1)).thenReturn(true);
                 when(ticketRepository.findByTrip_IdAndStatus(1L, TicketStatus.CONFIRMED))
                                 .thenReturn(java.util.Collections.emptyList());
-                when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
                 when(accountRepository.getReferenceById(1L)).thenReturn(account);
-                when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
+                when(ticketRepository.saveAndFlush(any(Ticket.class))).thenReturn(ticket);
                 when(ticketMapper.toResponse(ticket)).thenReturn(ticketResponse);
 
                 // When
@@ -184,7 +221,69 @@ class TicketServiceTest {
                 // Then
                 assertThat(result).isNotNull();
                 assertThat(result.id()).isEqualTo(1L);
-                verify(ticketRepository).save(any(Ticket.class));
+                verify(ticketRepository).saveAndFlush(argThat(created -> created.getFromSequence() == 0
+                                && created.getToSequence() == 1 && created.getFromStop() == fromStop));
+                verify(stopRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Should reject a stop that is not on the trip's route")
+        void shouldRejectStopOutsideRoute() {
+                // Given
+                var request = new TicketDTOs.CreateTicketRequest("A1", 1L, Optional.of(9L), Optional.of(2L),
+                                PaymentMethod.CASH, null, FareRulePassengerType.ADULT);
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.createTicket(request))
+                                .isInstanceOf(NotFoundException.class)
+                                .hasMessageContaining("Stop 9 not found on route 1");
+                verify(ticketRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Should quote a batch with one trip query and one step per segment")
+        void shouldQuoteBatch() {
+                // Given
+                var request = new TicketDTOs.QuoteRequest(List.of(
+                                new TicketDTOs.QuoteItem(1L, Optional.of(1L), Optional.of(2L),
+                                                FareRulePassengerType.ADULT),
+                                new TicketDTOs.QuoteItem(1L, Optional.of(1L), Optional.of(2L),
+                                                FareRulePassengerType.CHILD),
+                                new TicketDTOs.QuoteItem(1L, Optional.empty(), Optional.empty(),
+                                                FareRulePassengerType.ADULT)));
+                when(tripRepository.findAllById(List.of(1L))).thenReturn(List.of(trip));
+                when(dynamicPricingEngine.currentStep(trip, 0, 1)).thenReturn(2);
+                when(dynamicPricingEngine.currentStep(trip, Integer.MIN_VALUE, Integer.MAX_VALUE)).thenReturn(1);
+                when(dynamicPricingEngine.price(1L, 0, 1, 2, FareRulePassengerType.ADULT)).thenReturn(40.0);
+                when(dynamicPricingEngine.price(1L, 0, 1, 2, FareRulePassengerType.CHILD)).thenReturn(20.0);
+                when(dynamicPricingEngine.price(1L, Integer.MIN_VALUE, Integer.MAX_VALUE, 1,
+                                FareRulePassengerType.ADULT)).thenReturn(50.0);
+
+                // When
+                var result = ticketService.quote(request);
+
+                // Then
+                assertThat(result.items()).extracting(TicketDTOs.QuoteLine::price).containsExactly(40.0, 20.0, 50.0);
+                assertThat(result.items()).extracting(TicketDTOs.QuoteLine::fareStep).containsExactly(2, 2, 1);
+                assertThat(result.total()).isEqualTo(110.0);
+                verify(tripRepository, times(1)).findAllById(any());
+                verify(dynamicPricingEngine, times(1)).currentStep(trip, 0, 1);
+        }
+
+        @Test
+        @DisplayName("Should reject a quote for an unknown trip")
+        void shouldRejectQuoteForUnknownTrip() {
+                // Given
+                var request = new TicketDTOs.QuoteRequest(List.of(new TicketDTOs.QuoteItem(5L, Optional.empty(),
+                                Optional.empty(), FareRulePassengerType.ADULT)));
+                when(tripRepository.findAllById(List.of(5L))).thenReturn(List.of());
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.quote(request))
+                                .isInstanceOf(NotFoundException.class)
+                                .hasMessageContaining("Trip 5 not found");
         }
 
         @Test
@@ -224,7 +323,6 @@ class TicketServiceTest {
                 when(stopRepository.existsById(2L)).thenReturn(true);
                 when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
                 when(authenticationService.getCurrentAccount()).thenReturn(account);
-                when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
                 when(ticketRepository.save(ticket)).thenReturn(ticket);
                 when(ticketMapper.toResponse(ticket)).thenReturn(ticketResponse);
 
@@ -248,6 +346,26 @@ class TicketServiceTest {
 
                 // Then
                 verify(ticketRepository).delete(ticket);
+                verify(dailyRollupService).recordRemoval(ticket);
+        }
+
+        @Test
+        @DisplayName("Should count a cancellation on the day it happens")
+        void shouldRecordCancellationInRollups() {
+                // Given
+                trip.setDepartureAt(LocalDateTime.now().plusDays(2));
+                when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(ticketRepository.save(ticket)).thenReturn(ticket);
+                when(ticketMapper.toResponse(ticket)).thenReturn(ticketResponse);
+
+                // When
+                ticketService.cancelTicket(1L);
+
+                // Then
+                assertThat(ticket.getStatus()).isEqualTo(TicketStatus.CANCELLED);
+                assertThat(ticket.getCancelledAt()).isNotNull();
+                verify(dailyRollupService).recordStatusChange(ticket, TicketStatus.CONFIRMED);
         }
 
         @Test
@@ -335,21 +453,24 @@ class TicketServiceTest {
 
                 when(authenticationService.getCurrentAccount()).thenReturn(account);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(seatAvailabilityService.isSeatAvailable(any(), any(), any(), any())).thenReturn(true);
+                when(seatAvailabilityService.isSeatAvailable(anyLong(), anyString(), anyInt(), anyInt()))
+                                .thenReturn(true);
                 when(ticketRepository.findByTrip_IdAndStatus(1L, TicketStatus.CONFIRMED))
                                 .thenReturn(java.util.Collections.emptyList());
-                when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
                 when(accountRepository.getReferenceById(1L)).thenReturn(account);
-                when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
+                when(ticketRepository.saveAndFlush(any(Ticket.class))).thenReturn(ticket);
                 when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(ticketResponse);
+                when(dynamicPricingEngine.quote(trip, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                                FareRulePassengerType.CHILD)).thenReturn(new DynamicPricingEngine.Quote(2, 27.5));
 
                 // When
                 TicketDTOs.TicketResponse result = ticketService.createTicket(childRequest);
 
                 // Then
                 assertThat(result).isNotNull();
-                verify(ticketRepository).save(any(Ticket.class));
-                // Child discount should be applied (50% off according to fareRule)
+                // the quoted price and the step it was sold at are stored on the ticket
+                verify(ticketRepository).saveAndFlush(argThat(saved -> saved.getPrice() == 27.5
+                                && saved.getFareStep() == 2));
         }
 
         @Test
@@ -367,12 +488,12 @@ class TicketServiceTest {
 
                 when(authenticationService.getCurrentAccount()).thenReturn(account);
                 when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
-                when(seatAvailabilityService.isSeatAvailable(any(), any(), any(), any())).thenReturn(true);
+                when(seatAvailabilityService.isSeatAvailable(anyLong(), anyString(), anyInt(), anyInt()))
+                                .thenReturn(true);
                 when(ticketRepository.findByTrip_IdAndStatus(1L, TicketStatus.CONFIRMED))
                                 .thenReturn(java.util.Collections.emptyList());
-                when(fareRuleRepository.findByRouteId(1L)).thenReturn(fareRule);
                 when(accountRepository.getReferenceById(1L)).thenReturn(account);
-                when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
+                when(ticketRepository.saveAndFlush(any(Ticket.class))).thenReturn(ticket);
                 when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(ticketResponse);
 
                 // When
@@ -380,6 +501,166 @@ class TicketServiceTest {
 
                 // Then
                 assertThat(result).isNotNull();
-                verify(ticketRepository).save(any(Ticket.class));
+                verify(ticketRepository).saveAndFlush(any(Ticket.class));
+        }
+
+        @Test
+        @DisplayName("Should convert holds into paid tickets on checkout")
+        void shouldCheckoutHolds() {
+                // Given
+                SeatHold hold = SeatHold.builder().id(7L).seatNumber("A1").trip(trip).account(account)
+                                .fromStop(fromStop).toStop(toStop).expiresAt(LocalDateTime.now().plusMinutes(5))
+                                .build();
+                var checkoutRequest = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.CHILD)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findAllById(List.of(7L))).thenReturn(List.of(hold));
+                // the hold has no quoted step, checkout charges the base step
+                when(dynamicPricingEngine.price(1L, 0, 1, DynamicPricingEngine.BASE_STEP,
+                                FareRulePassengerType.CHILD)).thenReturn(25.0);
+                when(accountRepository.getReferenceById(1L)).thenReturn(account);
+                when(ticketRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+                when(ticketMapper.toResponse(any(Ticket.class))).thenReturn(ticketResponse);
+
+                // When
+                var result = ticketService.checkout(checkoutRequest);
+
+                // Then
+                assertThat(result).hasSize(1);
+                verify(ticketRepository).saveAll(argThat(tickets -> {
+                        Ticket created = tickets.iterator().next();
+                        return created.getPrice() == 25.0
+                                        && created.getPaymentStatus() == PaymentStatus.COMPLETED
+                                        && created.getStatus() == TicketStatus.CONFIRMED
+                                        && created.getQrCode() != null;
+                }));
+                verify(bookingSequencer).submit(eq(1L), any(), any());
+                verify(seatHoldRepository).deleteAllInBatch(List.of(hold));
+                verify(seatAvailabilityService, never()).isSeatAvailable(anyLong(), anyString(), anyInt(), anyInt());
+                verify(seatInventoryService).releaseHold(hold);
+                verify(seatInventoryService).recordTicket(any(Ticket.class));
+        }
+
+        @Test
+        @DisplayName("Should reject checkout of an expired hold")
+        void shouldRejectCheckoutOfExpiredHold() {
+                // Given
+                SeatHold hold = SeatHold.builder().id(7L).seatNumber("A1").trip(trip).account(account)
+                                .expiresAt(LocalDateTime.now().minusMinutes(1)).build();
+                var checkoutRequest = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findAllById(List.of(7L))).thenReturn(List.of(hold));
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.checkout(checkoutRequest))
+                                .isInstanceOf(IllegalStateException.class)
+                                .hasMessageContaining("SeatHold 7 has expired");
+                verify(ticketRepository, never()).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("Should not checkout holds of another account")
+        void shouldRejectCheckoutOfForeignHold() {
+                // Given
+                Account other = Account.builder().id(2L).build();
+                SeatHold hold = SeatHold.builder().id(7L).seatNumber("A1").trip(trip).account(other)
+                                .expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+                var checkoutRequest = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findAllById(List.of(7L))).thenReturn(List.of(hold));
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.checkout(checkoutRequest))
+                                .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should count the earlier items of a checkout towards the approval rule")
+        void shouldCountCheckoutItemsTowardsApproval() {
+                // Given
+                SeatHold first = SeatHold.builder().id(7L).seatNumber("A1").trip(trip).account(account)
+                                .fromStop(fromStop).toStop(toStop).expiresAt(LocalDateTime.now().plusMinutes(5))
+                                .build();
+                SeatHold second = SeatHold.builder().id(8L).seatNumber("A2").trip(trip).account(account)
+                                .fromStop(fromStop).toStop(toStop).expiresAt(LocalDateTime.now().plusMinutes(5))
+                                .build();
+                var checkoutRequest = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT),
+                                                new TicketDTOs.CheckoutItem(8L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L, 8L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findAllById(List.of(7L, 8L))).thenReturn(List.of(first, second));
+                // 37 of 40 sold, the first ticket is the 38th seat at 92.5%, the second the 39th at 95%
+                when(seatAvailabilityService.getOccupiedSeatsInSegment(1L, 0, 1)).thenReturn(37);
+                when(ticketRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // When
+                ticketService.checkout(checkoutRequest);
+
+                // Then
+                verify(ticketRepository).saveAll(argThat(tickets -> {
+                        var iterator = tickets.iterator();
+                        Ticket firstTicket = iterator.next();
+                        Ticket secondTicket = iterator.next();
+                        return firstTicket.getStatus() == TicketStatus.CONFIRMED
+                                        && secondTicket.getStatus() == TicketStatus.PENDING_APPROVAL
+                                        && !firstTicket.getQrCode().equals(secondTicket.getQrCode());
+                }));
+        }
+
+        @Test
+        @DisplayName("Should reject checkout of holds on a departed trip")
+        void shouldRejectCheckoutOnDepartedTrip() {
+                // Given
+                trip.setStatus(TripStatus.DEPARTED);
+                SeatHold hold = SeatHold.builder().id(7L).seatNumber("A1").trip(trip).account(account)
+                                .expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+                var checkoutRequest = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findAllById(List.of(7L))).thenReturn(List.of(hold));
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.checkout(checkoutRequest))
+                                .isInstanceOf(IllegalStateException.class)
+                                .hasMessageContaining("Trip 1 has already departed");
+                verify(ticketRepository, never()).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("Should reject a checkout spanning several trips and holds without an account")
+        void shouldRejectInvalidCheckoutHolds() {
+                // Given
+                SeatHold orphan = SeatHold.builder().id(7L).seatNumber("A1").trip(trip)
+                                .expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+                var single = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                var spanning = new TicketDTOs.CheckoutRequest(
+                                List.of(new TicketDTOs.CheckoutItem(7L, FareRulePassengerType.ADULT),
+                                                new TicketDTOs.CheckoutItem(9L, FareRulePassengerType.ADULT)),
+                                PaymentMethod.CARD, "pi_123");
+                when(authenticationService.getCurrentAccount()).thenReturn(account);
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L))).thenReturn(List.of(1L));
+                when(seatHoldRepository.findTripIdsByIdIn(List.of(7L, 9L))).thenReturn(List.of(1L, 2L));
+                when(seatHoldRepository.findAllById(List.of(7L))).thenReturn(List.of(orphan));
+
+                // When & Then
+                assertThatThrownBy(() -> ticketService.checkout(single))
+                                .isInstanceOf(NotFoundException.class);
+                assertThatThrownBy(() -> ticketService.checkout(spanning))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("same trip");
         }
-}
\ No newline at end of file
+}
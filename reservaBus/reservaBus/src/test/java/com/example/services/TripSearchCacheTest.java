@@ -0,0 +1,171 @@
+package com.example.services;
+
+import com.example.api.dto.TripDTOs;
+import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
+import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.StopRepository;
+import com.example.services.extra.TripSearchCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Trip Search Cache Unit Tests")
+class TripSearchCacheTest {
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @InjectMocks
+    private TripSearchCache cache;
+
+    @Test
+    @DisplayName("Should serve a repeated search with the same normalized terms from the cache")
+    void shouldHitOnNormalizedKey() {
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get(key("Bogotá", "Santa Marta"), () -> page(searches, 1L));
+        TripDTOs.TripSearchResponse cached = cache.get(key(" BOGOTA ", "santa  marta"), () -> page(searches, 1L));
+
+        assertThat(searches).hasValue(1);
+        assertThat(cached.trips()).hasSize(1);
+        assertThat(cache.getMetrics().getHits()).isEqualTo(1L);
+        assertThat(cache.getMetrics().getMisses()).isEqualTo(1L);
+        assertThat(cache.getMetrics().getHitRate()).isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Should leave out trips that departed after the page was cached")
+    void shouldSkipDepartedTripsOnHit() {
+        AtomicInteger searches = new AtomicInteger();
+        LocalDateTime departed = LocalDateTime.now().minusMinutes(1);
+        TripDTOs.TripResponse gone = new TripDTOs.TripResponse(7L, 1L, 1L, departed, departed.plusHours(2));
+
+        cache.get(key("Bogota", "Tunja"), () -> {
+            TripDTOs.TripSearchResponse page = page(searches, 1L);
+            return new TripDTOs.TripSearchResponse(List.of(gone, page.trips().get(0)), List.of(), List.of(), null,
+                    Map.of(), Map.of());
+        });
+        TripDTOs.TripSearchResponse cached = cache.get(key("Bogota", "Tunja"), () -> page(searches));
+
+        assertThat(searches).hasValue(1);
+        assertThat(cached.trips()).extracting(TripDTOs.TripResponse::id).containsExactly(10L);
+    }
+
+    @Test
+    @DisplayName("Should evict pages listing the route and pages the route now serves")
+    void shouldEvictByRoute() {
+        AtomicInteger searches = new AtomicInteger();
+        Route route = Route.builder().id(2L).origin("Cali").destination("Pasto").build();
+        when(routeRepository.findById(2L)).thenReturn(Optional.of(route));
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(2L)).thenReturn(List.of(
+                stop("Cali", 0, route), stop("Popayán", 1, route), stop("Pasto", 2, route)));
+
+        cache.get(key("Bogota", "Tunja"), () -> page(searches, 2L));
+        cache.get(key("popayan", "pasto"), () -> page(searches));
+        cache.get(key("pasto", "popayan"), () -> page(searches));
+        cache.get(key("medellin", "cartagena"), () -> page(searches, 5L));
+
+        cache.evictRoute(2L);
+
+        assertThat(cache.getMetrics().getSize()).isEqualTo(2L);
+        cache.get(key("Bogota", "Tunja"), () -> page(searches, 2L));
+        cache.get(key("popayan", "pasto"), () -> page(searches));
+        cache.get(key("pasto", "popayan"), () -> page(searches));
+        cache.get(key("medellin", "cartagena"), () -> page(searches, 5L));
+        assertThat(searches).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("Should evict misspelled searches the route now serves")
+    void shouldEvictTypoSearch() {
+        AtomicInteger searches = new AtomicInteger();
+        Route route = Route.builder().id(2L).origin("Cali").destination("Pasto").build();
+        when(routeRepository.findById(2L)).thenReturn(Optional.of(route));
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(2L)).thenReturn(List.of(
+                stop("Cali", 0, route), stop("Popayán", 1, route), stop("Pasto", 2, route)));
+
+        cache.get(key("Popayn", "Psto"), () -> page(searches));
+        cache.get(key("Medellin", "Cartagena"), () -> page(searches));
+
+        cache.evictRoute(2L);
+
+        assertThat(cache.getMetrics().getSize()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should read the route in the writing transaction and evict without queries after commit")
+    void shouldNotQueryAfterCommit() {
+        AtomicInteger searches = new AtomicInteger();
+        Route route = Route.builder().id(2L).origin("Cali").destination("Pasto").build();
+        when(routeRepository.findById(2L)).thenReturn(Optional.of(route));
+        when(stopRepository.findByRoute_IdOrderBySequenceAsc(2L)).thenReturn(List.of(
+                stop("Cali", 0, route), stop("Pasto", 2, route)));
+        cache.get(key("cali", "pasto"), () -> page(searches));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evictRoute(2L);
+            assertThat(cache.getMetrics().getSize()).isEqualTo(1L);
+            clearInvocations(routeRepository, stopRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.getMetrics().getSize()).isZero();
+        verifyNoInteractions(routeRepository, stopRepository);
+    }
+
+    @Test
+    @DisplayName("Should not store a page computed while an eviction happened")
+    void shouldNotStoreStaleResult() {
+        AtomicInteger searches = new AtomicInteger();
+        when(routeRepository.findById(1L)).thenReturn(Optional.empty());
+
+        cache.get(key("Bogota", "Tunja"), () -> {
+            cache.evictRoute(1L);
+            return page(searches);
+        });
+        cache.get(key("Bogota", "Tunja"), () -> page(searches));
+
+        assertThat(searches).hasValue(2);
+    }
+
+    private TripSearchCache.SearchKey key(String origin, String destination) {
+        return TripSearchCache.SearchKey.of(origin, destination, Optional.empty(), Optional.empty(), 50);
+    }
+
+    private TripDTOs.TripSearchResponse page(AtomicInteger searches, Long... routeIds) {
+        searches.incrementAndGet();
+        List<TripDTOs.TripResponse> trips = Arrays.stream(routeIds)
+                .map(routeId -> new TripDTOs.TripResponse(routeId * 10, routeId, 1L, LocalDateTime.now().plusHours(1),
+                        LocalDateTime.now().plusHours(3)))
+                .toList();
+        return new TripDTOs.TripSearchResponse(trips, List.of(), List.of(), null, Map.of(), Map.of());
+    }
+
+    private Stop stop(String name, int sequence, Route route) {
+        return Stop.builder().name(name).sequence(sequence).route(route).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.services;
+
+import com.example.services.extra.TripSeatInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Trip Seat Inventory Unit Tests")
+class TripSeatInventoryTest {
+
+    private static final int ORIGIN = Integer.MIN_VALUE;
+    private static final int DESTINATION = Integer.MAX_VALUE;
+
+    private TripSeatInventory inventory;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        // stops A(0) B(1) C(2) D(3)
+        inventory = new TripSeatInventory(1L, 1L, 1L, 40, new int[] { 0, 1, 2, 3 });
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    @DisplayName("Should report unknown seats as available")
+    void shouldReportUnknownSeatAsAvailable() {
+        assertThat(inventory.isAvailable("A1", ORIGIN, DESTINATION, now, null)).isTrue();
+        assertThat(inventory.conflictReason("A1", ORIGIN, DESTINATION, now)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should block overlapping segments and allow adjacent ones")
+    void shouldBlockOverlappingSegmentsOnly() {
+        inventory.addTicket(10L, "A1", 0, 2, "A", "C");
+
+        assertThat(inventory.isAvailable("A1", 1, 3, now, null)).isFalse();
+        assertThat(inventory.isAvailable("A1", ORIGIN, DESTINATION, now, null)).isFalse();
+        assertThat(inventory.isAvailable("A1", 2, 3, now, null)).isTrue();
+        assertThat(inventory.isAvailable("A1", ORIGIN, 0, now, null)).isTrue();
+        assertThat(inventory.isAvailable("A2", 0, 2, now, null)).isTrue();
+        assertThat(inventory.conflictReason("A1", 1, 3, now)).isEqualTo("Already sold: A -> C");
+    }
+
+    @Test
+    @DisplayName("Should ignore expired holds and honour the excluded hold")
+    void shouldHandleHoldExpiryAndExclusion() {
+        inventory.addHold(20L, "B1", 1, 3, "B", "D", LocalDateTime.now().plusMinutes(5));
+        inventory.addHold(21L, "B2", 1, 3, "B", "D", LocalDateTime.now().minusMinutes(1));
+
+        assertThat(inventory.isAvailable("B1", 2, DESTINATION, now, null)).isFalse();
+        assertThat(inventory.isAvailable("B1", 2, DESTINATION, now, 20L)).isTrue();
+        assertThat(inventory.isAvailable("B2", 2, DESTINATION, now, null)).isTrue();
+        assertThat(inventory.conflictReason("B1", 0, 2, now)).startsWith("On hold: B -> D");
+    }
+
+    @Test
+    @DisplayName("Should free only the released booking cells")
+    void shouldRebuildSeatRowOnRelease() {
+        inventory.addTicket(10L, "A1", 0, 1, "A", "B");
+        inventory.addTicket(11L, "A1", 2, 3, "C", "D");
+
+        assertThat(inventory.removeTicket(10L)).isTrue();
+        assertThat(inventory.removeTicket(10L)).isFalse();
+
+        assertThat(inventory.isAvailable("A1", 0, 2, now, null)).isTrue();
+        assertThat(inventory.isAvailable("A1", 2, 3, now, null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should report the peak number of seats sold inside a segment")
+    void shouldCountOccupiedSeats() {
+        inventory.addTicket(10L, "A1", 0, 1, "A", "B");
+        inventory.addTicket(11L, "A2", 1, 3, "B", "D");
+        inventory.addTicket(12L, "A3", ORIGIN, DESTINATION, "origin", "destination");
+        inventory.addTicket(13L, "A4", 2, 3, "C", "D");
+
+        assertThat(inventory.occupiedSeats(0, 1)).isEqualTo(2);
+        // A1 and A2 never ride together, the busiest stretch is C -> D
+        assertThat(inventory.occupiedSeats(ORIGIN, DESTINATION)).isEqualTo(3);
+        assertThat(inventory.occupiedSeats(0, 2)).isEqualTo(2);
+        assertThat(inventory.occupiedSeats(3, DESTINATION)).isEqualTo(1);
+
+        inventory.removeTicket(12L);
+        assertThat(inventory.occupiedSeats(ORIGIN, DESTINATION)).isEqualTo(2);
+        // re-adding the same ticket is not counted twice
+        inventory.addTicket(13L, "A4", 2, 3, "C", "D");
+        assertThat(inventory.occupiedSeats(2, 3)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count the distinct seats sold or held live inside a segment")
+    void shouldCountTakenSeats() {
+        inventory.addTicket(10L, "A1", 0, 1, "A", "B");
+        inventory.addTicket(11L, "A1", 2, 3, "C", "D");
+        inventory.addHold(20L, "A2", 1, 2, "B", "C", LocalDateTime.now().plusMinutes(5));
+        inventory.addHold(21L, "A3", 0, 3, "A", "D", LocalDateTime.now().minusMinutes(1));
+
+        // A1 counts once even though two of its tickets fall inside, the expired hold not at all
+        assertThat(inventory.takenSeats(ORIGIN, DESTINATION, now)).isEqualTo(2);
+        assertThat(inventory.takenSeats(1, 2, now)).isEqualTo(1);
+        assertThat(inventory.takenSeats(3, DESTINATION, now)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should grow beyond the initial seat rows")
+    void shouldGrowSeatRows() {
+        for (int i = 0; i < 60; i++) {
+            inventory.addTicket(i, "S" + i, 0, 1, "A", "B");
+        }
+
+        assertThat(inventory.occupiedSeats(0, 1)).isEqualTo(60);
+        assertThat(inventory.isAvailable("S59", 0, 1, now, null)).isFalse();
+        assertThat(inventory.isAvailable("S59", 1, 2, now, null)).isTrue();
+    }
+}
@@ -1,14 +1,30 @@
 package com.example.services;
 
+import com.example.api.dto.RouteDTOs;
+import com.example.api.dto.StopDTOs;
 import com.example.api.dto.TripDTOs;
 import com.example.domain.entities.Bus;
 import com.example.domain.entities.Route;
+import com.example.domain.entities.Stop;
 import com.example.domain.entities.Trip;
+import com.example.domain.enums.FareRulePassengerType;
+import com.example.domain.enums.TripStatus;
 import com.example.domain.repositories.BusRepository;
+import com.example.domain.repositories.FareCalendarTrip;
 import com.example.domain.repositories.RouteRepository;
+import com.example.domain.repositories.StopRepository;
 import com.example.domain.repositories.TripRepository;
 import com.example.exceptions.NotFoundException;
+import com.example.metrics.DailyRollupService;
+import com.example.services.extra.DynamicPricingEngine;
+import com.example.services.extra.JourneyPlanner;
+import com.example.services.extra.RouteStopPairIndex;
+import com.example.services.extra.SeatInventoryService;
+import com.example.services.extra.TripSearchCache;
+import com.example.services.extra.TripSeatInventory;
 import com.example.services.implementations.TripServiceImpl;
+import com.example.services.mappers.RouteMapper;
+import com.example.services.mappers.StopMapper;
 import com.example.services.mappers.TripMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,12 +34,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +64,33 @@ class TripServiceTest {
     @Mock
     private BusRepository busRepository;
 
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
+    @Mock
+    private StopRepository stopRepository;
+
+    @Mock
+    private RouteMapper routeMapper;
+
+    @Mock
+    private StopMapper stopMapper;
+
+    @Mock
+    private RouteStopPairIndex routeStopPairIndex;
+
+    @Mock
+    private TripSearchCache tripSearchCache;
+
+    @Mock
+    private JourneyPlanner journeyPlanner;
+
+    @Mock
+    private DynamicPricingEngine dynamicPricingEngine;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
+
     @InjectMocks
     private TripServiceImpl tripService;
 
@@ -54,6 +103,11 @@ class TripServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(seatInventoryService.getInventory(anyLong()))
+                .thenReturn(new TripSeatInventory(1L, 1L, 1L, 40, new int[] { 0, 1, 2 }));
+        lenient().when(dynamicPricingEngine.quote(any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), any()))
+                .thenReturn(new DynamicPricingEngine.Quote(1, 50.0));
+
         route = Route.builder().id(1L).name("Test Route").build();
         bus = Bus.builder().id(1L).plate("ABC123").build();
 
@@ -66,6 +120,10 @@ class TripServiceTest {
         tripResponse = new TripDTOs.TripResponse(1L, 1L, 1L, LocalDateTime.now(), LocalDateTime.now().plusHours(2));
         createRequest = new TripDTOs.CreateTripRequest(1L, 1L, LocalDateTime.now(), LocalDateTime.now().plusHours(2));
         updateRequest = new TripDTOs.UpdateTripRequest(1L, 1L, LocalDateTime.now(), LocalDateTime.now().plusHours(2));
+
+        // the cache always misses, searches run against the repositories
+        lenient().when(tripSearchCache.get(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<TripDTOs.TripSearchResponse>>getArgument(1).get());
     }
 
     @Test
@@ -130,6 +188,9 @@ class TripServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(tripRepository).save(trip);
+        verify(dailyRollupService).recordTrip(trip, -1);
+        verify(dailyRollupService).recordTrip(trip, 1);
+        verify(dailyRollupService).recordTripRouteChange(1L, 1L, 1L);
     }
 
     @Test
@@ -143,6 +204,32 @@ class TripServiceTest {
 
         // Then
         verify(tripRepository).delete(trip);
+        verify(dailyRollupService).recordTrip(trip, -1);
+    }
+
+    @Test
+    @DisplayName("Should record a reported arrival once and only after departure")
+    void shouldMarkTripArrived() {
+        // Given
+        trip.setStatus(TripStatus.DEPARTED);
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+        when(tripRepository.save(trip)).thenReturn(trip);
+        when(tripMapper.toResponse(trip)).thenReturn(tripResponse);
+
+        // When
+        tripService.markTripArrived(1L);
+
+        // Then
+        assertThat(trip.getStatus()).isEqualTo(TripStatus.ARRIVED);
+        assertThat(trip.getArrivedAt()).isNotNull();
+        verify(dailyRollupService).recordArrival(trip);
+        assertThatThrownBy(() -> tripService.markTripArrived(1L))
+                .isInstanceOf(IllegalStateException.class);
+
+        trip.setStatus(TripStatus.SCHEDULED);
+        trip.setArrivedAt(null);
+        assertThatThrownBy(() -> tripService.markTripArrived(1L))
+                .isInstanceOf(IllegalStateException.class);
     }
 
     @Test
@@ -208,4 +295,229 @@ class TripServiceTest {
         assertThat(results).hasSize(1);
         verify(tripRepository).findAll();
     }
+
+    @Test
+    @DisplayName("Should load the stops of every route in the search result with one query")
+    void shouldLoadSearchStopsInOneQuery() {
+        // Given
+        Route otherRoute = Route.builder().id(2L).name("Other Route").build();
+        Trip secondTrip = Trip.builder().id(2L).route(route).bus(bus).build();
+        Trip otherTrip = Trip.builder().id(3L).route(otherRoute).bus(bus).build();
+        Stop first = Stop.builder().id(10L).name("A").sequence(0).route(route).build();
+        Stop second = Stop.builder().id(11L).name("B").sequence(1).route(route).build();
+        Stop other = Stop.builder().id(20L).name("C").sequence(0).route(otherRoute).build();
+
+        when(tripRepository.searchAvailableTrips(eq("A"), eq("B"), any(), any(), isNull(), isNull(), eq(51)))
+                .thenReturn(List.of(trip, otherTrip, secondTrip));
+        when(tripMapper.toResponse(any(Trip.class))).thenReturn(tripResponse);
+        when(stopRepository.findByRouteIdsOrderBySequence(List.of(1L, 2L))).thenReturn(List.of(first, second, other));
+        when(routeMapper.toResponse(any(Route.class))).thenAnswer(invocation -> {
+            Route mapped = invocation.getArgument(0);
+            return new RouteDTOs.RouteResponse(mapped.getId(), null, mapped.getName(), null, null, null, null, null);
+        });
+        when(stopMapper.toResponse(any(Stop.class))).thenAnswer(invocation -> {
+            Stop mapped = invocation.getArgument(0);
+            return new StopDTOs.StopResponse(mapped.getId(), mapped.getName(), mapped.getSequence(), null, null,
+                    mapped.getRoute().getId());
+        });
+
+        // When
+        TripDTOs.TripSearchResponse result = tripService.searchTrips("A", "B", Optional.empty(), Optional.empty(),
+                Optional.empty());
+
+        // Then
+        assertThat(result.trips()).hasSize(3);
+        assertThat(result.routes()).extracting(RouteDTOs.RouteResponse::id).containsExactly(1L, 2L);
+        assertThat(result.stops()).extracting(StopDTOs.StopResponse::id).containsExactly(10L, 11L, 20L);
+        assertThat(result.nextCursor()).isNull();
+        verify(tripRepository, times(1)).searchAvailableTrips(any(), any(), any(), any(), any(), any(), anyInt());
+        verify(stopRepository, times(1)).findByRouteIdsOrderBySequence(any());
+        verify(stopRepository, never()).findByRoute_IdOrderBySequenceAsc(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should count seats left on the searched segment of every trip in one query")
+    void shouldCountSeatsLeftOnSearchedSegment() {
+        // Given
+        Route otherRoute = Route.builder().id(2L).name("Other Route").build();
+        Trip otherTrip = Trip.builder().id(3L).route(otherRoute).bus(bus).build();
+        Stop first = Stop.builder().id(10L).name("Bogotá").sequence(0).route(route).build();
+        Stop second = Stop.builder().id(11L).name("Tunja").sequence(2).route(route).build();
+        TripDTOs.TripResponse otherResponse = new TripDTOs.TripResponse(3L, 2L, 1L, LocalDateTime.now(),
+                LocalDateTime.now().plusHours(2));
+
+        when(tripRepository.searchAvailableTrips(eq("bogota"), eq("tunja"), any(), any(), isNull(), isNull(), eq(51)))
+                .thenReturn(List.of(trip, otherTrip));
+        when(tripMapper.toResponse(trip)).thenReturn(tripResponse);
+        when(tripMapper.toResponse(otherTrip)).thenReturn(otherResponse);
+        when(stopRepository.findByRouteIdsOrderBySequence(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(stopMapper.toResponse(any(Stop.class))).thenAnswer(invocation -> {
+            Stop mapped = invocation.getArgument(0);
+            return new StopDTOs.StopResponse(mapped.getId(), mapped.getName(), mapped.getSequence(), null, null,
+                    mapped.getRoute().getId());
+        });
+        TripSeatInventory fullerTrip = mock(TripSeatInventory.class);
+        when(fullerTrip.getCapacity()).thenReturn(40);
+        when(fullerTrip.takenSeats(eq(0), eq(2), anyLong())).thenReturn(28);
+        TripSeatInventory emptyTrip = mock(TripSeatInventory.class);
+        when(emptyTrip.getCapacity()).thenReturn(40);
+        when(emptyTrip.takenSeats(eq(Integer.MIN_VALUE), eq(Integer.MAX_VALUE), anyLong())).thenReturn(0);
+        when(seatInventoryService.getInventory(1L)).thenReturn(fullerTrip);
+        when(seatInventoryService.getInventory(3L)).thenReturn(emptyTrip);
+        when(dynamicPricingEngine.quote(eq(1L), eq(0), eq(2), any(), eq(40), eq(28),
+                eq(FareRulePassengerType.ADULT)))
+                .thenReturn(new DynamicPricingEngine.Quote(3, 66.0));
+        when(dynamicPricingEngine.quote(eq(2L), eq(Integer.MIN_VALUE), eq(Integer.MAX_VALUE), any(), eq(40),
+                eq(0), eq(FareRulePassengerType.ADULT)))
+                .thenReturn(new DynamicPricingEngine.Quote(1, 50.0));
+
+        // When
+        TripDTOs.TripSearchResponse result = tripService.searchTrips("bogota", "tunja", Optional.empty(),
+                Optional.empty(), Optional.empty());
+
+        // Then
+        assertThat(result.seatsLeft()).containsEntry(1L, 12).containsEntry(3L, 40);
+        assertThat(result.fares()).containsEntry(1L, 66.0).containsEntry(3L, 50.0);
+        // route 1 matched on its stops, route 2 on its ends, neither counted in the database
+        verify(fullerTrip).takenSeats(eq(0), eq(2), anyLong());
+        verify(emptyTrip).takenSeats(eq(Integer.MIN_VALUE), eq(Integer.MAX_VALUE), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should page search results with a keyset cursor")
+    void shouldPageSearchResultsWithCursor() {
+        // Given
+        LocalDateTime departure = LocalDateTime.of(2030, 1, 10, 8, 0);
+        Trip first = Trip.builder().id(7L).route(route).bus(bus).departureAt(departure).build();
+        Trip second = Trip.builder().id(9L).route(route).bus(bus).departureAt(departure).build();
+        Trip third = Trip.builder().id(4L).route(route).bus(bus).departureAt(departure.plusHours(1)).build();
+        when(tripRepository.searchAvailableTrips(eq("A"), eq("B"), any(), any(), isNull(), isNull(), eq(3)))
+                .thenReturn(List.of(first, second, third));
+        when(tripRepository.searchAvailableTrips(eq("A"), eq("B"), any(), any(), eq(departure), eq(9L), eq(3)))
+                .thenReturn(List.of(third));
+        when(tripMapper.toResponse(any(Trip.class))).thenReturn(tripResponse);
+
+        // When
+        TripDTOs.TripSearchResponse page = tripService.searchTrips("A", "B", Optional.empty(), Optional.empty(),
+                Optional.of(2));
+        TripDTOs.TripSearchResponse next = tripService.searchTrips("A", "B", Optional.empty(),
+                Optional.of(page.nextCursor()), Optional.of(2));
+
+        // Then
+        assertThat(page.trips()).hasSize(2);
+        assertThat(page.nextCursor()).isNotNull();
+        assertThat(next.trips()).hasSize(1);
+        assertThat(next.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should cap the search page size and reject broken cursors")
+    void shouldValidateSearchPaging() {
+        when(tripRepository.searchAvailableTrips(any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(List.of());
+
+        tripService.searchTrips("A", "B", Optional.empty(), Optional.empty(), Optional.of(10_000));
+        verify(tripRepository).searchAvailableTrips(any(), any(), any(), any(), isNull(), isNull(), eq(201));
+
+        assertThatThrownBy(() -> tripService.searchTrips("A", "B", Optional.empty(), Optional.of("not-a-cursor"),
+                Optional.empty()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid search cursor");
+    }
+
+    @Test
+    @DisplayName("Should search by stop pair through the route index")
+    void shouldSearchTripsByStops() {
+        // Given
+        when(routeStopPairIndex.containsStop(anyLong())).thenReturn(true);
+        when(routeStopPairIndex.findPairs(10L, 12L)).thenReturn(List.of(
+                new RouteStopPairIndex.RouteStopPair(1L, 10L, 12L, 0, 2),
+                new RouteStopPairIndex.RouteStopPair(1L, 10L, 13L, 0, 3)));
+        when(tripRepository.findUpcomingByRouteIds(eq(List.of(1L)), any(), any(), any(), any(), eq(0L), any()))
+                .thenReturn(List.of(trip));
+        when(tripMapper.toResponse(trip)).thenReturn(tripResponse);
+
+        // When
+        TripDTOs.TripSearchResponse result = tripService.searchTripsByStops(10L, 12L, Optional.empty(),
+                Optional.empty(), Optional.empty());
+
+        // Then
+        assertThat(result.trips()).containsExactly(tripResponse);
+        assertThat(result.nextCursor()).isNull();
+        verify(tripRepository, never()).searchAvailableTrips(any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should throw NotFoundException when a searched stop is unknown")
+    void shouldRejectUnknownStopInStopSearch() {
+        when(routeStopPairIndex.containsStop(10L)).thenReturn(false);
+
+        assertThatThrownBy(() -> tripService.searchTripsByStops(10L, 12L, Optional.empty(), Optional.empty(),
+                Optional.empty()))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Stop 10 not found");
+    }
+
+    @Test
+    @DisplayName("Should build the fare calendar from one query and fill empty days")
+    void shouldBuildFareCalendar() {
+        // Given
+        LocalDate today = LocalDate.now();
+        LocalDateTime morning = today.plusDays(1).atTime(8, 0);
+        LocalDateTime evening = today.plusDays(1).atTime(18, 0);
+        when(tripRepository.findFareCalendar(eq("Bogota"), eq("Tunja"), eq(today.atStartOfDay()),
+                eq(today.plusDays(3).atStartOfDay()), any()))
+                .thenReturn(List.of(
+                        new FareCalendarTrip(today.plusDays(1), 1L, morning, 40, 10),
+                        new FareCalendarTrip(today.plusDays(1), 1L, evening, 30, 9)));
+        when(stopRepository.findByRouteIdsOrderBySequence(List.of(1L))).thenReturn(List.of());
+        when(dynamicPricingEngine.quote(1L, Integer.MIN_VALUE, Integer.MAX_VALUE, morning, 40, 10,
+                FareRulePassengerType.ADULT)).thenReturn(new DynamicPricingEngine.Quote(2, 49500.0));
+        when(dynamicPricingEngine.quote(1L, Integer.MIN_VALUE, Integer.MAX_VALUE, evening, 30, 9,
+                FareRulePassengerType.ADULT)).thenReturn(new DynamicPricingEngine.Quote(1, 45000.0));
+
+        // When
+        List<TripDTOs.FareCalendarDay> result = tripService.getFareCalendar("Bogota", "Tunja",
+                Optional.of(today.minusDays(5)), Optional.of(3));
+
+        // Then
+        assertThat(result).containsExactly(
+                new TripDTOs.FareCalendarDay(today, 0L, null, 0L),
+                new TripDTOs.FareCalendarDay(today.plusDays(1), 2L, 45000.0, 51L),
+                new TripDTOs.FareCalendarDay(today.plusDays(2), 0L, null, 0L));
+        verify(tripRepository, times(1)).findFareCalendar(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should show an empty trip at the fare the engine quotes on the searched segment")
+    void shouldQuoteFareCalendarLikeTheSearch() {
+        // Given
+        LocalDate day = LocalDate.now().plusDays(3);
+        LocalDateTime departure = day.atTime(9, 0);
+        when(tripRepository.findFareCalendar(eq("Tunja"), eq("Bucaramanga"), any(), any(), any()))
+                .thenReturn(List.of(new FareCalendarTrip(day, 1L, departure, 40, 0)));
+        Stop tunja = Stop.builder().id(11L).name("Tunja").sequence(1).route(route).build();
+        Stop bucaramanga = Stop.builder().id(12L).name("Bucaramanga").sequence(2).route(route).build();
+        when(stopRepository.findByRouteIdsOrderBySequence(List.of(1L))).thenReturn(List.of(tunja, bucaramanga));
+        when(stopMapper.toResponse(tunja)).thenReturn(new StopDTOs.StopResponse(11L, "Tunja", 1, 5.53, -73.36, 1L));
+        when(stopMapper.toResponse(bucaramanga))
+                .thenReturn(new StopDTOs.StopResponse(12L, "Bucaramanga", 2, 7.12, -73.12, 1L));
+        when(dynamicPricingEngine.quote(1L, 1, 2, departure, 40, 0, FareRulePassengerType.ADULT))
+                .thenReturn(new DynamicPricingEngine.Quote(DynamicPricingEngine.BASE_STEP, 32000.0));
+
+        // When
+        List<TripDTOs.FareCalendarDay> result = tripService.getFareCalendar("Tunja", "Bucaramanga",
+                Optional.of(day), Optional.of(1));
+
+        // Then
+        assertThat(result).containsExactly(new TripDTOs.FareCalendarDay(day, 1L, 32000.0, 40L));
+    }
+
+    @Test
+    @DisplayName("Should reject a fare calendar longer than 90 days")
+    void shouldRejectLongFareCalendar() {
+        assertThatThrownBy(() -> tripService.getFareCalendar("A", "B", Optional.empty(), Optional.of(91)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between 1 and 90");
+    }
 }